@@ -4,24 +4,35 @@ import controller.commands.CompressionHelper;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 import java.util.function.Function;
 
+import controller.commands.BilateralHelper;
 import controller.commands.BlurHelper;
 import controller.commands.BrightenHelper;
+import controller.commands.ChannelMixHelper;
 import controller.commands.ColorComponentHelper;
 import controller.commands.ColorCorrectHelper;
+import controller.commands.ConvolveHelper;
+import controller.commands.CropHelper;
 import controller.commands.FlipImageHelper;
+import controller.commands.FusedCommandHelper;
+import controller.commands.GaussianBlurHelper;
 import controller.commands.HistogramHelper;
 import controller.commands.IOHelper;
 import controller.commands.ImageChannelsHelper;
 import controller.commands.LevelAdjustmentHelper;
+import controller.commands.MedianHelper;
 import controller.commands.RGBCombineHelper;
 import controller.commands.RGBSplitHelper;
 import controller.commands.SepiaHelper;
 import controller.commands.SharpenHelper;
+import controller.commands.UnsharpHelper;
 import model.Model;
 
 
@@ -32,9 +43,14 @@ import model.Model;
 
 public class ControllerImpl implements Controller {
 
+  // More tokens than any command takes, so a command is always parsed from the window of tokens
+  // after its name
+  private static final int MAX_COMMAND_TOKENS = 16;
+
   private final Readable in;
   private final Appendable out;
   private Scanner scan;
+  private Script script;
 
   /**
    * Constructs a ControllerImpl with the specified input and output streams.
@@ -56,7 +72,7 @@ public class ControllerImpl implements Controller {
   public void execute(Model model, String[] args) throws IOException {
     if (args.length > 1 && args[0].equalsIgnoreCase("-file")) {
       try {
-        scan = new Scanner(new File(args[1]));
+        script = readScript(args[1]);
       } catch (FileNotFoundException e) {
         throw new IOException("Error: Script file not found.");
       }
@@ -137,6 +153,56 @@ public class ControllerImpl implements Controller {
       }
       return new BlurHelper(imageName, destImageName, percentage);
     });
+    knownCommands.put("gaussian-blur", (Scanner s) -> {
+      double sigma = s.nextDouble();
+      String imageName = s.next();
+      String destImageName = s.next();
+      double percentage = 100;
+      if (s.hasNext("split")) {
+        s.next();
+        percentage = s.nextDouble();
+      }
+      return new GaussianBlurHelper(sigma, imageName, destImageName, percentage);
+    });
+    knownCommands.put("convolve", (Scanner s) -> {
+      String kernelFile = s.next();
+      String imageName = s.next();
+      String destImageName = s.next();
+      double percentage = 100;
+      if (s.hasNext("split")) {
+        s.next();
+        percentage = s.nextDouble();
+      }
+      return new ConvolveHelper(kernelFile, imageName, destImageName, percentage);
+    });
+    knownCommands.put("median", (Scanner s) -> {
+      return new MedianHelper(s.nextInt(), s.next(), s.next());
+    });
+    knownCommands.put("bilateral", (Scanner s) -> {
+      double sigmaSpace = s.nextDouble();
+      double sigmaRange = s.nextDouble();
+      String imageName = s.next();
+      String destImageName = s.next();
+      double percentage = 100;
+      if (s.hasNext("split")) {
+        s.next();
+        percentage = s.nextDouble();
+      }
+      return new BilateralHelper(sigmaSpace, sigmaRange, imageName, destImageName, percentage);
+    });
+    knownCommands.put("unsharp", (Scanner s) -> {
+      double radius = s.nextDouble();
+      double amount = s.nextDouble();
+      int threshold = s.nextInt();
+      String imageName = s.next();
+      String destImageName = s.next();
+      double percentage = 100;
+      if (s.hasNext("split")) {
+        s.next();
+        percentage = s.nextDouble();
+      }
+      return new UnsharpHelper(radius, amount, threshold, imageName, destImageName, percentage);
+    });
     knownCommands.put("sharpen", (Scanner s) -> {
       String imageName = s.next();
       String destImageName = s.next();
@@ -157,6 +223,22 @@ public class ControllerImpl implements Controller {
       }
       return new SepiaHelper(imageName, destImageName, percentage);
     });
+    knownCommands.put("channel-mix", (Scanner s) -> {
+      double[][] matrix = new double[3][3];
+      for (int i = 0; i < 3; i++) {
+        for (int k = 0; k < 3; k++) {
+          matrix[i][k] = s.nextDouble();
+        }
+      }
+      String imageName = s.next();
+      String destImageName = s.next();
+      double percentage = 100;
+      if (s.hasNext("split")) {
+        s.next();
+        percentage = s.nextDouble();
+      }
+      return new ChannelMixHelper(matrix, imageName, destImageName, percentage);
+    });
     knownCommands.put("compress", (Scanner s) -> {
       return new CompressionHelper(s.nextDouble(), s.next(), s.next());
     });
@@ -187,6 +269,15 @@ public class ControllerImpl implements Controller {
       return new LevelAdjustmentHelper(shadow, mid, highlight, imageName, destImageName,
           percentage);
     });
+    knownCommands.put("crop", (Scanner s) -> {
+      return new CropHelper(s.nextInt(), s.nextInt(), s.nextInt(), s.nextInt(), s.next(),
+          s.next());
+    });
+
+    if (script != null) {
+      executeScript(model, knownCommands);
+      return;
+    }
 
     while (scan.hasNext()) {
       CommandDesign c;
@@ -197,8 +288,9 @@ public class ControllerImpl implements Controller {
       }
       if (command.equals("run")) {
         String script_file = scan.next();
-        scan = new Scanner(new File(script_file));
-        continue;
+        script = readScript(script_file);
+        executeScript(model, knownCommands);
+        return;
       }
       System.out.println(command);
 
@@ -215,4 +307,167 @@ public class ControllerImpl implements Controller {
       }
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Executes a script. Unlike commands typed in one at a time, the whole script is parsed before
+   * any of it runs, so runs of per-pixel and filter commands (blur, sharpen and convolve) can be
+   * fused: when such a command reads the image the one before it wrote, and that image is not
+   * named again before the script stops, the two are applied in a single pass and the image
+   * between them is never made. Parsing
+   * stops at quit, at an unknown command or at a command that cannot be parsed, and the commands
+   * before that point are run before the error is reported, as they would have been one at a time.
+   */
+  private void executeScript(Model model,
+                             Map<String, Function<Scanner, CommandDesign>> knownCommands)
+      throws IOException {
+    List<ScriptCommand> commands = new ArrayList<>();
+    boolean invalid = false;
+    RuntimeException failure = null;
+    int k = 0;
+    try {
+      while (k < script.tokens.size()) {
+        String command = script.tokens.get(k);
+        if (command.startsWith("#")) {
+          int line = script.lines.get(k);
+          while (k < script.tokens.size() && script.lines.get(k) == line) {
+            k++;
+          }
+          continue;
+        }
+        if (command.equals("run")) {
+          if (k + 1 >= script.tokens.size()) {
+            throw new NoSuchElementException();
+          }
+          // The rest of this script is dropped for the one it runs
+          script.append(k, readScript(script.tokens.get(k + 1)));
+          continue;
+        }
+        if (command.equalsIgnoreCase("q") || command.equalsIgnoreCase("quit")) {
+          break;
+        }
+        Function<Scanner, CommandDesign> cmd = knownCommands.getOrDefault(command, null);
+        if (cmd == null) {
+          invalid = true;
+          break;
+        }
+        int end = Math.min(script.tokens.size(), k + 1 + MAX_COMMAND_TOKENS);
+        Scanner arguments = new Scanner(String.join(" ", script.tokens.subList(k + 1, end)));
+        CommandDesign c = cmd.apply(arguments);
+        int unused = 0;
+        while (arguments.hasNext()) {
+          arguments.next();
+          unused++;
+        }
+        commands.add(new ScriptCommand(command, c, end - unused));
+        k = end - unused;
+      }
+    } catch (RuntimeException e) {
+      failure = e;
+    }
+    // Only the tokens that were parsed can name an image that is used
+    List<String> used = script.tokens.subList(0, Math.min(k, script.tokens.size()));
+
+    for (int i = 0; i < commands.size(); i++) {
+      int last = i;
+      while (last + 1 < commands.size()
+          && canFuse(commands.get(last), commands.get(last + 1), used)) {
+        last++;
+      }
+      if (last == i) {
+        System.out.println(commands.get(i).name);
+        commands.get(i).command.execute(model);
+        continue;
+      }
+      List<FusibleCommand> run = new ArrayList<>();
+      for (int j = i; j <= last; j++) {
+        System.out.println(commands.get(j).name);
+        run.add((FusibleCommand) commands.get(j).command);
+      }
+      new FusedCommandHelper(run).execute(model);
+      i = last;
+    }
+
+    if (failure != null) {
+      throw failure;
+    }
+    if (invalid) {
+      this.out.append("Invalid Input \n");
+    }
+  }
+
+  /**
+   * Tells whether a command can be fused with the one after it: both are pixel or filter
+   * commands, the second reads what the first wrote, and no used token after the second names that
+   * image.
+   */
+  private static boolean canFuse(ScriptCommand first, ScriptCommand second, List<String> used) {
+    if (!(first.command instanceof FusibleCommand)
+        || !(second.command instanceof FusibleCommand)) {
+      return false;
+    }
+    FusibleCommand writer = (FusibleCommand) first.command;
+    FusibleCommand reader = (FusibleCommand) second.command;
+    if (!writer.isFusible() || !reader.isFusible()
+        || !reader.getImageName().equals(writer.getDestImageName())) {
+      return false;
+    }
+    return !used.subList(second.end, used.size()).contains(writer.getDestImageName());
+  }
+
+  /**
+   * Reads the tokens of a script file, with the line each is on.
+   */
+  private static Script readScript(String path) throws FileNotFoundException {
+    Script read = new Script();
+    try (Scanner lines = new Scanner(new File(path))) {
+      int line = 0;
+      while (lines.hasNextLine()) {
+        Scanner tokens = new Scanner(lines.nextLine());
+        while (tokens.hasNext()) {
+          read.tokens.add(tokens.next());
+          read.lines.add(line);
+        }
+        line++;
+      }
+    }
+    return read;
+  }
+
+  /**
+   * The tokens of a script, and the line of each, so a comment can be skipped to the end of its
+   * line.
+   */
+  private static final class Script {
+    private final List<String> tokens = new ArrayList<>();
+    private final List<Integer> lines = new ArrayList<>();
+
+    /**
+     * Replaces the tokens from an index on with those of another script, whose lines are
+     * numbered after these.
+     */
+    void append(int index, Script other) {
+      int firstLine = this.lines.isEmpty() ? 0 : this.lines.get(this.lines.size() - 1) + 1;
+      this.tokens.subList(index, this.tokens.size()).clear();
+      this.lines.subList(index, this.lines.size()).clear();
+      this.tokens.addAll(other.tokens);
+      for (int line : other.lines) {
+        this.lines.add(firstLine + line);
+      }
+    }
+  }
+
+  /**
+   * A parsed command of a script, with the index of the token after its last argument.
+   */
+  private static final class ScriptCommand {
+    private final String name;
+    private final CommandDesign command;
+    private final int end;
+
+    ScriptCommand(String name, CommandDesign command, int end) {
+      this.name = name;
+      this.command = command;
+      this.end = end;
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package controller;
+
+import java.io.IOException;
+
+import model.filter.ImageFilters;
+
+/**
+ * A command that convolves one image with a kernel and stores the result under another name. In
+ * a fused script run its filter becomes a stage of the pipeline, which convolves rows from a line
+ * buffer as they arrive.
+ */
+public interface FilterCommand extends FusibleCommand {
+
+  /**
+   * Gets the filter the command applies, giving the same result as executing it.
+   *
+   * @return The filter.
+   * @throws IOException              If the kernel of the filter cannot be read.
+   * @throws IllegalArgumentException If the arguments of the command are invalid.
+   */
+  ImageFilters toFilter() throws IOException;
+}
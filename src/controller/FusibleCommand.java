@@ -0,0 +1,32 @@
+package controller;
+
+/**
+ * A command that reads one image and stores its result under another name, and that a script can
+ * fuse with its neighbours into a single ImagePipeline. A script run of such commands, each
+ * reading the image the one before it wrote, streams rows from the first image to the last
+ * without making the images in between.
+ */
+public interface FusibleCommand extends CommandDesign {
+
+  /**
+   * Gets the name of the image the command reads.
+   *
+   * @return The name of the source image.
+   */
+  String getImageName();
+
+  /**
+   * Gets the name the command stores its result under.
+   *
+   * @return The name of the destination image.
+   */
+  String getDestImageName();
+
+  /**
+   * Tells whether the command, with its arguments, can be fused with its neighbours. A command
+   * previewing its effect on part of the image cannot.
+   *
+   * @return True if the command can be fused.
+   */
+  boolean isFusible();
+}
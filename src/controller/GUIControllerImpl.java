@@ -6,8 +6,8 @@ import controller.handler.PNGFileHandler;
 import controller.handler.PPMFileHandler;
 import java.util.HashSet;
 import model.ModelGUI;
-import model.customimage.CustomImage;
 import model.customimage.Image;
+import model.customimage.RasterImage;
 import view.View;
 
 import java.awt.image.BufferedImage;
@@ -61,6 +61,7 @@ public class GUIControllerImpl implements GuiController {
     buttonActions.put("horizontalFlip", this::handleHorizontalFlipButtonClick);
     buttonActions.put("original", this::handleOriginalButtonClick);
     buttonActions.put("blur", this::handleBlurButtonClick);
+    buttonActions.put("gaussianBlur", this::handleGaussianBlurButtonClick);
     buttonActions.put("sharpen", this::handleSharpenButtonClick);
     buttonActions.put("luma", this::handleLumaButtonClick);
     buttonActions.put("sepia", this::handleSepiaButtonClick);
@@ -219,8 +220,8 @@ public class GUIControllerImpl implements GuiController {
     }
     try {
       this.prevImage = this.image;
-      this.image = new CustomImage(originalImage.getHeight(), originalImage.getWidth());
-      this.image.setPixelValuesFromBufferedImage(this.originalImage);
+      // Operations never write into their input, so the original pixels can be shared
+      this.image = RasterImage.fromBufferedImage(this.originalImage);
     } catch (Exception e) {
       this.view.showErrorMessage(e.getMessage());
       throw new RuntimeException(e);
@@ -247,6 +248,26 @@ public class GUIControllerImpl implements GuiController {
     this.prevCommand = "blur";
   }
 
+  private void handleGaussianBlurButtonClick() {
+    if (this.splitToggle) {
+      this.view.showWarningMessage(
+          "Please toggle the Split Image Button before doing any operation");
+      return;
+    }
+    String stringSigma = view.getInput("Please enter the Gaussian Blur Sigma");
+    Double sigma = Double.parseDouble(stringSigma);
+    try {
+      this.model.gaussianBlur(sigma, "", "", 100);
+      this.prevImage = this.image;
+      this.image = model.getCurrentImage();
+    } catch (Exception e) {
+      this.view.showErrorMessage(e.getMessage());
+      throw new RuntimeException(e);
+    }
+    this.view.displayImage(this.image.convertMatrixToImage());
+    this.prevCommand = "gaussianBlur";
+  }
+
   private void handleSharpenButtonClick() {
     if (this.splitToggle) {
       this.view.showWarningMessage(
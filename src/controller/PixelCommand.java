@@ -0,0 +1,20 @@
+package controller;
+
+import model.pipeline.PixelOperation;
+
+/**
+ * A command that maps every pixel of one image to a new value from that pixel alone and stores
+ * the result under another name. A script run of such commands, each reading the image the one
+ * before it wrote, can be fused into a single traversal of the image.
+ */
+public interface PixelCommand extends FusibleCommand {
+
+  /**
+   * Gets the operation the command applies to every pixel, giving the same result as executing
+   * it.
+   *
+   * @return The pixel operation.
+   * @throws IllegalArgumentException If the arguments of the command are invalid.
+   */
+  PixelOperation toPixelOperation();
+}
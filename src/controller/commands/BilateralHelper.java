@@ -0,0 +1,48 @@
+package controller.commands;
+
+import java.io.IOException;
+
+import controller.CommandDesign;
+import model.Model;
+
+/**
+ * A command class for applying an edge-preserving bilateral filter based on a given model.
+ * This class smooths a source image and saves the result to a destination image.
+ */
+public class BilateralHelper implements CommandDesign {
+
+  private final double sigmaSpace;
+  private final double sigmaRange;
+  private final String imageName;
+  private final String destImageName;
+  private final double percentage;
+
+  /**
+   * Initializes a new `BilateralHelper` instance with the provided sigmas and image filenames.
+   *
+   * @param sigmaSpace    The spatial standard deviation, in pixels.
+   * @param sigmaRange    The range standard deviation, in levels of luma from 0 to 255.
+   * @param imageName     The name of the source image to be filtered.
+   * @param destImageName The name of the destination image where the result will be saved.
+   * @param percentage    The percentage of splitting.
+   */
+  public BilateralHelper(double sigmaSpace, double sigmaRange, String imageName,
+                         String destImageName, double percentage) {
+    this.sigmaSpace = sigmaSpace;
+    this.sigmaRange = sigmaRange;
+    this.imageName = imageName;
+    this.destImageName = destImageName;
+    this.percentage = percentage;
+  }
+
+  /**
+   * Executes the bilateral filter action on the provided model.
+   *
+   * @param model The model on which the bilateral filter action will be executed.
+   * @throws IOException If an IO exception occurs during the action.
+   */
+  @Override
+  public void execute(Model model) throws IOException {
+    model.bilateral(sigmaSpace, sigmaRange, imageName, destImageName, percentage);
+  }
+}
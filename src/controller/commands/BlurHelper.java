@@ -2,14 +2,16 @@ package controller.commands;
 
 import java.io.IOException;
 
-import controller.CommandDesign;
+import controller.FilterCommand;
 import model.Model;
+import model.filter.BlurImage;
+import model.filter.ImageFilters;
 
 /**
  * A command class for blurring images based on a given model.
  * This class applies a blur effect to a source image and saves the result to a destination image.
  */
-public class BlurHelper implements CommandDesign {
+public class BlurHelper implements FilterCommand {
 
   private final String imageName;
   private final String destImageName;
@@ -39,4 +41,45 @@ public class BlurHelper implements CommandDesign {
   public void execute(Model model) throws IOException {
     model.blur(imageName, destImageName, percentage);
   }
+
+  /**
+   * Gets the name of the image the command reads.
+   *
+   * @return The name of the source image.
+   */
+  @Override
+  public String getImageName() {
+    return imageName;
+  }
+
+  /**
+   * Gets the name the command stores its result under.
+   *
+   * @return The name of the destination image.
+   */
+  @Override
+  public String getDestImageName() {
+    return destImageName;
+  }
+
+  /**
+   * Tells whether the command can be fused with its neighbours, which it can unless it previews
+   * on part of the image.
+   *
+   * @return True if the command is not a split preview.
+   */
+  @Override
+  public boolean isFusible() {
+    return percentage == 100;
+  }
+
+  /**
+   * Gets the filter the command applies, which is the 3x3 blur filter.
+   *
+   * @return The filter.
+   */
+  @Override
+  public ImageFilters toFilter() {
+    return new BlurImage();
+  }
 }
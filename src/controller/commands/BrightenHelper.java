@@ -2,15 +2,19 @@ package controller.commands;
 
 import java.io.IOException;
 
-import controller.CommandDesign;
+import controller.PixelCommand;
 import model.Model;
+import model.pipeline.PixelOperation;
+import model.processor.brightness.AbstractBrightnessController;
+import model.processor.brightness.Brighten;
+import model.processor.brightness.Darken;
 
 /**
  * A command class for brightening images based on a given model.
  * This class applies a brightening effect to a source image and saves
  * the result to a destination image.
  */
-public class BrightenHelper implements CommandDesign {
+public class BrightenHelper implements PixelCommand {
 
   private final int integerConstant;
   private final String imageName;
@@ -38,4 +42,47 @@ public class BrightenHelper implements CommandDesign {
   public void execute(Model model) throws IOException {
     model.brightenImage(integerConstant, imageName, destImageName);
   }
+
+  /**
+   * Gets the name of the image the command reads.
+   *
+   * @return The name of the source image.
+   */
+  @Override
+  public String getImageName() {
+    return imageName;
+  }
+
+  /**
+   * Gets the name the command stores its result under.
+   *
+   * @return The name of the destination image.
+   */
+  @Override
+  public String getDestImageName() {
+    return destImageName;
+  }
+
+  /**
+   * Tells whether the command can be fused with its neighbours.
+   *
+   * @return True, since the command works on each pixel alone.
+   */
+  @Override
+  public boolean isFusible() {
+    return true;
+  }
+
+  /**
+   * Gets the operation the command applies to every pixel.
+   *
+   * @return The pixel operation.
+   */
+  @Override
+  public PixelOperation toPixelOperation() {
+    // The same choice of adjustment as the model's brightenImage
+    AbstractBrightnessController imageBrightness = (integerConstant >= 0) ? new Brighten()
+        : new Darken();
+    return imageBrightness.toPixelOperation(integerConstant);
+  }
 }
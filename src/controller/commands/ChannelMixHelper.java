@@ -0,0 +1,89 @@
+package controller.commands;
+
+import java.io.IOException;
+
+import controller.PixelCommand;
+import model.Model;
+import model.colortransform.ChannelMix;
+import model.pipeline.PixelOperation;
+
+/**
+ * A command class for mixing the channels of images based on a given model.
+ * This class applies a 3x3 channel mix to a source image and saves the result to a destination
+ * image.
+ */
+public class ChannelMixHelper implements PixelCommand {
+
+  private final double[][] matrix;
+  private final String imageName;
+  private final String destImageName;
+  private final double percentage;
+
+  /**
+   * Initializes a new `ChannelMixHelper` instance with the provided parameters.
+   *
+   * @param matrix        The 3x3 matrix, with a row for each output channel.
+   * @param imageName     The name of the source image to be mixed.
+   * @param destImageName The name of the destination image where the result will be saved.
+   * @param percentage    The percentage of splitting.
+   */
+  public ChannelMixHelper(double[][] matrix, String imageName, String destImageName,
+                          double percentage) {
+    this.matrix = matrix;
+    this.imageName = imageName;
+    this.destImageName = destImageName;
+    this.percentage = percentage;
+  }
+
+  /**
+   * Executes the channel mix action on the provided model.
+   *
+   * @param model The model on which the channel mix action will be executed.
+   * @throws IOException If an IO exception occurs during the action.
+   */
+  @Override
+  public void execute(Model model) throws IOException {
+    model.channelMix(matrix, imageName, destImageName, percentage);
+  }
+
+  /**
+   * Gets the name of the image the command reads.
+   *
+   * @return The name of the source image.
+   */
+  @Override
+  public String getImageName() {
+    return imageName;
+  }
+
+  /**
+   * Gets the name the command stores its result under.
+   *
+   * @return The name of the destination image.
+   */
+  @Override
+  public String getDestImageName() {
+    return destImageName;
+  }
+
+  /**
+   * Tells whether the command can be fused with its neighbours, which it can unless it previews
+   * on part of the image.
+   *
+   * @return True if the command is not a split preview.
+   */
+  @Override
+  public boolean isFusible() {
+    return percentage == 100;
+  }
+
+  /**
+   * Gets the operation the command applies to every pixel.
+   *
+   * @return The pixel operation.
+   */
+  @Override
+  public PixelOperation toPixelOperation() {
+    return new ChannelMix(matrix);
+  }
+}
@@ -2,15 +2,19 @@ package controller.commands;
 
 import java.io.IOException;
 
-import controller.CommandDesign;
+import controller.PixelCommand;
 import model.Model;
+import model.pipeline.PixelOperation;
+import model.processor.colorcomponent.Blue;
+import model.processor.colorcomponent.Green;
+import model.processor.colorcomponent.Red;
 
 /**
  * A command class for colorComponent of images based on a given model.
  * This class gives the RGB images of a source image and saves
  * the result to a destination image.
  */
-public class ColorComponentHelper implements CommandDesign {
+public class ColorComponentHelper implements PixelCommand {
 
   private final String command;
   private final String imageName;
@@ -45,4 +49,50 @@ public class ColorComponentHelper implements CommandDesign {
       model.blueComponent(this.imageName, this.destImageName);
     }
   }
+
+  /**
+   * Gets the name of the image the command reads.
+   *
+   * @return The name of the source image.
+   */
+  @Override
+  public String getImageName() {
+    return imageName;
+  }
+
+  /**
+   * Gets the name the command stores its result under.
+   *
+   * @return The name of the destination image.
+   */
+  @Override
+  public String getDestImageName() {
+    return destImageName;
+  }
+
+  /**
+   * Tells whether the command can be fused with its neighbours.
+   *
+   * @return True, since the command works on each pixel alone.
+   */
+  @Override
+  public boolean isFusible() {
+    return true;
+  }
+
+  /**
+   * Gets the operation the command applies to every pixel.
+   *
+   * @return The pixel operation.
+   */
+  @Override
+  public PixelOperation toPixelOperation() {
+    if (command.equals("red-component")) {
+      return new Red().toPointOperation();
+    } else if (command.equals("green-component")) {
+      return new Green().toPointOperation();
+    } else {
+      return new Blue().toPointOperation();
+    }
+  }
 }
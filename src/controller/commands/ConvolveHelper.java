@@ -0,0 +1,89 @@
+package controller.commands;
+
+import java.io.IOException;
+
+import controller.FilterCommand;
+import model.Model;
+import model.filter.ImageFilters;
+import model.filter.KernelFilter;
+
+/**
+ * A command class for convolving images with a kernel from a file based on a given model.
+ * This class convolves a source image and saves the result to a destination image.
+ */
+public class ConvolveHelper implements FilterCommand {
+
+  private final String kernelFile;
+  private final String imageName;
+  private final String destImageName;
+  private final double percentage;
+
+  /**
+   * Initializes a new `ConvolveHelper` instance with the provided kernel file and image filenames.
+   *
+   * @param kernelFile    The path of the kernel file.
+   * @param imageName     The name of the source image to be convolved.
+   * @param destImageName The name of the destination image where the result will be saved.
+   * @param percentage    The percentage of splitting.
+   */
+  public ConvolveHelper(String kernelFile, String imageName, String destImageName,
+                        double percentage) {
+    this.kernelFile = kernelFile;
+    this.imageName = imageName;
+    this.destImageName = destImageName;
+    this.percentage = percentage;
+  }
+
+  /**
+   * Executes the convolve action on the provided model.
+   *
+   * @param model The model on which the convolve action will be executed.
+   * @throws IOException If the kernel file cannot be read.
+   */
+  @Override
+  public void execute(Model model) throws IOException {
+    model.convolve(kernelFile, imageName, destImageName, percentage);
+  }
+
+  /**
+   * Gets the name of the image the command reads.
+   *
+   * @return The name of the source image.
+   */
+  @Override
+  public String getImageName() {
+    return imageName;
+  }
+
+  /**
+   * Gets the name the command stores its result under.
+   *
+   * @return The name of the destination image.
+   */
+  @Override
+  public String getDestImageName() {
+    return destImageName;
+  }
+
+  /**
+   * Tells whether the command can be fused with its neighbours, which it can unless it previews
+   * on part of the image.
+   *
+   * @return True if the command is not a split preview.
+   */
+  @Override
+  public boolean isFusible() {
+    return percentage == 100;
+  }
+
+  /**
+   * Gets the filter the command applies, with the kernel read from the kernel file.
+   *
+   * @return The filter.
+   * @throws IOException If the kernel file cannot be read.
+   */
+  @Override
+  public ImageFilters toFilter() throws IOException {
+    return KernelFilter.read(kernelFile);
+  }
+}
@@ -0,0 +1,51 @@
+package controller.commands;
+
+import java.io.IOException;
+
+import controller.CommandDesign;
+import model.Model;
+
+/**
+ * A command class for cropping images based on a given model. This class keeps a rectangle of a
+ * source image and saves it as a destination image.
+ */
+public class CropHelper implements CommandDesign {
+
+  private final int x;
+  private final int y;
+  private final int width;
+  private final int height;
+  private final String imageName;
+  private final String destImageName;
+
+  /**
+   * Initializes a new `CropHelper` instance with the provided rectangle and image filenames.
+   *
+   * @param x             The x-coordinate of the left of the rectangle to keep.
+   * @param y             The y-coordinate of the top of the rectangle to keep.
+   * @param width         The width of the rectangle to keep.
+   * @param height        The height of the rectangle to keep.
+   * @param imageName     The name of the source image to be cropped.
+   * @param destImageName The name of the destination image where cropped result will be saved.
+   */
+  public CropHelper(int x, int y, int width, int height, String imageName,
+      String destImageName) {
+    this.x = x;
+    this.y = y;
+    this.width = width;
+    this.height = height;
+    this.imageName = imageName;
+    this.destImageName = destImageName;
+  }
+
+  /**
+   * Executes the crop action on the provided model.
+   *
+   * @param model The model on which the crop action will be executed.
+   * @throws IOException If an IO exception occurs during the action.
+   */
+  @Override
+  public void execute(Model model) throws IOException {
+    model.crop(x, y, width, height, imageName, destImageName);
+  }
+}
@@ -0,0 +1,67 @@
+package controller.commands;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import controller.CommandDesign;
+import controller.FilterCommand;
+import controller.FusibleCommand;
+import controller.PixelCommand;
+import model.Model;
+import model.pipeline.ImagePipeline;
+import model.pipeline.PixelOperation;
+
+/**
+ * A command class for a run of per-pixel and filter commands fused into one pass over the image.
+ * Each command of the run reads the image the one before it wrote, and those intermediate images
+ * are never referenced again, so only the last result is stored. A run of pixel commands alone is
+ * applied with applyPixelOperations; a run with a filter in it is built into an ImagePipeline,
+ * which streams rows through the filters' line buffers. Either way, linear color maps in a row
+ * are collapsed into one pass.
+ */
+public class FusedCommandHelper implements CommandDesign {
+
+  private final List<FusibleCommand> commands;
+
+  /**
+   * Initializes a new `FusedCommandHelper` instance with the commands of the run.
+   *
+   * @param commands The commands of the run, in script order. Each is a PixelCommand or a
+   *                 FilterCommand.
+   */
+  public FusedCommandHelper(List<FusibleCommand> commands) {
+    this.commands = new ArrayList<>(commands);
+  }
+
+  /**
+   * Executes the fused run on the provided model, reading the source image of the first command
+   * and storing the result under the destination name of the last.
+   *
+   * @param model The model on which the run will be executed.
+   * @throws IOException If an IO exception occurs during the action.
+   */
+  @Override
+  public void execute(Model model) throws IOException {
+    String imageName = commands.get(0).getImageName();
+    String destImageName = commands.get(commands.size() - 1).getDestImageName();
+    List<PixelOperation> operations = new ArrayList<>();
+    ImagePipeline pipeline = new ImagePipeline().collapseLinearColorMaps();
+    boolean filtered = false;
+    for (FusibleCommand command : commands) {
+      if (command instanceof FilterCommand) {
+        pipeline.addFilter(((FilterCommand) command).toFilter());
+        filtered = true;
+      } else {
+        PixelOperation operation = ((PixelCommand) command).toPixelOperation();
+        pipeline.addPixelOperation(operation);
+        operations.add(operation);
+      }
+    }
+    if (filtered) {
+      model.applyPipeline(pipeline, imageName, destImageName);
+    } else {
+      model.applyPixelOperations(operations, imageName, destImageName);
+    }
+  }
+}
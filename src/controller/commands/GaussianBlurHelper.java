@@ -0,0 +1,45 @@
+package controller.commands;
+
+import java.io.IOException;
+
+import controller.CommandDesign;
+import model.Model;
+
+/**
+ * A command class for applying a Gaussian blur of any strength based on a given model.
+ * This class blurs a source image and saves the result to a destination image.
+ */
+public class GaussianBlurHelper implements CommandDesign {
+
+  private final double sigma;
+  private final String imageName;
+  private final String destImageName;
+  private final double percentage;
+
+  /**
+   * Initializes a new `GaussianBlurHelper` instance with the provided sigma and image filenames.
+   *
+   * @param sigma         The standard deviation of the Gaussian, in pixels.
+   * @param imageName     The name of the source image to be blurred.
+   * @param destImageName The name of the destination image where the blurred result will be saved.
+   * @param percentage    The percentage of splitting.
+   */
+  public GaussianBlurHelper(double sigma, String imageName, String destImageName,
+                            double percentage) {
+    this.sigma = sigma;
+    this.imageName = imageName;
+    this.destImageName = destImageName;
+    this.percentage = percentage;
+  }
+
+  /**
+   * Executes the Gaussian blur action on the provided model.
+   *
+   * @param model The model on which the Gaussian blur action will be executed.
+   * @throws IOException If an IO exception occurs during the action.
+   */
+  @Override
+  public void execute(Model model) throws IOException {
+    model.gaussianBlur(sigma, imageName, destImageName, percentage);
+  }
+}
@@ -2,15 +2,19 @@ package controller.commands;
 
 import java.io.IOException;
 
-import controller.CommandDesign;
+import controller.PixelCommand;
 import model.Model;
+import model.pipeline.PixelOperation;
+import model.processor.channel.Intensity;
+import model.processor.channel.Luma;
+import model.processor.channel.Value;
 
 /**
  * A command class for getting specific channels of images based on a given model. This class
  * applies a greyscale - sepia, luma, intensity effect to a source image and saves the result to a
  * destination image.
  */
-public class ImageChannelsHelper implements CommandDesign {
+public class ImageChannelsHelper implements PixelCommand {
 
   private final String command;
   private final String imageName;
@@ -50,4 +54,51 @@ public class ImageChannelsHelper implements CommandDesign {
       model.intensityChannel(imageName, destImageName, percentage);
     }
   }
+
+  /**
+   * Gets the name of the image the command reads.
+   *
+   * @return The name of the source image.
+   */
+  @Override
+  public String getImageName() {
+    return imageName;
+  }
+
+  /**
+   * Gets the name the command stores its result under.
+   *
+   * @return The name of the destination image.
+   */
+  @Override
+  public String getDestImageName() {
+    return destImageName;
+  }
+
+  /**
+   * Tells whether the command can be fused with its neighbours, which it can unless it previews
+   * on part of the image.
+   *
+   * @return True if the command is not a split preview.
+   */
+  @Override
+  public boolean isFusible() {
+    return percentage == 100;
+  }
+
+  /**
+   * Gets the operation the command applies to every pixel.
+   *
+   * @return The pixel operation.
+   */
+  @Override
+  public PixelOperation toPixelOperation() {
+    if (command.equals("value-component")) {
+      return new Value();
+    } else if (command.equals("luma-component")) {
+      return new Luma();
+    } else {
+      return new Intensity();
+    }
+  }
 }
@@ -2,15 +2,17 @@ package controller.commands;
 
 import java.io.IOException;
 
-import controller.CommandDesign;
+import controller.PixelCommand;
 import model.Model;
+import model.adjustment.LevelAdjustmentImpl;
+import model.pipeline.PixelOperation;
 
 /**
  * A command class for level adjustment of images based on a given model.
  * This class applies a level adjust effect to a source image and saves
  * the result to a destination image.
  */
-public class LevelAdjustmentHelper implements CommandDesign {
+public class LevelAdjustmentHelper implements PixelCommand {
 
   private final int shadow;
   private final int mid;
@@ -50,4 +52,45 @@ public class LevelAdjustmentHelper implements CommandDesign {
   public void execute(Model model) throws IOException {
     model.levelAdjustment(shadow, mid, highlight, imageName, destImageName, percentage);
   }
-}
\ No newline at end of file
+
+  /**
+   * Gets the name of the image the command reads.
+   *
+   * @return The name of the source image.
+   */
+  @Override
+  public String getImageName() {
+    return imageName;
+  }
+
+  /**
+   * Gets the name the command stores its result under.
+   *
+   * @return The name of the destination image.
+   */
+  @Override
+  public String getDestImageName() {
+    return destImageName;
+  }
+
+  /**
+   * Tells whether the command can be fused with its neighbours, which it can unless it previews
+   * on part of the image.
+   *
+   * @return True if the command is not a split preview.
+   */
+  @Override
+  public boolean isFusible() {
+    return percentage == 100;
+  }
+
+  /**
+   * Gets the operation the command applies to every pixel.
+   *
+   * @return The pixel operation.
+   */
+  @Override
+  public PixelOperation toPixelOperation() {
+    return new LevelAdjustmentImpl().toPointOperation(shadow, mid, highlight);
+  }
+}
@@ -0,0 +1,42 @@
+package controller.commands;
+
+import java.io.IOException;
+
+import controller.CommandDesign;
+import model.Model;
+
+/**
+ * A command class for applying a median filter based on a given model.
+ * This class removes salt-and-pepper noise from a source image and saves the result to a
+ * destination image.
+ */
+public class MedianHelper implements CommandDesign {
+
+  private final int radius;
+  private final String imageName;
+  private final String destImageName;
+
+  /**
+   * Initializes a new `MedianHelper` instance with the provided radius and image filenames.
+   *
+   * @param radius        The radius of the window the median is taken over, in pixels.
+   * @param imageName     The name of the source image to be filtered.
+   * @param destImageName The name of the destination image where the filtered result will be saved.
+   */
+  public MedianHelper(int radius, String imageName, String destImageName) {
+    this.radius = radius;
+    this.imageName = imageName;
+    this.destImageName = destImageName;
+  }
+
+  /**
+   * Executes the median filter action on the provided model.
+   *
+   * @param model The model on which the median filter action will be executed.
+   * @throws IOException If an IO exception occurs during the action.
+   */
+  @Override
+  public void execute(Model model) throws IOException {
+    model.median(radius, imageName, destImageName);
+  }
+}
@@ -2,15 +2,17 @@ package controller.commands;
 
 import java.io.IOException;
 
-import controller.CommandDesign;
+import controller.FilterCommand;
 import model.Model;
+import model.filter.ImageFilters;
+import model.filter.SharpenImage;
 
 /**
  * A command class for sharpening images based on a given model.
  * This class applies a sharpening effect to a source image and saves
  * the result to a destination image.
  */
-public class SharpenHelper implements CommandDesign {
+public class SharpenHelper implements FilterCommand {
 
   private final String imageName;
   private final String destImageName;
@@ -39,4 +41,45 @@ public class SharpenHelper implements CommandDesign {
   public void execute(Model model) throws IOException {
     model.sharpen(imageName, destImageName, percentage);
   }
+
+  /**
+   * Gets the name of the image the command reads.
+   *
+   * @return The name of the source image.
+   */
+  @Override
+  public String getImageName() {
+    return imageName;
+  }
+
+  /**
+   * Gets the name the command stores its result under.
+   *
+   * @return The name of the destination image.
+   */
+  @Override
+  public String getDestImageName() {
+    return destImageName;
+  }
+
+  /**
+   * Tells whether the command can be fused with its neighbours, which it can unless it previews
+   * on part of the image.
+   *
+   * @return True if the command is not a split preview.
+   */
+  @Override
+  public boolean isFusible() {
+    return percentage == 100;
+  }
+
+  /**
+   * Gets the filter the command applies, which is the 5x5 sharpen filter.
+   *
+   * @return The filter.
+   */
+  @Override
+  public ImageFilters toFilter() {
+    return new SharpenImage();
+  }
 }
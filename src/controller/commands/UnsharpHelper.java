@@ -0,0 +1,51 @@
+package controller.commands;
+
+import java.io.IOException;
+
+import controller.CommandDesign;
+import model.Model;
+
+/**
+ * A command class for applying an unsharp mask based on a given model.
+ * This class sharpens a source image and saves the result to a destination image.
+ */
+public class UnsharpHelper implements CommandDesign {
+
+  private final double radius;
+  private final double amount;
+  private final int threshold;
+  private final String imageName;
+  private final String destImageName;
+  private final double percentage;
+
+  /**
+   * Initializes a new `UnsharpHelper` instance with the provided parameters and image filenames.
+   *
+   * @param radius        The radius of the blur, as the standard deviation in pixels.
+   * @param amount        The factor the difference from the blur is added back with.
+   * @param threshold     The smallest difference from the blur, from 0 to 255, that is sharpened.
+   * @param imageName     The name of the source image to be sharpened.
+   * @param destImageName The name of the destination image where the result will be saved.
+   * @param percentage    The percentage of splitting.
+   */
+  public UnsharpHelper(double radius, double amount, int threshold, String imageName,
+                       String destImageName, double percentage) {
+    this.radius = radius;
+    this.amount = amount;
+    this.threshold = threshold;
+    this.imageName = imageName;
+    this.destImageName = destImageName;
+    this.percentage = percentage;
+  }
+
+  /**
+   * Executes the unsharp mask action on the provided model.
+   *
+   * @param model The model on which the unsharp mask action will be executed.
+   * @throws IOException If an IO exception occurs during the action.
+   */
+  @Override
+  public void execute(Model model) throws IOException {
+    model.unsharp(radius, amount, threshold, imageName, destImageName, percentage);
+  }
+}
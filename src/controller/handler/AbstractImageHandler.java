@@ -1,6 +1,7 @@
 package controller.handler;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
@@ -11,9 +12,9 @@ import java.util.Scanner;
 
 import javax.imageio.ImageIO;
 
-import model.customimage.CustomImage;
 import model.customimage.Image;
-import model.processor.SupportedColorComponents;
+import model.customimage.ImageStorage;
+import model.customimage.TiledImage;
 
 /**
  * An abstract class representing an image handler for loading and saving images.
@@ -30,14 +31,56 @@ public abstract class AbstractImageHandler implements ImageFileHandler {
    */
   @Override
   public Image loadImage(String filePath) throws IOException {
-    if (filePath.toLowerCase().endsWith(".ppm")) {
+    return loadImage(filePath, chooseStorage(filePath));
+  }
+
+  /**
+   * Load an image from a file into an image with the given storage layout.
+   *
+   * @param filePath The path to the image file.
+   * @param storage  The storage layout of the returned image.
+   * @return the loaded image for further operations.
+   * @throws IOException if there's an issue with file loading.
+   */
+  @Override
+  public Image loadImage(String filePath, ImageStorage storage) throws IOException {
+    boolean ppm = filePath.toLowerCase().endsWith(".ppm");
+    if (storage == ImageStorage.TILED && !ppm) {
+      // Decode tiles from the file as they are touched instead of decoding it all up front
+      File file = new File(filePath);
+      int[] size = ImageIOTileSource.readSize(file);
+      return new TiledImage(size[0], size[1], TiledImage.DEFAULT_TILE_SIZE,
+          TiledImage.DEFAULT_TILE_SIZE, TiledImage.DEFAULT_MEMORY_BUDGET,
+          new ImageIOTileSource(file));
+    }
+    if (ppm) {
       ppmToBufferedImage(filePath);
     } else {
       loadImageIOSupportedImage(filePath);
     }
-    Image loadedImage = new CustomImage(this.image.getHeight(), this.image.getWidth());
-    loadedImage.setPixelValuesFromBufferedImage(this.image);
-    return loadedImage;
+    return storage.createImage(this.image);
+  }
+
+  /**
+   * Choose the storage layout to load an image file into. Files whose pixels would take more than
+   * a quarter of the maximum heap are loaded tiled, so that they never have to fit on the heap.
+   *
+   * @param filePath The path to the image file.
+   * @return The storage layout to load the file into.
+   */
+  private ImageStorage chooseStorage(String filePath) {
+    if (filePath.toLowerCase().endsWith(".ppm")) {
+      return ImageStorage.PACKED;
+    }
+    try {
+      int[] size = ImageIOTileSource.readSize(new File(filePath));
+      long bytes = 4L * size[0] * size[1];
+      return bytes > Runtime.getRuntime().maxMemory() / 4 ? ImageStorage.TILED
+          : ImageStorage.PACKED;
+    } catch (IOException e) {
+      // Let the full load report the problem with the file
+      return ImageStorage.PACKED;
+    }
   }
 
   /**
@@ -87,11 +130,13 @@ public abstract class AbstractImageHandler implements ImageFileHandler {
     writer.write("255\n");
 
     // Write the RGB values from the matrix
+    int[] row = new int[width];
     for (int y = 0; y < height; y++) {
+      inputImage.getRGBRow(y, 0, width, row, 0);
       for (int x = 0; x < width; x++) {
-        int red = inputImage.getPixelValue(y, x, SupportedColorComponents.RED.ordinal());
-        int green = inputImage.getPixelValue(y, x, SupportedColorComponents.GREEN.ordinal());
-        int blue = inputImage.getPixelValue(y, x, SupportedColorComponents.BLUE.ordinal());
+        int red = (row[x] >> 16) & 0xFF;
+        int green = (row[x] >> 8) & 0xFF;
+        int blue = row[x] & 0xFF;
 
         writer.write(red + " " + green + " " + blue + " ");
       }
@@ -138,13 +183,15 @@ public abstract class AbstractImageHandler implements ImageFileHandler {
     int height = sc.nextInt();
     int maxValue = sc.nextInt();
     this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    // Fill the data buffer directly, so the loaded image can wrap it without another copy
+    int[] pixels = ((DataBufferInt) this.image.getRaster().getDataBuffer()).getData();
 
     for (int i = 0; i < height; i++) {
       for (int j = 0; j < width; j++) {
         int r = sc.nextInt();
         int g = sc.nextInt();
         int b = sc.nextInt();
-        this.image.setRGB(j, i, r << 16 | g << 8 | b);
+        pixels[i * width + j] = (r << 16 | g << 8 | b) & 0xFFFFFF;
       }
     }
     sc.close();
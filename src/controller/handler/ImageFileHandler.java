@@ -3,6 +3,7 @@ package controller.handler;
 import java.io.IOException;
 
 import model.customimage.Image;
+import model.customimage.ImageStorage;
 
 /**
  * An interface for handling image loading and saving operations.
@@ -18,6 +19,16 @@ public interface ImageFileHandler {
    */
   Image loadImage(String filePath) throws IOException;
 
+  /**
+   * Load an image from a file into an image with the given storage layout.
+   *
+   * @param filePath The path to the image file.
+   * @param storage  The storage layout of the returned image.
+   * @return the loaded file.
+   * @throws IOException if there's an issue with file loading.
+   */
+  Image loadImage(String filePath, ImageStorage storage) throws IOException;
+
 
   /**
    * Save a CustomImage to the specified output path.
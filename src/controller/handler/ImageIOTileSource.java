@@ -0,0 +1,99 @@
+package controller.handler;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import model.customimage.TileSource;
+
+/**
+ * A TileSource that decodes rectangles of an image file with ImageIO, using a source region so that
+ * only the requested rectangle is ever held in memory. Formats that store their pixels in one
+ * stream, such as JPEG and PNG, still have to decode the rows above a rectangle to reach it, which
+ * is why TiledImage asks for whole bands of tiles at once rather than one tile at a time.
+ */
+public class ImageIOTileSource implements TileSource {
+
+  private final File file;
+
+  /**
+   * Constructs a tile source reading from an image file.
+   *
+   * @param file The image file.
+   */
+  public ImageIOTileSource(File file) {
+    this.file = file;
+  }
+
+  /**
+   * Reads the dimensions of an image file without decoding its pixels.
+   *
+   * @param file The image file.
+   * @return The height and width of the image, in that order.
+   * @throws IOException If the file could not be read or its format is not supported.
+   */
+  public static int[] readSize(File file) throws IOException {
+    try (ImageInputStream stream = ImageIO.createImageInputStream(file)) {
+      ImageReader reader = getReader(stream, file);
+      try {
+        reader.setInput(stream, true, true);
+        return new int[]{reader.getHeight(0), reader.getWidth(0)};
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  /**
+   * Decodes a rectangle of the image file into a buffer as packed 0xRRGGBB values.
+   *
+   * @param y        The y-coordinate of the top of the rectangle.
+   * @param x        The x-coordinate of the left of the rectangle.
+   * @param height   The height of the rectangle.
+   * @param width    The width of the rectangle.
+   * @param buffer   The buffer to read the pixels into.
+   * @param offset   The index in the buffer of the top left pixel.
+   * @param scansize The distance in the buffer between the starts of consecutive rows.
+   * @throws IOException If the file could not be read.
+   */
+  @Override
+  public void readRegion(int y, int x, int height, int width, int[] buffer, int offset,
+      int scansize) throws IOException {
+    try (ImageInputStream stream = ImageIO.createImageInputStream(file)) {
+      ImageReader reader = getReader(stream, file);
+      try {
+        reader.setInput(stream, true, true);
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceRegion(new Rectangle(x, y, width, height));
+        BufferedImage region = reader.read(0, param);
+        region.getRGB(0, 0, width, height, buffer, offset, scansize);
+      } finally {
+        reader.dispose();
+      }
+    }
+    for (int row = 0; row < height; row++) {
+      int start = offset + row * scansize;
+      for (int i = start; i < start + width; i++) {
+        buffer[i] &= 0xFFFFFF;
+      }
+    }
+  }
+
+  private static ImageReader getReader(ImageInputStream stream, File file) throws IOException {
+    if (stream == null) {
+      throw new IOException("Can't read input file!");
+    }
+    Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+    if (!readers.hasNext()) {
+      throw new IOException("Unsupported image format: " + file.getPath());
+    }
+    return readers.next();
+  }
+}
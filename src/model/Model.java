@@ -1,8 +1,11 @@
 package model;
 
 import java.io.IOException;
+import java.util.List;
 
 import model.customimage.Image;
+import model.pipeline.ImagePipeline;
+import model.pipeline.PixelOperation;
 
 /**
  * The Model interface defines methods for manipulating and processing images.
@@ -134,6 +137,64 @@ public interface Model {
    */
   void blur(String imageName, String destImageName, double percentage);
 
+  /**
+   * Apply a Gaussian blur of any strength to the image.
+   *
+   * @param sigma         The standard deviation of the Gaussian, in pixels.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after applying the blur.
+   * @param percentage    The percentage of splitting.
+   */
+  void gaussianBlur(double sigma, String imageName, String destImageName, double percentage);
+
+  /**
+   * Convolve the image with a kernel read from a file.
+   *
+   * @param kernelFile    The path of the kernel file, N rows of N numbers with N odd.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after the convolution.
+   * @param percentage    The percentage of splitting.
+   * @throws IOException If the kernel file cannot be read.
+   */
+  void convolve(String kernelFile, String imageName, String destImageName, double percentage)
+      throws IOException;
+
+  /**
+   * Apply a median filter to the image, which removes salt-and-pepper noise.
+   *
+   * @param radius        The radius of the window the median is taken over, in pixels.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after applying the median filter.
+   */
+  void median(int radius, String imageName, String destImageName);
+
+  /**
+   * Apply an edge-preserving bilateral filter to the image, which smooths noise without blurring
+   * across edges.
+   *
+   * @param sigmaSpace    The spatial standard deviation, in pixels.
+   * @param sigmaRange    The range standard deviation, in levels of luma from 0 to 255.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after applying the bilateral filter.
+   * @param percentage    The percentage of splitting.
+   */
+  void bilateral(double sigmaSpace, double sigmaRange, String imageName, String destImageName,
+                 double percentage);
+
+  /**
+   * Apply an unsharp mask to the image, which sharpens it by adding back its difference from a
+   * Gaussian blur of it.
+   *
+   * @param radius        The radius of the blur, as the standard deviation in pixels.
+   * @param amount        The factor the difference from the blur is added back with.
+   * @param threshold     The smallest difference from the blur, from 0 to 255, that is sharpened.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after applying the unsharp mask.
+   * @param percentage    The percentage of splitting.
+   */
+  void unsharp(double radius, double amount, int threshold, String imageName,
+               String destImageName, double percentage);
+
   /**
    * Apply a sharpen filter to the image.
    *
@@ -152,6 +213,17 @@ public interface Model {
    */
   void sepia(String imageName, String destImageName, double percentage);
 
+  /**
+   * Apply a channel mix to the image, where each output channel is the input channels weighted by
+   * a row of a 3x3 matrix.
+   *
+   * @param matrix        The 3x3 matrix, with a row for each of red, green and blue out.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after applying the channel mix.
+   * @param percentage    The percentage of splitting.
+   */
+  void channelMix(double[][] matrix, String imageName, String destImageName, double percentage);
+
   /**
    * Apply a compression to the image.
    *
@@ -188,4 +260,42 @@ public interface Model {
    */
   void levelAdjustment(int shadow, int mid, int highlight, String imageName, String destImageName,
       double percentage);
+
+  /**
+   * Crop the image to a rectangle. The destination image is a view of the source image, so no
+   * pixels are copied.
+   *
+   * @param x             The x-coordinate of the left of the rectangle.
+   * @param y             The y-coordinate of the top of the rectangle.
+   * @param width         The width of the rectangle.
+   * @param height        The height of the rectangle.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after cropping.
+   */
+  void crop(int x, int y, int width, int height, String imageName, String destImageName);
+
+  /**
+   * Apply a run of per-pixel operations to the image in one traversal, reading each pixel once
+   * and writing it once. The result is what applying the operations one after another gives,
+   * except that linear color maps in a row, such as sepia and sepia, are multiplied into one map
+   * that is clamped once rather than after each, as ChannelMix.compose describes.
+   *
+   * @param operations    The operations, in the order they are applied.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after applying the operations.
+   */
+  void applyPixelOperations(List<PixelOperation> operations, String imageName,
+                            String destImageName);
+
+  /**
+   * Apply a pipeline of filters and per-pixel operations to the image in one pass, streaming rows
+   * through the line buffers of its filters rather than making an image for every stage. The
+   * result is what applying the stages one after another gives, with any linear color maps the
+   * pipeline collapsed applied as one.
+   *
+   * @param pipeline      The pipeline.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after applying the pipeline.
+   */
+  void applyPipeline(ImagePipeline pipeline, String imageName, String destImageName);
 }
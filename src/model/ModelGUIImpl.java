@@ -2,21 +2,30 @@ package model;
 
 
 import java.io.IOException;
+import java.util.List;
 
 import model.adjustment.LevelAdjustment;
 import model.adjustment.LevelAdjustmentImpl;
+import model.colortransform.ChannelMix;
 import model.colortransform.ImageLinearColorTransform;
 import model.colortransform.Sepia;
 import model.compression.HaarWaveletCompression;
 import model.compression.HaarWaveletCompressionImpl;
 import model.customimage.Image;
+import model.filter.BilateralFilter;
 import model.filter.BlurImage;
+import model.filter.GaussianBlur;
 import model.filter.ImageFilters;
+import model.filter.KernelFilter;
+import model.filter.MedianFilter;
 import model.filter.SharpenImage;
+import model.filter.UnsharpMask;
 import model.histogram.ColorCorrection;
 import model.histogram.Histogram;
 import model.histogram.VisualizeHistogram;
 import model.preview.OperationPreview;
+import model.pipeline.ImagePipeline;
+import model.pipeline.PixelOperation;
 import model.preview.OperationPreviewImpl;
 import model.processor.brightness.Brighten;
 import model.processor.brightness.Darken;
@@ -216,6 +225,85 @@ public class ModelGUIImpl implements ModelGUI {
     this.image = blur.applyFilter(this.image);
   }
 
+  /**
+   * Apply a Gaussian blur of any strength to the image.
+   *
+   * @param sigma         The standard deviation of the Gaussian, in pixels.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after applying the blur.
+   * @param percentage    The percentage of splitting.
+   */
+  @Override
+  public void gaussianBlur(double sigma, String imageName, String destImageName,
+                           double percentage) {
+    ImageFilters gaussianBlur = new GaussianBlur(sigma);
+    this.image = gaussianBlur.applyFilter(this.image);
+  }
+
+  /**
+   * Convolve the image with a kernel read from a file.
+   *
+   * @param kernelFile    The path of the kernel file, N rows of N numbers with N odd.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after the convolution.
+   * @param percentage    The percentage of splitting.
+   * @throws IOException If the kernel file cannot be read.
+   */
+  @Override
+  public void convolve(String kernelFile, String imageName, String destImageName,
+                       double percentage) throws IOException {
+    ImageFilters kernelFilter = KernelFilter.read(kernelFile);
+    this.image = kernelFilter.applyFilter(this.image);
+  }
+
+  /**
+   * Apply a median filter to the image, which removes salt-and-pepper noise.
+   *
+   * @param radius        The radius of the window the median is taken over, in pixels.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after applying the median filter.
+   */
+  @Override
+  public void median(int radius, String imageName, String destImageName) {
+    ImageFilters medianFilter = new MedianFilter(radius);
+    this.image = medianFilter.applyFilter(this.image);
+  }
+
+  /**
+   * Apply an edge-preserving bilateral filter to the image, which smooths noise without blurring
+   * across edges.
+   *
+   * @param sigmaSpace    The spatial standard deviation, in pixels.
+   * @param sigmaRange    The range standard deviation, in levels of luma from 0 to 255.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after applying the bilateral filter.
+   * @param percentage    The percentage of splitting.
+   */
+  @Override
+  public void bilateral(double sigmaSpace, double sigmaRange, String imageName,
+                        String destImageName, double percentage) {
+    ImageFilters bilateralFilter = new BilateralFilter(sigmaSpace, sigmaRange);
+    this.image = bilateralFilter.applyFilter(this.image);
+  }
+
+  /**
+   * Apply an unsharp mask to the image, which sharpens it by adding back its difference from a
+   * Gaussian blur of it.
+   *
+   * @param radius        The radius of the blur, as the standard deviation in pixels.
+   * @param amount        The factor the difference from the blur is added back with.
+   * @param threshold     The smallest difference from the blur, from 0 to 255, that is sharpened.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after applying the unsharp mask.
+   * @param percentage    The percentage of splitting.
+   */
+  @Override
+  public void unsharp(double radius, double amount, int threshold, String imageName,
+                      String destImageName, double percentage) {
+    ImageFilters unsharpMask = new UnsharpMask(radius, amount, threshold);
+    this.image = unsharpMask.applyFilter(this.image);
+  }
+
   /**
    * Apply a sharpen filter to the image.
    *
@@ -242,6 +330,22 @@ public class ModelGUIImpl implements ModelGUI {
     this.image = sepia.applyColorTransform(this.image);
   }
 
+  /**
+   * Apply a channel mix to the image, where each output channel is the input channels weighted by
+   * a row of a 3x3 matrix.
+   *
+   * @param matrix        The 3x3 matrix, with a row for each of red, green and blue out.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after applying the channel mix.
+   * @param percentage    The percentage of splitting.
+   */
+  @Override
+  public void channelMix(double[][] matrix, String imageName, String destImageName,
+                         double percentage) {
+    ImageLinearColorTransform channelMix = new ChannelMix(matrix);
+    this.image = channelMix.applyColorTransform(this.image);
+  }
+
   /**
    * Apply a compression to the image.
    *
@@ -333,4 +437,55 @@ public class ModelGUIImpl implements ModelGUI {
   public Image getHistogramImage() {
     return this.histogramImage;
   }
+
+  /**
+   * Crop the current image to a rectangle. The result is a view of the previous image, so no
+   * pixels are copied.
+   *
+   * @param x             The x-coordinate of the left of the rectangle.
+   * @param y             The y-coordinate of the top of the rectangle.
+   * @param width         The width of the rectangle.
+   * @param height        The height of the rectangle.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after cropping.
+   */
+  @Override
+  public void crop(int x, int y, int width, int height, String imageName, String destImageName) {
+    this.image = this.image.getSubImage(y, x, height, width);
+  }
+
+  /**
+   * Apply a run of per-pixel operations to the image in one traversal, reading each pixel once
+   * and writing it once. The result is what applying the operations one after another gives,
+   * except that linear color maps in a row, such as sepia and sepia, are multiplied into one map
+   * that is clamped once rather than after each, as ChannelMix.compose describes.
+   *
+   * @param operations    The operations, in the order they are applied.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after applying the operations.
+   */
+  @Override
+  public void applyPixelOperations(List<PixelOperation> operations, String imageName,
+                                   String destImageName) {
+    ImagePipeline pipeline = new ImagePipeline().collapseLinearColorMaps();
+    for (PixelOperation operation : operations) {
+      pipeline.addPixelOperation(operation);
+    }
+    this.image = pipeline.apply(this.image);
+  }
+
+  /**
+   * Apply a pipeline of filters and per-pixel operations to the current image in one pass,
+   * streaming rows through the line buffers of its filters rather than making an image for every
+   * stage. The result is what applying the stages one after another gives, with any linear color
+   * maps the pipeline collapsed applied as one.
+   *
+   * @param pipeline      The pipeline.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after applying the pipeline.
+   */
+  @Override
+  public void applyPipeline(ImagePipeline pipeline, String imageName, String destImageName) {
+    this.image = pipeline.apply(this.image);
+  }
 }
@@ -1,21 +1,37 @@
 package model;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
 
 import model.adjustment.LevelAdjustment;
 import model.adjustment.LevelAdjustmentImpl;
+import model.colortransform.ChannelMix;
 import model.colortransform.Sepia;
 import model.compression.HaarWaveletCompression;
 import model.compression.HaarWaveletCompressionImpl;
+import model.customimage.FrozenImage;
 import model.customimage.Image;
+import model.customimage.RasterImage;
+import model.customimage.SubImage;
+import model.filter.BilateralFilter;
 import model.filter.BlurImage;
+import model.filter.GaussianBlur;
+import model.filter.KernelFilter;
+import model.filter.MedianFilter;
 import model.filter.SharpenImage;
+import model.filter.UnsharpMask;
 import model.histogram.ColorCorrection;
 import model.histogram.Histogram;
 import model.histogram.VisualizeHistogram;
 import model.preview.OperationPreview;
+import model.pipeline.ImagePipeline;
+import model.pipeline.PixelOperation;
 import model.preview.OperationPreviewImpl;
 import model.processor.brightness.Brighten;
 import model.processor.brightness.Darken;
@@ -43,12 +59,15 @@ import model.processor.flip.VerticalFlip;
 public class ModelImpl implements Model {
 
   private final Map<String, Image> imageMap;
+  // Images handed in or out of the model, whose pixels may be referenced from elsewhere
+  private final Set<Image> escapedImages;
 
   /**
    * Create a new ModelImpl instance.
    */
   public ModelImpl() {
     this.imageMap = new HashMap<>();
+    this.escapedImages = Collections.newSetFromMap(new IdentityHashMap<>());
   }
 
   /**
@@ -61,7 +80,8 @@ public class ModelImpl implements Model {
   @Override
   public void load(Image sourceImage, String imageName)
       throws IOException {
-    this.imageMap.put(imageName, sourceImage);
+    this.escapedImages.add(sourceImage);
+    storeImage(imageName, sourceImage);
   }
 
   /**
@@ -75,9 +95,100 @@ public class ModelImpl implements Model {
     if (sourceImage == null) {
       throw new IllegalArgumentException("Source image not found in the map");
     }
+    this.escapedImages.add(sourceImage);
     return sourceImage;
   }
 
+  /**
+   * Stores an image under a name, recycling the pixel buffer of the image it replaces if nothing
+   * else refers to that image. A RasterImage result that nothing else refers to is frozen by
+   * taking over its buffer, which copies nothing; any other result is stored as it is.
+   *
+   * @param imageName The name to store the image under.
+   * @param image     The image to store.
+   */
+  private void storeImage(String imageName, Image image) {
+    Image stored = image;
+    if (image instanceof RasterImage && !isReferenced(image)) {
+      stored = FrozenImage.takeOver((RasterImage) image);
+    }
+    Image previous = this.imageMap.put(imageName, stored);
+    if (previous != null && previous != stored) {
+      recycle(previous);
+    }
+  }
+
+  /**
+   * Gives the pixel buffer of an image that is no longer needed back to the pool. The buffer is
+   * kept if the image was handed out of the model, is still stored under another name or is the
+   * parent of a stored view or of a view that was handed out. A view that was handed out stays
+   * marked as such after it is recycled, since its parent must keep its buffer for as long as
+   * the view may still be read.
+   *
+   * @param image The image that is no longer needed.
+   */
+  private void recycle(Image image) {
+    if (isStored(image) || hasEscapedView(image)) {
+      return;
+    }
+    boolean escaped = image instanceof SubImage
+        ? this.escapedImages.contains(image)
+        : this.escapedImages.remove(image);
+    if (escaped) {
+      return;
+    }
+    if (image instanceof FrozenImage) {
+      ((FrozenImage) image).release();
+    } else if (image instanceof RasterImage) {
+      ((RasterImage) image).release();
+    }
+  }
+
+  /**
+   * Applies an operation to the left part of an image for a split preview, leaving the rest of the
+   * image as it is. The intermediate result of the left part is recycled once it is joined to the
+   * rest.
+   *
+   * @param source     The source image.
+   * @param percentage The percentage of the width the operation is applied to.
+   * @param op         The operation.
+   * @return The preview, or the whole image with the operation applied if the percentage is 100.
+   */
+  private Image preview(Image source, double percentage, UnaryOperator<Image> op) {
+    if (percentage == 100) {
+      return op.apply(source);
+    }
+    OperationPreview operationPreview = new OperationPreviewImpl();
+    Image[] images = operationPreview.getNPercentImage(source, percentage);
+    Image half = op.apply(images[0]);
+    Image previewImage = operationPreview.concatenateImages(half, images[1]);
+    recycle(half);
+    return previewImage;
+  }
+
+  private boolean isReferenced(Image image) {
+    return this.escapedImages.contains(image) || hasEscapedView(image) || isStored(image);
+  }
+
+  private boolean hasEscapedView(Image image) {
+    for (Image escaped : this.escapedImages) {
+      if (escaped instanceof SubImage && ((SubImage) escaped).getParent() == image) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isStored(Image image) {
+    for (Image stored : this.imageMap.values()) {
+      if (stored == image
+          || stored instanceof SubImage && ((SubImage) stored).getParent() == image) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Apply a red component operation to the image.
    *
@@ -93,7 +204,7 @@ public class ModelImpl implements Model {
 
     ImageColorComponent imageColorComponent = new Red();
     Image destinationImage = imageColorComponent.getColorComponent(sourceImage);
-    this.imageMap.put(destImageName, destinationImage);
+    storeImage(destImageName, destinationImage);
   }
 
   /**
@@ -111,7 +222,7 @@ public class ModelImpl implements Model {
 
     ImageColorComponent imageColorComponent = new Green();
     Image destinationImage = imageColorComponent.getColorComponent(sourceImage);
-    this.imageMap.put(destImageName, destinationImage);
+    storeImage(destImageName, destinationImage);
   }
 
   /**
@@ -129,7 +240,7 @@ public class ModelImpl implements Model {
 
     ImageColorComponent imageColorComponent = new Blue();
     Image destinationImage = imageColorComponent.getColorComponent(sourceImage);
-    this.imageMap.put(destImageName, destinationImage);
+    storeImage(destImageName, destinationImage);
   }
 
   /**
@@ -147,8 +258,7 @@ public class ModelImpl implements Model {
     }
 
     ImageChannel imageChannel = new Value();
-    Image previewImage = this.getChannelImage(sourceImage, imageChannel, percentage);
-    this.imageMap.put(destImageName, previewImage);
+    storeImage(destImageName, preview(sourceImage, percentage, imageChannel::applyChannel));
   }
 
   /**
@@ -166,8 +276,7 @@ public class ModelImpl implements Model {
     }
 
     ImageChannel imageChannel = new Luma();
-    Image previewImage = this.getChannelImage(sourceImage, imageChannel, percentage);
-    this.imageMap.put(destImageName, previewImage);
+    storeImage(destImageName, preview(sourceImage, percentage, imageChannel::applyChannel));
   }
 
 
@@ -186,24 +295,7 @@ public class ModelImpl implements Model {
     }
 
     ImageChannel imageChannel = new Intensity();
-    Image previewImage = this.getChannelImage(sourceImage, imageChannel, percentage);
-    this.imageMap.put(destImageName, previewImage);
-  }
-
-
-  private Image getChannelImage(Image sourceImage, ImageChannel imageChannel, double percentage) {
-    Image previewImage;
-    if (percentage == 100) {
-      previewImage = imageChannel.applyChannel(sourceImage);
-    } else {
-      OperationPreview operationPreview = new OperationPreviewImpl();
-      Image[] images = operationPreview.getNPercentImage(sourceImage, percentage);
-      Image half = images[0];
-      Image otherHalf = images[1];
-      Image channelImage = imageChannel.applyChannel(half);
-      previewImage = operationPreview.concatenateImages(channelImage, otherHalf);
-    }
-    return previewImage;
+    storeImage(destImageName, preview(sourceImage, percentage, imageChannel::applyChannel));
   }
 
   /**
@@ -221,7 +313,7 @@ public class ModelImpl implements Model {
 
     ImageFlip imageFlip = new VerticalFlip();
     Image destinationImage = imageFlip.flipImage(sourceImage);
-    this.imageMap.put(destImageName, destinationImage);
+    storeImage(destImageName, destinationImage);
   }
 
   /**
@@ -239,7 +331,7 @@ public class ModelImpl implements Model {
 
     ImageFlip imageFlip = new HorizontalFlip();
     Image destinationImage = imageFlip.flipImage(sourceImage);
-    this.imageMap.put(destImageName, destinationImage);
+    storeImage(destImageName, destinationImage);
   }
 
   /**
@@ -258,7 +350,7 @@ public class ModelImpl implements Model {
 
     ImageBrightness imageBrightness = (integerConstant >= 0) ? new Brighten() : new Darken();
     Image destinationImage = imageBrightness.adjustImage(sourceImage, integerConstant);
-    this.imageMap.put(destImageName, destinationImage);
+    storeImage(destImageName, destinationImage);
   }
 
   /**
@@ -279,15 +371,15 @@ public class ModelImpl implements Model {
 
     ImageColorComponent redComponent = new Red();
     Image redImage = redComponent.getColorComponent(sourceImage);
-    this.imageMap.put(destImageNameRed, redImage);
+    storeImage(destImageNameRed, redImage);
 
     ImageColorComponent greenComponent = new Green();
     Image greenImage = greenComponent.getColorComponent(sourceImage);
-    this.imageMap.put(destImageNameGreen, greenImage);
+    storeImage(destImageNameGreen, greenImage);
 
     ImageColorComponent blueComponent = new Blue();
     Image blueImage = blueComponent.getColorComponent(sourceImage);
-    this.imageMap.put(destImageNameBlue, blueImage);
+    storeImage(destImageNameBlue, blueImage);
   }
 
   /**
@@ -312,7 +404,7 @@ public class ModelImpl implements Model {
     Image combinedImage = imageColorComponent.combineColorComponent(
         redComponent, greenComponent, blueComponent);
 
-    this.imageMap.put(imageName, combinedImage);
+    storeImage(imageName, combinedImage);
   }
 
   /**
@@ -329,19 +421,112 @@ public class ModelImpl implements Model {
     }
 
     BlurImage blurImage = new BlurImage();
-    Image previewImage;
-    if (percentage == 100) {
-      previewImage = blurImage.applyFilter(sourceImage);
-    } else {
-      OperationPreview operationPreview = new OperationPreviewImpl();
-      Image[] images = operationPreview.getNPercentImage(sourceImage, percentage);
-      Image half = images[0];
-      Image otherHalf = images[1];
-      Image blurredImage = blurImage.applyFilter(half);
-      previewImage = operationPreview.concatenateImages(blurredImage, otherHalf);
+    storeImage(destImageName, preview(sourceImage, percentage, blurImage::applyFilter));
+  }
+
+  /**
+   * Apply a Gaussian blur of any strength to the image.
+   *
+   * @param sigma         The standard deviation of the Gaussian, in pixels.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after applying the blur.
+   * @param percentage    The percentage of splitting.
+   */
+  @Override
+  public void gaussianBlur(double sigma, String imageName, String destImageName,
+                           double percentage) {
+    Image sourceImage = this.imageMap.get(imageName);
+    if (sourceImage == null) {
+      throw new IllegalArgumentException("Source image not found in the map.");
+    }
+
+    GaussianBlur gaussianBlur = new GaussianBlur(sigma);
+    storeImage(destImageName, preview(sourceImage, percentage, gaussianBlur::applyFilter));
+  }
+
+  /**
+   * Convolve the image with a kernel read from a file.
+   *
+   * @param kernelFile    The path of the kernel file, N rows of N numbers with N odd.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after the convolution.
+   * @param percentage    The percentage of splitting.
+   * @throws IOException If the kernel file cannot be read.
+   */
+  @Override
+  public void convolve(String kernelFile, String imageName, String destImageName,
+                       double percentage) throws IOException {
+    Image sourceImage = this.imageMap.get(imageName);
+    if (sourceImage == null) {
+      throw new IllegalArgumentException("Source image not found in the map.");
     }
 
-    this.imageMap.put(destImageName, previewImage);
+    KernelFilter kernelFilter = KernelFilter.read(kernelFile);
+    storeImage(destImageName, preview(sourceImage, percentage, kernelFilter::applyFilter));
+  }
+
+  /**
+   * Apply a median filter to the image, which removes salt-and-pepper noise.
+   *
+   * @param radius        The radius of the window the median is taken over, in pixels.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after applying the median filter.
+   */
+  @Override
+  public void median(int radius, String imageName, String destImageName) {
+    Image sourceImage = this.imageMap.get(imageName);
+    if (sourceImage == null) {
+      throw new IllegalArgumentException("Source image not found in the map.");
+    }
+
+    MedianFilter medianFilter = new MedianFilter(radius);
+    Image destinationImage = medianFilter.applyFilter(sourceImage);
+    storeImage(destImageName, destinationImage);
+  }
+
+  /**
+   * Apply an edge-preserving bilateral filter to the image, which smooths noise without blurring
+   * across edges.
+   *
+   * @param sigmaSpace    The spatial standard deviation, in pixels.
+   * @param sigmaRange    The range standard deviation, in levels of luma from 0 to 255.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after applying the bilateral filter.
+   * @param percentage    The percentage of splitting.
+   */
+  @Override
+  public void bilateral(double sigmaSpace, double sigmaRange, String imageName,
+                        String destImageName, double percentage) {
+    Image sourceImage = this.imageMap.get(imageName);
+    if (sourceImage == null) {
+      throw new IllegalArgumentException("Source image not found in the map.");
+    }
+
+    BilateralFilter bilateralFilter = new BilateralFilter(sigmaSpace, sigmaRange);
+    storeImage(destImageName, preview(sourceImage, percentage, bilateralFilter::applyFilter));
+  }
+
+  /**
+   * Apply an unsharp mask to the image, which sharpens it by adding back its difference from a
+   * Gaussian blur of it.
+   *
+   * @param radius        The radius of the blur, as the standard deviation in pixels.
+   * @param amount        The factor the difference from the blur is added back with.
+   * @param threshold     The smallest difference from the blur, from 0 to 255, that is sharpened.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after applying the unsharp mask.
+   * @param percentage    The percentage of splitting.
+   */
+  @Override
+  public void unsharp(double radius, double amount, int threshold, String imageName,
+                      String destImageName, double percentage) {
+    Image sourceImage = this.imageMap.get(imageName);
+    if (sourceImage == null) {
+      throw new IllegalArgumentException("Source image not found in the map.");
+    }
+
+    UnsharpMask unsharpMask = new UnsharpMask(radius, amount, threshold);
+    storeImage(destImageName, preview(sourceImage, percentage, unsharpMask::applyFilter));
   }
 
   /**
@@ -358,19 +543,7 @@ public class ModelImpl implements Model {
     }
 
     SharpenImage sharpenImage = new SharpenImage();
-    Image previewImage;
-    if (percentage == 100) {
-      previewImage = sharpenImage.applyFilter(sourceImage);
-    } else {
-      OperationPreview operationPreview = new OperationPreviewImpl();
-      Image[] images = operationPreview.getNPercentImage(sourceImage, percentage);
-      Image half = images[0];
-      Image otherHalf = images[1];
-      Image sharpenedImage = sharpenImage.applyFilter(half);
-      previewImage = operationPreview.concatenateImages(sharpenedImage, otherHalf);
-    }
-
-    this.imageMap.put(destImageName, previewImage);
+    storeImage(destImageName, preview(sourceImage, percentage, sharpenImage::applyFilter));
   }
 
   /**
@@ -387,19 +560,28 @@ public class ModelImpl implements Model {
     }
 
     Sepia sepia = new Sepia();
-    Image previewImage;
-    if (percentage == 100) {
-      previewImage = sepia.applyColorTransform(sourceImage);
-    } else {
-      OperationPreview operationPreview = new OperationPreviewImpl();
-      Image[] images = operationPreview.getNPercentImage(sourceImage, percentage);
-      Image half = images[0];
-      Image otherHalf = images[1];
-      Image sharpenedImage = sepia.applyColorTransform(half);
-      previewImage = operationPreview.concatenateImages(sharpenedImage, otherHalf);
+    storeImage(destImageName, preview(sourceImage, percentage, sepia::applyColorTransform));
+  }
+
+  /**
+   * Apply a channel mix to the image, where each output channel is the input channels weighted by
+   * a row of a 3x3 matrix.
+   *
+   * @param matrix        The 3x3 matrix, with a row for each of red, green and blue out.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after applying the channel mix.
+   * @param percentage    The percentage of splitting.
+   */
+  @Override
+  public void channelMix(double[][] matrix, String imageName, String destImageName,
+                         double percentage) {
+    Image sourceImage = this.imageMap.get(imageName);
+    if (sourceImage == null) {
+      throw new IllegalArgumentException("Source image not found in the map.");
     }
 
-    this.imageMap.put(destImageName, previewImage);
+    ChannelMix channelMix = new ChannelMix(matrix);
+    storeImage(destImageName, preview(sourceImage, percentage, channelMix::applyColorTransform));
   }
 
   /**
@@ -418,7 +600,7 @@ public class ModelImpl implements Model {
 
     HaarWaveletCompression haar = new HaarWaveletCompressionImpl();
     Image previewImage = haar.applyHaarCompression(sourceImage, compressPercentage);
-    this.imageMap.put(destImageName, previewImage);
+    storeImage(destImageName, previewImage);
   }
 
   /**
@@ -435,7 +617,7 @@ public class ModelImpl implements Model {
     }
     Histogram histogram = new VisualizeHistogram();
     Image histogramImage = histogram.histogramOperation(sourceImage);
-    this.imageMap.put(destImageName, histogramImage);
+    storeImage(destImageName, histogramImage);
   }
 
   /**
@@ -452,19 +634,8 @@ public class ModelImpl implements Model {
     }
 
     Histogram colorCorrection = new ColorCorrection();
-    Image previewImage;
-    if (percentage == 100) {
-      previewImage = colorCorrection.histogramOperation(sourceImage);
-    } else {
-      OperationPreview operationPreview = new OperationPreviewImpl();
-      Image[] images = operationPreview.getNPercentImage(sourceImage, percentage);
-      Image half = images[0];
-      Image otherHalf = images[1];
-      Image correctedImage = colorCorrection.histogramOperation(half);
-      previewImage = operationPreview.concatenateImages(correctedImage, otherHalf);
-    }
-
-    this.imageMap.put(destImageName, previewImage);
+    storeImage(destImageName,
+        preview(sourceImage, percentage, colorCorrection::histogramOperation));
     this.histogram(destImageName, "Histogram-" + destImageName);
   }
 
@@ -484,18 +655,71 @@ public class ModelImpl implements Model {
     }
 
     LevelAdjustment levelAdjustment = new LevelAdjustmentImpl();
-    Image previewImage;
-    if (percentage == 100) {
-      previewImage = levelAdjustment.adjustImageLevels(sourceImage, shadow, mid, highlight);
-    } else {
-      OperationPreview operationPreview = new OperationPreviewImpl();
-      Image[] images = operationPreview.getNPercentImage(sourceImage, percentage);
-      Image half = images[0];
-      Image otherHalf = images[1];
-      Image levelAdjustmentImage = levelAdjustment.adjustImageLevels(half, shadow, mid, highlight);
-      previewImage = operationPreview.concatenateImages(levelAdjustmentImage, otherHalf);
+    storeImage(destImageName, preview(sourceImage, percentage,
+        image -> levelAdjustment.adjustImageLevels(image, shadow, mid, highlight)));
+  }
+
+  /**
+   * Crop the image to a rectangle. The destination image is a view of the source image, so no
+   * pixels are copied.
+   *
+   * @param x             The x-coordinate of the left of the rectangle.
+   * @param y             The y-coordinate of the top of the rectangle.
+   * @param width         The width of the rectangle.
+   * @param height        The height of the rectangle.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after cropping.
+   */
+  @Override
+  public void crop(int x, int y, int width, int height, String imageName, String destImageName) {
+    Image sourceImage = this.imageMap.get(imageName);
+    if (sourceImage == null) {
+      throw new IllegalArgumentException("Source image not found in the map.");
+    }
+    storeImage(destImageName, sourceImage.getSubImage(y, x, height, width));
+  }
+
+  /**
+   * Apply a run of per-pixel operations to the image in one traversal, reading each pixel once
+   * and writing it once. The result is what applying the operations one after another gives,
+   * except that linear color maps in a row, such as sepia and sepia, are multiplied into one map
+   * that is clamped once rather than after each, as ChannelMix.compose describes.
+   *
+   * @param operations    The operations, in the order they are applied.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after applying the operations.
+   */
+  @Override
+  public void applyPixelOperations(List<PixelOperation> operations, String imageName,
+                                   String destImageName) {
+    Image sourceImage = this.imageMap.get(imageName);
+    if (sourceImage == null) {
+      throw new IllegalArgumentException("Source image not found in the map.");
     }
 
-    this.imageMap.put(destImageName, previewImage);
+    ImagePipeline pipeline = new ImagePipeline().collapseLinearColorMaps();
+    for (PixelOperation operation : operations) {
+      pipeline.addPixelOperation(operation);
+    }
+    storeImage(destImageName, pipeline.apply(sourceImage));
+  }
+
+  /**
+   * Apply a pipeline of filters and per-pixel operations to the image in one pass, streaming rows
+   * through the line buffers of its filters rather than making an image for every stage. The
+   * result is what applying the stages one after another gives, with any linear color maps the
+   * pipeline collapsed applied as one.
+   *
+   * @param pipeline      The pipeline.
+   * @param imageName     The name of the source image.
+   * @param destImageName The name of the destination image after applying the pipeline.
+   */
+  @Override
+  public void applyPipeline(ImagePipeline pipeline, String imageName, String destImageName) {
+    Image sourceImage = this.imageMap.get(imageName);
+    if (sourceImage == null) {
+      throw new IllegalArgumentException("Source image not found in the map.");
+    }
+    storeImage(destImageName, pipeline.apply(sourceImage));
   }
 }
@@ -1,7 +1,7 @@
 package model.adjustment;
 
-import model.customimage.CustomImage;
 import model.customimage.Image;
+import model.pipeline.PointOperation;
 
 /**
  * Implementation of the LevelAdjustment interface that adjusts the levels of an image by
@@ -22,6 +22,22 @@ public class LevelAdjustmentImpl implements LevelAdjustment {
   @Override
   public Image adjustImageLevels(Image inputImage, int shadow, int mid, int highlight)
           throws IllegalArgumentException {
+    return toPointOperation(shadow, mid, highlight).apply(inputImage);
+  }
+
+  /**
+   * Compiles the levels curve for the given shadow, midtone and highlight values into a point
+   * operation, so the quadratic is evaluated once per level rather than once per pixel and
+   * channel.
+   *
+   * @param shadow    The adjustment value for the shadow areas.
+   * @param mid       The adjustment value for the midtone areas.
+   * @param highlight The adjustment value for the highlight areas.
+   * @return The operation that adjusts the levels of pixels in place.
+   * @throws IllegalArgumentException If the values are not in increasing order within [0, 255].
+   */
+  public PointOperation toPointOperation(int shadow, int mid, int highlight)
+          throws IllegalArgumentException {
     if (!(shadow < mid && mid < highlight)) {
       throw new IllegalArgumentException("Invalid level values: shadow < mid < highlight");
     } else if ((shadow < 0 || shadow > 255) || (mid < 0 || mid > 255) || (highlight < 0
@@ -30,26 +46,9 @@ public class LevelAdjustmentImpl implements LevelAdjustment {
               + "and smaller than 255");
     }
 
-    Image outputImage = new CustomImage(inputImage.getHeight(), inputImage.getWidth());
-    int height = inputImage.getHeight();
-    int width = inputImage.getWidth();
-
     double[] coefficients = getCoefficients(shadow, mid, highlight);
-
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        for (int c = 0; c < 3; c++) {
-          int oldValue = inputImage.getPixelValue(y, x, c);
-          int newValue = (int) (coefficients[0] * oldValue * oldValue
-                  + coefficients[1] * oldValue + coefficients[2]);
-
-          newValue = Math.max(0, Math.min(255, newValue));
-          outputImage.setPixelValue(y, x, c, newValue);
-        }
-      }
-    }
-
-    return outputImage;
+    return PointOperation.compile(oldValue -> (int) (coefficients[0] * oldValue * oldValue
+            + coefficients[1] * oldValue + coefficients[2]));
   }
 
   private double[] getCoefficients(int b, int m, int w) {
@@ -1,17 +1,25 @@
 package model.colortransform;
 
-import java.util.Arrays;
-
-import model.customimage.CustomImage;
 import model.customimage.Image;
-import model.processor.SupportedColorComponents;
+import model.customimage.ImageBlocks;
 
 /**
- * An abstract base class for implementing linear color transformations on images.
+ * An abstract base class for implementing linear color transformations on images. The transform
+ * is also a linear color map, so it can run on rows streaming through an ImagePipeline and be
+ * multiplied together with the maps next to it.
+ *
+ * <p>Each of the nine products of a kernel entry with a channel level is looked up in a
+ * 256-entry table, built from the kernel the first time the transform is applied, so a pixel
+ * costs nine loads and no floating-point work. The tables are never changed once built, and the
+ * transform keeps no other state, so one transform can be applied from many threads at once.
  */
-public abstract class AbstractColorTransform implements ImageLinearColorTransform {
+public abstract class AbstractColorTransform implements ImageLinearColorTransform,
+    LinearColorMap {
+
+  private static final int LEVELS = 256;
 
-  private int[][] result;
+  // The rounded product of kernel[i][k] with each level, at (i * 3 + k) * LEVELS + level
+  private volatile int[] products;
 
   /**
    * Multiplies a matrix by a kernel.
@@ -21,9 +29,7 @@ public abstract class AbstractColorTransform implements ImageLinearColorTransfor
    * @return The result of the matrix multiplication.
    */
   public int[][] multiplyMatrix(double[][] kernel, int[][] rgbMatrix) {
-    for (int[] row : result) {
-      Arrays.fill(row, 0);
-    }
+    int[][] result = new int[3][1];
     for (int i = 0; i < 3; i++) {
       for (int k = 0; k < 3; k++) {
         result[i][0] += (int) Math.round(kernel[i][k] * rgbMatrix[k][0]);
@@ -34,39 +40,83 @@ public abstract class AbstractColorTransform implements ImageLinearColorTransfor
   }
 
   /**
-   * Apply the color transformation to an input image and return the transformed image.
+   * Apply the color transformation to an input image and return the transformed image. Blocks of
+   * rows are spread over the ImageBlocks pool.
    *
    * @param inputImage The input image to be transformed.
    * @return The transformed image.
    */
   @Override
   public Image applyColorTransform(Image inputImage) {
-    result = new int[3][1];
-    double[][] kernel = getKernel();
     int height = inputImage.getHeight();
     int width = inputImage.getWidth();
-    Image outputImage = new CustomImage(height, width);
+    Image outputImage = inputImage.createCompatibleImage(height, width);
 
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        int red = inputImage.getPixelValue(y, x, SupportedColorComponents.RED.ordinal());
-        int green = inputImage.getPixelValue(y, x, SupportedColorComponents.GREEN.ordinal());
-        int blue = inputImage.getPixelValue(y, x, SupportedColorComponents.BLUE.ordinal());
+    // Build the tables once here rather than in every thread
+    getProducts();
+    ImageBlocks.forEachBlockInParallel(inputImage,
+        () -> new int[ImageBlocks.maxBlockSize(inputImage)],
+        (block, y, x, blockHeight, blockWidth) -> {
+        inputImage.getRGBSpan(y, x, blockHeight, blockWidth, block, 0, blockWidth);
+        applyToPixels(block, 0, blockHeight * blockWidth);
+        outputImage.setRGBSpan(y, x, blockHeight, blockWidth, block, 0, blockWidth);
+      });
 
-        int[][] rgbMatrix = {{red}, {green}, {blue}};
-        int[][] rgbDash = multiplyMatrix(kernel, rgbMatrix);
+    return outputImage;
+  }
 
-        int redDash = Math.min(255, Math.max(0, rgbDash[0][0]));
-        int greenDash = Math.min(255, Math.max(0, rgbDash[1][0]));
-        int blueDash = Math.min(255, Math.max(0, rgbDash[2][0]));
+  /**
+   * Applies the color transformation to a run of packed RGB pixels in place. Each output channel
+   * is the sum of the rounded products of the kernel row with the input channels, as in
+   * multiplyMatrix, clamped to [0, 255].
+   *
+   * @param pixels The pixels.
+   * @param offset The index of the first pixel of the run.
+   * @param length The number of pixels in the run.
+   */
+  @Override
+  public void applyToPixels(int[] pixels, int offset, int length) {
+    int[] products = getProducts();
+    for (int i = offset; i < offset + length; i++) {
+      int rgb = pixels[i];
+      int red = (rgb >> 16) & 0xFF;
+      int green = (rgb >> 8) & 0xFF;
+      int blue = rgb & 0xFF;
 
-        outputImage.setPixelValue(y, x, SupportedColorComponents.RED.ordinal(), redDash);
-        outputImage.setPixelValue(y, x, SupportedColorComponents.GREEN.ordinal(), greenDash);
-        outputImage.setPixelValue(y, x, SupportedColorComponents.BLUE.ordinal(), blueDash);
-      }
+      int redDash = products[red] + products[green + LEVELS] + products[blue + 2 * LEVELS];
+      int greenDash = products[red + 3 * LEVELS] + products[green + 4 * LEVELS]
+          + products[blue + 5 * LEVELS];
+      int blueDash = products[red + 6 * LEVELS] + products[green + 7 * LEVELS]
+          + products[blue + 8 * LEVELS];
+
+      pixels[i] = (clamp(redDash) << 16) | (clamp(greenDash) << 8) | clamp(blueDash);
     }
+  }
 
-    return outputImage;
+  private static int clamp(int value) {
+    return Math.min(255, Math.max(0, value));
+  }
+
+  /**
+   * Gets the product tables, building them from the kernel if this is the first call. Two threads
+   * that both find no tables build the same ones, so either may be kept.
+   */
+  private int[] getProducts() {
+    int[] tables = this.products;
+    if (tables == null) {
+      double[][] kernel = getKernel();
+      tables = new int[9 * LEVELS];
+      for (int i = 0; i < 3; i++) {
+        for (int k = 0; k < 3; k++) {
+          int start = (i * 3 + k) * LEVELS;
+          for (int level = 0; level < LEVELS; level++) {
+            tables[start + level] = (int) Math.round(kernel[i][k] * level);
+          }
+        }
+      }
+      this.products = tables;
+    }
+    return tables;
   }
 
   /**
@@ -74,5 +124,6 @@ public abstract class AbstractColorTransform implements ImageLinearColorTransfor
    *
    * @return a 2D double matrix containing the values for the kernel.
    */
+  @Override
   public abstract double[][] getKernel();
 }
@@ -0,0 +1,85 @@
+package model.colortransform;
+
+/**
+ * A class for applying any 3x3 channel mix to an image. Each output channel is the sum of the
+ * input channels weighted by one row of the matrix, rounded and clamped to [0, 255].
+ *
+ * <p>A chain of linear color maps can be collapsed into one channel mix of the product of their
+ * matrices with compose, saving a pass over the image for each map after the first. The chain
+ * rounds and clamps after every map; the composite follows a rule of its own: each product is
+ * rounded as in any channel mix, and the sum is clamped to [0, 255] once, at the end. Where no map
+ * of the chain clamps, that differs from the chain by rounding alone, a few levels at most; where
+ * one does, as sepia does with bright pixels, the composite carries on with the unclamped level,
+ * so for such a pixel sepia followed by sepia works from levels above 255.
+ */
+public class ChannelMix extends AbstractColorTransform {
+
+  private final double[][] kernel;
+
+  /**
+   * Creates a channel mix with the given matrix.
+   *
+   * @param matrix The matrix, with a row for each of red, green and blue out and a column for
+   *               each of red, green and blue in. It is copied.
+   * @throws IllegalArgumentException If the matrix is not 3x3 or has an entry that is not a finite
+   *                                  number.
+   */
+  public ChannelMix(double[][] matrix) {
+    if (matrix == null || matrix.length != 3) {
+      throw new IllegalArgumentException("Channel mix must be a 3x3 matrix");
+    }
+    this.kernel = new double[3][];
+    for (int i = 0; i < 3; i++) {
+      if (matrix[i] == null || matrix[i].length != 3) {
+        throw new IllegalArgumentException("Channel mix must be a 3x3 matrix");
+      }
+      for (double entry : matrix[i]) {
+        if (Double.isNaN(entry) || Double.isInfinite(entry)) {
+          throw new IllegalArgumentException("Channel mix entries must be finite numbers");
+        }
+      }
+      this.kernel[i] = matrix[i].clone();
+    }
+  }
+
+  /**
+   * Composes two linear color maps into one channel mix, whose matrix is the product of the
+   * second's matrix with the first's. It is the map of applying the first and then the second,
+   * with its products rounded and its sums clamped once rather than after each map.
+   *
+   * @param first  The map applied first.
+   * @param second The map applied second.
+   * @return The composite map.
+   * @throws IllegalArgumentException If either map is null.
+   */
+  public static ChannelMix compose(LinearColorMap first, LinearColorMap second) {
+    if (first == null || second == null) {
+      throw new IllegalArgumentException("Color maps cannot be null");
+    }
+    double[][] a = second.getKernel();
+    double[][] b = first.getKernel();
+    double[][] product = new double[3][3];
+    for (int i = 0; i < 3; i++) {
+      for (int k = 0; k < 3; k++) {
+        for (int j = 0; j < 3; j++) {
+          product[i][k] += a[i][j] * b[j][k];
+        }
+      }
+    }
+    return new ChannelMix(product);
+  }
+
+  /**
+   * Get the matrix of the channel mix.
+   *
+   * @return A copy of the 3x3 matrix.
+   */
+  @Override
+  public double[][] getKernel() {
+    double[][] copy = new double[3][];
+    for (int i = 0; i < 3; i++) {
+      copy[i] = this.kernel[i].clone();
+    }
+    return copy;
+  }
+}
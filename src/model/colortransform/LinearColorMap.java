@@ -0,0 +1,18 @@
+package model.colortransform;
+
+import model.pipeline.PixelOperation;
+
+/**
+ * A pixel operation that is a linear map of the red, green and blue levels of a pixel, given by a
+ * 3x3 matrix with a row for each output channel. Two linear color maps applied one after the
+ * other are, up to rounding and clamping, the single map of the product of their matrices.
+ */
+public interface LinearColorMap extends PixelOperation {
+
+  /**
+   * Gets the matrix of the map.
+   *
+   * @return A 3x3 matrix, with a row for each of red, green and blue out.
+   */
+  double[][] getKernel();
+}
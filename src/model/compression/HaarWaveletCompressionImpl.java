@@ -4,7 +4,6 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
-import model.customimage.CustomImage;
 import model.customimage.Image;
 
 
@@ -28,32 +27,62 @@ public class HaarWaveletCompressionImpl implements HaarWaveletCompression {
 
     int actualHeight = inputImage.getHeight();
     int actualWidth = inputImage.getWidth();
-    int[][][] originalData = inputImage.getPixelData();
-    Image outputImage = new CustomImage(inputImage.getHeight(), inputImage.getWidth());
+    Image outputImage = inputImage.createCompatibleImage(actualHeight, actualWidth);
 
     for (int color = 0; color < 3; color++) {
-      double[][] channelData = new double[actualHeight][actualWidth];
-      for (int y = 0; y < actualHeight; y++) {
-        for (int x = 0; x < actualWidth; x++) {
-          channelData[y][x] = originalData[y][x][color];
-        }
-      }
+      double[][] channelData = readChannel(inputImage, color);
 
       double[][] transformedChannel = applyHaarTransform(channelData, compressionPercent);
       double[][] reconstructedChannel = inverseHaarTransform(transformedChannel);
 
-      for (int y = 0; y < actualHeight; y++) {
-        for (int x = 0; x < actualWidth; x++) {
-          outputImage.setPixelValue(y, x, color, (int) Math.max(0, Math.min(255,
-                  reconstructedChannel[y][x])));
-        }
-      }
+      writeChannel(outputImage, color, reconstructedChannel);
     }
 
     return outputImage;
   }
 
 
+  /**
+   * Reads one color channel of an image into a matrix of doubles, a row at a time.
+   *
+   * @param inputImage The image to read from.
+   * @param color      The color channel to read.
+   * @return The channel values, indexed by row and then column.
+   */
+  private double[][] readChannel(Image inputImage, int color) {
+    int height = inputImage.getHeight();
+    int width = inputImage.getWidth();
+    double[][] channelData = new double[height][width];
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      inputImage.getChannelRow(y, 0, width, color, row, 0);
+      for (int x = 0; x < width; x++) {
+        channelData[y][x] = row[x];
+      }
+    }
+    return channelData;
+  }
+
+  /**
+   * Writes a matrix of doubles into one color channel of an image a row at a time, clamping to
+   * [0, 255].
+   *
+   * @param outputImage The image to write to.
+   * @param color       The color channel to write.
+   * @param channelData The channel values, at least as large as the image.
+   */
+  private void writeChannel(Image outputImage, int color, double[][] channelData) {
+    int height = outputImage.getHeight();
+    int width = outputImage.getWidth();
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        row[x] = (int) Math.max(0, Math.min(255, channelData[y][x]));
+      }
+      outputImage.setChannelRow(y, 0, width, color, row, 0);
+    }
+  }
+
   /**
    * Applies Haar Wavelet Transform to a single channel of an image.
    *
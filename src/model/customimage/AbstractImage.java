@@ -0,0 +1,219 @@
+package model.customimage;
+
+/**
+ * An abstract base class for images that implements the bulk row and rectangle accessors on top
+ * of the per-pixel ones. Implementations with a flat backing store override the row accessors
+ * with direct array copies.
+ */
+public abstract class AbstractImage implements Image {
+
+  /**
+   * The number of rows in a block of a flat image.
+   */
+  protected static final int DEFAULT_BAND_HEIGHT = 64;
+
+  /**
+   * Copies part of a row of the image into a buffer as packed 0xRRGGBB values.
+   *
+   * @param y      The y-coordinate of the row.
+   * @param x      The x-coordinate of the first pixel to copy.
+   * @param length The number of pixels to copy.
+   * @param buffer The buffer to copy the pixels into.
+   * @param offset The index in the buffer of the first pixel.
+   * @throws IllegalArgumentException If the span lies outside the image.
+   */
+  @Override
+  public void getRGBRow(int y, int x, int length, int[] buffer, int offset) {
+    checkSpan(y, x, 1, length);
+    for (int i = 0; i < length; i++) {
+      buffer[offset + i] = (getRed(y, x + i) << 16) | (getGreen(y, x + i) << 8)
+          | getBlue(y, x + i);
+    }
+  }
+
+  /**
+   * Copies packed 0xRRGGBB values from a buffer into part of a row of the image.
+   *
+   * @param y      The y-coordinate of the row.
+   * @param x      The x-coordinate of the first pixel to set.
+   * @param length The number of pixels to set.
+   * @param buffer The buffer holding the pixels.
+   * @param offset The index in the buffer of the first pixel.
+   * @throws IllegalArgumentException If the span lies outside the image.
+   */
+  @Override
+  public void setRGBRow(int y, int x, int length, int[] buffer, int offset) {
+    checkSpan(y, x, 1, length);
+    for (int i = 0; i < length; i++) {
+      int rgb = buffer[offset + i];
+      setPixelValue(y, x + i, 0, (rgb >> 16) & 0xFF);
+      setPixelValue(y, x + i, 1, (rgb >> 8) & 0xFF);
+      setPixelValue(y, x + i, 2, rgb & 0xFF);
+    }
+  }
+
+  /**
+   * Copies one color component of part of a row of the image into a buffer.
+   *
+   * @param y         The y-coordinate of the row.
+   * @param x         The x-coordinate of the first pixel to copy.
+   * @param length    The number of pixels to copy.
+   * @param component The color component to copy (0 for red, 1 for green, 2 for blue).
+   * @param buffer    The buffer to copy the values into.
+   * @param offset    The index in the buffer of the first value.
+   * @throws IllegalArgumentException If the span lies outside the image or the color component is
+   *                                  not supported.
+   */
+  @Override
+  public void getChannelRow(int y, int x, int length, int component, int[] buffer, int offset) {
+    checkSpan(y, x, 1, length);
+    checkComponent(component);
+    for (int i = 0; i < length; i++) {
+      buffer[offset + i] = getPixelValue(y, x + i, component);
+    }
+  }
+
+  /**
+   * Copies values from a buffer into one color component of part of a row of the image.
+   *
+   * @param y         The y-coordinate of the row.
+   * @param x         The x-coordinate of the first pixel to set.
+   * @param length    The number of pixels to set.
+   * @param component The color component to set (0 for red, 1 for green, 2 for blue).
+   * @param buffer    The buffer holding the values.
+   * @param offset    The index in the buffer of the first value.
+   * @throws IllegalArgumentException If the span lies outside the image or the color component is
+   *                                  not supported.
+   */
+  @Override
+  public void setChannelRow(int y, int x, int length, int component, int[] buffer, int offset) {
+    checkSpan(y, x, 1, length);
+    checkComponent(component);
+    for (int i = 0; i < length; i++) {
+      setPixelValue(y, x + i, component, buffer[offset + i]);
+    }
+  }
+
+  /**
+   * Copies a rectangle of the image into a buffer as packed 0xRRGGBB values, one row at a time.
+   *
+   * @param y        The y-coordinate of the top of the rectangle.
+   * @param x        The x-coordinate of the left of the rectangle.
+   * @param height   The height of the rectangle.
+   * @param width    The width of the rectangle.
+   * @param buffer   The buffer to copy the pixels into.
+   * @param offset   The index in the buffer of the top left pixel.
+   * @param scansize The distance in the buffer between the starts of consecutive rows.
+   * @throws IllegalArgumentException If the rectangle lies outside the image.
+   */
+  @Override
+  public void getRGBSpan(int y, int x, int height, int width, int[] buffer, int offset,
+      int scansize) {
+    checkSpan(y, x, height, width);
+    for (int row = 0; row < height; row++) {
+      getRGBRow(y + row, x, width, buffer, offset + row * scansize);
+    }
+  }
+
+  /**
+   * Copies packed 0xRRGGBB values from a buffer into a rectangle of the image, one row at a time.
+   *
+   * @param y        The y-coordinate of the top of the rectangle.
+   * @param x        The x-coordinate of the left of the rectangle.
+   * @param height   The height of the rectangle.
+   * @param width    The width of the rectangle.
+   * @param buffer   The buffer holding the pixels.
+   * @param offset   The index in the buffer of the top left pixel.
+   * @param scansize The distance in the buffer between the starts of consecutive rows.
+   * @throws IllegalArgumentException If the rectangle lies outside the image.
+   */
+  @Override
+  public void setRGBSpan(int y, int x, int height, int width, int[] buffer, int offset,
+      int scansize) {
+    checkSpan(y, x, height, width);
+    for (int row = 0; row < height; row++) {
+      setRGBRow(y + row, x, width, buffer, offset + row * scansize);
+    }
+  }
+
+  /**
+   * Creates a blank SingleChannelImage of the given size.
+   *
+   * @param height      The height of the new image.
+   * @param width       The width of the new image.
+   * @param channelMask The channels that show the value, with bit c set for color component c.
+   * @return A new SingleChannelImage with all channels set to 0.
+   * @throws IllegalArgumentException If the mask is empty or has bits other than the three
+   *                                  channels.
+   */
+  @Override
+  public Image createSingleChannelImage(int height, int width, int channelMask) {
+    return new SingleChannelImage(height, width, channelMask);
+  }
+
+  /**
+   * Gets a view of a rectangle of the image. The view shares its pixels with this image, so no
+   * pixels are copied and changes made through either are seen by both.
+   *
+   * @param y      The y-coordinate of the top of the rectangle.
+   * @param x      The x-coordinate of the left of the rectangle.
+   * @param height The height of the rectangle.
+   * @param width  The width of the rectangle.
+   * @return A view of the rectangle.
+   * @throws IllegalArgumentException If the rectangle lies outside the image.
+   */
+  @Override
+  public Image getSubImage(int y, int x, int height, int width) {
+    return new SubImage(this, y, x, height, width);
+  }
+
+  /**
+   * Gets the preferred width of the blocks the image is processed in. A flat image is processed in
+   * full rows.
+   *
+   * @return The width of the image.
+   */
+  @Override
+  public int getTileWidth() {
+    return getWidth();
+  }
+
+  /**
+   * Gets the preferred height of the blocks the image is processed in. A flat image is processed in
+   * bands of up to DEFAULT_BAND_HEIGHT rows, which keeps a band of a large image in cache.
+   *
+   * @return The preferred block height.
+   */
+  @Override
+  public int getTileHeight() {
+    return Math.min(getHeight(), DEFAULT_BAND_HEIGHT);
+  }
+
+  /**
+   * Checks that a rectangle lies inside the image.
+   *
+   * @param y      The y-coordinate of the top of the rectangle.
+   * @param x      The x-coordinate of the left of the rectangle.
+   * @param height The height of the rectangle.
+   * @param width  The width of the rectangle.
+   * @throws IllegalArgumentException If the rectangle lies outside the image.
+   */
+  protected void checkSpan(int y, int x, int height, int width) {
+    if (y < 0 || x < 0 || height < 0 || width < 0 || y + height > getHeight()
+        || x + width > getWidth()) {
+      throw new IllegalArgumentException("Invalid x and y coordinates");
+    }
+  }
+
+  /**
+   * Checks that a color component is supported.
+   *
+   * @param component The color component.
+   * @throws IllegalArgumentException If the specified color component is not supported.
+   */
+  protected void checkComponent(int component) {
+    if (component < 0 || component > 2) {
+      throw new IllegalArgumentException("Invalid color value provided");
+    }
+  }
+}
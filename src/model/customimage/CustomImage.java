@@ -4,14 +4,16 @@ import java.awt.image.BufferedImage;
 
 /**
  * A class representing a custom image with various operations for working with image data.
+ * Pixels are stored packed, one {@code int} per pixel in 0xRRGGBB form, in a single row-major
+ * array. Every channel value is therefore limited to the range [0, 255].
  */
-public class CustomImage implements Image {
+public class CustomImage extends AbstractImage {
 
   private final int height;
   private final int width;
 
-  // 3D array for RGB values
-  private int[][][] pixelData;
+  // Packed 0xRRGGBB values, row-major: the pixel at (y, x) lives at index y * width + x
+  private final int[] pixels;
 
 
   /**
@@ -21,9 +23,24 @@ public class CustomImage implements Image {
    * @param width  The width of the image.
    */
   public CustomImage(int height, int width) {
+    this(height, width, new int[height * width]);
+  }
+
+  /**
+   * Constructs a CustomImage over an existing packed pixel array without copying it.
+   *
+   * @param height The height of the image.
+   * @param width  The width of the image.
+   * @param pixels The packed 0xRRGGBB pixel array, at least height * width long.
+   * @throws IllegalArgumentException If the array is too small for the given dimensions.
+   */
+  CustomImage(int height, int width, int[] pixels) {
+    if (pixels.length < height * width) {
+      throw new IllegalArgumentException("Pixel array is too small for the image dimensions");
+    }
     this.height = height;
     this.width = width;
-    this.pixelData = new int[height][width][3];
+    this.pixels = pixels;
   }
 
   /**
@@ -34,16 +51,7 @@ public class CustomImage implements Image {
   @Override
   public BufferedImage convertMatrixToImage() {
     BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        int r = this.pixelData[y][x][0];
-        int g = this.pixelData[y][x][1];
-        int b = this.pixelData[y][x][2];
-        int rgb = (r << 16) | (g << 8) | b;
-        image.setRGB(x, y, rgb);
-      }
-    }
+    image.setRGB(0, 0, width, height, this.pixels, 0, width);
     return image;
   }
 
@@ -56,7 +64,7 @@ public class CustomImage implements Image {
    */
   @Override
   public int getRed(int y, int x) {
-    return pixelData[y][x][0];
+    return (pixels[y * width + x] >> 16) & 0xFF;
   }
 
 
@@ -69,7 +77,7 @@ public class CustomImage implements Image {
    */
   @Override
   public int getGreen(int y, int x) {
-    return pixelData[y][x][1];
+    return (pixels[y * width + x] >> 8) & 0xFF;
   }
 
 
@@ -82,7 +90,7 @@ public class CustomImage implements Image {
    */
   @Override
   public int getBlue(int y, int x) {
-    return pixelData[y][x][2];
+    return pixels[y * width + x] & 0xFF;
   }
 
 
@@ -97,7 +105,10 @@ public class CustomImage implements Image {
    */
   @Override
   public int getPixelValue(int y, int x, int component) {
-    return this.pixelData[y][x][component];
+    if (component < 0 || component > 2) {
+      throw new IllegalArgumentException("Invalid color value provided");
+    }
+    return (pixels[y * width + x] >> (16 - 8 * component)) & 0xFF;
   }
 
 
@@ -124,13 +135,24 @@ public class CustomImage implements Image {
 
 
   /**
-   * Gets the pixel data of the image as a three-dimensional array.
+   * Gets the pixel data of the image as a three-dimensional array. The array is built from the
+   * packed pixels on every call, so changes made to it are not reflected in the image.
    *
-   * @return The pixel data of the image.
+   * @return A copy of the pixel data of the image.
    */
   @Override
   public int[][][] getPixelData() {
-    return this.pixelData;
+    int[][][] pixelData = new int[height][width][3];
+    for (int y = 0; y < height; y++) {
+      int rowStart = y * width;
+      for (int x = 0; x < width; x++) {
+        int rgb = pixels[rowStart + x];
+        pixelData[y][x][0] = (rgb >> 16) & 0xFF;
+        pixelData[y][x][1] = (rgb >> 8) & 0xFF;
+        pixelData[y][x][2] = rgb & 0xFF;
+      }
+    }
+    return pixelData;
   }
 
   /**
@@ -140,18 +162,7 @@ public class CustomImage implements Image {
    */
   @Override
   public void setPixelValuesFromBufferedImage(BufferedImage image) {
-    for (int i = 0; i < width; i++) {
-      for (int j = 0; j < height; j++) {
-        int rgb = image.getRGB(i, j);
-        int r = (rgb >> 16) & 0xFF;
-        int g = (rgb >> 8) & 0xFF;
-        int b = rgb & 0xFF;
-
-        this.pixelData[j][i][0] = r;
-        this.pixelData[j][i][1] = g;
-        this.pixelData[j][i][2] = b;
-      }
-    }
+    RasterImage.readPackedPixels(image, this.pixels);
   }
 
   /**
@@ -165,17 +176,15 @@ public class CustomImage implements Image {
   @Override
   public int getRGB(int x, int y) throws IllegalArgumentException {
     if (x >= 0 && x < width && y >= 0 && y < height) {
-      int r = pixelData[y][x][0];
-      int g = pixelData[y][x][1];
-      int b = pixelData[y][x][2];
-      return (r << 16) | (g << 8) | b;
+      return pixels[y * width + x];
     } else {
       throw new IllegalArgumentException("Invalid x and y coordinates");
     }
   }
 
   /**
-   * Sets the RGB value of a pixel at the specified coordinates (x, y) and color.
+   * Sets the RGB value of a pixel at the specified coordinates (x, y) and color. Values outside
+   * [0, 255] are clamped, since each channel is stored in eight bits.
    *
    * @param i        The x-coordinate of the pixel.
    * @param j        The y-coordinate of the pixel.
@@ -187,15 +196,123 @@ public class CustomImage implements Image {
     if (color < 0 || color > 2) {
       throw new IllegalArgumentException("Invalid color value provided");
     }
-    this.pixelData[j][i][color] = adjusted;
+    int shift = 16 - 8 * color;
+    int value = Math.max(0, Math.min(255, adjusted));
+    int index = j * width + i;
+    this.pixels[index] = (this.pixels[index] & ~(0xFF << shift)) | (value << shift);
   }
 
   /**
-   * Sets all pixel values of the image using a three-dimensional pixel data array.
+   * Sets all pixel values of the image using a three-dimensional pixel data array. The values are
+   * packed into the image, so later changes to the array are not reflected in the image.
    *
    * @param pixelData The pixel data array.
    */
   public void setAllPixels(int[][][] pixelData) {
-    this.pixelData = pixelData;
+    for (int y = 0; y < height; y++) {
+      int rowStart = y * width;
+      for (int x = 0; x < width; x++) {
+        int r = Math.max(0, Math.min(255, pixelData[y][x][0]));
+        int g = Math.max(0, Math.min(255, pixelData[y][x][1]));
+        int b = Math.max(0, Math.min(255, pixelData[y][x][2]));
+        this.pixels[rowStart + x] = (r << 16) | (g << 8) | b;
+      }
+    }
+  }
+
+  /**
+   * Creates a blank packed image of the given size.
+   *
+   * @param height The height of the new image.
+   * @param width  The width of the new image.
+   * @return A new CustomImage with all channels set to 0.
+   */
+  @Override
+  public Image createCompatibleImage(int height, int width) {
+    return new CustomImage(height, width);
+  }
+
+  /**
+   * Copies part of a row of the image into a buffer as packed 0xRRGGBB values.
+   *
+   * @param y      The y-coordinate of the row.
+   * @param x      The x-coordinate of the first pixel to copy.
+   * @param length The number of pixels to copy.
+   * @param buffer The buffer to copy the pixels into.
+   * @param offset The index in the buffer of the first pixel.
+   * @throws IllegalArgumentException If the span lies outside the image.
+   */
+  @Override
+  public void getRGBRow(int y, int x, int length, int[] buffer, int offset) {
+    checkSpan(y, x, 1, length);
+    System.arraycopy(this.pixels, y * width + x, buffer, offset, length);
+  }
+
+  /**
+   * Copies packed 0xRRGGBB values from a buffer into part of a row of the image.
+   *
+   * @param y      The y-coordinate of the row.
+   * @param x      The x-coordinate of the first pixel to set.
+   * @param length The number of pixels to set.
+   * @param buffer The buffer holding the pixels.
+   * @param offset The index in the buffer of the first pixel.
+   * @throws IllegalArgumentException If the span lies outside the image.
+   */
+  @Override
+  public void setRGBRow(int y, int x, int length, int[] buffer, int offset) {
+    checkSpan(y, x, 1, length);
+    int start = y * width + x;
+    for (int i = 0; i < length; i++) {
+      this.pixels[start + i] = buffer[offset + i] & 0xFFFFFF;
+    }
+  }
+
+  /**
+   * Copies one color component of part of a row of the image into a buffer.
+   *
+   * @param y         The y-coordinate of the row.
+   * @param x         The x-coordinate of the first pixel to copy.
+   * @param length    The number of pixels to copy.
+   * @param component The color component to copy (0 for red, 1 for green, 2 for blue).
+   * @param buffer    The buffer to copy the values into.
+   * @param offset    The index in the buffer of the first value.
+   * @throws IllegalArgumentException If the span lies outside the image or the color component is
+   *                                  not supported.
+   */
+  @Override
+  public void getChannelRow(int y, int x, int length, int component, int[] buffer, int offset) {
+    checkSpan(y, x, 1, length);
+    checkComponent(component);
+    int shift = 16 - 8 * component;
+    int start = y * width + x;
+    for (int i = 0; i < length; i++) {
+      buffer[offset + i] = (this.pixels[start + i] >> shift) & 0xFF;
+    }
+  }
+
+  /**
+   * Copies values from a buffer into one color component of part of a row of the image. Values
+   * outside [0, 255] are clamped.
+   *
+   * @param y         The y-coordinate of the row.
+   * @param x         The x-coordinate of the first pixel to set.
+   * @param length    The number of pixels to set.
+   * @param component The color component to set (0 for red, 1 for green, 2 for blue).
+   * @param buffer    The buffer holding the values.
+   * @param offset    The index in the buffer of the first value.
+   * @throws IllegalArgumentException If the span lies outside the image or the color component is
+   *                                  not supported.
+   */
+  @Override
+  public void setChannelRow(int y, int x, int length, int component, int[] buffer, int offset) {
+    checkSpan(y, x, 1, length);
+    checkComponent(component);
+    int shift = 16 - 8 * component;
+    int keep = ~(0xFF << shift);
+    int start = y * width + x;
+    for (int i = 0; i < length; i++) {
+      int value = Math.max(0, Math.min(255, buffer[offset + i]));
+      this.pixels[start + i] = (this.pixels[start + i] & keep) | (value << shift);
+    }
   }
 }
@@ -0,0 +1,370 @@
+package model.customimage;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A packed image whose pixels can never change once it has been built. Every mutator throws and the
+ * pixel data handed out is always a copy, so a frozen image can be shared freely between names,
+ * caches and threads.
+ *
+ * <p>Each frozen image has a 64-bit content hash, computed the first time it is asked for. Two
+ * frozen images with the same size and pixels have the same hash and are
+ * {@link #equals(Object) equal}. New frozen images are made with a {@link Builder}, by copying
+ * another image with {@link #copyOf(Image)}, or by taking over the buffer of a RasterImage with
+ * {@link #takeOver(RasterImage)}. A frozen image that took over a pooled buffer owns it, and can
+ * give it back to the PixelBufferPool with {@link #release()} once nothing refers to the image.
+ */
+public final class FrozenImage extends CustomImage {
+
+  // Below this many pixels the rows are hashed on the calling thread
+  private static final int PARALLEL_HASH_THRESHOLD = 1 << 16;
+
+  private final int[] pixels;
+  // Whether the pixel buffer came from the pool, and so may be given back to it
+  private final boolean pooled;
+  private boolean released;
+  private volatile long contentHash;
+  private volatile boolean hashed;
+
+  private FrozenImage(int height, int width, int[] pixels, boolean pooled) {
+    super(height, width, pixels);
+    this.pixels = pixels;
+    this.pooled = pooled;
+  }
+
+  /**
+   * Creates a frozen copy of an image. A frozen image is returned as it is, since it cannot
+   * change.
+   *
+   * @param image The image to copy.
+   * @return A frozen image with the pixels the image has now.
+   */
+  public static FrozenImage copyOf(Image image) {
+    if (image instanceof FrozenImage) {
+      return (FrozenImage) image;
+    }
+    int height = image.getHeight();
+    int width = image.getWidth();
+    int[] pixels = new int[height * width];
+    image.getRGBSpan(0, 0, height, width, pixels, 0, width);
+    return new FrozenImage(height, width, pixels, false);
+  }
+
+  /**
+   * Freezes a RasterImage by taking over its pixel buffer instead of copying it. If the buffer of
+   * the RasterImage may be referenced from elsewhere it is copied instead. Either way the
+   * RasterImage must not be used afterwards.
+   *
+   * @param image The image to freeze.
+   * @return A frozen image with the pixels of the image.
+   */
+  public static FrozenImage takeOver(RasterImage image) {
+    int[] pixels = image.detachPixels();
+    if (pixels == null) {
+      return copyOf(image);
+    }
+    return new FrozenImage(image.getHeight(), image.getWidth(), pixels, true);
+  }
+
+  /**
+   * Gives the pixel buffer of this image back to the shared PixelBufferPool. Only an image that
+   * took over a pooled buffer can be released; for any other image this does nothing. The image
+   * must not be used after it has been released, since its buffer may be handed to a new image.
+   *
+   * @return Whether the buffer was given back to the pool.
+   */
+  public synchronized boolean release() {
+    if (!pooled || released) {
+      return false;
+    }
+    released = true;
+    PixelBufferPool.getShared().release(this.pixels);
+    return true;
+  }
+
+  /**
+   * Creates a builder that starts from the pixels of this image.
+   *
+   * @return A new builder holding a copy of the pixels of this image.
+   */
+  public Builder toBuilder() {
+    Builder builder = new Builder(getHeight(), getWidth());
+    System.arraycopy(this.pixels, 0, builder.pixels, 0, this.pixels.length);
+    return builder;
+  }
+
+  /**
+   * Gets the content hash of the image, which depends only on its size and pixels. The hash is
+   * computed on the first call and remembered.
+   *
+   * @return The 64-bit content hash.
+   */
+  public long getContentHash() {
+    if (!this.hashed) {
+      this.contentHash = hashPixels(getHeight(), getWidth(), this.pixels);
+      this.hashed = true;
+    }
+    return this.contentHash;
+  }
+
+  /**
+   * Checks whether another object is a frozen image of the same size with the same pixels.
+   *
+   * @param other The object to compare with.
+   * @return Whether the object holds the same image.
+   */
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof FrozenImage)) {
+      return false;
+    }
+    FrozenImage that = (FrozenImage) other;
+    return this.getContentHash() == that.getContentHash() && this.getHeight() == that.getHeight()
+        && this.getWidth() == that.getWidth() && Arrays.equals(this.pixels, that.pixels);
+  }
+
+  /**
+   * Gets a hash code derived from the content hash.
+   *
+   * @return The hash code of the image.
+   */
+  @Override
+  public int hashCode() {
+    return Long.hashCode(getContentHash());
+  }
+
+  /**
+   * Always throws, since a frozen image cannot be modified.
+   *
+   * @param j        The y-coordinate of the pixel.
+   * @param i        The x-coordinate of the pixel.
+   * @param color    The color component to set.
+   * @param adjusted The new value.
+   * @throws UnsupportedOperationException Always.
+   */
+  @Override
+  public void setPixelValue(int j, int i, int color, int adjusted) {
+    throw new UnsupportedOperationException("A frozen image cannot be modified");
+  }
+
+  /**
+   * Always throws, since a frozen image cannot be modified.
+   *
+   * @param pixelData The pixel data array.
+   * @throws UnsupportedOperationException Always.
+   */
+  @Override
+  public void setAllPixels(int[][][] pixelData) {
+    throw new UnsupportedOperationException("A frozen image cannot be modified");
+  }
+
+  /**
+   * Always throws, since a frozen image cannot be modified.
+   *
+   * @param image The BufferedImage to set pixel values from.
+   * @throws UnsupportedOperationException Always.
+   */
+  @Override
+  public void setPixelValuesFromBufferedImage(BufferedImage image) {
+    throw new UnsupportedOperationException("A frozen image cannot be modified");
+  }
+
+  /**
+   * Always throws, since a frozen image cannot be modified.
+   *
+   * @param y      The y-coordinate of the row.
+   * @param x      The x-coordinate of the first pixel to set.
+   * @param length The number of pixels to set.
+   * @param buffer The buffer holding the pixels.
+   * @param offset The index in the buffer of the first pixel.
+   * @throws UnsupportedOperationException Always.
+   */
+  @Override
+  public void setRGBRow(int y, int x, int length, int[] buffer, int offset) {
+    throw new UnsupportedOperationException("A frozen image cannot be modified");
+  }
+
+  /**
+   * Always throws, since a frozen image cannot be modified.
+   *
+   * @param y         The y-coordinate of the row.
+   * @param x         The x-coordinate of the first pixel to set.
+   * @param length    The number of pixels to set.
+   * @param component The color component to set.
+   * @param buffer    The buffer holding the values.
+   * @param offset    The index in the buffer of the first value.
+   * @throws UnsupportedOperationException Always.
+   */
+  @Override
+  public void setChannelRow(int y, int x, int length, int component, int[] buffer, int offset) {
+    throw new UnsupportedOperationException("A frozen image cannot be modified");
+  }
+
+  /**
+   * Creates a blank, modifiable packed image of the given size, so operations applied to a frozen
+   * image write their results into an ordinary image.
+   *
+   * @param height The height of the new image.
+   * @param width  The width of the new image.
+   * @return A new image with all channels set to 0.
+   */
+  @Override
+  public Image createCompatibleImage(int height, int width) {
+    return RasterImage.create(height, width);
+  }
+
+  /**
+   * Hashes each row on its own, in parallel for large images, and then folds the row hashes
+   * together in order, so the result does not depend on how the rows were scheduled.
+   */
+  private static long hashPixels(int height, int width, int[] pixels) {
+    long[] rowHashes = new long[height];
+    IntStream rows = IntStream.range(0, height);
+    if ((long) height * width >= PARALLEL_HASH_THRESHOLD) {
+      rows = rows.parallel();
+    }
+    rows.forEach(y -> rowHashes[y] = hashRow(pixels, y * width, width));
+    long hash = mix(((long) height << 32) | width);
+    for (long rowHash : rowHashes) {
+      hash = mix(hash ^ rowHash);
+    }
+    return hash;
+  }
+
+  private static long hashRow(int[] pixels, int start, int length) {
+    long hash = 0xCBF29CE484222325L;
+    for (int i = start; i < start + length; i++) {
+      hash = (hash ^ pixels[i]) * 0x100000001B3L;
+    }
+    return hash;
+  }
+
+  // The finalizer of SplitMix64, so that nearby inputs spread over all 64 bits
+  private static long mix(long value) {
+    long z = (value + 0x9E3779B97F4A7C15L) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Collects the pixels of a new frozen image. A builder can be written to any number of times;
+   * {@link #build()} hands its pixels over to the frozen image, after which the builder cannot be
+   * used again.
+   */
+  public static final class Builder {
+
+    private final int height;
+    private final int width;
+    private int[] pixels;
+
+    /**
+     * Constructs a builder for an image of the given size with all channels set to 0.
+     *
+     * @param height The height of the image.
+     * @param width  The width of the image.
+     * @throws IllegalArgumentException If the width or height is negative.
+     */
+    public Builder(int height, int width) {
+      if (height < 0 || width < 0) {
+        throw new IllegalArgumentException("Width (" + width + ") and height (" + height
+            + ") cannot be negative");
+      }
+      this.height = height;
+      this.width = width;
+      this.pixels = new int[height * width];
+    }
+
+    /**
+     * Sets one color component of a pixel. Values outside [0, 255] are clamped.
+     *
+     * @param y         The y-coordinate of the pixel.
+     * @param x         The x-coordinate of the pixel.
+     * @param component The color component to set (0 for red, 1 for green, 2 for blue).
+     * @param value     The new value.
+     * @return This builder.
+     * @throws IllegalArgumentException If the pixel lies outside the image or the color component
+     *                                  is not supported.
+     */
+    public Builder setPixelValue(int y, int x, int component, int value) {
+      checkPixel(y, x);
+      if (component < 0 || component > 2) {
+        throw new IllegalArgumentException("Invalid color value provided");
+      }
+      int shift = 16 - 8 * component;
+      int index = y * width + x;
+      int clamped = Math.max(0, Math.min(255, value));
+      pixels[index] = (pixels[index] & ~(0xFF << shift)) | (clamped << shift);
+      return this;
+    }
+
+    /**
+     * Sets a pixel to a packed 0xRRGGBB value.
+     *
+     * @param y   The y-coordinate of the pixel.
+     * @param x   The x-coordinate of the pixel.
+     * @param rgb The packed value.
+     * @return This builder.
+     * @throws IllegalArgumentException If the pixel lies outside the image.
+     */
+    public Builder setRGB(int y, int x, int rgb) {
+      checkPixel(y, x);
+      pixels[y * width + x] = rgb & 0xFFFFFF;
+      return this;
+    }
+
+    /**
+     * Copies packed 0xRRGGBB values from a buffer into part of a row.
+     *
+     * @param y      The y-coordinate of the row.
+     * @param x      The x-coordinate of the first pixel to set.
+     * @param length The number of pixels to set.
+     * @param buffer The buffer holding the pixels.
+     * @param offset The index in the buffer of the first pixel.
+     * @return This builder.
+     * @throws IllegalArgumentException If the span lies outside the image.
+     */
+    public Builder setRGBRow(int y, int x, int length, int[] buffer, int offset) {
+      checkPixels();
+      if (y < 0 || y >= height || x < 0 || length < 0 || x + length > width) {
+        throw new IllegalArgumentException("Invalid x and y coordinates");
+      }
+      int start = y * width + x;
+      for (int i = 0; i < length; i++) {
+        pixels[start + i] = buffer[offset + i] & 0xFFFFFF;
+      }
+      return this;
+    }
+
+    /**
+     * Builds the frozen image. The pixels are handed over rather than copied, so the builder
+     * cannot be used afterwards.
+     *
+     * @return The frozen image.
+     * @throws IllegalStateException If the builder has already been built.
+     */
+    public FrozenImage build() {
+      checkPixels();
+      int[] built = this.pixels;
+      this.pixels = null;
+      return new FrozenImage(height, width, built, false);
+    }
+
+    private void checkPixel(int y, int x) {
+      checkPixels();
+      if (y < 0 || y >= height || x < 0 || x >= width) {
+        throw new IllegalArgumentException("Invalid x and y coordinates");
+      }
+    }
+
+    private void checkPixels() {
+      if (this.pixels == null) {
+        throw new IllegalStateException("The image has already been built");
+      }
+    }
+  }
+}
@@ -62,7 +62,8 @@ public interface Image {
   int getHeight();
 
   /**
-   * Gets the pixel data of the image as a three-dimensional array.
+   * Gets the pixel data of the image as a three-dimensional array. Implementations may return a
+   * copy, so the image should be modified through setPixelValue rather than through this array.
    *
    * @return The pixel data of the image.
    */
@@ -109,4 +110,140 @@ public interface Image {
    * @param pixelData The pixel data array.
    */
   void setAllPixels(int[][][] pixelData);
+
+  /**
+   * Creates a blank image of the given size that uses the same storage as this image. Processors
+   * use it for their output so that, for example, a planar input produces a planar result.
+   *
+   * @param height The height of the new image.
+   * @param width  The width of the new image.
+   * @return A new image with all channels set to 0.
+   */
+  Image createCompatibleImage(int height, int width);
+
+  /**
+   * Creates a blank image of the given size for results that have one value per pixel, shown
+   * through the channels in a mask and 0 in the others. Channel operations and component
+   * extractors use it for their output, so that they need not store three channels.
+   *
+   * @param height      The height of the new image.
+   * @param width       The width of the new image.
+   * @param channelMask The channels that show the value, with bit c set for color component c.
+   * @return A new image with all channels set to 0.
+   * @throws IllegalArgumentException If the mask is empty or has bits other than the three
+   *                                  channels.
+   */
+  Image createSingleChannelImage(int height, int width, int channelMask);
+
+  /**
+   * Copies part of a row of the image into a buffer as packed 0xRRGGBB values.
+   *
+   * @param y      The y-coordinate of the row.
+   * @param x      The x-coordinate of the first pixel to copy.
+   * @param length The number of pixels to copy.
+   * @param buffer The buffer to copy the pixels into.
+   * @param offset The index in the buffer of the first pixel.
+   * @throws IllegalArgumentException If the span lies outside the image.
+   */
+  void getRGBRow(int y, int x, int length, int[] buffer, int offset);
+
+  /**
+   * Copies packed 0xRRGGBB values from a buffer into part of a row of the image. Bits above the
+   * low 24 are ignored.
+   *
+   * @param y      The y-coordinate of the row.
+   * @param x      The x-coordinate of the first pixel to set.
+   * @param length The number of pixels to set.
+   * @param buffer The buffer holding the pixels.
+   * @param offset The index in the buffer of the first pixel.
+   * @throws IllegalArgumentException If the span lies outside the image.
+   */
+  void setRGBRow(int y, int x, int length, int[] buffer, int offset);
+
+  /**
+   * Copies one color component of part of a row of the image into a buffer.
+   *
+   * @param y         The y-coordinate of the row.
+   * @param x         The x-coordinate of the first pixel to copy.
+   * @param length    The number of pixels to copy.
+   * @param component The color component to copy (0 for red, 1 for green, 2 for blue).
+   * @param buffer    The buffer to copy the values into.
+   * @param offset    The index in the buffer of the first value.
+   * @throws IllegalArgumentException If the span lies outside the image or the color component is
+   *                                  not supported.
+   */
+  void getChannelRow(int y, int x, int length, int component, int[] buffer, int offset);
+
+  /**
+   * Copies values from a buffer into one color component of part of a row of the image. Values
+   * outside [0, 255] are clamped.
+   *
+   * @param y         The y-coordinate of the row.
+   * @param x         The x-coordinate of the first pixel to set.
+   * @param length    The number of pixels to set.
+   * @param component The color component to set (0 for red, 1 for green, 2 for blue).
+   * @param buffer    The buffer holding the values.
+   * @param offset    The index in the buffer of the first value.
+   * @throws IllegalArgumentException If the span lies outside the image or the color component is
+   *                                  not supported.
+   */
+  void setChannelRow(int y, int x, int length, int component, int[] buffer, int offset);
+
+  /**
+   * Copies a rectangle of the image into a buffer as packed 0xRRGGBB values. Row r of the
+   * rectangle starts at buffer index offset + r * scansize.
+   *
+   * @param y        The y-coordinate of the top of the rectangle.
+   * @param x        The x-coordinate of the left of the rectangle.
+   * @param height   The height of the rectangle.
+   * @param width    The width of the rectangle.
+   * @param buffer   The buffer to copy the pixels into.
+   * @param offset   The index in the buffer of the top left pixel.
+   * @param scansize The distance in the buffer between the starts of consecutive rows.
+   * @throws IllegalArgumentException If the rectangle lies outside the image.
+   */
+  void getRGBSpan(int y, int x, int height, int width, int[] buffer, int offset, int scansize);
+
+  /**
+   * Copies packed 0xRRGGBB values from a buffer into a rectangle of the image. Row r of the
+   * rectangle is read from buffer index offset + r * scansize.
+   *
+   * @param y        The y-coordinate of the top of the rectangle.
+   * @param x        The x-coordinate of the left of the rectangle.
+   * @param height   The height of the rectangle.
+   * @param width    The width of the rectangle.
+   * @param buffer   The buffer holding the pixels.
+   * @param offset   The index in the buffer of the top left pixel.
+   * @param scansize The distance in the buffer between the starts of consecutive rows.
+   * @throws IllegalArgumentException If the rectangle lies outside the image.
+   */
+  void setRGBSpan(int y, int x, int height, int width, int[] buffer, int offset, int scansize);
+
+  /**
+   * Gets a view of a rectangle of the image. The view shares its pixels with this image, so no
+   * pixels are copied and changes made through either are seen by both.
+   *
+   * @param y      The y-coordinate of the top of the rectangle.
+   * @param x      The x-coordinate of the left of the rectangle.
+   * @param height The height of the rectangle.
+   * @param width  The width of the rectangle.
+   * @return A view of the rectangle.
+   * @throws IllegalArgumentException If the rectangle lies outside the image.
+   */
+  Image getSubImage(int y, int x, int height, int width);
+
+  /**
+   * Gets the preferred width of the blocks the image is processed in. Processors that work a block
+   * at a time touch the least storage when their blocks follow these hints.
+   *
+   * @return The preferred block width, at most the width of the image.
+   */
+  int getTileWidth();
+
+  /**
+   * Gets the preferred height of the blocks the image is processed in.
+   *
+   * @return The preferred block height, at most the height of the image.
+   */
+  int getTileHeight();
 }
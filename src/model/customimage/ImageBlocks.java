@@ -0,0 +1,237 @@
+package model.customimage;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * Walks an image in blocks that follow its tile hints, so a processor working a block at a time
+ * touches only a few tiles of a TiledImage and a cache-sized band of a flat image.
+ */
+public final class ImageBlocks {
+
+  /**
+   * A visitor called once for every block of an image.
+   */
+  public interface BlockVisitor {
+
+    /**
+     * Visits one block.
+     *
+     * @param y      The y-coordinate of the top of the block.
+     * @param x      The x-coordinate of the left of the block.
+     * @param height The height of the block.
+     * @param width  The width of the block.
+     */
+    void visit(int y, int x, int height, int width);
+  }
+
+  /**
+   * A visitor called once for every block of an image with a workspace of its own thread, so
+   * blocks visited at the same time never share buffers.
+   *
+   * @param <T> The type of the workspace.
+   */
+  public interface WorkspaceBlockVisitor<T> {
+
+    /**
+     * Visits one block.
+     *
+     * @param workspace The workspace of the thread visiting the block.
+     * @param y         The y-coordinate of the top of the block.
+     * @param x         The x-coordinate of the left of the block.
+     * @param height    The height of the block.
+     * @param width     The width of the block.
+     */
+    void visit(T workspace, int y, int x, int height, int width);
+  }
+
+  /**
+   * A visitor called once for every run of a range of indices, such as rows or column strips,
+   * with a workspace of its own thread.
+   *
+   * @param <T> The type of the workspace.
+   */
+  public interface WorkspaceRangeVisitor<T> {
+
+    /**
+     * Visits one run of indices.
+     *
+     * @param workspace The workspace of the thread visiting the run.
+     * @param first     The first index of the run.
+     * @param last      One past the last index of the run.
+     */
+    void visit(T workspace, int first, int last);
+  }
+
+  /**
+   * The number of pixels below which an image is always walked on the calling thread, since
+   * handing its blocks to the pool would cost more than it saves.
+   */
+  public static final long PARALLEL_THRESHOLD = 1 << 18;
+
+  private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+
+  private ImageBlocks() {
+  }
+
+  /**
+   * Sets the number of threads images are walked with in parallel. A parallelism of 1 walks every
+   * image on the calling thread. The pool being replaced is not shut down, since another thread may
+   * still be walking an image with it; its threads exit on their own once they have been idle.
+   *
+   * @param parallelism The number of threads.
+   * @throws IllegalArgumentException If the parallelism is not positive.
+   */
+  public static void setParallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive");
+    }
+    pool = parallelism == ForkJoinPool.getCommonPoolParallelism()
+        ? ForkJoinPool.commonPool() : new ForkJoinPool(parallelism);
+  }
+
+  /**
+   * Gets the number of threads images are walked with in parallel.
+   *
+   * @return The number of threads.
+   */
+  public static int getParallelism() {
+    return pool.getParallelism();
+  }
+
+  /**
+   * Calls the visitor for every block of the image, spreading the blocks over the pool. The blocks
+   * are split into a few runs per thread, and each run gets a fresh workspace from the supplier
+   * and visits its blocks in order. Images smaller than PARALLEL_THRESHOLD, and every image when
+   * the parallelism is 1, are walked on the calling thread with one workspace. The visitor must
+   * only write to its own block, so the result does not depend on how the blocks were scheduled.
+   *
+   * @param image     The image to walk.
+   * @param workspace The supplier of a workspace for each run of blocks.
+   * @param visitor   The visitor to call for each block.
+   * @param <T>       The type of the workspace.
+   */
+  public static <T> void forEachBlockInParallel(Image image, Supplier<T> workspace,
+                                                WorkspaceBlockVisitor<T> visitor) {
+    int height = image.getHeight();
+    int width = image.getWidth();
+    int blockHeight = Math.max(1, image.getTileHeight());
+    int blockWidth = Math.max(1, image.getTileWidth());
+    int blocksAcross = (width + blockWidth - 1) / blockWidth;
+    int blockCount = blocksAcross * ((height + blockHeight - 1) / blockHeight);
+    ForkJoinPool current = pool;
+    if ((long) height * width < PARALLEL_THRESHOLD || current.getParallelism() == 1
+        || blockCount < 2) {
+      T serialWorkspace = workspace.get();
+      forEachBlock(image, (y, x, h, w) -> visitor.visit(serialWorkspace, y, x, h, w));
+      return;
+    }
+    int grain = Math.max(1, blockCount / (4 * current.getParallelism()));
+    current.invoke(new BlockRun(0, blockCount, grain, (first, last) -> {
+      T runWorkspace = workspace.get();
+      for (int i = first; i < last; i++) {
+        int y = (i / blocksAcross) * blockHeight;
+        int x = (i % blocksAcross) * blockWidth;
+        visitor.visit(runWorkspace, y, x, Math.min(blockHeight, height - y),
+            Math.min(blockWidth, width - x));
+      }
+    }));
+  }
+
+  /**
+   * Calls the visitor for runs of indices that together cover 0 to count - 1, spreading the runs
+   * over the pool like {@link #forEachBlockInParallel}. It is for processors that need whole rows
+   * or columns rather than blocks. The range is walked as one run on the calling thread when the
+   * work is smaller than PARALLEL_THRESHOLD pixels or the parallelism is 1.
+   *
+   * @param count     The number of indices.
+   * @param pixels    The number of pixels the whole range covers.
+   * @param workspace The supplier of a workspace for each run.
+   * @param visitor   The visitor to call for each run.
+   * @param <T>       The type of the workspace.
+   */
+  public static <T> void forEachRangeInParallel(int count, long pixels, Supplier<T> workspace,
+                                                WorkspaceRangeVisitor<T> visitor) {
+    if (count < 1) {
+      return;
+    }
+    ForkJoinPool current = pool;
+    if (pixels < PARALLEL_THRESHOLD || current.getParallelism() == 1 || count < 2) {
+      visitor.visit(workspace.get(), 0, count);
+      return;
+    }
+    int grain = Math.max(1, count / (4 * current.getParallelism()));
+    current.invoke(new BlockRun(0, count, grain,
+        (first, last) -> visitor.visit(workspace.get(), first, last)));
+  }
+
+  /**
+   * A task that splits a range of block indices in halves until it is no longer than the grain,
+   * then runs it.
+   */
+  private static final class BlockRun extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The work done for a run of blocks.
+     */
+    interface RunBody {
+      void run(int first, int last);
+    }
+
+    private final int first;
+    private final int last;
+    private final int grain;
+    private final RunBody body;
+
+    BlockRun(int first, int last, int grain, RunBody body) {
+      this.first = first;
+      this.last = last;
+      this.grain = grain;
+      this.body = body;
+    }
+
+    @Override
+    protected void compute() {
+      if (last - first <= grain) {
+        body.run(first, last);
+        return;
+      }
+      int middle = (first + last) >>> 1;
+      invokeAll(new BlockRun(first, middle, grain, body),
+          new BlockRun(middle, last, grain, body));
+    }
+  }
+
+  /**
+   * Calls the visitor for every block of the image, a row of blocks at a time from the top. The
+   * blocks cover the image exactly and do not overlap.
+   *
+   * @param image   The image to walk.
+   * @param visitor The visitor to call for each block.
+   */
+  public static void forEachBlock(Image image, BlockVisitor visitor) {
+    int height = image.getHeight();
+    int width = image.getWidth();
+    int blockHeight = Math.max(1, image.getTileHeight());
+    int blockWidth = Math.max(1, image.getTileWidth());
+    for (int y = 0; y < height; y += blockHeight) {
+      for (int x = 0; x < width; x += blockWidth) {
+        visitor.visit(y, x, Math.min(blockHeight, height - y), Math.min(blockWidth, width - x));
+      }
+    }
+  }
+
+  /**
+   * Gets the number of pixels in the largest block of the image, which is the size of a buffer
+   * that can hold any block.
+   *
+   * @param image The image.
+   * @return The number of pixels in the largest block.
+   */
+  public static int maxBlockSize(Image image) {
+    return Math.max(1, image.getTileHeight()) * Math.max(1, image.getTileWidth());
+  }
+}
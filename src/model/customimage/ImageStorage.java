@@ -0,0 +1,73 @@
+package model.customimage;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * An enumeration of the pixel storage layouts an image can be created with.
+ */
+public enum ImageStorage {
+  PACKED("One packed 0xRRGGBB int per pixel") {
+    @Override
+    public Image createImage(int height, int width) {
+      return RasterImage.create(height, width);
+    }
+
+    @Override
+    public Image createImage(BufferedImage image) {
+      return RasterImage.fromBufferedImage(image);
+    }
+  },
+  PLANAR("One byte plane per color channel") {
+    @Override
+    public Image createImage(int height, int width) {
+      return new PlanarImage(height, width);
+    }
+  },
+  TILED("Fixed-size tiles kept under a memory budget") {
+    @Override
+    public Image createImage(int height, int width) {
+      return new TiledImage(height, width);
+    }
+  };
+
+  private final String description;
+
+  /**
+   * Construct an ImageStorage enum value with the given description.
+   *
+   * @param description The description of the storage layout.
+   */
+  ImageStorage(String description) {
+    this.description = description;
+  }
+
+  /**
+   * Get the description of the storage layout.
+   *
+   * @return The description of the storage layout.
+   */
+  public String getDescription() {
+    return this.description;
+  }
+
+  /**
+   * Create a blank image of the given size using this storage layout.
+   *
+   * @param height The height of the image.
+   * @param width  The width of the image.
+   * @return A new image with all channels set to 0.
+   */
+  public abstract Image createImage(int height, int width);
+
+  /**
+   * Create an image holding the pixels of a BufferedImage using this storage layout.
+   *
+   * @param image The BufferedImage to take the pixels from.
+   * @return A new image with the pixels of the BufferedImage.
+   */
+  public Image createImage(BufferedImage image) {
+    Image result = createImage(image.getHeight(), image.getWidth());
+    result.setPixelValuesFromBufferedImage(image);
+    return result;
+  }
+}
@@ -0,0 +1,119 @@
+package model.customimage;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A pool of packed pixel buffers, keyed by their length (the width times the height of the image
+ * they hold). Images of a size that was used before draw a released buffer instead of allocating a
+ * new one, which keeps large short-lived arrays from churning through the garbage collector during
+ * long scripts. Buffers handed out are always zeroed.
+ */
+public final class PixelBufferPool {
+
+  private static final PixelBufferPool SHARED =
+      new PixelBufferPool(Runtime.getRuntime().maxMemory() / 4);
+
+  private final long maxBytesRetained;
+  private final Map<Integer, ArrayDeque<int[]>> freeBuffers;
+  private long bytesRetained;
+  private long hits;
+  private long misses;
+
+  /**
+   * Constructs an empty pool.
+   *
+   * @param maxBytesRetained The most bytes of released buffers to keep. Buffers released beyond
+   *                         this are left to the garbage collector.
+   */
+  public PixelBufferPool(long maxBytesRetained) {
+    this.maxBytesRetained = maxBytesRetained;
+    this.freeBuffers = new HashMap<>();
+  }
+
+  /**
+   * Gets the pool that images draw their buffers from, which may keep up to a quarter of the
+   * maximum heap.
+   *
+   * @return The shared pool.
+   */
+  public static PixelBufferPool getShared() {
+    return SHARED;
+  }
+
+  /**
+   * Takes a zeroed buffer of the given length from the pool, or allocates one if none is free.
+   *
+   * @param length The length of the buffer.
+   * @return A buffer of exactly the given length with every entry set to 0.
+   */
+  public int[] acquire(int length) {
+    int[] buffer;
+    synchronized (this) {
+      ArrayDeque<int[]> free = freeBuffers.get(length);
+      buffer = free == null ? null : free.poll();
+      if (buffer == null) {
+        misses++;
+      } else {
+        hits++;
+        bytesRetained -= 4L * length;
+      }
+    }
+    if (buffer == null) {
+      return new int[length];
+    }
+    Arrays.fill(buffer, 0);
+    return buffer;
+  }
+
+  /**
+   * Returns a buffer to the pool. The caller must not use the buffer afterwards.
+   *
+   * @param buffer The buffer to return.
+   */
+  public synchronized void release(int[] buffer) {
+    long bytes = 4L * buffer.length;
+    if (bytesRetained + bytes > maxBytesRetained) {
+      return;
+    }
+    freeBuffers.computeIfAbsent(buffer.length, length -> new ArrayDeque<>()).push(buffer);
+    bytesRetained += bytes;
+  }
+
+  /**
+   * Gets the number of acquires that were served by a released buffer.
+   *
+   * @return The number of hits.
+   */
+  public synchronized long getHits() {
+    return this.hits;
+  }
+
+  /**
+   * Gets the number of acquires that had to allocate a new buffer.
+   *
+   * @return The number of misses.
+   */
+  public synchronized long getMisses() {
+    return this.misses;
+  }
+
+  /**
+   * Gets the number of bytes held by released buffers waiting to be reused.
+   *
+   * @return The number of bytes retained.
+   */
+  public synchronized long getBytesRetained() {
+    return this.bytesRetained;
+  }
+
+  /**
+   * Drops every released buffer held by the pool.
+   */
+  public synchronized void clear() {
+    this.freeBuffers.clear();
+    this.bytesRetained = 0;
+  }
+}
@@ -0,0 +1,322 @@
+package model.customimage;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * An image that stores each color channel as its own plane of unsigned 8-bit values. A plane is a
+ * single row-major {@code byte[]} of width * height entries, so a processor working on one channel
+ * can stream through it without touching the other two.
+ */
+public class PlanarImage extends AbstractImage {
+
+  private final int height;
+  private final int width;
+
+  // One plane per color component, indexed the same way as SupportedColorComponents
+  private final byte[][] planes;
+
+  /**
+   * Constructs a PlanarImage with the specified height and width.
+   *
+   * @param height The height of the image.
+   * @param width  The width of the image.
+   */
+  public PlanarImage(int height, int width) {
+    this.height = height;
+    this.width = width;
+    this.planes = new byte[3][height * width];
+  }
+
+  /**
+   * Gets the plane holding the given color component. The plane is the live storage of the image,
+   * with the pixel at (y, x) at index y * width + x and values read as {@code b & 0xFF}.
+   *
+   * @param component The color component (0 for red, 1 for green, 2 for blue).
+   * @return The plane of the color component.
+   * @throws IllegalArgumentException If the specified color component is not supported.
+   */
+  public byte[] getPlane(int component) {
+    checkComponent(component);
+    return this.planes[component];
+  }
+
+  /**
+   * Gets the red color component value of a pixel at the specified coordinates (x, y).
+   *
+   * @param y The y-coordinate of the pixel.
+   * @param x The x-coordinate of the pixel.
+   * @return The red color component value of the pixel.
+   */
+  @Override
+  public int getRed(int y, int x) {
+    return planes[0][y * width + x] & 0xFF;
+  }
+
+  /**
+   * Gets the green color component value of a pixel at the specified coordinates (x, y).
+   *
+   * @param y The y-coordinate of the pixel.
+   * @param x The x-coordinate of the pixel.
+   * @return The green color component value of the pixel.
+   */
+  @Override
+  public int getGreen(int y, int x) {
+    return planes[1][y * width + x] & 0xFF;
+  }
+
+  /**
+   * Gets the blue color component value of a pixel at the specified coordinates (x, y).
+   *
+   * @param y The y-coordinate of the pixel.
+   * @param x The x-coordinate of the pixel.
+   * @return The blue color component value of the pixel.
+   */
+  @Override
+  public int getBlue(int y, int x) {
+    return planes[2][y * width + x] & 0xFF;
+  }
+
+  /**
+   * Gets the color component value of a pixel at the specified coordinates based on color.
+   *
+   * @param y         The y-coordinate of the pixel.
+   * @param x         The x-coordinate of the pixel.
+   * @param component The color component to retrieve.
+   * @return The color component value of the pixel.
+   * @throws IllegalArgumentException If the specified color component is not supported.
+   */
+  @Override
+  public int getPixelValue(int y, int x, int component) {
+    return getPlane(component)[y * width + x] & 0xFF;
+  }
+
+  /**
+   * Gets the width of the image.
+   *
+   * @return The width of the image.
+   */
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Gets the height of the image.
+   *
+   * @return The height of the image.
+   */
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Gets the pixel data of the image as a three-dimensional array. The array is built from the
+   * planes on every call, so changes made to it are not reflected in the image.
+   *
+   * @return A copy of the pixel data of the image.
+   */
+  @Override
+  public int[][][] getPixelData() {
+    int[][][] pixelData = new int[height][width][3];
+    for (int y = 0; y < height; y++) {
+      int rowStart = y * width;
+      for (int x = 0; x < width; x++) {
+        for (int c = 0; c < 3; c++) {
+          pixelData[y][x][c] = planes[c][rowStart + x] & 0xFF;
+        }
+      }
+    }
+    return pixelData;
+  }
+
+  /**
+   * Gets the RGB value of a pixel at the specified coordinates (x, y).
+   *
+   * @param x The x-coordinate of the pixel.
+   * @param y The y-coordinate of the pixel.
+   * @return The RGB value of the pixel.
+   * @throws IllegalArgumentException If the coordinates are outside the valid image bounds.
+   */
+  @Override
+  public int getRGB(int x, int y) throws IllegalArgumentException {
+    if (x >= 0 && x < width && y >= 0 && y < height) {
+      int index = y * width + x;
+      return ((planes[0][index] & 0xFF) << 16) | ((planes[1][index] & 0xFF) << 8)
+          | (planes[2][index] & 0xFF);
+    } else {
+      throw new IllegalArgumentException("Invalid x and y coordinates");
+    }
+  }
+
+  /**
+   * Sets the color component value of a pixel at the specified coordinates (x, y). Values outside
+   * [0, 255] are clamped, since each channel is stored in eight bits.
+   *
+   * @param j        The y-coordinate of the pixel.
+   * @param i        The x-coordinate of the pixel.
+   * @param color    The color component to set (0 for red, 1 for green, 2 for blue).
+   * @param adjusted The adjusted color component value.
+   * @throws IllegalArgumentException If the specified color component is not supported.
+   */
+  @Override
+  public void setPixelValue(int j, int i, int color, int adjusted) {
+    getPlane(color)[j * width + i] = (byte) Math.max(0, Math.min(255, adjusted));
+  }
+
+  /**
+   * Sets the pixel values of the image based on a BufferedImage.
+   *
+   * @param image The BufferedImage to set pixel values from.
+   */
+  @Override
+  public void setPixelValuesFromBufferedImage(BufferedImage image) {
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      image.getRGB(0, y, width, 1, row, 0, width);
+      int rowStart = y * width;
+      for (int x = 0; x < width; x++) {
+        int rgb = row[x];
+        planes[0][rowStart + x] = (byte) (rgb >> 16);
+        planes[1][rowStart + x] = (byte) (rgb >> 8);
+        planes[2][rowStart + x] = (byte) rgb;
+      }
+    }
+  }
+
+  /**
+   * Converts the planes to a BufferedImage.
+   *
+   * @return The BufferedImage representation of the image.
+   */
+  @Override
+  public BufferedImage convertMatrixToImage() {
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      int rowStart = y * width;
+      for (int x = 0; x < width; x++) {
+        row[x] = ((planes[0][rowStart + x] & 0xFF) << 16)
+            | ((planes[1][rowStart + x] & 0xFF) << 8) | (planes[2][rowStart + x] & 0xFF);
+      }
+      image.setRGB(0, y, width, 1, row, 0, width);
+    }
+    return image;
+  }
+
+  /**
+   * Sets all pixel values of the image using a three-dimensional pixel data array. The values are
+   * copied into the planes, so later changes to the array are not reflected in the image.
+   *
+   * @param pixelData The pixel data array.
+   */
+  @Override
+  public void setAllPixels(int[][][] pixelData) {
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        for (int c = 0; c < 3; c++) {
+          setPixelValue(y, x, c, pixelData[y][x][c]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates a blank planar image of the given size.
+   *
+   * @param height The height of the new image.
+   * @param width  The width of the new image.
+   * @return A new PlanarImage with all channels set to 0.
+   */
+  @Override
+  public Image createCompatibleImage(int height, int width) {
+    return new PlanarImage(height, width);
+  }
+
+  /**
+   * Copies part of a row of the image into a buffer as packed 0xRRGGBB values.
+   *
+   * @param y      The y-coordinate of the row.
+   * @param x      The x-coordinate of the first pixel to copy.
+   * @param length The number of pixels to copy.
+   * @param buffer The buffer to copy the pixels into.
+   * @param offset The index in the buffer of the first pixel.
+   * @throws IllegalArgumentException If the span lies outside the image.
+   */
+  @Override
+  public void getRGBRow(int y, int x, int length, int[] buffer, int offset) {
+    checkSpan(y, x, 1, length);
+    int start = y * width + x;
+    for (int i = 0; i < length; i++) {
+      buffer[offset + i] = ((planes[0][start + i] & 0xFF) << 16)
+          | ((planes[1][start + i] & 0xFF) << 8) | (planes[2][start + i] & 0xFF);
+    }
+  }
+
+  /**
+   * Copies packed 0xRRGGBB values from a buffer into part of a row of the image.
+   *
+   * @param y      The y-coordinate of the row.
+   * @param x      The x-coordinate of the first pixel to set.
+   * @param length The number of pixels to set.
+   * @param buffer The buffer holding the pixels.
+   * @param offset The index in the buffer of the first pixel.
+   * @throws IllegalArgumentException If the span lies outside the image.
+   */
+  @Override
+  public void setRGBRow(int y, int x, int length, int[] buffer, int offset) {
+    checkSpan(y, x, 1, length);
+    int start = y * width + x;
+    for (int i = 0; i < length; i++) {
+      int rgb = buffer[offset + i];
+      planes[0][start + i] = (byte) (rgb >> 16);
+      planes[1][start + i] = (byte) (rgb >> 8);
+      planes[2][start + i] = (byte) rgb;
+    }
+  }
+
+  /**
+   * Copies one color component of part of a row of the image into a buffer.
+   *
+   * @param y         The y-coordinate of the row.
+   * @param x         The x-coordinate of the first pixel to copy.
+   * @param length    The number of pixels to copy.
+   * @param component The color component to copy (0 for red, 1 for green, 2 for blue).
+   * @param buffer    The buffer to copy the values into.
+   * @param offset    The index in the buffer of the first value.
+   * @throws IllegalArgumentException If the span lies outside the image or the color component is
+   *                                  not supported.
+   */
+  @Override
+  public void getChannelRow(int y, int x, int length, int component, int[] buffer, int offset) {
+    checkSpan(y, x, 1, length);
+    byte[] plane = getPlane(component);
+    int start = y * width + x;
+    for (int i = 0; i < length; i++) {
+      buffer[offset + i] = plane[start + i] & 0xFF;
+    }
+  }
+
+  /**
+   * Copies values from a buffer into one color component of part of a row of the image. Values
+   * outside [0, 255] are clamped.
+   *
+   * @param y         The y-coordinate of the row.
+   * @param x         The x-coordinate of the first pixel to set.
+   * @param length    The number of pixels to set.
+   * @param component The color component to set (0 for red, 1 for green, 2 for blue).
+   * @param buffer    The buffer holding the values.
+   * @param offset    The index in the buffer of the first value.
+   * @throws IllegalArgumentException If the span lies outside the image or the color component is
+   *                                  not supported.
+   */
+  @Override
+  public void setChannelRow(int y, int x, int length, int component, int[] buffer, int offset) {
+    checkSpan(y, x, 1, length);
+    byte[] plane = getPlane(component);
+    int start = y * width + x;
+    for (int i = 0; i < length; i++) {
+      plane[start + i] = (byte) Math.max(0, Math.min(255, buffer[offset + i]));
+    }
+  }
+}
@@ -0,0 +1,217 @@
+package model.customimage;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * A packed image backed by a {@code TYPE_INT_RGB} BufferedImage. The pixels of the image are the
+ * data buffer of the BufferedImage, so handing the image to ImageIO or to the view needs no
+ * conversion, and a {@code TYPE_INT_RGB} BufferedImage can be wrapped without copying.
+ *
+ * <p>A blank RasterImage, or one converted from a BufferedImage it cannot wrap, takes its pixel
+ * buffer from the shared PixelBufferPool, and can give it back with {@link #release()} once
+ * nothing refers to the image any more.
+ */
+public class RasterImage extends CustomImage {
+
+  private static final int[] RGB_MASKS = {0xFF0000, 0xFF00, 0xFF};
+  private static final DirectColorModel RGB_MODEL =
+      new DirectColorModel(24, RGB_MASKS[0], RGB_MASKS[1], RGB_MASKS[2]);
+
+  private final BufferedImage bufferedImage;
+  private final int[] pixels;
+  // Whether the pixel buffer came from the pool, and so may be given back to it
+  private final boolean pooled;
+  // Whether the BufferedImage has been handed out, so something outside may still read it
+  private boolean exposed;
+  private boolean released;
+
+  /**
+   * Constructs a RasterImage with the specified height and width, over a buffer drawn from the
+   * shared PixelBufferPool.
+   *
+   * @param height The height of the image.
+   * @param width  The width of the image.
+   * @throws IllegalArgumentException If the width or height is not positive.
+   */
+  public RasterImage(int height, int width) {
+    this(createBufferedImage(height, width), true);
+  }
+
+  private RasterImage(BufferedImage image, boolean pooled) {
+    super(image.getHeight(), image.getWidth(),
+        ((DataBufferInt) image.getRaster().getDataBuffer()).getData());
+    this.bufferedImage = image;
+    this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    this.pooled = pooled;
+  }
+
+  /**
+   * Creates a RasterImage holding the pixels of a BufferedImage. A {@code TYPE_INT_RGB} image
+   * whose raster covers its whole data buffer is wrapped as it is, so later changes to either are
+   * seen by both. Any other image is copied into a new {@code TYPE_INT_RGB} image in one pass,
+   * over a buffer drawn from the shared PixelBufferPool that {@link #release()} gives back.
+   *
+   * @param image The BufferedImage to take the pixels from.
+   * @return A RasterImage with the pixels of the BufferedImage.
+   */
+  public static RasterImage fromBufferedImage(BufferedImage image) {
+    if (isWrappable(image)) {
+      return new RasterImage(image, false);
+    }
+    return new RasterImage(toIntRGB(image), true);
+  }
+
+  /**
+   * Gives the pixel buffer of this image back to the shared PixelBufferPool. Only an image whose
+   * buffer this class drew from the pool and whose BufferedImage was never handed out can be
+   * released; for any other image, such as one wrapping a caller's BufferedImage, this does
+   * nothing. The image must not be used after it has been released.
+   *
+   * @return Whether the buffer was given back to the pool.
+   */
+  public synchronized boolean release() {
+    if (!pooled || exposed || released) {
+      return false;
+    }
+    released = true;
+    PixelBufferPool.getShared().release(this.pixels);
+    return true;
+  }
+
+  /**
+   * Hands the pixel buffer of this image over to a new owner, under the same conditions as
+   * {@link #release()}. The image must not be used afterwards.
+   *
+   * @return The pixel buffer, or null if it may be referenced from elsewhere.
+   */
+  synchronized int[] detachPixels() {
+    if (!pooled || exposed || released) {
+      return null;
+    }
+    released = true;
+    return this.pixels;
+  }
+
+  /**
+   * Gets the BufferedImage backing this image. The returned image shares its pixels with this
+   * image, so it must be treated as read-only by callers that do not own the image.
+   *
+   * @return The BufferedImage representation of the image.
+   */
+  @Override
+  public synchronized BufferedImage convertMatrixToImage() {
+    this.exposed = true;
+    return this.bufferedImage;
+  }
+
+  /**
+   * Sets the pixel values of the image based on a BufferedImage. Nothing is copied if the
+   * BufferedImage is the one backing this image.
+   *
+   * @param image The BufferedImage to set pixel values from.
+   */
+  @Override
+  public void setPixelValuesFromBufferedImage(BufferedImage image) {
+    if (image != this.bufferedImage) {
+      super.setPixelValuesFromBufferedImage(image);
+    }
+  }
+
+  /**
+   * Creates a blank image of the given size backed by a new BufferedImage. A BufferedImage cannot
+   * be empty, so an image with no pixels is created as a plain CustomImage.
+   *
+   * @param height The height of the new image.
+   * @param width  The width of the new image.
+   * @return A new image with all channels set to 0.
+   */
+  @Override
+  public Image createCompatibleImage(int height, int width) {
+    return create(height, width);
+  }
+
+  /**
+   * Creates a blank packed image of the given size, as a RasterImage unless it has no pixels.
+   *
+   * @param height The height of the new image.
+   * @param width  The width of the new image.
+   * @return A new image with all channels set to 0.
+   */
+  static Image create(int height, int width) {
+    if (height == 0 || width == 0) {
+      return new CustomImage(height, width);
+    }
+    return new RasterImage(height, width);
+  }
+
+  private static BufferedImage createBufferedImage(int height, int width) {
+    if (height <= 0 || width <= 0) {
+      throw new IllegalArgumentException("Width (" + width + ") and height (" + height
+          + ") must be positive");
+    }
+    int length = height * width;
+    DataBufferInt buffer = new DataBufferInt(PixelBufferPool.getShared().acquire(length), length);
+    WritableRaster raster = Raster.createPackedRaster(buffer, width, height, width, RGB_MASKS,
+        null);
+    return new BufferedImage(RGB_MODEL, raster, false, null);
+  }
+
+  private static boolean isWrappable(BufferedImage image) {
+    if (image.getType() != BufferedImage.TYPE_INT_RGB) {
+      return false;
+    }
+    Raster raster = image.getRaster();
+    SinglePixelPackedSampleModel sampleModel =
+        (SinglePixelPackedSampleModel) raster.getSampleModel();
+    // Only a raster that starts at the beginning of its buffer with no row padding can be
+    // addressed as y * width + x
+    return raster.getDataBuffer().getOffset() == 0
+        && raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0
+        && sampleModel.getScanlineStride() == image.getWidth();
+  }
+
+  private static BufferedImage toIntRGB(BufferedImage image) {
+    int height = image.getHeight();
+    int width = image.getWidth();
+    BufferedImage converted = createBufferedImage(height, width);
+    int[] pixels = ((DataBufferInt) converted.getRaster().getDataBuffer()).getData();
+    readPackedPixels(image, pixels);
+    return converted;
+  }
+
+  /**
+   * Reads the pixels of a BufferedImage into a packed 0xRRGGBB array in one pass. The common
+   * three-byte BGR layout that JPEG images decode to is read straight from its data buffer; other
+   * layouts go through a single bulk {@code getRGB} call.
+   *
+   * @param image  The BufferedImage to read.
+   * @param pixels The array to fill, at least width * height long.
+   */
+  static void readPackedPixels(BufferedImage image, int[] pixels) {
+    int height = image.getHeight();
+    int width = image.getWidth();
+    Raster raster = image.getRaster();
+    if (image.getType() == BufferedImage.TYPE_3BYTE_BGR
+        && raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0
+        && raster.getDataBuffer().getOffset() == 0
+        && ((ComponentSampleModel) raster.getSampleModel()).getScanlineStride() == width * 3) {
+      byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+      int n = height * width;
+      for (int i = 0, j = 0; i < n; i++, j += 3) {
+        pixels[i] = ((data[j + 2] & 0xFF) << 16) | ((data[j + 1] & 0xFF) << 8) | (data[j] & 0xFF);
+      }
+      return;
+    }
+    image.getRGB(0, 0, width, height, pixels, 0, width);
+    for (int i = 0; i < height * width; i++) {
+      pixels[i] &= 0xFFFFFF;
+    }
+  }
+}
@@ -0,0 +1,467 @@
+package model.customimage;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * An image that holds a single plane of unsigned 8-bit values and presents it through some of the
+ * color channels. Channels in the mask read the plane value and the others read 0, so a luma image
+ * is a plane shown through all three channels and a red component is a plane shown through red
+ * only. It takes one byte per pixel, a quarter of a packed image.
+ *
+ * <p>Any pixel can be written, as to any other image. Writes the plane can hold, where the
+ * channels in the mask have the same value and the others are 0, go to the plane. The first write
+ * it cannot hold, such as one channel of a greyscale pixel, copies the image into packed full
+ * color storage, which holds the image from then on. That copy must not race with writes from
+ * other threads. Processors that write arbitrary colors should still write into
+ * {@link #createCompatibleImage(int, int)}, which is a full color image from the start.
+ */
+public class SingleChannelImage extends AbstractImage {
+
+  /**
+   * The mask that presents the plane through all three channels, as a greyscale image.
+   */
+  public static final int ALL_CHANNELS = 0b111;
+
+  private final int height;
+  private final int width;
+  private final int channelMask;
+  // The packed pixel that a plane value of 1 stands for, so a value v is shown as v * unit
+  private final int unit;
+  // The shift of the first channel in the mask within a packed pixel
+  private final int shift;
+
+  // The single plane, row-major: the value at (y, x) lives at index y * width + x
+  private final byte[] plane;
+  // The full color copy of the image once a write the plane cannot hold has been made, or null
+  private volatile Image packed;
+
+  /**
+   * Constructs a greyscale SingleChannelImage with the specified height and width.
+   *
+   * @param height The height of the image.
+   * @param width  The width of the image.
+   */
+  public SingleChannelImage(int height, int width) {
+    this(height, width, ALL_CHANNELS);
+  }
+
+  /**
+   * Constructs a SingleChannelImage with the specified height and width, presenting its plane
+   * through the given channels.
+   *
+   * @param height      The height of the image.
+   * @param width       The width of the image.
+   * @param channelMask The channels that show the plane, with bit c set for color component c.
+   * @throws IllegalArgumentException If the mask is empty or has bits other than the three
+   *                                  channels.
+   */
+  public SingleChannelImage(int height, int width, int channelMask) {
+    if (channelMask <= 0 || channelMask > ALL_CHANNELS) {
+      throw new IllegalArgumentException("Invalid channel mask " + channelMask);
+    }
+    this.height = height;
+    this.width = width;
+    this.channelMask = channelMask;
+    this.unit = ((channelMask & 1) << 16) | (((channelMask >> 1) & 1) << 8)
+        | ((channelMask >> 2) & 1);
+    this.shift = 16 - 8 * Integer.numberOfTrailingZeros(channelMask);
+    this.plane = new byte[height * width];
+  }
+
+  /**
+   * Gets the mask bit of a color component.
+   *
+   * @param component The color component (0 for red, 1 for green, 2 for blue).
+   * @return The bit that is set in a channel mask presenting the component.
+   */
+  public static int channelBit(int component) {
+    return 1 << component;
+  }
+
+  /**
+   * Gets the channels that show the plane.
+   *
+   * @return The channel mask, with bit c set for color component c.
+   */
+  public int getChannelMask() {
+    return this.channelMask;
+  }
+
+  /**
+   * Gets the plane of the image. The plane is the live storage of the image, with the value at
+   * (y, x) at index y * width + x and values read as {@code b & 0xFF}, until a write the plane
+   * cannot hold moves the image to full color storage.
+   *
+   * @return The plane of the image, or null if the image is no longer held in it.
+   */
+  public byte[] getPlane() {
+    return this.packed == null ? this.plane : null;
+  }
+
+  /**
+   * Stores a packed pixel in the plane if the plane can hold it.
+   *
+   * @param index The index of the pixel in the plane.
+   * @param rgb   The packed 0xRRGGBB pixel.
+   * @return Whether the pixel was stored.
+   */
+  private boolean store(int index, int rgb) {
+    int value = (rgb >> shift) & 0xFF;
+    if (value * unit != rgb) {
+      return false;
+    }
+    plane[index] = (byte) value;
+    return true;
+  }
+
+  /**
+   * Copies the image into packed full color storage, which holds it from then on.
+   *
+   * @return The full color copy.
+   */
+  private synchronized Image promote() {
+    if (this.packed == null) {
+      Image image = RasterImage.create(height, width);
+      int[] row = new int[width];
+      for (int y = 0; y < height; y++) {
+        getRGBRow(y, 0, width, row, 0);
+        image.setRGBRow(y, 0, width, row, 0);
+      }
+      this.packed = image;
+    }
+    return this.packed;
+  }
+
+  /**
+   * Gets the red color component value of a pixel at the specified coordinates (x, y).
+   *
+   * @param y The y-coordinate of the pixel.
+   * @param x The x-coordinate of the pixel.
+   * @return The red color component value of the pixel.
+   */
+  @Override
+  public int getRed(int y, int x) {
+    return getPixelValue(y, x, 0);
+  }
+
+  /**
+   * Gets the green color component value of a pixel at the specified coordinates (x, y).
+   *
+   * @param y The y-coordinate of the pixel.
+   * @param x The x-coordinate of the pixel.
+   * @return The green color component value of the pixel.
+   */
+  @Override
+  public int getGreen(int y, int x) {
+    return getPixelValue(y, x, 1);
+  }
+
+  /**
+   * Gets the blue color component value of a pixel at the specified coordinates (x, y).
+   *
+   * @param y The y-coordinate of the pixel.
+   * @param x The x-coordinate of the pixel.
+   * @return The blue color component value of the pixel.
+   */
+  @Override
+  public int getBlue(int y, int x) {
+    return getPixelValue(y, x, 2);
+  }
+
+  /**
+   * Gets the color component value of a pixel at the specified coordinates based on color.
+   *
+   * @param y         The y-coordinate of the pixel.
+   * @param x         The x-coordinate of the pixel.
+   * @param component The color component to retrieve.
+   * @return The color component value of the pixel.
+   * @throws IllegalArgumentException If the specified color component is not supported.
+   */
+  @Override
+  public int getPixelValue(int y, int x, int component) {
+    Image full = this.packed;
+    if (full != null) {
+      return full.getPixelValue(y, x, component);
+    }
+    checkComponent(component);
+    if ((channelMask & channelBit(component)) == 0) {
+      return 0;
+    }
+    return plane[y * width + x] & 0xFF;
+  }
+
+  /**
+   * Gets the width of the image.
+   *
+   * @return The width of the image.
+   */
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Gets the height of the image.
+   *
+   * @return The height of the image.
+   */
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Gets the pixel data of the image as a three-dimensional array. The array is built on every
+   * call, so changes made to it are not reflected in the image.
+   *
+   * @return A copy of the pixel data of the image.
+   */
+  @Override
+  public int[][][] getPixelData() {
+    Image full = this.packed;
+    if (full != null) {
+      return full.getPixelData();
+    }
+    int[][][] pixelData = new int[height][width][3];
+    for (int y = 0; y < height; y++) {
+      int rowStart = y * width;
+      for (int x = 0; x < width; x++) {
+        int value = plane[rowStart + x] & 0xFF;
+        for (int c = 0; c < 3; c++) {
+          pixelData[y][x][c] = (channelMask & channelBit(c)) == 0 ? 0 : value;
+        }
+      }
+    }
+    return pixelData;
+  }
+
+  /**
+   * Gets the RGB value of a pixel at the specified coordinates (x, y).
+   *
+   * @param x The x-coordinate of the pixel.
+   * @param y The y-coordinate of the pixel.
+   * @return The RGB value of the pixel.
+   * @throws IllegalArgumentException If the coordinates are outside the valid image bounds.
+   */
+  @Override
+  public int getRGB(int x, int y) throws IllegalArgumentException {
+    Image full = this.packed;
+    if (full != null) {
+      return full.getRGB(x, y);
+    }
+    if (x >= 0 && x < width && y >= 0 && y < height) {
+      return (plane[y * width + x] & 0xFF) * unit;
+    } else {
+      throw new IllegalArgumentException("Invalid x and y coordinates");
+    }
+  }
+
+  /**
+   * Sets the color component value of a pixel at the specified coordinates (x, y), leaving its
+   * other components as they are. Values outside [0, 255] are clamped.
+   *
+   * @param j        The y-coordinate of the pixel.
+   * @param i        The x-coordinate of the pixel.
+   * @param color    The color component to set (0 for red, 1 for green, 2 for blue).
+   * @param adjusted The adjusted color component value.
+   * @throws IllegalArgumentException If the color component is not supported.
+   */
+  @Override
+  public void setPixelValue(int j, int i, int color, int adjusted) {
+    checkComponent(color);
+    if (this.packed == null) {
+      int value = Math.max(0, Math.min(255, adjusted));
+      int componentShift = 16 - 8 * color;
+      int rgb = (getRGB(i, j) & ~(0xFF << componentShift)) | (value << componentShift);
+      if (store(j * width + i, rgb)) {
+        return;
+      }
+    }
+    promote().setPixelValue(j, i, color, adjusted);
+  }
+
+  /**
+   * Sets the pixel values of the image based on a BufferedImage.
+   *
+   * @param image The BufferedImage to set pixel values from.
+   */
+  @Override
+  public void setPixelValuesFromBufferedImage(BufferedImage image) {
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      image.getRGB(0, y, width, 1, row, 0, width);
+      setRGBRow(y, 0, width, row, 0);
+    }
+  }
+
+  /**
+   * Converts the image to a full color BufferedImage.
+   *
+   * @return The BufferedImage representation of the image.
+   */
+  @Override
+  public BufferedImage convertMatrixToImage() {
+    Image full = this.packed;
+    if (full != null) {
+      return full.convertMatrixToImage();
+    }
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    for (int i = 0; i < height * width; i++) {
+      pixels[i] = (plane[i] & 0xFF) * unit;
+    }
+    return image;
+  }
+
+  /**
+   * Sets all pixel values of the image using a three-dimensional pixel data array.
+   *
+   * @param pixelData The pixel data array.
+   */
+  @Override
+  public void setAllPixels(int[][][] pixelData) {
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int r = Math.max(0, Math.min(255, pixelData[y][x][0]));
+        int g = Math.max(0, Math.min(255, pixelData[y][x][1]));
+        int b = Math.max(0, Math.min(255, pixelData[y][x][2]));
+        row[x] = (r << 16) | (g << 8) | b;
+      }
+      setRGBRow(y, 0, width, row, 0);
+    }
+  }
+
+  /**
+   * Creates a blank full color image of the given size, since the result of an operation on a
+   * single channel is in general not single channel.
+   *
+   * @param height The height of the new image.
+   * @param width  The width of the new image.
+   * @return A new packed image with all channels set to 0.
+   */
+  @Override
+  public Image createCompatibleImage(int height, int width) {
+    return RasterImage.create(height, width);
+  }
+
+  /**
+   * Copies part of a row of the image into a buffer as packed 0xRRGGBB values.
+   *
+   * @param y      The y-coordinate of the row.
+   * @param x      The x-coordinate of the first pixel to copy.
+   * @param length The number of pixels to copy.
+   * @param buffer The buffer to copy the pixels into.
+   * @param offset The index in the buffer of the first pixel.
+   * @throws IllegalArgumentException If the span lies outside the image.
+   */
+  @Override
+  public void getRGBRow(int y, int x, int length, int[] buffer, int offset) {
+    Image full = this.packed;
+    if (full != null) {
+      full.getRGBRow(y, x, length, buffer, offset);
+      return;
+    }
+    checkSpan(y, x, 1, length);
+    int start = y * width + x;
+    for (int i = 0; i < length; i++) {
+      buffer[offset + i] = (plane[start + i] & 0xFF) * unit;
+    }
+  }
+
+  /**
+   * Copies packed 0xRRGGBB values from a buffer into part of a row of the image.
+   *
+   * @param y      The y-coordinate of the row.
+   * @param x      The x-coordinate of the first pixel to set.
+   * @param length The number of pixels to set.
+   * @param buffer The buffer holding the pixels.
+   * @param offset The index in the buffer of the first pixel.
+   * @throws IllegalArgumentException If the span lies outside the image.
+   */
+  @Override
+  public void setRGBRow(int y, int x, int length, int[] buffer, int offset) {
+    checkSpan(y, x, 1, length);
+    int i = 0;
+    if (this.packed == null) {
+      int start = y * width + x;
+      while (i < length && store(start + i, buffer[offset + i] & 0xFFFFFF)) {
+        i++;
+      }
+      if (i == length) {
+        return;
+      }
+    }
+    promote().setRGBRow(y, x + i, length - i, buffer, offset + i);
+  }
+
+  /**
+   * Copies one color component of part of a row of the image into a buffer.
+   *
+   * @param y         The y-coordinate of the row.
+   * @param x         The x-coordinate of the first pixel to copy.
+   * @param length    The number of pixels to copy.
+   * @param component The color component to copy (0 for red, 1 for green, 2 for blue).
+   * @param buffer    The buffer to copy the values into.
+   * @param offset    The index in the buffer of the first value.
+   * @throws IllegalArgumentException If the span lies outside the image or the color component is
+   *                                  not supported.
+   */
+  @Override
+  public void getChannelRow(int y, int x, int length, int component, int[] buffer, int offset) {
+    Image full = this.packed;
+    if (full != null) {
+      full.getChannelRow(y, x, length, component, buffer, offset);
+      return;
+    }
+    checkSpan(y, x, 1, length);
+    checkComponent(component);
+    if ((channelMask & channelBit(component)) == 0) {
+      Arrays.fill(buffer, offset, offset + length, 0);
+      return;
+    }
+    int start = y * width + x;
+    for (int i = 0; i < length; i++) {
+      buffer[offset + i] = plane[start + i] & 0xFF;
+    }
+  }
+
+  /**
+   * Copies values from a buffer into one color component of part of a row of the image, leaving
+   * the other components as they are. Values outside [0, 255] are clamped.
+   *
+   * @param y         The y-coordinate of the row.
+   * @param x         The x-coordinate of the first pixel to set.
+   * @param length    The number of pixels to set.
+   * @param component The color component to set (0 for red, 1 for green, 2 for blue).
+   * @param buffer    The buffer holding the values.
+   * @param offset    The index in the buffer of the first value.
+   * @throws IllegalArgumentException If the span lies outside the image or the color component is
+   *                                  not supported.
+   */
+  @Override
+  public void setChannelRow(int y, int x, int length, int component, int[] buffer, int offset) {
+    checkSpan(y, x, 1, length);
+    checkComponent(component);
+    int i = 0;
+    if (this.packed == null) {
+      int componentShift = 16 - 8 * component;
+      int keep = ~(0xFF << componentShift) & 0xFFFFFF;
+      int start = y * width + x;
+      while (i < length) {
+        int value = Math.max(0, Math.min(255, buffer[offset + i]));
+        int rgb = ((plane[start + i] & 0xFF) * unit & keep) | (value << componentShift);
+        if (!store(start + i, rgb)) {
+          break;
+        }
+        i++;
+      }
+      if (i == length) {
+        return;
+      }
+    }
+    promote().setChannelRow(y, x + i, length - i, component, buffer, offset + i);
+  }
+}
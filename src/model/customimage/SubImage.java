@@ -0,0 +1,348 @@
+package model.customimage;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * A view of a rectangle of another image. The view holds no pixels of its own: every read and
+ * write is offset into the parent image, so creating a view costs nothing and changes made through
+ * the view or the parent are seen by both.
+ */
+public class SubImage extends AbstractImage {
+
+  private final Image parent;
+  private final int top;
+  private final int left;
+  private final int height;
+  private final int width;
+
+  /**
+   * Constructs a view of a rectangle of an image.
+   *
+   * @param parent The image the view looks into.
+   * @param y      The y-coordinate in the parent of the top of the rectangle.
+   * @param x      The x-coordinate in the parent of the left of the rectangle.
+   * @param height The height of the rectangle.
+   * @param width  The width of the rectangle.
+   * @throws IllegalArgumentException If the rectangle lies outside the parent image.
+   */
+  public SubImage(Image parent, int y, int x, int height, int width) {
+    if (y < 0 || x < 0 || height < 0 || width < 0 || y + height > parent.getHeight()
+        || x + width > parent.getWidth()) {
+      throw new IllegalArgumentException("Invalid x and y coordinates");
+    }
+    this.parent = parent;
+    this.top = y;
+    this.left = x;
+    this.height = height;
+    this.width = width;
+  }
+
+  /**
+   * Gets the image this view looks into.
+   *
+   * @return The parent image.
+   */
+  public Image getParent() {
+    return this.parent;
+  }
+
+  /**
+   * Gets the red color component value of a pixel at the specified coordinates (x, y).
+   *
+   * @param y The y-coordinate of the pixel.
+   * @param x The x-coordinate of the pixel.
+   * @return The red color component value of the pixel.
+   */
+  @Override
+  public int getRed(int y, int x) {
+    return parent.getRed(top + y, left + x);
+  }
+
+  /**
+   * Gets the green color component value of a pixel at the specified coordinates (x, y).
+   *
+   * @param y The y-coordinate of the pixel.
+   * @param x The x-coordinate of the pixel.
+   * @return The green color component value of the pixel.
+   */
+  @Override
+  public int getGreen(int y, int x) {
+    return parent.getGreen(top + y, left + x);
+  }
+
+  /**
+   * Gets the blue color component value of a pixel at the specified coordinates (x, y).
+   *
+   * @param y The y-coordinate of the pixel.
+   * @param x The x-coordinate of the pixel.
+   * @return The blue color component value of the pixel.
+   */
+  @Override
+  public int getBlue(int y, int x) {
+    return parent.getBlue(top + y, left + x);
+  }
+
+  /**
+   * Gets the color component value of a pixel at the specified coordinates based on color.
+   *
+   * @param y         The y-coordinate of the pixel.
+   * @param x         The x-coordinate of the pixel.
+   * @param component The color component to retrieve.
+   * @return The color component value of the pixel.
+   * @throws IllegalArgumentException If the specified color component is not supported.
+   */
+  @Override
+  public int getPixelValue(int y, int x, int component) {
+    return parent.getPixelValue(top + y, left + x, component);
+  }
+
+  /**
+   * Gets the width of the view.
+   *
+   * @return The width of the view.
+   */
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Gets the height of the view.
+   *
+   * @return The height of the view.
+   */
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Gets the pixel data of the view as a three-dimensional array. The array is a copy, so changes
+   * made to it are not reflected in the image.
+   *
+   * @return A copy of the pixel data of the view.
+   */
+  @Override
+  public int[][][] getPixelData() {
+    int[][][] pixelData = new int[height][width][3];
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      getRGBRow(y, 0, width, row, 0);
+      for (int x = 0; x < width; x++) {
+        pixelData[y][x][0] = (row[x] >> 16) & 0xFF;
+        pixelData[y][x][1] = (row[x] >> 8) & 0xFF;
+        pixelData[y][x][2] = row[x] & 0xFF;
+      }
+    }
+    return pixelData;
+  }
+
+  /**
+   * Gets the RGB value of a pixel at the specified coordinates (x, y).
+   *
+   * @param x The x-coordinate of the pixel.
+   * @param y The y-coordinate of the pixel.
+   * @return The RGB value of the pixel.
+   * @throws IllegalArgumentException If the coordinates are outside the view.
+   */
+  @Override
+  public int getRGB(int x, int y) throws IllegalArgumentException {
+    if (x >= 0 && x < width && y >= 0 && y < height) {
+      return parent.getRGB(left + x, top + y);
+    } else {
+      throw new IllegalArgumentException("Invalid x and y coordinates");
+    }
+  }
+
+  /**
+   * Sets the color component value of a pixel of the view, and so of the parent.
+   *
+   * @param j        The y-coordinate of the pixel.
+   * @param i        The x-coordinate of the pixel.
+   * @param color    The color component to set (0 for red, 1 for green, 2 for blue).
+   * @param adjusted The adjusted color component value.
+   */
+  @Override
+  public void setPixelValue(int j, int i, int color, int adjusted) {
+    parent.setPixelValue(top + j, left + i, color, adjusted);
+  }
+
+  /**
+   * Sets the pixel values of the view, and so of the parent, based on a BufferedImage.
+   *
+   * @param image The BufferedImage to set pixel values from.
+   */
+  @Override
+  public void setPixelValuesFromBufferedImage(BufferedImage image) {
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      image.getRGB(0, y, width, 1, row, 0, width);
+      setRGBRow(y, 0, width, row, 0);
+    }
+  }
+
+  /**
+   * Converts the view to a BufferedImage. A view of a RasterImage shares the raster of the parent,
+   * so no pixels are copied; any other view is copied into a new image.
+   *
+   * @return The BufferedImage representation of the view.
+   */
+  @Override
+  public BufferedImage convertMatrixToImage() {
+    if (parent instanceof RasterImage && width > 0 && height > 0) {
+      return parent.convertMatrixToImage().getSubimage(left, top, width, height);
+    }
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    getRGBSpan(0, 0, height, width, pixels, 0, width);
+    return image;
+  }
+
+  /**
+   * Sets all pixel values of the view, and so of the parent, using a three-dimensional pixel data
+   * array.
+   *
+   * @param pixelData The pixel data array.
+   */
+  @Override
+  public void setAllPixels(int[][][] pixelData) {
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        for (int c = 0; c < 3; c++) {
+          setPixelValue(y, x, c, pixelData[y][x][c]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates a blank image of the given size with the storage layout of the parent.
+   *
+   * @param height The height of the new image.
+   * @param width  The width of the new image.
+   * @return A new image with all channels set to 0.
+   */
+  @Override
+  public Image createCompatibleImage(int height, int width) {
+    return parent.createCompatibleImage(height, width);
+  }
+
+  /**
+   * Creates a blank single channel image of the given size the way the parent does.
+   *
+   * @param height      The height of the new image.
+   * @param width       The width of the new image.
+   * @param channelMask The channels that show the value, with bit c set for color component c.
+   * @return A new image with all channels set to 0.
+   */
+  @Override
+  public Image createSingleChannelImage(int height, int width, int channelMask) {
+    return parent.createSingleChannelImage(height, width, channelMask);
+  }
+
+  /**
+   * Gets a view of a rectangle of this view. The new view looks straight into the parent, so views
+   * of views do not stack up.
+   *
+   * @param y      The y-coordinate of the top of the rectangle.
+   * @param x      The x-coordinate of the left of the rectangle.
+   * @param height The height of the rectangle.
+   * @param width  The width of the rectangle.
+   * @return A view of the rectangle.
+   * @throws IllegalArgumentException If the rectangle lies outside the view.
+   */
+  @Override
+  public Image getSubImage(int y, int x, int height, int width) {
+    checkSpan(y, x, height, width);
+    return new SubImage(parent, top + y, left + x, height, width);
+  }
+
+  /**
+   * Gets the preferred width of the blocks the view is processed in, which is that of the parent.
+   *
+   * @return The preferred block width.
+   */
+  @Override
+  public int getTileWidth() {
+    return Math.min(width, parent.getTileWidth());
+  }
+
+  /**
+   * Gets the preferred height of the blocks the view is processed in, which is that of the parent.
+   *
+   * @return The preferred block height.
+   */
+  @Override
+  public int getTileHeight() {
+    return Math.min(height, parent.getTileHeight());
+  }
+
+  /**
+   * Copies part of a row of the view into a buffer as packed 0xRRGGBB values.
+   *
+   * @param y      The y-coordinate of the row.
+   * @param x      The x-coordinate of the first pixel to copy.
+   * @param length The number of pixels to copy.
+   * @param buffer The buffer to copy the pixels into.
+   * @param offset The index in the buffer of the first pixel.
+   * @throws IllegalArgumentException If the span lies outside the view.
+   */
+  @Override
+  public void getRGBRow(int y, int x, int length, int[] buffer, int offset) {
+    checkSpan(y, x, 1, length);
+    parent.getRGBRow(top + y, left + x, length, buffer, offset);
+  }
+
+  /**
+   * Copies packed 0xRRGGBB values from a buffer into part of a row of the view.
+   *
+   * @param y      The y-coordinate of the row.
+   * @param x      The x-coordinate of the first pixel to set.
+   * @param length The number of pixels to set.
+   * @param buffer The buffer holding the pixels.
+   * @param offset The index in the buffer of the first pixel.
+   * @throws IllegalArgumentException If the span lies outside the view.
+   */
+  @Override
+  public void setRGBRow(int y, int x, int length, int[] buffer, int offset) {
+    checkSpan(y, x, 1, length);
+    parent.setRGBRow(top + y, left + x, length, buffer, offset);
+  }
+
+  /**
+   * Copies one color component of part of a row of the view into a buffer.
+   *
+   * @param y         The y-coordinate of the row.
+   * @param x         The x-coordinate of the first pixel to copy.
+   * @param length    The number of pixels to copy.
+   * @param component The color component to copy (0 for red, 1 for green, 2 for blue).
+   * @param buffer    The buffer to copy the values into.
+   * @param offset    The index in the buffer of the first value.
+   * @throws IllegalArgumentException If the span lies outside the view or the color component is
+   *                                  not supported.
+   */
+  @Override
+  public void getChannelRow(int y, int x, int length, int component, int[] buffer, int offset) {
+    checkSpan(y, x, 1, length);
+    parent.getChannelRow(top + y, left + x, length, component, buffer, offset);
+  }
+
+  /**
+   * Copies values from a buffer into one color component of part of a row of the view.
+   *
+   * @param y         The y-coordinate of the row.
+   * @param x         The x-coordinate of the first pixel to set.
+   * @param length    The number of pixels to set.
+   * @param component The color component to set (0 for red, 1 for green, 2 for blue).
+   * @param buffer    The buffer holding the values.
+   * @param offset    The index in the buffer of the first value.
+   * @throws IllegalArgumentException If the span lies outside the view or the color component is
+   *                                  not supported.
+   */
+  @Override
+  public void setChannelRow(int y, int x, int length, int component, int[] buffer, int offset) {
+    checkSpan(y, x, 1, length);
+    parent.setChannelRow(top + y, left + x, length, component, buffer, offset);
+  }
+}
@@ -0,0 +1,25 @@
+package model.customimage;
+
+import java.io.IOException;
+
+/**
+ * A source of pixels that a TiledImage decodes its tiles from on first touch, so that an image
+ * larger than the heap never has to be decoded in one piece.
+ */
+public interface TileSource {
+
+  /**
+   * Reads a rectangle of the source into a buffer as packed 0xRRGGBB values.
+   *
+   * @param y        The y-coordinate of the top of the rectangle.
+   * @param x        The x-coordinate of the left of the rectangle.
+   * @param height   The height of the rectangle.
+   * @param width    The width of the rectangle.
+   * @param buffer   The buffer to read the pixels into.
+   * @param offset   The index in the buffer of the top left pixel.
+   * @param scansize The distance in the buffer between the starts of consecutive rows.
+   * @throws IOException If the source could not be read.
+   */
+  void readRegion(int y, int x, int height, int width, int[] buffer, int offset, int scansize)
+      throws IOException;
+}
@@ -0,0 +1,571 @@
+package model.customimage;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An image split into fixed-size tiles of packed 0xRRGGBB pixels, for inputs larger than the heap.
+ * A tile is only allocated when it is first touched, either blank or decoded from a TileSource.
+ * At most a memory budget worth of tiles is kept on the heap; when it is exceeded the least
+ * recently used tile is dropped, after being written to a spill file if it was changed.
+ *
+ * <p>Sources such as JPEG and PNG files decode every row above the rectangle they are asked for,
+ * so tiles are not decoded one at a time. The first touch of a tile decodes the band of tiles
+ * around it, as many whole tile rows as the memory budget holds, or as many tiles of one row, in
+ * a single read, and fills every tile in the band. Decoded tiles are written to the spill file
+ * when they are evicted, like changed ones, so no part of the source is ever decoded twice.
+ *
+ * <p>Processors that work a block at a time (see ImageBlocks) only touch a handful of tiles at
+ * once, so they never hold the full image. Whole-image conversions such as
+ * {@code convertMatrixToImage} and {@code getPixelData} still build the full image.
+ */
+public class TiledImage extends AbstractImage {
+
+  /**
+   * The default width and height of a tile.
+   */
+  public static final int DEFAULT_TILE_SIZE = 256;
+
+  /**
+   * The default number of bytes of tiles kept on the heap.
+   */
+  public static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+
+  private final int height;
+  private final int width;
+  private final int tileHeight;
+  private final int tileWidth;
+  private final int tilesAcross;
+  private final int tilesDown;
+  private final long memoryBudget;
+  private final int maxResidentTiles;
+  private final TileSource source;
+
+  // Resident tiles in access order, so the first entry is the least recently used
+  private final LinkedHashMap<Integer, int[]> residentTiles;
+  // Resident tiles changed since they were last read from the source or the spill file
+  private final BitSet dirtyTiles;
+  // Tiles whose current pixels are held in the spill file
+  private final BitSet spilledTiles;
+  private int[] spareTile;
+  private File spillFile;
+  private RandomAccessFile spill;
+  private ByteBuffer spillBuffer;
+
+  /**
+   * Constructs a blank TiledImage with the specified height and width, using the default tile
+   * size and memory budget.
+   *
+   * @param height The height of the image.
+   * @param width  The width of the image.
+   */
+  public TiledImage(int height, int width) {
+    this(height, width, DEFAULT_TILE_SIZE, DEFAULT_TILE_SIZE, DEFAULT_MEMORY_BUDGET, null);
+  }
+
+  /**
+   * Constructs a TiledImage whose tiles are decoded from a source on first touch.
+   *
+   * @param height       The height of the image.
+   * @param width        The width of the image.
+   * @param tileHeight   The height of a tile.
+   * @param tileWidth    The width of a tile.
+   * @param memoryBudget The number of bytes of tiles to keep on the heap. At least one tile is
+   *                     always kept.
+   * @param source       The source to decode tiles from, or null for a blank image.
+   * @throws IllegalArgumentException If the tile size is not positive.
+   */
+  public TiledImage(int height, int width, int tileHeight, int tileWidth, long memoryBudget,
+      TileSource source) {
+    if (tileHeight <= 0 || tileWidth <= 0) {
+      throw new IllegalArgumentException("Tile size must be positive");
+    }
+    this.height = height;
+    this.width = width;
+    this.tileHeight = tileHeight;
+    this.tileWidth = tileWidth;
+    this.tilesAcross = (width + tileWidth - 1) / tileWidth;
+    this.tilesDown = (height + tileHeight - 1) / tileHeight;
+    this.memoryBudget = memoryBudget;
+    long tileBytes = 4L * tileHeight * tileWidth;
+    this.maxResidentTiles = (int) Math.max(1, Math.min(Integer.MAX_VALUE,
+        memoryBudget / tileBytes));
+    this.source = source;
+    this.residentTiles = new LinkedHashMap<>(16, 0.75f, true);
+    this.dirtyTiles = new BitSet();
+    this.spilledTiles = new BitSet();
+  }
+
+  /**
+   * Gets the number of tiles currently held on the heap.
+   *
+   * @return The number of resident tiles.
+   */
+  public synchronized int getResidentTileCount() {
+    return this.residentTiles.size();
+  }
+
+  /**
+   * Gets the largest number of tiles this image keeps on the heap.
+   *
+   * @return The maximum number of resident tiles.
+   */
+  public int getMaxResidentTiles() {
+    return this.maxResidentTiles;
+  }
+
+  /**
+   * Drops all tiles and deletes the spill file. The image must not be used afterwards.
+   */
+  public synchronized void dispose() {
+    this.residentTiles.clear();
+    this.spareTile = null;
+    if (this.spill != null) {
+      try {
+        this.spill.close();
+      } catch (IOException e) {
+        // The file is deleted below either way
+      }
+      this.spill = null;
+      this.spillFile.delete();
+    }
+  }
+
+  /**
+   * Gets the width of a tile, or of the image if it is narrower than one tile.
+   *
+   * @return The tile width.
+   */
+  @Override
+  public int getTileWidth() {
+    return Math.min(this.tileWidth, this.width);
+  }
+
+  /**
+   * Gets the height of a tile, or of the image if it is shorter than one tile.
+   *
+   * @return The tile height.
+   */
+  @Override
+  public int getTileHeight() {
+    return Math.min(this.tileHeight, this.height);
+  }
+
+  /**
+   * Gets the red color component value of a pixel at the specified coordinates (x, y).
+   *
+   * @param y The y-coordinate of the pixel.
+   * @param x The x-coordinate of the pixel.
+   * @return The red color component value of the pixel.
+   */
+  @Override
+  public int getRed(int y, int x) {
+    return (getPacked(y, x) >> 16) & 0xFF;
+  }
+
+  /**
+   * Gets the green color component value of a pixel at the specified coordinates (x, y).
+   *
+   * @param y The y-coordinate of the pixel.
+   * @param x The x-coordinate of the pixel.
+   * @return The green color component value of the pixel.
+   */
+  @Override
+  public int getGreen(int y, int x) {
+    return (getPacked(y, x) >> 8) & 0xFF;
+  }
+
+  /**
+   * Gets the blue color component value of a pixel at the specified coordinates (x, y).
+   *
+   * @param y The y-coordinate of the pixel.
+   * @param x The x-coordinate of the pixel.
+   * @return The blue color component value of the pixel.
+   */
+  @Override
+  public int getBlue(int y, int x) {
+    return getPacked(y, x) & 0xFF;
+  }
+
+  /**
+   * Gets the color component value of a pixel at the specified coordinates based on color.
+   *
+   * @param y         The y-coordinate of the pixel.
+   * @param x         The x-coordinate of the pixel.
+   * @param component The color component to retrieve.
+   * @return The color component value of the pixel.
+   * @throws IllegalArgumentException If the specified color component is not supported.
+   */
+  @Override
+  public int getPixelValue(int y, int x, int component) {
+    checkComponent(component);
+    return (getPacked(y, x) >> (16 - 8 * component)) & 0xFF;
+  }
+
+  /**
+   * Gets the width of the image.
+   *
+   * @return The width of the image.
+   */
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Gets the height of the image.
+   *
+   * @return The height of the image.
+   */
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Gets the pixel data of the image as a three-dimensional array. This builds the whole image on
+   * the heap, so it should be avoided for images that are tiled because of their size.
+   *
+   * @return A copy of the pixel data of the image.
+   */
+  @Override
+  public int[][][] getPixelData() {
+    int[][][] pixelData = new int[height][width][3];
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      getRGBRow(y, 0, width, row, 0);
+      for (int x = 0; x < width; x++) {
+        pixelData[y][x][0] = (row[x] >> 16) & 0xFF;
+        pixelData[y][x][1] = (row[x] >> 8) & 0xFF;
+        pixelData[y][x][2] = row[x] & 0xFF;
+      }
+    }
+    return pixelData;
+  }
+
+  /**
+   * Gets the RGB value of a pixel at the specified coordinates (x, y).
+   *
+   * @param x The x-coordinate of the pixel.
+   * @param y The y-coordinate of the pixel.
+   * @return The RGB value of the pixel.
+   * @throws IllegalArgumentException If the coordinates are outside the valid image bounds.
+   */
+  @Override
+  public int getRGB(int x, int y) throws IllegalArgumentException {
+    if (x >= 0 && x < width && y >= 0 && y < height) {
+      return getPacked(y, x);
+    } else {
+      throw new IllegalArgumentException("Invalid x and y coordinates");
+    }
+  }
+
+  /**
+   * Sets the color component value of a pixel at the specified coordinates (x, y). Values outside
+   * [0, 255] are clamped, since each channel is stored in eight bits.
+   *
+   * @param j        The y-coordinate of the pixel.
+   * @param i        The x-coordinate of the pixel.
+   * @param color    The color component to set (0 for red, 1 for green, 2 for blue).
+   * @param adjusted The adjusted color component value.
+   * @throws IllegalArgumentException If the specified color component is not supported.
+   */
+  @Override
+  public synchronized void setPixelValue(int j, int i, int color, int adjusted) {
+    checkComponent(color);
+    int shift = 16 - 8 * color;
+    int value = Math.max(0, Math.min(255, adjusted));
+    int[] tile = getTile(j / tileHeight, i / tileWidth, true);
+    int index = (j % tileHeight) * tileWidth + i % tileWidth;
+    tile[index] = (tile[index] & ~(0xFF << shift)) | (value << shift);
+  }
+
+  /**
+   * Sets the pixel values of the image based on a BufferedImage, a row at a time.
+   *
+   * @param image The BufferedImage to set pixel values from.
+   */
+  @Override
+  public void setPixelValuesFromBufferedImage(BufferedImage image) {
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      image.getRGB(0, y, width, 1, row, 0, width);
+      setRGBRow(y, 0, width, row, 0);
+    }
+  }
+
+  /**
+   * Converts the image to a BufferedImage. This builds the whole image on the heap, so it should
+   * be avoided for images that are tiled because of their size.
+   *
+   * @return The BufferedImage representation of the image.
+   */
+  @Override
+  public BufferedImage convertMatrixToImage() {
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    getRGBSpan(0, 0, height, width, pixels, 0, width);
+    return image;
+  }
+
+  /**
+   * Sets all pixel values of the image using a three-dimensional pixel data array.
+   *
+   * @param pixelData The pixel data array.
+   */
+  @Override
+  public void setAllPixels(int[][][] pixelData) {
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int r = Math.max(0, Math.min(255, pixelData[y][x][0]));
+        int g = Math.max(0, Math.min(255, pixelData[y][x][1]));
+        int b = Math.max(0, Math.min(255, pixelData[y][x][2]));
+        row[x] = (r << 16) | (g << 8) | b;
+      }
+      setRGBRow(y, 0, width, row, 0);
+    }
+  }
+
+  /**
+   * Creates a blank tiled image of the given size with the tile size and memory budget of this
+   * image.
+   *
+   * @param height The height of the new image.
+   * @param width  The width of the new image.
+   * @return A new TiledImage with all channels set to 0.
+   */
+  @Override
+  public Image createCompatibleImage(int height, int width) {
+    return new TiledImage(height, width, tileHeight, tileWidth, memoryBudget, null);
+  }
+
+  /**
+   * Creates a blank TiledImage of the given size, since even a single plane of an image this large
+   * may not fit in the heap.
+   *
+   * @param height      The height of the new image.
+   * @param width       The width of the new image.
+   * @param channelMask The channels that show the value, which a tiled image does not need.
+   * @return A new TiledImage with all channels set to 0.
+   */
+  @Override
+  public Image createSingleChannelImage(int height, int width, int channelMask) {
+    return createCompatibleImage(height, width);
+  }
+
+  /**
+   * Copies part of a row of the image into a buffer as packed 0xRRGGBB values.
+   *
+   * @param y      The y-coordinate of the row.
+   * @param x      The x-coordinate of the first pixel to copy.
+   * @param length The number of pixels to copy.
+   * @param buffer The buffer to copy the pixels into.
+   * @param offset The index in the buffer of the first pixel.
+   * @throws IllegalArgumentException If the span lies outside the image.
+   */
+  @Override
+  public synchronized void getRGBRow(int y, int x, int length, int[] buffer, int offset) {
+    checkSpan(y, x, 1, length);
+    int tileY = y / tileHeight;
+    int rowStart = (y % tileHeight) * tileWidth;
+    while (length > 0) {
+      int tileX = x / tileWidth;
+      int count = Math.min(length, (tileX + 1) * tileWidth - x);
+      int[] tile = getTile(tileY, tileX, false);
+      System.arraycopy(tile, rowStart + x % tileWidth, buffer, offset, count);
+      x += count;
+      offset += count;
+      length -= count;
+    }
+  }
+
+  /**
+   * Copies packed 0xRRGGBB values from a buffer into part of a row of the image.
+   *
+   * @param y      The y-coordinate of the row.
+   * @param x      The x-coordinate of the first pixel to set.
+   * @param length The number of pixels to set.
+   * @param buffer The buffer holding the pixels.
+   * @param offset The index in the buffer of the first pixel.
+   * @throws IllegalArgumentException If the span lies outside the image.
+   */
+  @Override
+  public synchronized void setRGBRow(int y, int x, int length, int[] buffer, int offset) {
+    checkSpan(y, x, 1, length);
+    int tileY = y / tileHeight;
+    int rowStart = (y % tileHeight) * tileWidth;
+    while (length > 0) {
+      int tileX = x / tileWidth;
+      int count = Math.min(length, (tileX + 1) * tileWidth - x);
+      int[] tile = getTile(tileY, tileX, true);
+      int start = rowStart + x % tileWidth;
+      for (int i = 0; i < count; i++) {
+        tile[start + i] = buffer[offset + i] & 0xFFFFFF;
+      }
+      x += count;
+      offset += count;
+      length -= count;
+    }
+  }
+
+  private synchronized int getPacked(int y, int x) {
+    int[] tile = getTile(y / tileHeight, x / tileWidth, false);
+    return tile[(y % tileHeight) * tileWidth + x % tileWidth];
+  }
+
+  /**
+   * Gets a tile, making it resident first if needed. A tile that is not resident is read back from
+   * the spill file if it was spilled, decoded from the source with its band if there is one, or
+   * left blank.
+   */
+  private int[] getTile(int tileY, int tileX, boolean forWrite) {
+    int index = tileY * tilesAcross + tileX;
+    int[] tile = residentTiles.get(index);
+    if (tile == null) {
+      try {
+        if (spilledTiles.get(index)) {
+          tile = takeFreeTile();
+          readSpill(index, tile);
+          residentTiles.put(index, tile);
+        } else if (source != null) {
+          decodeBand(tileY, tileX);
+          tile = residentTiles.get(index);
+        } else {
+          tile = takeFreeTile();
+          Arrays.fill(tile, 0);
+          residentTiles.put(index, tile);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not read tile " + index, e);
+      }
+    }
+    if (forWrite) {
+      dirtyTiles.set(index);
+    }
+    return tile;
+  }
+
+  /**
+   * Evicts tiles until there is room for one more, and gets an array to hold it.
+   */
+  private int[] takeFreeTile() {
+    while (residentTiles.size() >= maxResidentTiles) {
+      evictEldest();
+    }
+    int[] tile = spareTile != null ? spareTile : new int[tileHeight * tileWidth];
+    spareTile = null;
+    return tile;
+  }
+
+  /**
+   * Decodes the band of tiles a tile lies in from the source in one read and makes every tile of
+   * it resident, the given tile last so it is not the one evicted. Bands are aligned, so they never
+   * overlap, and a band holds at most as many tiles as the memory budget does. The decoded tiles
+   * are marked dirty, so eviction spills them rather than dropping them to be decoded again.
+   */
+  private void decodeBand(int tileY, int tileX) throws IOException {
+    int bandRows = Math.max(1, Math.min(tilesDown, maxResidentTiles / tilesAcross));
+    int bandColumns = Math.min(tilesAcross, maxResidentTiles);
+    int firstRow = tileY / bandRows * bandRows;
+    int firstColumn = tileX / bandColumns * bandColumns;
+    int lastRow = Math.min(tilesDown, firstRow + bandRows);
+    int lastColumn = Math.min(tilesAcross, firstColumn + bandColumns);
+    int y = firstRow * tileHeight;
+    int x = firstColumn * tileWidth;
+    int bandHeight = Math.min(height, lastRow * tileHeight) - y;
+    int bandWidth = Math.min(width, lastColumn * tileWidth) - x;
+    int[] band = new int[bandHeight * bandWidth];
+    source.readRegion(y, x, bandHeight, bandWidth, band, 0, bandWidth);
+
+    int requested = tileY * tilesAcross + tileX;
+    for (int row = firstRow; row < lastRow; row++) {
+      for (int column = firstColumn; column < lastColumn; column++) {
+        int index = row * tilesAcross + column;
+        if (index != requested) {
+          fillFromBand(row, column, band, y, x, bandWidth);
+        }
+      }
+    }
+    fillFromBand(tileY, tileX, band, y, x, bandWidth);
+  }
+
+  /**
+   * Copies one tile out of a decoded band and makes it resident, unless it already holds pixels.
+   */
+  private void fillFromBand(int tileY, int tileX, int[] band, int bandY, int bandX,
+      int bandWidth) {
+    int index = tileY * tilesAcross + tileX;
+    if (residentTiles.containsKey(index) || spilledTiles.get(index)) {
+      return;
+    }
+    int[] tile = takeFreeTile();
+    int rows = Math.min(tileHeight, height - tileY * tileHeight);
+    int columns = Math.min(tileWidth, width - tileX * tileWidth);
+    int start = (tileY * tileHeight - bandY) * bandWidth + tileX * tileWidth - bandX;
+    for (int row = 0; row < rows; row++) {
+      System.arraycopy(band, start + row * bandWidth, tile, row * tileWidth, columns);
+    }
+    residentTiles.put(index, tile);
+    dirtyTiles.set(index);
+  }
+
+  private void evictEldest() {
+    Iterator<Map.Entry<Integer, int[]>> eldest = residentTiles.entrySet().iterator();
+    Map.Entry<Integer, int[]> entry = eldest.next();
+    eldest.remove();
+    int index = entry.getKey();
+    if (dirtyTiles.get(index)) {
+      try {
+        writeSpill(index, entry.getValue());
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not spill tile " + index, e);
+      }
+      dirtyTiles.clear(index);
+      spilledTiles.set(index);
+    }
+    spareTile = entry.getValue();
+  }
+
+  private void writeSpill(int index, int[] tile) throws IOException {
+    if (spill == null) {
+      spillFile = File.createTempFile("tiles", ".spill");
+      spillFile.deleteOnExit();
+      spill = new RandomAccessFile(spillFile, "rw");
+      spillBuffer = ByteBuffer.allocate(4 * tileHeight * tileWidth);
+    }
+    spillBuffer.clear();
+    spillBuffer.asIntBuffer().put(tile);
+    FileChannel channel = spill.getChannel();
+    long position = (long) index * spillBuffer.capacity();
+    while (spillBuffer.hasRemaining()) {
+      position += channel.write(spillBuffer, position);
+    }
+  }
+
+  private void readSpill(int index, int[] tile) throws IOException {
+    spillBuffer.clear();
+    FileChannel channel = spill.getChannel();
+    long position = (long) index * spillBuffer.capacity();
+    while (spillBuffer.hasRemaining()) {
+      int read = channel.read(spillBuffer, position);
+      if (read < 0) {
+        throw new IOException("Spill file is truncated");
+      }
+      position += read;
+    }
+    spillBuffer.flip();
+    spillBuffer.asIntBuffer().get(tile);
+  }
+}
@@ -0,0 +1,152 @@
+package model.filter;
+
+/**
+ * The arithmetic of a direct convolution: how the weighted taps of a pixel are summed and how the
+ * sums are turned into channel values. ImageFilterTemplate walks the blocks of the image, splits
+ * each row into its interior and its edges, and keeps the ring of horizontal sums of a separable
+ * pass; an accumulator supplies only the loops that touch its weights and its sums. A
+ * DoubleAccumulator sums in doubles and a FixedPointAccumulator in integer numerators over a power
+ * of two, and both give exactly the same result.
+ *
+ * <p>An accumulator built from a kernel holds no buffers and can be shared. Each thread convolves
+ * with a copy of its own made by {@link #forThread(int, int)}.
+ */
+abstract class Accumulator {
+
+  private final int reach;
+  private final int rowReach;
+  private final boolean separable;
+
+  /**
+   * Constructs an accumulator for a kernel of the given size.
+   *
+   * @param reach     The number of rows above and below a pixel its kernel covers.
+   * @param rowReach  The number of columns left and right of a pixel its kernel covers.
+   * @param separable Whether the kernel is applied as a horizontal and a vertical pass.
+   */
+  Accumulator(int reach, int rowReach, boolean separable) {
+    this.reach = reach;
+    this.rowReach = rowReach;
+    this.separable = separable;
+  }
+
+  /**
+   * Gets whether the kernel is applied as a horizontal pass with a row vector followed by a
+   * vertical pass with a column vector, rather than as a full 2D sum.
+   *
+   * @return Whether the kernel is separable.
+   */
+  boolean isSeparable() {
+    return this.separable;
+  }
+
+  /**
+   * Gets the number of rows above and below a pixel its kernel covers.
+   *
+   * @return The vertical reach of the kernel.
+   */
+  int getReach() {
+    return this.reach;
+  }
+
+  /**
+   * Gets the number of columns left and right of a pixel its kernel covers.
+   *
+   * @return The horizontal reach of the kernel.
+   */
+  int getRowReach() {
+    return this.rowReach;
+  }
+
+  /**
+   * Creates a copy of this accumulator with buffers of its own, for one thread to convolve its
+   * blocks with.
+   *
+   * @param inputSize  The largest number of input pixels around a block.
+   * @param blockWidth The largest width of a block.
+   * @return The copy.
+   */
+  abstract Accumulator forThread(int inputSize, int blockWidth);
+
+  /**
+   * Prepares to convolve a block of a 2D convolution from the input pixels around it, for
+   * instance by splitting them into channel planes.
+   *
+   * @param inputBlock The input pixels around the block.
+   * @param length     The number of input pixels.
+   */
+  abstract void load(int[] inputBlock, int length);
+
+  /**
+   * Convolves a run of pixels of one row whose whole kernel lies inside the image, so no tap needs
+   * a bounds check.
+   *
+   * @param inputBlock  The input pixels around the block.
+   * @param kernelStart The index in the input block of the top left tap of the pixel at x = 0.
+   * @param scansize    The distance in the input block between the starts of consecutive rows.
+   * @param from        The x-coordinate of the first pixel of the run.
+   * @param to          The x-coordinate after the last pixel of the run.
+   * @param outputBlock The output pixels of the block.
+   * @param outputStart The index in the output block of the pixel at x = 0 of the row.
+   */
+  abstract void convolveInterior(int[] inputBlock, int kernelStart, int scansize, int from,
+                                 int to, int[] outputBlock, int outputStart);
+
+  /**
+   * Convolves a run of pixels of one row near the edge of the image. The taps of each pixel are
+   * clipped to the image, so pixels outside the image count as 0.
+   *
+   * @param inputBlock  The input pixels around the block.
+   * @param top         The y-coordinate of the first row of the input block.
+   * @param left        The x-coordinate of the first column of the input block.
+   * @param scansize    The distance in the input block between the starts of consecutive rows.
+   * @param height      The height of the image.
+   * @param width       The width of the image.
+   * @param y           The y-coordinate of the row.
+   * @param from        The x-coordinate of the first pixel of the run.
+   * @param to          The x-coordinate after the last pixel of the run.
+   * @param outputBlock The output pixels of the block.
+   * @param outputStart The index in the output block of the pixel at x = 0 of the row.
+   */
+  abstract void convolveEdge(int[] inputBlock, int top, int left, int scansize, int height,
+                             int width, int y, int from, int to, int[] outputBlock,
+                             int outputStart);
+
+  /**
+   * Filters a run of one input row horizontally with the row vector, into a slot of the ring.
+   * Taps outside the image are skipped.
+   *
+   * @param inputBlock The input pixels around the block.
+   * @param rowStart   The index in the input block of the pixel at x = 0 of the row.
+   * @param from       The x-coordinate of the first pixel of the run.
+   * @param to         The x-coordinate after the last pixel of the run.
+   * @param width      The width of the image.
+   * @param slot       The index in the ring of the sum of the first pixel of the run.
+   */
+  abstract void sumRow(int[] inputBlock, int rowStart, int from, int to, int width, int slot);
+
+  /**
+   * Sets the vertical sums of the first pixels of a row to 0.
+   *
+   * @param count The number of pixels.
+   */
+  abstract void clearSums(int count);
+
+  /**
+   * Adds a slot of the ring, weighted by one tap of the column vector, to the vertical sums.
+   *
+   * @param tap   The index of the tap in the column vector.
+   * @param slot  The index in the ring of the first horizontal sum.
+   * @param count The number of pixels.
+   */
+  abstract void addSlot(int tap, int slot, int count);
+
+  /**
+   * Turns the vertical sums into channel values and packs them into pixels.
+   *
+   * @param count       The number of pixels.
+   * @param outputBlock The output pixels of the block.
+   * @param outputStart The index in the output block of the first pixel.
+   */
+  abstract void packSums(int count, int[] outputBlock, int outputStart);
+}
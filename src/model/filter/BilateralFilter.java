@@ -0,0 +1,285 @@
+package model.filter;
+
+import model.customimage.Image;
+import model.customimage.ImageBlocks;
+
+/**
+ * An edge-preserving bilateral filter, computed on a downsampled bilateral grid rather than over a
+ * window around each pixel. The grid has a cell every sigma-space pixels across and down, and one
+ * every sigma-range levels of luma. Each pixel adds its color and a weight of one to the cell
+ * nearest to its position and luma. The grid is then blurred by [1, 4, 6, 4, 1] / 16 along each
+ * of its three axes, a Gaussian of one cell, which is sigma-space pixels in space and sigma-range
+ * levels in luma. Each output pixel is read back from the grid at its own position and luma by
+ * trilinear interpolation, and its color is the interpolated color sum over the interpolated
+ * weight. Pixels across an edge fall in cells far apart in luma, so they do not mix.
+ *
+ * <p>The work is a fixed amount per pixel plus a fixed amount per cell, and the grid shrinks as
+ * sigma-space grows, so the time hardly depends on sigma-space. Building the grid, blurring it and
+ * reading it back all run in parallel on the ImageBlocks pool, and the result does not depend on
+ * the number of threads.
+ */
+public class BilateralFilter implements ImageFilters {
+
+  // Cells around the grid that no pixel falls in, which take the weight the blur spreads past the
+  // outermost cells, so none of it is lost and slicing needs no bounds checks
+  private static final int PAD = 2;
+  // The grid holds a red, green, blue and weight sum in each cell
+  private static final int VALUES = 4;
+  // The largest grid, in cells, which takes 512 MB
+  private static final long MAX_CELLS = 1L << 25;
+
+  private final double sigmaSpace;
+  private final double sigmaRange;
+
+  /**
+   * Creates a bilateral filter with the given spatial and range standard deviations.
+   *
+   * @param sigmaSpace The spatial standard deviation, in pixels.
+   * @param sigmaRange The range standard deviation, in levels of luma from 0 to 255.
+   * @throws IllegalArgumentException If either sigma is not a positive finite number.
+   */
+  public BilateralFilter(double sigmaSpace, double sigmaRange) {
+    if (!(sigmaSpace > 0) || Double.isInfinite(sigmaSpace)) {
+      throw new IllegalArgumentException("Sigma-space must be a positive number");
+    }
+    if (!(sigmaRange > 0) || Double.isInfinite(sigmaRange)) {
+      throw new IllegalArgumentException("Sigma-range must be a positive number");
+    }
+    this.sigmaSpace = sigmaSpace;
+    this.sigmaRange = sigmaRange;
+  }
+
+  /**
+   * Gets the spatial standard deviation.
+   *
+   * @return The spatial standard deviation, in pixels.
+   */
+  public double getSigmaSpace() {
+    return this.sigmaSpace;
+  }
+
+  /**
+   * Gets the range standard deviation.
+   *
+   * @return The range standard deviation, in levels of luma.
+   */
+  public double getSigmaRange() {
+    return this.sigmaRange;
+  }
+
+  /**
+   * Apply the bilateral filter to an input image and return the processed image.
+   *
+   * @param inputImage The input image to be processed.
+   * @return The processed image.
+   * @throws IllegalArgumentException If the sigmas are so small for the size of the image that the
+   *                                  grid would have more than 2^25 cells.
+   */
+  @Override
+  public Image applyFilter(Image inputImage) {
+    int height = inputImage.getHeight();
+    int width = inputImage.getWidth();
+    Image outputImage = inputImage.createCompatibleImage(height, width);
+    long pixels = (long) height * width;
+    if (pixels == 0) {
+      return outputImage;
+    }
+
+    double gridRows = cells(height - 1, this.sigmaSpace);
+    double gridColumns = cells(width - 1, this.sigmaSpace);
+    double gridLevels = cells(255, this.sigmaRange);
+    if (gridRows * gridColumns * gridLevels > MAX_CELLS) {
+      throw new IllegalArgumentException("Sigmas are too small for an image of this size");
+    }
+    int rows = (int) gridRows;
+    int columns = (int) gridColumns;
+    int levels = (int) gridLevels;
+    long cells = (long) rows * columns * levels;
+    float[] grid = new float[(int) cells * VALUES];
+
+    splat(inputImage, grid, rows, columns, levels);
+    // A cell costs about as much to blur as a pixel does to splat, so it counts as one pixel
+    blurLevels(grid, rows, columns, levels, cells);
+    blurColumns(grid, rows, columns, levels, cells);
+    blurRows(grid, rows, columns, levels, cells);
+    slice(inputImage, outputImage, grid, columns, levels);
+    return outputImage;
+  }
+
+  /**
+   * Gets the number of cells along an axis, padding included, for values from 0 to max.
+   */
+  private static double cells(int max, double sigma) {
+    return Math.round(max / sigma) + 1.0 + 2 * PAD;
+  }
+
+  /**
+   * Gets the luma of a pixel, the axis of the grid edges are kept along.
+   */
+  private static double luma(int pixel) {
+    return 0.2126 * ((pixel >> 16) & 0xFF) + 0.7152 * ((pixel >> 8) & 0xFF)
+        + 0.0722 * (pixel & 0xFF);
+  }
+
+  /**
+   * Adds every pixel to its nearest cell. Grid rows are shared out among the threads, and each
+   * thread adds the image rows that fall in its grid rows, so no cell is written by two threads
+   * and every cell sums its pixels in the same order.
+   */
+  private void splat(Image inputImage, float[] grid, int rows, int columns, int levels) {
+    int height = inputImage.getHeight();
+    int width = inputImage.getWidth();
+    // The first image row of each grid row, and one past the last image row at the end
+    int[] firstRow = new int[rows + 1];
+    for (int cell = 0, y = 0; cell <= rows; cell++) {
+      while (y < height && Math.round(y / this.sigmaSpace) + PAD < cell) {
+        y++;
+      }
+      firstRow[cell] = y;
+    }
+    int[] cellColumn = new int[width];
+    for (int x = 0; x < width; x++) {
+      cellColumn[x] = (int) Math.round(x / this.sigmaSpace) + PAD;
+    }
+
+    ImageBlocks.forEachRangeInParallel(rows, (long) height * width, () -> new int[width],
+        (row, first, last) -> {
+        for (int y = firstRow[first]; y < firstRow[last]; y++) {
+          int rowStart = (int) (Math.round(y / this.sigmaSpace) + PAD) * columns;
+          inputImage.getRGBRow(y, 0, width, row, 0);
+          for (int x = 0; x < width; x++) {
+            int pixel = row[x];
+            int level = (int) Math.round(luma(pixel) / this.sigmaRange) + PAD;
+            int cell = ((rowStart + cellColumn[x]) * levels + level) * VALUES;
+            grid[cell] += (pixel >> 16) & 0xFF;
+            grid[cell + 1] += (pixel >> 8) & 0xFF;
+            grid[cell + 2] += pixel & 0xFF;
+            grid[cell + 3] += 1;
+          }
+        }
+      });
+  }
+
+  /**
+   * Blurs the grid along the luma axis, whose lines are contiguous.
+   */
+  private static void blurLevels(float[] grid, int rows, int columns, int levels, long cells) {
+    ImageBlocks.forEachRangeInParallel(rows, cells, () -> new float[(levels + 2 * PAD) * VALUES],
+        (line, first, last) -> {
+        for (int row = first; row < last; row++) {
+          for (int column = 0; column < columns; column++) {
+            blurLine(grid, ((row * columns) + column) * levels * VALUES, VALUES, levels, line);
+          }
+        }
+      });
+  }
+
+  /**
+   * Blurs the grid across, along each row of cells.
+   */
+  private static void blurColumns(float[] grid, int rows, int columns, int levels, long cells) {
+    ImageBlocks.forEachRangeInParallel(rows, cells, () -> new float[(columns + 2 * PAD) * VALUES],
+        (line, first, last) -> {
+        for (int row = first; row < last; row++) {
+          for (int level = 0; level < levels; level++) {
+            blurLine(grid, (row * columns * levels + level) * VALUES, levels * VALUES, columns,
+                line);
+          }
+        }
+      });
+  }
+
+  /**
+   * Blurs the grid down, along each column of cells.
+   */
+  private static void blurRows(float[] grid, int rows, int columns, int levels, long cells) {
+    ImageBlocks.forEachRangeInParallel(columns, cells, () -> new float[(rows + 2 * PAD) * VALUES],
+        (line, first, last) -> {
+        for (int column = first; column < last; column++) {
+          for (int level = 0; level < levels; level++) {
+            blurLine(grid, (column * levels + level) * VALUES, columns * levels * VALUES, rows,
+                line);
+          }
+        }
+      });
+  }
+
+  /**
+   * Blurs one line of cells in place by [1, 4, 6, 4, 1] / 16, with cells past its ends counting
+   * as zero. The line is copied into the middle of a buffer whose first and last two cells stay
+   * zero, and read from there.
+   *
+   * @param grid   The grid.
+   * @param start  The index of the first value of the first cell of the line.
+   * @param stride The distance between the first values of consecutive cells of the line.
+   * @param length The number of cells in the line.
+   * @param line   A buffer of (length + 2 * PAD) * VALUES values, zero at both ends.
+   */
+  private static void blurLine(float[] grid, int start, int stride, int length, float[] line) {
+    for (int i = 0, index = start; i < length; i++, index += stride) {
+      System.arraycopy(grid, index, line, (i + PAD) * VALUES, VALUES);
+    }
+    for (int i = 0, index = start; i < length; i++, index += stride) {
+      int center = (i + PAD) * VALUES;
+      for (int v = 0; v < VALUES; v++) {
+        grid[index + v] = (line[center + v - 2 * VALUES] + 4 * line[center + v - VALUES]
+            + 6 * line[center + v] + 4 * line[center + v + VALUES]
+            + line[center + v + 2 * VALUES]) / 16;
+      }
+    }
+  }
+
+  /**
+   * Reads every pixel back from the grid at its position and luma, by trilinear interpolation of
+   * the color and weight sums of the eight cells around it.
+   */
+  private void slice(Image inputImage, Image outputImage, float[] grid, int columns,
+                     int levels) {
+    int height = inputImage.getHeight();
+    int width = inputImage.getWidth();
+    ImageBlocks.forEachRangeInParallel(height, (long) height * width, () -> new int[width],
+        (row, first, last) -> {
+        float[] sums = new float[VALUES];
+        for (int y = first; y < last; y++) {
+          inputImage.getRGBRow(y, 0, width, row, 0);
+          double gridY = y / this.sigmaSpace + PAD;
+          int cellY = (int) gridY;
+          double fractionY = gridY - cellY;
+          for (int x = 0; x < width; x++) {
+            double gridX = x / this.sigmaSpace + PAD;
+            double gridZ = luma(row[x]) / this.sigmaRange + PAD;
+            int cellX = (int) gridX;
+            int cellZ = (int) gridZ;
+            double fractionX = gridX - cellX;
+            double fractionZ = gridZ - cellZ;
+            for (int v = 0; v < VALUES; v++) {
+              sums[v] = 0;
+            }
+            for (int dy = 0; dy <= 1; dy++) {
+              double weightY = dy == 0 ? 1 - fractionY : fractionY;
+              for (int dx = 0; dx <= 1; dx++) {
+                double weightYX = weightY * (dx == 0 ? 1 - fractionX : fractionX);
+                int cell = (((cellY + dy) * columns + cellX + dx) * levels + cellZ) * VALUES;
+                float low = (float) (weightYX * (1 - fractionZ));
+                float high = (float) (weightYX * fractionZ);
+                for (int v = 0; v < VALUES; v++) {
+                  sums[v] += grid[cell + v] * low + grid[cell + VALUES + v] * high;
+                }
+              }
+            }
+            row[x] = (toChannel(sums[0], sums[3]) << 16) | (toChannel(sums[1], sums[3]) << 8)
+                | toChannel(sums[2], sums[3]);
+          }
+          outputImage.setRGBRow(y, 0, width, row, 0);
+        }
+      });
+  }
+
+  /**
+   * Divides an interpolated color sum by the interpolated weight, rounded and clamped to
+   * [0, 255].
+   */
+  private static int toChannel(float sum, float weight) {
+    return Math.max(0, Math.min(255, Math.round(sum / weight)));
+  }
+}
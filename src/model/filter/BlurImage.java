@@ -11,6 +11,12 @@ public class BlurImage extends ImageFilterTemplate {
           {1.0 / 16, 1.0 / 8, 1.0 / 16}
   };
 
+  // The kernel is [1/4, 1/2, 1/4] down times [1/4, 1/2, 1/4] across
+  private final double[][] separableKernel = {
+          {1.0 / 4, 1.0 / 2, 1.0 / 4},
+          {1.0 / 4, 1.0 / 2, 1.0 / 4}
+  };
+
   /**
    * Returns the kernel used for the blur filter.
    *
@@ -20,4 +26,14 @@ public class BlurImage extends ImageFilterTemplate {
   public double[][] getKernel() {
     return this.kernel;
   }
+
+  /**
+   * Returns the column and row vectors of the blur kernel, so it is applied in two passes.
+   *
+   * @return the column vector and the row vector of the kernel.
+   */
+  @Override
+  public double[][] getSeparableKernel() {
+    return this.separableKernel;
+  }
 }
@@ -0,0 +1,257 @@
+package model.filter;
+
+import java.util.Arrays;
+
+/**
+ * Convolution arithmetic in doubles, for kernels whose weights are not exact dyadic fractions.
+ * Channel sums are clamped to [0, 255] and truncated. Every loop adds the taps of a pixel in the
+ * same order, from the top left, so the pointwise and planar interiors give identical results.
+ */
+final class DoubleAccumulator extends Accumulator {
+
+  // The full kernel of a 2D convolution, or null for a separable one
+  private final double[][] kernel;
+  // The column and row vectors of a separable convolution, or null for a 2D one
+  private final double[] column;
+  private final double[] row;
+  private final boolean planar;
+
+  // The input block split into channels for the planar interior loops
+  private final double[][] planes;
+  // Horizontal sums per channel of the last few input rows of a separable pass
+  private final double[][] ring;
+  private final double[][] sums;
+
+  private DoubleAccumulator(double[][] kernel, double[] column, double[] row, boolean planar,
+                            int planeSize, int ringSize, int width) {
+    super(kernel != null ? kernel.length / 2 : column.length / 2,
+        kernel != null ? kernel.length / 2 : row.length / 2, kernel == null);
+    this.kernel = kernel;
+    this.column = column;
+    this.row = row;
+    this.planar = planar;
+    this.planes = new double[3][planeSize];
+    this.ring = new double[3][ringSize];
+    this.sums = new double[3][width];
+  }
+
+  /**
+   * Creates an accumulator for a full 2D kernel.
+   *
+   * @param kernel The square kernel.
+   * @param planar Whether the interior is computed from planar channel data, a tap at a time over
+   *               a run of output pixels, which the JIT can vectorize.
+   * @return The accumulator.
+   */
+  static DoubleAccumulator of(double[][] kernel, boolean planar) {
+    return new DoubleAccumulator(kernel, null, null, planar, 0, 0, 0);
+  }
+
+  /**
+   * Creates an accumulator for a kernel that is the product of a column and a row vector.
+   *
+   * @param column The column vector.
+   * @param row    The row vector.
+   * @return The accumulator.
+   */
+  static DoubleAccumulator separable(double[] column, double[] row) {
+    return new DoubleAccumulator(null, column, row, false, 0, 0, 0);
+  }
+
+  /**
+   * Gets the full kernel of a 2D convolution.
+   *
+   * @return The kernel, or null if the kernel is separable.
+   */
+  double[][] getKernel() {
+    return this.kernel;
+  }
+
+  /**
+   * Gets the column vector of a separable kernel.
+   *
+   * @return The column vector, or null if the kernel is not separable.
+   */
+  double[] getColumn() {
+    return this.column;
+  }
+
+  /**
+   * Gets the row vector of a separable kernel.
+   *
+   * @return The row vector, or null if the kernel is not separable.
+   */
+  double[] getRow() {
+    return this.row;
+  }
+
+  @Override
+  Accumulator forThread(int inputSize, int blockWidth) {
+    if (this.kernel != null) {
+      return new DoubleAccumulator(this.kernel, null, null, this.planar,
+          this.planar ? inputSize : 0, 0, this.planar ? blockWidth : 0);
+    }
+    return new DoubleAccumulator(null, this.column, this.row, false, 0,
+        this.column.length * blockWidth, blockWidth);
+  }
+
+  @Override
+  void load(int[] inputBlock, int length) {
+    if (!this.planar) {
+      return;
+    }
+    double[] red = this.planes[0];
+    double[] green = this.planes[1];
+    double[] blue = this.planes[2];
+    for (int i = 0; i < length; i++) {
+      int pixel = inputBlock[i];
+      red[i] = (pixel >> 16) & 0xFF;
+      green[i] = (pixel >> 8) & 0xFF;
+      blue[i] = pixel & 0xFF;
+    }
+  }
+
+  @Override
+  void convolveInterior(int[] inputBlock, int kernelStart, int scansize, int from, int to,
+                        int[] outputBlock, int outputStart) {
+    if (this.planar) {
+      convolveInteriorPlanar(kernelStart, scansize, from, to, outputBlock, outputStart);
+      return;
+    }
+    int taps = this.kernel.length;
+    for (int x = from; x < to; x++) {
+      double red = 0;
+      double green = 0;
+      double blue = 0;
+      int rowStart = kernelStart + x;
+      for (int ky = 0; ky < taps; ky++, rowStart += scansize) {
+        double[] kernelRow = this.kernel[ky];
+        for (int kx = 0; kx < taps; kx++) {
+          double kernelValue = kernelRow[kx];
+          int pixel = inputBlock[rowStart + kx];
+          red += ((pixel >> 16) & 0xFF) * kernelValue;
+          green += ((pixel >> 8) & 0xFF) * kernelValue;
+          blue += (pixel & 0xFF) * kernelValue;
+        }
+      }
+      outputBlock[outputStart + x] = pack(red, green, blue);
+    }
+  }
+
+  /**
+   * Convolves a run of interior pixels from planar channel data and a tap at a time: each tap is
+   * multiplied into the sums of the whole run before the next tap. The inner loops run over
+   * consecutive values with no unpacking or branches, so the JIT can vectorize them.
+   */
+  private void convolveInteriorPlanar(int kernelStart, int scansize, int from, int to,
+                                      int[] outputBlock, int outputStart) {
+    int count = to - from;
+    if (count <= 0) {
+      return;
+    }
+    int taps = this.kernel.length;
+    for (int c = 0; c < 3; c++) {
+      double[] channelSums = this.sums[c];
+      double[] plane = this.planes[c];
+      Arrays.fill(channelSums, 0, count, 0);
+      int rowStart = kernelStart + from;
+      for (int ky = 0; ky < taps; ky++, rowStart += scansize) {
+        double[] kernelRow = this.kernel[ky];
+        for (int kx = 0; kx < taps; kx++) {
+          double kernelValue = kernelRow[kx];
+          int start = rowStart + kx;
+          for (int i = 0; i < count; i++) {
+            channelSums[i] += plane[start + i] * kernelValue;
+          }
+        }
+      }
+    }
+    packSums(count, outputBlock, outputStart + from);
+  }
+
+  @Override
+  void convolveEdge(int[] inputBlock, int top, int left, int scansize, int height, int width,
+                    int y, int from, int to, int[] outputBlock, int outputStart) {
+    int kernelArea = this.kernel.length / 2;
+    int firstY = Math.max(-kernelArea, -y);
+    int lastY = Math.min(kernelArea, height - 1 - y);
+    for (int x = from; x < to; x++) {
+      double red = 0;
+      double green = 0;
+      double blue = 0;
+      int firstX = Math.max(-kernelArea, -x);
+      int lastX = Math.min(kernelArea, width - 1 - x);
+      for (int yy = firstY; yy <= lastY; yy++) {
+        int rowStart = (y + yy - top) * scansize - left + x;
+        double[] kernelRow = this.kernel[yy + kernelArea];
+        for (int xx = firstX; xx <= lastX; xx++) {
+          double kernelValue = kernelRow[xx + kernelArea];
+          int pixel = inputBlock[rowStart + xx];
+          red += ((pixel >> 16) & 0xFF) * kernelValue;
+          green += ((pixel >> 8) & 0xFF) * kernelValue;
+          blue += (pixel & 0xFF) * kernelValue;
+        }
+      }
+      outputBlock[outputStart + x] = pack(red, green, blue);
+    }
+  }
+
+  @Override
+  void sumRow(int[] inputBlock, int rowStart, int from, int to, int width, int slot) {
+    int rowArea = this.row.length / 2;
+    for (int x = from; x < to; x++) {
+      double red = 0;
+      double green = 0;
+      double blue = 0;
+      int last = Math.min(rowArea, width - 1 - x);
+      for (int xx = Math.max(-rowArea, -x); xx <= last; xx++) {
+        double kernelValue = this.row[xx + rowArea];
+        int pixel = inputBlock[rowStart + x + xx];
+        red += ((pixel >> 16) & 0xFF) * kernelValue;
+        green += ((pixel >> 8) & 0xFF) * kernelValue;
+        blue += (pixel & 0xFF) * kernelValue;
+      }
+      this.ring[0][slot + x - from] = red;
+      this.ring[1][slot + x - from] = green;
+      this.ring[2][slot + x - from] = blue;
+    }
+  }
+
+  @Override
+  void clearSums(int count) {
+    for (int c = 0; c < 3; c++) {
+      Arrays.fill(this.sums[c], 0, count, 0);
+    }
+  }
+
+  @Override
+  void addSlot(int tap, int slot, int count) {
+    double kernelValue = this.column[tap];
+    for (int c = 0; c < 3; c++) {
+      double[] channelRing = this.ring[c];
+      double[] channelSums = this.sums[c];
+      for (int i = 0; i < count; i++) {
+        channelSums[i] += kernelValue * channelRing[slot + i];
+      }
+    }
+  }
+
+  @Override
+  void packSums(int count, int[] outputBlock, int outputStart) {
+    double[] red = this.sums[0];
+    double[] green = this.sums[1];
+    double[] blue = this.sums[2];
+    for (int i = 0; i < count; i++) {
+      outputBlock[outputStart + i] = pack(red[i], green[i], blue[i]);
+    }
+  }
+
+  /**
+   * Clamps channel sums to the range [0, 255], truncates them and packs them into a pixel.
+   */
+  private static int pack(double red, double green, double blue) {
+    return ((int) Math.max(0, Math.min(255, red)) << 16)
+        | ((int) Math.max(0, Math.min(255, green)) << 8)
+        | (int) Math.max(0, Math.min(255, blue));
+  }
+}
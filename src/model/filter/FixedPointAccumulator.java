@@ -0,0 +1,282 @@
+package model.filter;
+
+import java.util.Arrays;
+
+/**
+ * Convolution arithmetic entirely in {@code int}, for fixed-point kernels. Channel sums are integer
+ * numerators over 2^shift, turned into channel values by {@link FixedPointKernel#toChannel}, which
+ * gives exactly what the double arithmetic gives. Integer sums do not depend on their order, so
+ * the planar interior is free to take its taps in any grouping.
+ */
+final class FixedPointAccumulator extends Accumulator {
+
+  // The numerators of a 2D convolution, or null for a separable one
+  private final int[][] weights;
+  // The numerators of the column and row vectors of a separable convolution, or null for a 2D one
+  private final int[] columnWeights;
+  private final int[] rowWeights;
+  // The power of two every sum is over; for a separable kernel the shifts of both passes are
+  // applied together at the end, so no precision is lost between the passes
+  private final int shift;
+  private final boolean planar;
+
+  // The input block split into channels for the planar interior loops
+  private final int[][] planes;
+  // Horizontal sums per channel of the last few input rows of a separable pass
+  private final int[][] ring;
+  private final int[][] sums;
+
+  private FixedPointAccumulator(int[][] weights, int[] columnWeights, int[] rowWeights,
+                                int shift, boolean planar, int planeSize, int ringSize,
+                                int width) {
+    super(weights != null ? weights.length / 2 : columnWeights.length / 2,
+        weights != null ? weights.length / 2 : rowWeights.length / 2, weights == null);
+    this.weights = weights;
+    this.columnWeights = columnWeights;
+    this.rowWeights = rowWeights;
+    this.shift = shift;
+    this.planar = planar;
+    this.planes = new int[3][planeSize];
+    this.ring = new int[3][ringSize];
+    this.sums = new int[3][width];
+  }
+
+  /**
+   * Creates an accumulator for a full 2D fixed-point kernel.
+   *
+   * @param kernel The square kernel.
+   * @param planar Whether the interior is computed from planar channel data, a tap at a time over
+   *               a run of output pixels, which the JIT can vectorize.
+   * @return The accumulator.
+   */
+  static FixedPointAccumulator of(FixedPointKernel kernel, boolean planar) {
+    return new FixedPointAccumulator(kernel.getWeights(), null, null, kernel.getShift(), planar,
+        0, 0, 0);
+  }
+
+  /**
+   * Creates an accumulator for a kernel that is the product of a column and a row vector, each
+   * in fixed point.
+   *
+   * @param column The column vector, as a kernel of one row.
+   * @param row    The row vector, as a kernel of one row.
+   * @return The accumulator.
+   */
+  static FixedPointAccumulator separable(FixedPointKernel column, FixedPointKernel row) {
+    return new FixedPointAccumulator(null, column.getWeights()[0], row.getWeights()[0],
+        column.getShift() + row.getShift(), false, 0, 0, 0);
+  }
+
+  /**
+   * Gets the numerators of a 2D convolution.
+   *
+   * @return The numerators, one array per row, or null if the kernel is separable.
+   */
+  int[][] getWeights() {
+    return this.weights;
+  }
+
+  /**
+   * Gets the numerators of the column vector of a separable kernel.
+   *
+   * @return The numerators, or null if the kernel is not separable.
+   */
+  int[] getColumnWeights() {
+    return this.columnWeights;
+  }
+
+  /**
+   * Gets the numerators of the row vector of a separable kernel.
+   *
+   * @return The numerators, or null if the kernel is not separable.
+   */
+  int[] getRowWeights() {
+    return this.rowWeights;
+  }
+
+  /**
+   * Gets the power of two the sums are over.
+   *
+   * @return The shift.
+   */
+  int getShift() {
+    return this.shift;
+  }
+
+  @Override
+  Accumulator forThread(int inputSize, int blockWidth) {
+    if (this.weights != null) {
+      return new FixedPointAccumulator(this.weights, null, null, this.shift, this.planar,
+          this.planar ? inputSize : 0, 0, this.planar ? blockWidth : 0);
+    }
+    return new FixedPointAccumulator(null, this.columnWeights, this.rowWeights, this.shift,
+        false, 0, this.columnWeights.length * blockWidth, blockWidth);
+  }
+
+  @Override
+  void load(int[] inputBlock, int length) {
+    if (!this.planar) {
+      return;
+    }
+    int[] red = this.planes[0];
+    int[] green = this.planes[1];
+    int[] blue = this.planes[2];
+    for (int i = 0; i < length; i++) {
+      int pixel = inputBlock[i];
+      red[i] = (pixel >> 16) & 0xFF;
+      green[i] = (pixel >> 8) & 0xFF;
+      blue[i] = pixel & 0xFF;
+    }
+  }
+
+  @Override
+  void convolveInterior(int[] inputBlock, int kernelStart, int scansize, int from, int to,
+                        int[] outputBlock, int outputStart) {
+    if (this.planar) {
+      convolveInteriorPlanar(kernelStart, scansize, from, to, outputBlock, outputStart);
+      return;
+    }
+    int taps = this.weights.length;
+    for (int x = from; x < to; x++) {
+      int red = 0;
+      int green = 0;
+      int blue = 0;
+      int rowStart = kernelStart + x;
+      for (int ky = 0; ky < taps; ky++, rowStart += scansize) {
+        int[] weightRow = this.weights[ky];
+        for (int kx = 0; kx < taps; kx++) {
+          int weight = weightRow[kx];
+          int pixel = inputBlock[rowStart + kx];
+          red += ((pixel >> 16) & 0xFF) * weight;
+          green += ((pixel >> 8) & 0xFF) * weight;
+          blue += (pixel & 0xFF) * weight;
+        }
+      }
+      outputBlock[outputStart + x] = pack(red, green, blue, this.shift);
+    }
+  }
+
+  /**
+   * Convolves a run of interior pixels from planar channel data, a tap at a time over the whole
+   * run. Taps are taken three at a time to save loads and stores of the sums.
+   */
+  private void convolveInteriorPlanar(int kernelStart, int scansize, int from, int to,
+                                      int[] outputBlock, int outputStart) {
+    int count = to - from;
+    if (count <= 0) {
+      return;
+    }
+    int taps = this.weights.length;
+    for (int c = 0; c < 3; c++) {
+      int[] channelSums = this.sums[c];
+      int[] plane = this.planes[c];
+      Arrays.fill(channelSums, 0, count, 0);
+      int rowStart = kernelStart + from;
+      for (int ky = 0; ky < taps; ky++, rowStart += scansize) {
+        int[] weightRow = this.weights[ky];
+        int kx = 0;
+        for (; kx + 2 < taps; kx += 3) {
+          int w0 = weightRow[kx];
+          int w1 = weightRow[kx + 1];
+          int w2 = weightRow[kx + 2];
+          int start = rowStart + kx;
+          for (int i = 0; i < count; i++) {
+            channelSums[i] += plane[start + i] * w0 + plane[start + i + 1] * w1
+                + plane[start + i + 2] * w2;
+          }
+        }
+        for (; kx < taps; kx++) {
+          int weight = weightRow[kx];
+          int start = rowStart + kx;
+          for (int i = 0; i < count; i++) {
+            channelSums[i] += plane[start + i] * weight;
+          }
+        }
+      }
+    }
+    packSums(count, outputBlock, outputStart + from);
+  }
+
+  @Override
+  void convolveEdge(int[] inputBlock, int top, int left, int scansize, int height, int width,
+                    int y, int from, int to, int[] outputBlock, int outputStart) {
+    int kernelArea = this.weights.length / 2;
+    int firstY = Math.max(-kernelArea, -y);
+    int lastY = Math.min(kernelArea, height - 1 - y);
+    for (int x = from; x < to; x++) {
+      int red = 0;
+      int green = 0;
+      int blue = 0;
+      int firstX = Math.max(-kernelArea, -x);
+      int lastX = Math.min(kernelArea, width - 1 - x);
+      for (int yy = firstY; yy <= lastY; yy++) {
+        int rowStart = (y + yy - top) * scansize - left + x;
+        int[] weightRow = this.weights[yy + kernelArea];
+        for (int xx = firstX; xx <= lastX; xx++) {
+          int weight = weightRow[xx + kernelArea];
+          int pixel = inputBlock[rowStart + xx];
+          red += ((pixel >> 16) & 0xFF) * weight;
+          green += ((pixel >> 8) & 0xFF) * weight;
+          blue += (pixel & 0xFF) * weight;
+        }
+      }
+      outputBlock[outputStart + x] = pack(red, green, blue, this.shift);
+    }
+  }
+
+  @Override
+  void sumRow(int[] inputBlock, int rowStart, int from, int to, int width, int slot) {
+    int rowArea = this.rowWeights.length / 2;
+    for (int x = from; x < to; x++) {
+      int red = 0;
+      int green = 0;
+      int blue = 0;
+      int last = Math.min(rowArea, width - 1 - x);
+      for (int xx = Math.max(-rowArea, -x); xx <= last; xx++) {
+        int weight = this.rowWeights[xx + rowArea];
+        int pixel = inputBlock[rowStart + x + xx];
+        red += ((pixel >> 16) & 0xFF) * weight;
+        green += ((pixel >> 8) & 0xFF) * weight;
+        blue += (pixel & 0xFF) * weight;
+      }
+      this.ring[0][slot + x - from] = red;
+      this.ring[1][slot + x - from] = green;
+      this.ring[2][slot + x - from] = blue;
+    }
+  }
+
+  @Override
+  void clearSums(int count) {
+    for (int c = 0; c < 3; c++) {
+      Arrays.fill(this.sums[c], 0, count, 0);
+    }
+  }
+
+  @Override
+  void addSlot(int tap, int slot, int count) {
+    int weight = this.columnWeights[tap];
+    for (int c = 0; c < 3; c++) {
+      int[] channelRing = this.ring[c];
+      int[] channelSums = this.sums[c];
+      for (int i = 0; i < count; i++) {
+        channelSums[i] += weight * channelRing[slot + i];
+      }
+    }
+  }
+
+  @Override
+  void packSums(int count, int[] outputBlock, int outputStart) {
+    int[] red = this.sums[0];
+    int[] green = this.sums[1];
+    int[] blue = this.sums[2];
+    for (int i = 0; i < count; i++) {
+      outputBlock[outputStart + i] = pack(red[i], green[i], blue[i], this.shift);
+    }
+  }
+
+  private static int pack(int red, int green, int blue, int shift) {
+    return (FixedPointKernel.toChannel(red, shift) << 16)
+        | (FixedPointKernel.toChannel(green, shift) << 8)
+        | FixedPointKernel.toChannel(blue, shift);
+  }
+}
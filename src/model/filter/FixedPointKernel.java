@@ -0,0 +1,116 @@
+package model.filter;
+
+/**
+ * A kernel whose weights are all exact dyadic fractions, stored as integer numerators over a common
+ * power of two. Convolving with it sums integer products and shifts the sum right once per
+ * channel, which gives exactly what the double convolution gives (see
+ * {@link #toChannel(int, int)}).
+ */
+final class FixedPointKernel {
+
+  /**
+   * The largest power of two a weight may be a fraction of.
+   */
+  static final int MAX_SHIFT = 16;
+
+  private final int[][] weights;
+  private final int shift;
+  private final long absoluteSum;
+
+  private FixedPointKernel(int[][] weights, int shift) {
+    this.weights = weights;
+    this.shift = shift;
+    long sum = 0;
+    for (int[] row : weights) {
+      for (int weight : row) {
+        sum += Math.abs(weight);
+      }
+    }
+    this.absoluteSum = sum;
+  }
+
+  /**
+   * Converts a kernel to fixed point if every weight is an exact multiple of 1 / 2^k for some k up
+   * to MAX_SHIFT, and any sum over a full neighborhood of 8-bit values fits in an {@code int}.
+   *
+   * @param kernel The kernel, one array per row.
+   * @return The fixed-point kernel, or null if the kernel cannot be represented exactly.
+   */
+  static FixedPointKernel of(double[][] kernel) {
+    int shift = 0;
+    for (double[] row : kernel) {
+      for (double weight : row) {
+        int needed = requiredShift(weight);
+        if (needed < 0) {
+          return null;
+        }
+        shift = Math.max(shift, needed);
+      }
+    }
+    int[][] weights = new int[kernel.length][];
+    for (int i = 0; i < kernel.length; i++) {
+      weights[i] = new int[kernel[i].length];
+      for (int j = 0; j < kernel[i].length; j++) {
+        weights[i][j] = (int) Math.scalb(kernel[i][j], shift);
+      }
+    }
+    FixedPointKernel fixed = new FixedPointKernel(weights, shift);
+    return fixed.absoluteSum * 255 <= Integer.MAX_VALUE ? fixed : null;
+  }
+
+  /**
+   * Gets the smallest k such that the weight times 2^k is an integer small enough to use as a
+   * numerator.
+   */
+  private static int requiredShift(double weight) {
+    for (int k = 0; k <= MAX_SHIFT; k++) {
+      double scaled = Math.scalb(weight, k);
+      if (scaled == Math.rint(scaled) && Math.abs(scaled) <= (1 << 23)) {
+        return k;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Gets the integer numerators of the weights, one array per row.
+   *
+   * @return The numerators.
+   */
+  int[][] getWeights() {
+    return this.weights;
+  }
+
+  /**
+   * Gets the power of two the numerators are over.
+   *
+   * @return The shift k, where each weight is its numerator / 2^k.
+   */
+  int getShift() {
+    return this.shift;
+  }
+
+  /**
+   * Gets the sum of the absolute values of the numerators, which bounds the magnitude of any sum
+   * over a neighborhood at 255 times this.
+   *
+   * @return The sum of the absolute numerators.
+   */
+  long getAbsoluteSum() {
+    return this.absoluteSum;
+  }
+
+  /**
+   * Turns a sum of numerator-weighted channel values, over 2^shift, into a channel value. The sum
+   * is shifted right arithmetically, which rounds toward negative infinity, and then clamped to
+   * [0, 255]. For sums of 0 or more that is the truncation the double path applies, and negative
+   * sums clamp to 0 either way, so the result equals the double result exactly.
+   *
+   * @param sum   The weighted sum.
+   * @param shift The power of two the sum is over.
+   * @return The channel value.
+   */
+  static int toChannel(int sum, int shift) {
+    return Math.max(0, Math.min(255, sum >> shift));
+  }
+}
@@ -0,0 +1,148 @@
+package model.filter;
+
+/**
+ * An in-place radix-2 fast Fourier transform of one power-of-two size, with its twiddle factors and
+ * bit-reversal permutation computed once. Complex values are kept as separate arrays of real and
+ * imaginary parts. The inverse transform is not scaled by 1 / n; callers fold that into their
+ * own factors.
+ */
+final class FourierTransform {
+
+  private final int size;
+  private final int[] reversed;
+  private final double[] cos;
+  private final double[] sin;
+
+  /**
+   * Creates a transform of the given size.
+   *
+   * @param size The number of points, a power of two.
+   * @throws IllegalArgumentException If the size is not a positive power of two.
+   */
+  FourierTransform(int size) {
+    if (size < 1 || Integer.bitCount(size) != 1) {
+      throw new IllegalArgumentException("Transform size must be a power of two");
+    }
+    this.size = size;
+    this.reversed = new int[size];
+    int bits = Integer.numberOfTrailingZeros(size);
+    for (int i = 0; i < size; i++) {
+      this.reversed[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+    }
+    this.cos = new double[size / 2];
+    this.sin = new double[size / 2];
+    for (int i = 0; i < size / 2; i++) {
+      double angle = 2 * Math.PI * i / size;
+      this.cos[i] = Math.cos(angle);
+      this.sin[i] = Math.sin(angle);
+    }
+  }
+
+  /**
+   * Gets the number of points of the transform.
+   *
+   * @return The size.
+   */
+  int getSize() {
+    return this.size;
+  }
+
+  /**
+   * Transforms size consecutive values in place.
+   *
+   * @param re      The real parts.
+   * @param im      The imaginary parts.
+   * @param offset  The index of the first value.
+   * @param inverse Whether to run the inverse transform, without its 1 / n factor.
+   */
+  void transform(double[] re, double[] im, int offset, boolean inverse) {
+    int n = this.size;
+    for (int i = 0; i < n; i++) {
+      int j = this.reversed[i];
+      if (j > i) {
+        double swap = re[offset + i];
+        re[offset + i] = re[offset + j];
+        re[offset + j] = swap;
+        swap = im[offset + i];
+        im[offset + i] = im[offset + j];
+        im[offset + j] = swap;
+      }
+    }
+    double direction = inverse ? 1 : -1;
+    for (int length = 2; length <= n; length <<= 1) {
+      int half = length >> 1;
+      int step = n / length;
+      for (int start = offset; start < offset + n; start += length) {
+        for (int j = 0; j < half; j++) {
+          double wr = this.cos[j * step];
+          double wi = direction * this.sin[j * step];
+          int even = start + j;
+          int odd = even + half;
+          double tr = re[odd] * wr - im[odd] * wi;
+          double ti = re[odd] * wi + im[odd] * wr;
+          re[odd] = re[even] - tr;
+          im[odd] = im[even] - ti;
+          re[even] += tr;
+          im[even] += ti;
+        }
+      }
+    }
+  }
+
+  /**
+   * Transforms a size x size grid in place, stored row by row, along its rows and then its
+   * columns. Rows outside [firstRow, lastRow) must be all zero, and are skipped since their
+   * transform is zero too.
+   *
+   * @param re       The real parts.
+   * @param im       The imaginary parts.
+   * @param firstRow The first row that may hold a non-zero value.
+   * @param lastRow  One past the last row that may hold a non-zero value.
+   * @param columnRe A buffer of size values for a column's real parts.
+   * @param columnIm A buffer of size values for a column's imaginary parts.
+   */
+  void forward2d(double[] re, double[] im, int firstRow, int lastRow, double[] columnRe,
+                 double[] columnIm) {
+    for (int y = firstRow; y < lastRow; y++) {
+      transform(re, im, y * this.size, false);
+    }
+    transformColumns(re, im, false, columnRe, columnIm);
+  }
+
+  /**
+   * Inverse-transforms a size x size grid in place, stored row by row, along its columns and then
+   * its rows. Only rows [0, rows) are finished along the rows, since the caller reads no others.
+   *
+   * @param re       The real parts.
+   * @param im       The imaginary parts.
+   * @param rows     The number of rows, from the top, to finish.
+   * @param columnRe A buffer of size values for a column's real parts.
+   * @param columnIm A buffer of size values for a column's imaginary parts.
+   */
+  void inverse2d(double[] re, double[] im, int rows, double[] columnRe, double[] columnIm) {
+    transformColumns(re, im, true, columnRe, columnIm);
+    for (int y = 0; y < rows; y++) {
+      transform(re, im, y * this.size, true);
+    }
+  }
+
+  /**
+   * Transforms every column of the grid, copying it into the column buffers so the butterflies
+   * run over consecutive values.
+   */
+  private void transformColumns(double[] re, double[] im, boolean inverse, double[] columnRe,
+                                double[] columnIm) {
+    int n = this.size;
+    for (int x = 0; x < n; x++) {
+      for (int y = 0, i = x; y < n; y++, i += n) {
+        columnRe[y] = re[i];
+        columnIm[y] = im[i];
+      }
+      transform(columnRe, columnIm, 0, inverse);
+      for (int y = 0, i = x; y < n; y++, i += n) {
+        re[i] = columnRe[y];
+        im[i] = columnIm[y];
+      }
+    }
+  }
+}
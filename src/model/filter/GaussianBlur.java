@@ -0,0 +1,299 @@
+package model.filter;
+
+import java.util.Arrays;
+
+import model.customimage.Image;
+import model.customimage.ImageBlocks;
+
+/**
+ * A Gaussian blur of any standard deviation, approximated by three box blurs in a row. Each box
+ * blur keeps a running sum over a sliding window, so a pixel costs the same few additions however
+ * large the radius is. The box widths are chosen so the three passes together have the variance
+ * of the Gaussian. Windows are clipped to the image and averaged over the pixels they cover, so
+ * the edges are not darkened the way a zero-padded kernel darkens them.
+ */
+public class GaussianBlur implements ImageFilters {
+
+  private static final int PASSES = 3;
+  // The number of columns the vertical passes work on at a time
+  private static final int STRIP_WIDTH = 64;
+  // Radii beyond this cover any image, and keep the window arithmetic within an int
+  private static final int MAX_RADIUS = 1 << 28;
+
+  private final double sigma;
+  private final int[] boxRadii;
+
+  /**
+   * Creates a Gaussian blur with the given standard deviation.
+   *
+   * @param sigma The standard deviation of the Gaussian, in pixels.
+   * @throws IllegalArgumentException If sigma is not a positive finite number.
+   */
+  public GaussianBlur(double sigma) {
+    if (!(sigma > 0) || Double.isInfinite(sigma)) {
+      throw new IllegalArgumentException("Sigma must be a positive number");
+    }
+    this.sigma = sigma;
+    this.boxRadii = boxRadii(sigma, PASSES);
+  }
+
+  /**
+   * Gets the standard deviation of the blur.
+   *
+   * @return The standard deviation, in pixels.
+   */
+  public double getSigma() {
+    return this.sigma;
+  }
+
+  /**
+   * Gets the radii of the box blurs the Gaussian is approximated with, in the order they are
+   * applied. A box of radius r averages 2r + 1 pixels.
+   *
+   * @return The radii of the box blurs.
+   */
+  public int[] getBoxRadii() {
+    return this.boxRadii.clone();
+  }
+
+  /**
+   * Chooses the widths of n box blurs whose combined variance is as close as possible to sigma
+   * squared. The widths are the odd numbers just below and above the ideal width, with as many of
+   * the smaller ones as keeps the variance closest.
+   */
+  private static int[] boxRadii(double sigma, int passes) {
+    double variance = sigma * sigma;
+    double idealWidth = Math.sqrt(12 * variance / passes + 1);
+    double lower = Math.floor(idealWidth);
+    if (lower % 2 == 0) {
+      lower--;
+    }
+    double smaller = Math.round((12 * variance - passes * lower * lower - 4 * passes * lower
+        - 3 * passes) / (-4 * lower - 4));
+    int[] radii = new int[passes];
+    for (int i = 0; i < passes; i++) {
+      double width = i < smaller ? lower : lower + 2;
+      radii[i] = (int) Math.min(MAX_RADIUS, (width - 1) / 2);
+    }
+    return radii;
+  }
+
+  /**
+   * Apply the Gaussian blur to an input image and return the processed image. The rows are blurred
+   * first and then the columns, in strips, each spread over the threads of ImageBlocks.
+   *
+   * @param inputImage The input image to be processed.
+   * @return The processed image.
+   */
+  @Override
+  public Image applyFilter(Image inputImage) {
+    return applyFilter(inputImage, null);
+  }
+
+  /**
+   * Blurs an image, handing each strip of blurred columns to a combiner before it is written, so
+   * a filter built on the blur can do its per-pixel work in the same pass rather than over a
+   * second image.
+   *
+   * @param inputImage The input image to be processed.
+   * @param combiner   The combiner of the blurred strips, or null to write them as they are.
+   * @return The processed image.
+   */
+  Image applyFilter(Image inputImage, StripCombiner combiner) {
+    int height = inputImage.getHeight();
+    int width = inputImage.getWidth();
+    Image outputImage = inputImage.createCompatibleImage(height, width);
+    long pixels = (long) height * width;
+    if (pixels == 0) {
+      return outputImage;
+    }
+
+    ImageBlocks.forEachRangeInParallel(height, pixels, () -> new Workspace(width, 1),
+        (workspace, first, last) -> {
+      for (int y = first; y < last; y++) {
+        inputImage.getRGBRow(y, 0, width, workspace.packed, 0);
+        blurChannels(workspace, width, 1);
+        outputImage.setRGBRow(y, 0, width, workspace.packed, 0);
+      }
+    });
+
+    int strips = (width + STRIP_WIDTH - 1) / STRIP_WIDTH;
+    int stripWidth = Math.min(width, STRIP_WIDTH);
+    ImageBlocks.forEachRangeInParallel(strips, pixels,
+        () -> new Workspace(height * stripWidth, stripWidth), (workspace, first, last) -> {
+      for (int strip = first; strip < last; strip++) {
+        int x = strip * STRIP_WIDTH;
+        int lanes = Math.min(STRIP_WIDTH, width - x);
+        outputImage.getRGBSpan(0, x, height, lanes, workspace.packed, 0, lanes);
+        blurChannels(workspace, height, lanes);
+        if (combiner != null) {
+          combiner.combine(inputImage, x, height, lanes, workspace.packed, workspace.channel);
+        }
+        outputImage.setRGBSpan(0, x, height, lanes, workspace.packed, 0, lanes);
+      }
+    });
+
+    return outputImage;
+  }
+
+  /**
+   * Runs the box passes over each channel of the packed pixels in the workspace and writes the
+   * results back into them. The pixels are length rows of the given number of lanes, blurred along
+   * the rows.
+   */
+  private void blurChannels(Workspace workspace, int length, int lanes) {
+    int[] packed = workspace.packed;
+    int size = length * lanes;
+    for (int shift = 16; shift >= 0; shift -= 8) {
+      int[] source = workspace.channel;
+      int[] target = workspace.scratch;
+      for (int i = 0; i < size; i++) {
+        source[i] = (packed[i] >> shift) & 0xFF;
+      }
+      for (int radius : this.boxRadii) {
+        if (lanes == 1) {
+          boxRow(source, target, length, radius);
+        } else {
+          boxPass(source, target, length, lanes, radius, workspace.sums);
+        }
+        int[] swap = source;
+        source = target;
+        target = swap;
+      }
+      int mask = ~(0xFF << shift);
+      for (int i = 0; i < size; i++) {
+        packed[i] = (packed[i] & mask) | (source[i] << shift);
+      }
+    }
+  }
+
+  /**
+   * Box-blurs a single row of values, the way boxPass does with one lane. The window is full
+   * everywhere but near the ends, so the middle of the row runs without any clipping.
+   *
+   * @param source The values to blur.
+   * @param target The array to write the averages to.
+   * @param length The number of values.
+   * @param radius The radius of the box.
+   */
+  private static void boxRow(int[] source, int[] target, int length, int radius) {
+    int reach = Math.min(radius, length);
+    int sum = 0;
+    for (int i = 0; i <= Math.min(reach, length - 1); i++) {
+      sum += source[i];
+    }
+    int i = 0;
+    for (; i < Math.min(reach, length); i++) {
+      sum = clippedStep(source, target, length, reach, i, sum);
+    }
+    int window = 2 * reach + 1;
+    int half = window >> 1;
+    for (; i < length - reach - 1; i++) {
+      target[i] = (sum + half) / window;
+      sum += source[i + reach + 1] - source[i - reach];
+    }
+    for (; i < length; i++) {
+      sum = clippedStep(source, target, length, reach, i, sum);
+    }
+  }
+
+  /**
+   * Writes the average of the window around one value near an end of a row, where the window is
+   * clipped, and returns the window sum moved on to the next value.
+   */
+  private static int clippedStep(int[] source, int[] target, int length, int reach, int i,
+                                 int sum) {
+    int count = Math.min(i + reach, length - 1) - Math.max(i - reach, 0) + 1;
+    target[i] = (sum + (count >> 1)) / count;
+    if (i + reach + 1 < length) {
+      sum += source[i + reach + 1];
+    }
+    if (i - reach >= 0) {
+      sum -= source[i - reach];
+    }
+    return sum;
+  }
+
+  /**
+   * Box-blurs length rows of lanes values each along the rows, rounding each average to the
+   * nearest integer. The window sum is updated by one row entering and one leaving, so the cost
+   * does not depend on the radius.
+   *
+   * @param source The values to blur, lane j of row i at i * lanes + j.
+   * @param target The array to write the averages to, laid out like the source.
+   * @param length The number of rows.
+   * @param lanes  The number of values in a row.
+   * @param radius The radius of the box.
+   * @param sums   A buffer of at least lanes window sums.
+   */
+  private static void boxPass(int[] source, int[] target, int length, int lanes, int radius,
+                              int[] sums) {
+    int reach = Math.min(radius, length);
+    Arrays.fill(sums, 0, lanes, 0);
+    for (int i = 0; i <= Math.min(reach, length - 1); i++) {
+      int start = i * lanes;
+      for (int j = 0; j < lanes; j++) {
+        sums[j] += source[start + j];
+      }
+    }
+    for (int i = 0; i < length; i++) {
+      int count = Math.min(i + reach, length - 1) - Math.max(i - reach, 0) + 1;
+      int half = count >> 1;
+      int start = i * lanes;
+      for (int j = 0; j < lanes; j++) {
+        target[start + j] = (sums[j] + half) / count;
+      }
+      int entering = i + reach + 1;
+      if (entering < length) {
+        int enteringStart = entering * lanes;
+        for (int j = 0; j < lanes; j++) {
+          sums[j] += source[enteringStart + j];
+        }
+      }
+      int leaving = i - reach;
+      if (leaving >= 0) {
+        int leavingStart = leaving * lanes;
+        for (int j = 0; j < lanes; j++) {
+          sums[j] -= source[leavingStart + j];
+        }
+      }
+    }
+  }
+
+  /**
+   * Turns a strip of blurred columns into the output of a filter built on the blur. Combiners are
+   * called from several threads at once, each with its own buffers.
+   */
+  interface StripCombiner {
+
+    /**
+     * Combines a strip of blurred pixels with the input, in place.
+     *
+     * @param inputImage The input image.
+     * @param x          The x-coordinate of the first column of the strip.
+     * @param height     The height of the image, and so the number of rows in the strip.
+     * @param lanes      The number of columns in the strip.
+     * @param blurred    The blurred pixels of the strip, lanes to a row, to be replaced with the
+     *                   output pixels.
+     * @param scratch    A buffer as large as the strip, free for the combiner to use.
+     */
+    void combine(Image inputImage, int x, int height, int lanes, int[] blurred, int[] scratch);
+  }
+
+  /**
+   * The buffers one thread blurs its rows or strips with.
+   */
+  private static final class Workspace {
+    private final int[] packed;
+    private final int[] channel;
+    private final int[] scratch;
+    private final int[] sums;
+
+    Workspace(int size, int lanes) {
+      this.packed = new int[size];
+      this.channel = new int[size];
+      this.scratch = new int[size];
+      this.sums = new int[lanes];
+    }
+  }
+}
@@ -1,12 +1,36 @@
 package model.filter;
 
-import model.customimage.CustomImage;
 import model.customimage.Image;
+import model.customimage.ImageBlocks;
 
 /**
  * An abstract class serving as a template for implementing image filters.
  */
 public abstract class ImageFilterTemplate implements ImageFilters {
+
+  private static volatile boolean planarConvolution = true;
+
+  /**
+   * Sets whether the interior of a 2D convolution is computed from planar channel data, a tap at a
+   * time over a run of output pixels, rather than a pixel at a time over its taps. The planar
+   * loops are simple enough for the JIT to vectorize, so each instruction works on several output
+   * pixels. Both orders add the taps of a pixel in the same sequence, so the results are identical.
+   *
+   * @param enabled Whether to use the planar loops.
+   */
+  public static void setPlanarConvolution(boolean enabled) {
+    planarConvolution = enabled;
+  }
+
+  /**
+   * Gets whether the interior of a 2D convolution is computed from planar channel data.
+   *
+   * @return Whether the planar loops are used.
+   */
+  public static boolean isPlanarConvolution() {
+    return planarConvolution;
+  }
+
   /**
    * Apply the image filter operation to an input image and return the processed image.
    *
@@ -15,59 +39,263 @@ public abstract class ImageFilterTemplate implements ImageFilters {
    */
   @Override
   public Image applyFilter(Image inputImage) {
+    Accumulator accumulator = chooseAccumulator();
+    if (accumulator == null) {
+      return FourierConvolution.convolve(inputImage, getKernel());
+    }
+    if (accumulator.isSeparable()) {
+      return convolveSeparable(inputImage, accumulator);
+    }
+    return convolve(inputImage, accumulator);
+  }
+
+  /**
+   * Chooses how the kernel of this filter is convolved. Kernels of exact dyadic weights, like blur
+   * (sixteenths) and sharpen (eighths), are run in integer arithmetic, which gives the same result
+   * as doubles. Separable kernels are applied as two 1D passes, and large kernels that are not are
+   * left to the frequency domain. Every way of applying the filter follows this one choice, so they
+   * all give the same result.
+   *
+   * @return The arithmetic of a direct convolution, or null if the kernel is convolved in the
+   *         frequency domain.
+   */
+  Accumulator chooseAccumulator() {
+    double[][] factors = getSeparableKernel();
+    if (factors != null) {
+      FixedPointKernel column = FixedPointKernel.of(new double[][]{factors[0]});
+      FixedPointKernel row = FixedPointKernel.of(new double[][]{factors[1]});
+      if (column != null && row != null
+          && column.getAbsoluteSum() * row.getAbsoluteSum() * 255 <= Integer.MAX_VALUE) {
+        return FixedPointAccumulator.separable(column, row);
+      }
+      return DoubleAccumulator.separable(factors[0], factors[1]);
+    }
+
     double[][] kernel = getKernel();
+    if (kernel.length >= getFourierThreshold()
+        && FourierConvolution.transformSize(kernel.length) > 0) {
+      return null;
+    }
+    FixedPointKernel fixed = FixedPointKernel.of(kernel);
+    if (fixed != null) {
+      return FixedPointAccumulator.of(fixed, planarConvolution);
+    }
+    return DoubleAccumulator.of(kernel, planarConvolution);
+  }
+
+  /**
+   * Convolves an image with a full 2D kernel. Pixels outside the image count as 0.
+   *
+   * @param inputImage  The input image.
+   * @param accumulator The arithmetic of the kernel.
+   * @return The processed image.
+   */
+  private static Image convolve(Image inputImage, Accumulator accumulator) {
     int height = inputImage.getHeight();
     int width = inputImage.getWidth();
-    Image outputImage = new CustomImage(inputImage.getHeight(), inputImage.getWidth());
+    Image outputImage = inputImage.createCompatibleImage(height, width);
 
     // Distance from the center pixel to the farthest contributing pixel
-    int kernelArea = kernel.length / 2;
-
-    // Loop for image height
-    for (int y = 0; y < height; y++) {
-      // Loop for image width
-      for (int x = 0; x < width; x++) {
-        // Calculating the blurred pixel RGB value. Initially set to 0, which means black
-        double[] blurred = {0, 0, 0};
-
-        // Loop to go through the kernel area
-        // Initially, calculating the y
-        for (int yy = -kernelArea; yy <= kernelArea; yy++) {
-          int pixelY = y + yy;
-          if (pixelY < 0 || pixelY >= height) {
-            continue;
-          }
-          double[] currentRowBlur = kernel[yy + kernelArea];
-          for (int xx = -kernelArea; xx <= kernelArea; xx++) {
-            int pixelX = x + xx;
-            if (pixelX < 0 || pixelX >= width) {
-              continue; // Skip out-of-bounds columns
-            }
-
-            double kernelValue = currentRowBlur[xx + kernelArea];
-            int pixel = inputImage.getRGB(pixelX, pixelY);
-
-            int r = (pixel >> 16) & 0xFF;
-            int g = (pixel >> 8) & 0xFF;
-            int b = pixel & 0xFF;
-
-            blurred[0] += r * kernelValue;
-            blurred[1] += g * kernelValue;
-            blurred[2] += b * kernelValue;
-          }
+    int kernelArea = accumulator.getReach();
+
+    // Each block of the output is computed from the block of the input around it, widened by an
+    // apron of kernelArea pixels on every side that lies inside the image
+    int tileHeight = Math.max(1, inputImage.getTileHeight());
+    int tileWidth = Math.max(1, inputImage.getTileWidth());
+    int inputSize = (tileHeight + 2 * kernelArea) * (tileWidth + 2 * kernelArea);
+
+    // Blocks are convolved in parallel, each thread with its own buffers
+    ImageBlocks.forEachBlockInParallel(inputImage,
+        () -> new Workspace(inputSize, tileHeight * tileWidth,
+            accumulator.forThread(inputSize, tileWidth)),
+        (workspace, blockY, blockX, blockHeight, blockWidth) -> {
+      int[] inputBlock = workspace.inputBlock;
+      int[] outputBlock = workspace.outputBlock;
+      Accumulator sums = workspace.accumulator;
+      int top = Math.max(0, blockY - kernelArea);
+      int left = Math.max(0, blockX - kernelArea);
+      int bottom = Math.min(height, blockY + blockHeight + kernelArea);
+      int right = Math.min(width, blockX + blockWidth + kernelArea);
+      int scansize = right - left;
+      inputImage.getRGBSpan(top, left, bottom - top, scansize, inputBlock, 0, scansize);
+      sums.load(inputBlock, (bottom - top) * scansize);
+
+      // Pixels whose whole kernel lies inside the image; the rest are on the edge
+      int interiorLeft = Math.min(blockX + blockWidth, Math.max(blockX, kernelArea));
+      int interiorRight = Math.max(interiorLeft,
+          Math.min(blockX + blockWidth, width - kernelArea));
+      for (int y = blockY; y < blockY + blockHeight; y++) {
+        int outputStart = (y - blockY) * blockWidth - blockX;
+        if (y < kernelArea || y >= height - kernelArea) {
+          sums.convolveEdge(inputBlock, top, left, scansize, height, width, y, blockX,
+              blockX + blockWidth, outputBlock, outputStart);
+          continue;
         }
+        sums.convolveEdge(inputBlock, top, left, scansize, height, width, y, blockX,
+            interiorLeft, outputBlock, outputStart);
+        int kernelStart = (y - kernelArea - top) * scansize - left - kernelArea;
+        sums.convolveInterior(inputBlock, kernelStart, scansize, interiorLeft, interiorRight,
+            outputBlock, outputStart);
+        sums.convolveEdge(inputBlock, top, left, scansize, height, width, y, interiorRight,
+            blockX + blockWidth, outputBlock, outputStart);
+      }
+      outputImage.setRGBSpan(blockY, blockX, blockHeight, blockWidth, outputBlock, 0, blockWidth);
+    });
 
-        for (int color = 0; color < 3; color++) {
-          // Clamp the pixel values to the range [0, 255]
-          outputImage.setPixelValue(y, x, color, (int) Math.max(0, Math.min(255, blurred[color])));
+    return outputImage;
+  }
 
+  /**
+   * Applies a separable kernel as a horizontal pass with the row vector followed by a vertical pass
+   * with the column vector, which takes 2k rather than k * k multiplications per pixel. The
+   * horizontal sums are kept in a ring of as many rows as the column vector has taps, so each
+   * input row is filtered horizontally once. Pixels outside the image count as 0, as in the full
+   * 2D convolution.
+   *
+   * @param inputImage  The input image.
+   * @param accumulator The arithmetic of the column and row vectors.
+   * @return The processed image.
+   */
+  private static Image convolveSeparable(Image inputImage, Accumulator accumulator) {
+    int height = inputImage.getHeight();
+    int width = inputImage.getWidth();
+    Image outputImage = inputImage.createCompatibleImage(height, width);
+
+    int rowArea = accumulator.getRowReach();
+    int columnArea = accumulator.getReach();
+    int taps = 2 * columnArea + 1;
+
+    int tileHeight = Math.max(1, inputImage.getTileHeight());
+    int tileWidth = Math.max(1, inputImage.getTileWidth());
+    int inputSize = (tileHeight + 2 * columnArea) * (tileWidth + 2 * rowArea);
+
+    ImageBlocks.forEachBlockInParallel(inputImage,
+        () -> new Workspace(inputSize, tileHeight * tileWidth,
+            accumulator.forThread(inputSize, tileWidth)),
+        (workspace, blockY, blockX, blockHeight, blockWidth) -> {
+      int[] inputBlock = workspace.inputBlock;
+      int[] outputBlock = workspace.outputBlock;
+      Accumulator sums = workspace.accumulator;
+      int top = Math.max(0, blockY - columnArea);
+      int left = Math.max(0, blockX - rowArea);
+      int bottom = Math.min(height, blockY + blockHeight + columnArea);
+      int right = Math.min(width, blockX + blockWidth + rowArea);
+      int scansize = right - left;
+      inputImage.getRGBSpan(top, left, bottom - top, scansize, inputBlock, 0, scansize);
+
+      int nextRow = top;
+      for (int y = blockY; y < blockY + blockHeight; y++) {
+        // Filter horizontally every input row the vertical pass for this row needs; row r of the
+        // input block goes to slot r % taps of the ring
+        for (; nextRow < Math.min(bottom, y + columnArea + 1); nextRow++) {
+          sums.sumRow(inputBlock, (nextRow - top) * scansize - left, blockX,
+              blockX + blockWidth, width, ((nextRow - top) % taps) * blockWidth);
+        }
+
+        // Then combine the horizontal sums of the rows around this one vertically
+        sums.clearSums(blockWidth);
+        int last = Math.min(columnArea, height - 1 - y);
+        for (int yy = Math.max(-columnArea, -y); yy <= last; yy++) {
+          sums.addSlot(yy + columnArea, ((y + yy - top) % taps) * blockWidth, blockWidth);
         }
+        sums.packSums(blockWidth, outputBlock, (y - blockY) * blockWidth);
       }
-    }
+      outputImage.setRGBSpan(blockY, blockX, blockHeight, blockWidth, outputBlock, 0, blockWidth);
+    });
 
     return outputImage;
   }
 
+  /**
+   * Gets the kernel as a column vector and a row vector whose product is the kernel, so it can be
+   * applied in two 1D passes. By default the factors are found from getKernel; a subclass whose
+   * kernel is known to be separable can declare them instead, and one whose kernel never is can
+   * return null to skip the check.
+   *
+   * @return The column vector and the row vector, in that order, or null if the kernel is not
+   *         separable.
+   */
+  public double[][] getSeparableKernel() {
+    return factorKernel(getKernel());
+  }
+
+  /**
+   * Creates a convolver that applies this filter a row at a time, with exactly the result of
+   * applyFilter, so it can be fused with other stages in a pipeline.
+   *
+   * @return The row convolver, or null if the kernel is convolved in the frequency domain.
+   */
+  public RowConvolver createRowConvolver() {
+    return RowConvolver.of(this);
+  }
+
+  /**
+   * Gets the smallest kernel width that is convolved in the frequency domain rather than directly.
+   * By default it is the crossover FourierConvolution finds from its measured costs. A subclass
+   * can return Integer.MAX_VALUE to always convolve directly.
+   *
+   * @return The smallest kernel width convolved with the Fourier transform.
+   */
+  public int getFourierThreshold() {
+    return FourierConvolution.CROSSOVER;
+  }
+
+  /**
+   * Splits a kernel into a column vector and a row vector whose product is the kernel. The factors
+   * are taken from the row and column through the largest entry, and accepted only if every entry
+   * of the kernel is reproduced to within rounding.
+   *
+   * @param kernel The kernel to split.
+   * @return The column vector and the row vector, or null if the kernel is not separable.
+   */
+  static double[][] factorKernel(double[][] kernel) {
+    int pivotRow = 0;
+    int pivotColumn = 0;
+    for (int i = 0; i < kernel.length; i++) {
+      for (int j = 0; j < kernel[i].length; j++) {
+        if (Math.abs(kernel[i][j]) > Math.abs(kernel[pivotRow][pivotColumn])) {
+          pivotRow = i;
+          pivotColumn = j;
+        }
+      }
+    }
+    double pivot = kernel[pivotRow][pivotColumn];
+    if (pivot == 0) {
+      return null;
+    }
+    double[] row = kernel[pivotRow].clone();
+    double[] column = new double[kernel.length];
+    for (int i = 0; i < kernel.length; i++) {
+      column[i] = kernel[i][pivotColumn] / pivot;
+    }
+    double tolerance = Math.abs(pivot) * 1e-12;
+    for (int i = 0; i < kernel.length; i++) {
+      if (kernel[i].length != row.length) {
+        return null;
+      }
+      for (int j = 0; j < row.length; j++) {
+        if (Math.abs(kernel[i][j] - column[i] * row[j]) > tolerance) {
+          return null;
+        }
+      }
+    }
+    return new double[][]{column, row};
+  }
+
+  /**
+   * The buffers one thread convolves its blocks with.
+   */
+  private static final class Workspace {
+    private final int[] inputBlock;
+    private final int[] outputBlock;
+    private final Accumulator accumulator;
+
+    Workspace(int inputSize, int outputSize, Accumulator accumulator) {
+      this.inputBlock = new int[inputSize];
+      this.outputBlock = new int[outputSize];
+      this.accumulator = accumulator;
+    }
+  }
 
   /**
    * getKernel method gets the kernel for the implementing class.
@@ -0,0 +1,109 @@
+package model.filter;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class representing an image filter with a kernel supplied by the user, of any odd size N x N.
+ * Small kernels are convolved directly, and large ones, such as the 15x15 and 31x31 point-spread
+ * functions used in testing, in the frequency domain (see ImageFilterTemplate).
+ */
+public class KernelFilter extends ImageFilterTemplate {
+
+  private final double[][] kernel;
+
+  /**
+   * Creates a filter with the given kernel.
+   *
+   * @param kernel The kernel, an odd number of rows of as many weights each.
+   * @throws IllegalArgumentException If the kernel is not square, has an even size or holds a
+   *                                  weight that is not finite.
+   */
+  public KernelFilter(double[][] kernel) {
+    if (kernel == null || kernel.length % 2 == 0) {
+      throw new IllegalArgumentException("Kernel must have an odd number of rows");
+    }
+    this.kernel = new double[kernel.length][];
+    for (int i = 0; i < kernel.length; i++) {
+      if (kernel[i] == null || kernel[i].length != kernel.length) {
+        throw new IllegalArgumentException("Kernel must be square");
+      }
+      for (double weight : kernel[i]) {
+        if (Double.isNaN(weight) || Double.isInfinite(weight)) {
+          throw new IllegalArgumentException("Kernel weights must be finite numbers");
+        }
+      }
+      this.kernel[i] = kernel[i].clone();
+    }
+  }
+
+  /**
+   * Reads a kernel from a text file. The file holds N rows of N numbers separated by whitespace,
+   * with N odd; lines starting with # are comments.
+   *
+   * @param path The path of the kernel file.
+   * @return The filter with the kernel read from the file.
+   * @throws IOException              If the file cannot be found or read.
+   * @throws IllegalArgumentException If the file does not hold a valid kernel.
+   */
+  public static KernelFilter read(String path) throws IOException {
+    Reader file;
+    try {
+      file = new FileReader(path);
+    } catch (FileNotFoundException e) {
+      throw new IOException("Error: Kernel file not found.");
+    }
+    try (Reader reader = file) {
+      return read(reader);
+    }
+  }
+
+  /**
+   * Reads a kernel in the format of {@link #read(String)}.
+   *
+   * @param reader The reader to read the kernel from.
+   * @return The filter with the kernel read.
+   * @throws IOException              If the reader fails.
+   * @throws IllegalArgumentException If the text does not hold a valid kernel.
+   */
+  public static KernelFilter read(Reader reader) throws IOException {
+    BufferedReader lines = new BufferedReader(reader);
+    List<double[]> rows = new ArrayList<>();
+    String line;
+    while ((line = lines.readLine()) != null) {
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      String[] tokens = line.split("\\s+");
+      double[] row = new double[tokens.length];
+      for (int i = 0; i < tokens.length; i++) {
+        try {
+          row[i] = Double.parseDouble(tokens[i]);
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("Invalid kernel weight: " + tokens[i]);
+        }
+      }
+      rows.add(row);
+    }
+    if (rows.isEmpty()) {
+      throw new IllegalArgumentException("Kernel file is empty");
+    }
+    return new KernelFilter(rows.toArray(new double[0][]));
+  }
+
+  /**
+   * Returns the kernel used for the filter.
+   *
+   * @return a 2D double matrix containing the values for the kernel.
+   */
+  @Override
+  public double[][] getKernel() {
+    return this.kernel;
+  }
+}
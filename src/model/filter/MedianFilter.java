@@ -0,0 +1,275 @@
+package model.filter;
+
+import java.util.Arrays;
+
+import model.customimage.Image;
+import model.customimage.ImageBlocks;
+
+/**
+ * A median filter of any radius, which replaces each channel of a pixel with the median of that
+ * channel over the square window around it. It removes salt-and-pepper noise while keeping edges
+ * sharp. The window is clipped to the image, and for an even number of pixels the lower of the two
+ * middle values is taken.
+ *
+ * <p>The median is found from histograms, so a pixel costs the same however large the radius is.
+ * Every column keeps a histogram of the window's rows in it, which moves down a row by adding one
+ * value and removing another. The window's histogram moves along a row by adding the column
+ * histogram entering it and removing the one leaving it. To keep that cheap, histograms have 16
+ * coarse bins of 16 levels each, which are kept up to date at every pixel, and the window's fine
+ * bins are only brought up to date for the coarse bin the median falls in, from the columns that
+ * entered and left since that bin was last looked at. Bands of rows run in parallel, each
+ * building its column histograms from the rows around its first row.
+ */
+public class MedianFilter implements ImageFilters {
+
+  private static final int LEVELS = 256;
+  private static final int BINS = 16;
+  private static final int BIN_SHIFT = 4;
+  // Marks a fine bin of the window that has not been brought up to date in the current row
+  private static final int STALE = Integer.MIN_VALUE / 2;
+
+  private final int radius;
+
+  /**
+   * Creates a median filter with the given radius. A radius of r takes the median of a window of
+   * 2r + 1 by 2r + 1 pixels; a radius of 0 copies the image.
+   *
+   * @param radius The radius of the window, in pixels.
+   * @throws IllegalArgumentException If the radius is negative.
+   */
+  public MedianFilter(int radius) {
+    if (radius < 0) {
+      throw new IllegalArgumentException("Radius cannot be negative");
+    }
+    this.radius = radius;
+  }
+
+  /**
+   * Gets the radius of the window.
+   *
+   * @return The radius, in pixels.
+   */
+  public int getRadius() {
+    return this.radius;
+  }
+
+  /**
+   * Apply the median filter to an input image and return the processed image.
+   *
+   * @param inputImage The input image to be processed.
+   * @return The processed image.
+   */
+  @Override
+  public Image applyFilter(Image inputImage) {
+    int height = inputImage.getHeight();
+    int width = inputImage.getWidth();
+    Image outputImage = inputImage.createCompatibleImage(height, width);
+    long pixels = (long) height * width;
+    if (pixels == 0) {
+      return outputImage;
+    }
+
+    // A window larger than the image covers all of it, like one just as large
+    int reach = Math.min(this.radius, Math.max(height, width));
+    ImageBlocks.forEachRangeInParallel(height, pixels, () -> new Workspace(width),
+        (workspace, first, last) -> filterRows(inputImage, outputImage, workspace, reach, first,
+            last));
+    return outputImage;
+  }
+
+  /**
+   * Filters a band of rows, starting from empty column histograms.
+   */
+  private static void filterRows(Image inputImage, Image outputImage, Workspace workspace,
+                                 int reach, int first, int last) {
+    int height = inputImage.getHeight();
+    int width = inputImage.getWidth();
+    int[] row = workspace.row;
+    for (int y = Math.max(0, first - reach); y <= Math.min(height - 1, first + reach); y++) {
+      inputImage.getRGBRow(y, 0, width, row, 0);
+      updateColumns(workspace, row, width, 1);
+    }
+
+    for (int y = first; y < last; y++) {
+      if (y > first) {
+        if (y + reach < height) {
+          inputImage.getRGBRow(y + reach, 0, width, row, 0);
+          updateColumns(workspace, row, width, 1);
+        }
+        if (y - reach - 1 >= 0) {
+          inputImage.getRGBRow(y - reach - 1, 0, width, row, 0);
+          updateColumns(workspace, row, width, -1);
+        }
+      }
+      int rows = Math.min(height - 1, y + reach) - Math.max(0, y - reach) + 1;
+      Arrays.fill(workspace.output, 0);
+      for (int channel = 0; channel < 3; channel++) {
+        filterRow(workspace, channel, width, reach, rows);
+      }
+      outputImage.setRGBRow(y, 0, width, workspace.output, 0);
+    }
+  }
+
+  /**
+   * Adds a row of pixels to the column histograms, or removes it.
+   *
+   * @param workspace The workspace holding the histograms.
+   * @param row       The row, as packed RGB.
+   * @param width     The width of the image.
+   * @param delta     1 to add the row, -1 to remove it.
+   */
+  private static void updateColumns(Workspace workspace, int[] row, int width, int delta) {
+    for (int channel = 0; channel < 3; channel++) {
+      int[] fine = workspace.columnFine[channel];
+      int[] coarse = workspace.columnCoarse[channel];
+      int shift = 16 - 8 * channel;
+      for (int x = 0; x < width; x++) {
+        int value = (row[x] >> shift) & 0xFF;
+        fine[x * LEVELS + value] += delta;
+        coarse[x * BINS + (value >> BIN_SHIFT)] += delta;
+      }
+    }
+  }
+
+  /**
+   * Finds the medians of one channel along a row, from the column histograms of the window's
+   * rows, and adds them into the output row.
+   */
+  private static void filterRow(Workspace workspace, int channel, int width, int reach,
+                                int rows) {
+    int[] columnFine = workspace.columnFine[channel];
+    int[] columnCoarse = workspace.columnCoarse[channel];
+    int[] coarse = workspace.coarse;
+    int[] fine = workspace.fine;
+    int[] updated = workspace.updated;
+    int[] output = workspace.output;
+    int shift = 16 - 8 * channel;
+
+    Arrays.fill(coarse, 0);
+    Arrays.fill(updated, STALE);
+    for (int x = 0; x <= Math.min(width - 1, reach); x++) {
+      addColumn(columnCoarse, x * BINS, coarse, 0, BINS, 1);
+    }
+
+    // The coarse bin the median was last found in, and the count of values below that bin
+    int bin = 0;
+    int below = 0;
+    for (int x = 0; x < width; x++) {
+      if (x > 0) {
+        int in = (x + reach) * BINS;
+        int out = (x - reach - 1) * BINS;
+        if (x + reach < width && out >= 0) {
+          int belowChange = 0;
+          for (int i = 0; i < BINS; i++) {
+            int change = columnCoarse[in + i] - columnCoarse[out + i];
+            coarse[i] += change;
+            belowChange += i < bin ? change : 0;
+          }
+          below += belowChange;
+        } else {
+          if (x + reach < width) {
+            addColumn(columnCoarse, in, coarse, 0, BINS, 1);
+            below += sum(columnCoarse, in, bin);
+          }
+          if (out >= 0) {
+            addColumn(columnCoarse, out, coarse, 0, BINS, -1);
+            below -= sum(columnCoarse, out, bin);
+          }
+        }
+      }
+      int left = Math.max(0, x - reach);
+      int right = Math.min(width - 1, x + reach);
+      int rank = (rows * (right - left + 1) - 1) >> 1;
+
+      // The median moves little from one pixel to the next, so the search starts where it was
+      while (below > rank) {
+        bin--;
+        below -= coarse[bin];
+      }
+      while (below + coarse[bin] <= rank) {
+        below += coarse[bin];
+        bin++;
+      }
+
+      // Bring the fine levels of this bin up to the window at x
+      int start = bin * BINS;
+      int last = updated[bin];
+      if (last == STALE || x - last > right - left + 1) {
+        Arrays.fill(fine, start, start + BINS, 0);
+        for (int column = left; column <= right; column++) {
+          addColumn(columnFine, column * LEVELS + start, fine, start, BINS, 1);
+        }
+      } else if (last == x - 1 && x + reach < width && x - reach - 1 >= 0) {
+        int in = (x + reach) * LEVELS + start;
+        int out = (x - reach - 1) * LEVELS + start;
+        for (int i = 0; i < BINS; i++) {
+          fine[start + i] += columnFine[in + i] - columnFine[out + i];
+        }
+      } else {
+        for (int step = last + 1; step <= x; step++) {
+          if (step + reach < width) {
+            addColumn(columnFine, (step + reach) * LEVELS + start, fine, start, BINS, 1);
+          }
+          if (step - reach - 1 >= 0) {
+            addColumn(columnFine, (step - reach - 1) * LEVELS + start, fine, start, BINS, -1);
+          }
+        }
+      }
+      updated[bin] = x;
+
+      int level = start;
+      int count = below;
+      while (count + fine[level] <= rank) {
+        count += fine[level];
+        level++;
+      }
+      output[x] |= level << shift;
+    }
+  }
+
+  /**
+   * Sums the first counts of a histogram.
+   */
+  private static int sum(int[] histogram, int start, int length) {
+    int total = 0;
+    for (int i = 0; i < length; i++) {
+      total += histogram[start + i];
+    }
+    return total;
+  }
+
+  /**
+   * Adds a run of histogram counts into another histogram, or subtracts them.
+   */
+  private static void addColumn(int[] source, int sourceStart, int[] target, int targetStart,
+                                int length, int delta) {
+    for (int i = 0; i < length; i++) {
+      target[targetStart + i] += source[sourceStart + i] * delta;
+    }
+  }
+
+  /**
+   * The histograms and rows one thread filters its bands with.
+   */
+  private static final class Workspace {
+    // Per channel, the histogram of every column, fine and coarse
+    private final int[][] columnFine;
+    private final int[][] columnCoarse;
+    // The histogram of the window, and the position each fine bin was last brought up to
+    private final int[] coarse;
+    private final int[] fine;
+    private final int[] updated;
+    private final int[] row;
+    private final int[] output;
+
+    Workspace(int width) {
+      this.columnFine = new int[3][width * LEVELS];
+      this.columnCoarse = new int[3][width * BINS];
+      this.coarse = new int[BINS];
+      this.fine = new int[LEVELS];
+      this.updated = new int[BINS];
+      this.row = new int[width];
+      this.output = new int[width];
+    }
+  }
+}
@@ -0,0 +1,314 @@
+package model.filter;
+
+import java.util.Arrays;
+
+/**
+ * Convolves an image one output row at a time from the input rows around it, for callers that
+ * stream rows through line buffers rather than hold whole images. It takes its arithmetic from
+ * the accumulator ImageFilterTemplate.chooseAccumulator picks for applyFilter: dyadic kernels in
+ * integers, other separable kernels as a horizontal then a vertical sum in doubles, and the rest
+ * as a full 2D sum in doubles. Each output value is summed in the same order as there, so a row comes out exactly as
+ * applyFilter would give it.
+ *
+ * <p>The row convolver holds the line buffer itself: a slot for each row of the kernel, which
+ * the caller fills as input rows arrive and names when it asks for an output row. A slot holds
+ * the row unpacked into channel planes, padded with zeros past both ends so no tap needs a bounds
+ * check, or, for a separable kernel, the row already summed horizontally, so that work is done
+ * once per input row rather than once per output row. Since it holds buffers, each thread needs
+ * a row convolver of its own.
+ */
+public final class RowConvolver {
+
+  private final int reach;
+  private final int rowReach;
+  // Integer numerators over 2^shift, when the kernel runs in fixed point: a column and a row
+  // vector for a separable kernel, or a full kernel
+  private final int[] columnWeights;
+  private final int[] rowWeights;
+  private final int[][] weights;
+  private final int shift;
+  // The column and row vectors, when the kernel runs as two double passes
+  private final double[] column;
+  private final double[] row;
+  // The full kernel, when it runs as a 2D double sum
+  private final double[][] kernel;
+
+  private int width;
+  // The slots, indexed by slot and channel, and the padded planes of the row being summed
+  private int[][][] slots;
+  private double[][][] doubleSlots;
+  private int[] plane;
+  private double[] doublePlane;
+  private int[][] sums;
+  private double[][] doubleSums;
+
+  private RowConvolver(int reach, int rowReach, int[] columnWeights, int[] rowWeights,
+                       int[][] weights, int shift, double[] column, double[] row,
+                       double[][] kernel) {
+    this.reach = reach;
+    this.rowReach = rowReach;
+    this.columnWeights = columnWeights;
+    this.rowWeights = rowWeights;
+    this.weights = weights;
+    this.shift = shift;
+    this.column = column;
+    this.row = row;
+    this.kernel = kernel;
+    this.width = -1;
+  }
+
+  /**
+   * Creates a row convolver that gives the same result as the filter's applyFilter.
+   *
+   * @param filter The filter.
+   * @return The row convolver, or null if the filter convolves in the frequency domain, which
+   *         needs whole tiles rather than rows.
+   */
+  static RowConvolver of(ImageFilterTemplate filter) {
+    Accumulator accumulator = filter.chooseAccumulator();
+    if (accumulator == null) {
+      return null;
+    }
+    int reach = accumulator.getReach();
+    int rowReach = accumulator.getRowReach();
+    if (accumulator instanceof FixedPointAccumulator) {
+      FixedPointAccumulator fixed = (FixedPointAccumulator) accumulator;
+      return new RowConvolver(reach, rowReach, fixed.getColumnWeights(), fixed.getRowWeights(),
+          fixed.getWeights(), fixed.getShift(), null, null, null);
+    }
+    DoubleAccumulator sums = (DoubleAccumulator) accumulator;
+    return new RowConvolver(reach, rowReach, null, null, null, 0, sums.getColumn(),
+        sums.getRow(), sums.getKernel());
+  }
+
+  /**
+   * Gets the number of input rows above and below an output row that it depends on. The line
+   * buffer has 2 * reach + 1 slots.
+   *
+   * @return The reach of the kernel in rows.
+   */
+  public int getReach() {
+    return this.reach;
+  }
+
+  /**
+   * Stores an input row in a slot of the line buffer, replacing the row that was there.
+   *
+   * @param slot  The slot, from 0 to 2 * reach.
+   * @param input The input row, as packed RGB.
+   * @param width The width of the image, which must be the same for every row.
+   */
+  public void setRow(int slot, int[] input, int width) {
+    if (width != this.width) {
+      allocate(width);
+    }
+    if (this.columnWeights != null) {
+      // Integer sums are exact in any order, so the horizontal pass can go first here too
+      for (int c = 0; c < 3; c++) {
+        unpack(input, width, 16 - 8 * c, this.plane);
+        int[] rowSums = this.slots[slot][c];
+        Arrays.fill(rowSums, 0);
+        addRow(this.plane, this.rowWeights, width, rowSums);
+      }
+    } else if (this.weights != null) {
+      for (int c = 0; c < 3; c++) {
+        unpack(input, width, 16 - 8 * c, this.slots[slot][c]);
+      }
+    } else if (this.kernel != null) {
+      for (int c = 0; c < 3; c++) {
+        unpack(input, width, 16 - 8 * c, this.doubleSlots[slot][c]);
+      }
+    } else {
+      // The horizontal sum of this input row, as the first pass computes it
+      for (int c = 0; c < 3; c++) {
+        unpack(input, width, 16 - 8 * c, this.doublePlane);
+        double[] rowSums = this.doubleSlots[slot][c];
+        Arrays.fill(rowSums, 0);
+        addRow(this.doublePlane, this.row, width, rowSums);
+      }
+    }
+  }
+
+  /**
+   * Convolves one output row from the rows in the line buffer.
+   *
+   * @param rowSlots The slots of the 2 * reach + 1 input rows centered on the output row, or -1
+   *                 for rows outside the image, which count as 0.
+   * @param width    The width of the image.
+   * @param output   The array to write the output row to.
+   */
+  public void convolveRow(int[] rowSlots, int width, int[] output) {
+    if (width != this.width) {
+      allocate(width);
+    }
+    if (this.columnWeights != null) {
+      for (int c = 0; c < 3; c++) {
+        int[] channelSums = this.sums[c];
+        Arrays.fill(channelSums, 0);
+        for (int ky = 0; ky < rowSlots.length; ky++) {
+          int weight = this.columnWeights[ky];
+          if (rowSlots[ky] < 0 || weight == 0) {
+            continue;
+          }
+          int[] rowSums = this.slots[rowSlots[ky]][c];
+          for (int x = 0; x < width; x++) {
+            channelSums[x] += rowSums[x] * weight;
+          }
+        }
+      }
+      packFixed(width, output);
+    } else if (this.weights != null) {
+      for (int c = 0; c < 3; c++) {
+        int[] channelSums = this.sums[c];
+        Arrays.fill(channelSums, 0);
+        for (int ky = 0; ky < rowSlots.length; ky++) {
+          if (rowSlots[ky] >= 0) {
+            addRow(this.slots[rowSlots[ky]][c], this.weights[ky], width, channelSums);
+          }
+        }
+      }
+      packFixed(width, output);
+    } else if (this.kernel != null) {
+      for (int c = 0; c < 3; c++) {
+        double[] channelSums = this.doubleSums[c];
+        Arrays.fill(channelSums, 0);
+        for (int ky = 0; ky < rowSlots.length; ky++) {
+          if (rowSlots[ky] >= 0) {
+            addRow(this.doubleSlots[rowSlots[ky]][c], this.kernel[ky], width, channelSums);
+          }
+        }
+      }
+      packDouble(width, output);
+    } else {
+      for (int c = 0; c < 3; c++) {
+        double[] channelSums = this.doubleSums[c];
+        Arrays.fill(channelSums, 0);
+        for (int ky = 0; ky < rowSlots.length; ky++) {
+          if (rowSlots[ky] < 0) {
+            continue;
+          }
+          double weight = this.column[ky];
+          double[] rowSums = this.doubleSlots[rowSlots[ky]][c];
+          for (int x = 0; x < width; x++) {
+            channelSums[x] += weight * rowSums[x];
+          }
+        }
+      }
+      packDouble(width, output);
+    }
+  }
+
+  private void allocate(int width) {
+    this.width = width;
+    int taps = 2 * this.reach + 1;
+    int padded = width + 2 * this.rowReach;
+    if (this.columnWeights != null) {
+      this.slots = new int[taps][3][width];
+      this.plane = new int[padded];
+      this.sums = new int[3][width];
+    } else if (this.weights != null) {
+      this.slots = new int[taps][3][padded];
+      this.sums = new int[3][width];
+    } else if (this.kernel != null) {
+      this.doubleSlots = new double[taps][3][padded];
+      this.doubleSums = new double[3][width];
+    } else {
+      this.doubleSlots = new double[taps][3][width];
+      this.doublePlane = new double[padded];
+      this.doubleSums = new double[3][width];
+    }
+  }
+
+  /**
+   * Adds the weighted sums of one padded plane row into the sums. Taps past the ends of the row
+   * meet the zero padding, which leaves integer sums as they are.
+   */
+  private static void addRow(int[] plane, int[] weightRow, int width, int[] channelSums) {
+    int taps = weightRow.length;
+    int kx = 0;
+    // Taps are taken three at a time to save loads and stores of the sums
+    for (; kx + 2 < taps; kx += 3) {
+      int w0 = weightRow[kx];
+      int w1 = weightRow[kx + 1];
+      int w2 = weightRow[kx + 2];
+      for (int x = 0; x < width; x++) {
+        channelSums[x] += plane[x + kx] * w0 + plane[x + kx + 1] * w1 + plane[x + kx + 2] * w2;
+      }
+    }
+    for (; kx < taps; kx++) {
+      int weight = weightRow[kx];
+      for (int x = 0; x < width; x++) {
+        channelSums[x] += plane[x + kx] * weight;
+      }
+    }
+  }
+
+  /**
+   * Adds the weighted sums of one padded plane row into the sums, with each sum taking its taps
+   * from left to right one addition at a time, as in the direct loops. The padding adds only
+   * zeros, which can change no sum but the sign of a zero one, and so no packed channel.
+   */
+  private static void addRow(double[] plane, double[] kernelRow, int width,
+                             double[] channelSums) {
+    int taps = kernelRow.length;
+    int kx = 0;
+    for (; kx + 2 < taps; kx += 3) {
+      double k0 = kernelRow[kx];
+      double k1 = kernelRow[kx + 1];
+      double k2 = kernelRow[kx + 2];
+      for (int x = 0; x < width; x++) {
+        channelSums[x] = channelSums[x] + plane[x + kx] * k0 + plane[x + kx + 1] * k1
+            + plane[x + kx + 2] * k2;
+      }
+    }
+    for (; kx < taps; kx++) {
+      double kernelValue = kernelRow[kx];
+      for (int x = 0; x < width; x++) {
+        channelSums[x] += plane[x + kx] * kernelValue;
+      }
+    }
+  }
+
+  private void packFixed(int width, int[] output) {
+    int[] red = this.sums[0];
+    int[] green = this.sums[1];
+    int[] blue = this.sums[2];
+    for (int x = 0; x < width; x++) {
+      output[x] = (FixedPointKernel.toChannel(red[x], this.shift) << 16)
+          | (FixedPointKernel.toChannel(green[x], this.shift) << 8)
+          | FixedPointKernel.toChannel(blue[x], this.shift);
+    }
+  }
+
+  /**
+   * Clamps the channel sums to the range [0, 255], truncates them and packs them into pixels.
+   */
+  private void packDouble(int width, int[] output) {
+    double[] red = this.doubleSums[0];
+    double[] green = this.doubleSums[1];
+    double[] blue = this.doubleSums[2];
+    for (int x = 0; x < width; x++) {
+      output[x] = ((int) Math.max(0, Math.min(255, red[x])) << 16)
+          | ((int) Math.max(0, Math.min(255, green[x])) << 8)
+          | (int) Math.max(0, Math.min(255, blue[x]));
+    }
+  }
+
+  /**
+   * Copies one channel of a packed row into a plane, leaving the zero padding of the plane around
+   * it, if any, as it is.
+   */
+  private static void unpack(int[] input, int width, int bit, int[] target) {
+    int start = target.length - width >> 1;
+    for (int x = 0; x < width; x++) {
+      target[start + x] = (input[x] >> bit) & 0xFF;
+    }
+  }
+
+  private static void unpack(int[] input, int width, int bit, double[] target) {
+    int start = target.length - width >> 1;
+    for (int x = 0; x < width; x++) {
+      target[start + x] = (input[x] >> bit) & 0xFF;
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package model.filter;
+
+import model.customimage.Image;
+
+/**
+ * An unsharp mask, which sharpens an image by adding back the difference between it and a
+ * Gaussian blur of it, scaled by an amount. Differences smaller than a threshold are left out, so
+ * flat areas and fine noise are not sharpened along with the edges. Each channel is done on its
+ * own: a level l with blurred level b becomes l + amount * (l - b), rounded and clamped to
+ * [0, 255], where |l - b| is at least the threshold, and stays l elsewhere.
+ *
+ * <p>The blur is GaussianBlur's, and the difference, threshold and sum are done in its column
+ * pass, on each strip of columns while it is still in a buffer, so there is no blurred image
+ * in between. The rows and the strips run in parallel on the ImageBlocks pool.
+ */
+public class UnsharpMask implements ImageFilters {
+
+  private final GaussianBlur blur;
+  private final double amount;
+  private final int threshold;
+  // The change to a level for each difference from -255 to 255 from its blurred level
+  private final int[] changes;
+
+  /**
+   * Creates an unsharp mask.
+   *
+   * @param radius    The radius of the blur, as the standard deviation of the Gaussian in pixels.
+   * @param amount    The factor the difference from the blur is added back with.
+   * @param threshold The smallest difference from the blur, from 0 to 255, that is sharpened.
+   * @throws IllegalArgumentException If the radius is not a positive finite number, the amount is
+   *                                  negative or not finite, or the threshold is out of range.
+   */
+  public UnsharpMask(double radius, double amount, int threshold) {
+    if (!(amount >= 0) || Double.isInfinite(amount)) {
+      throw new IllegalArgumentException("Amount must be a non-negative number");
+    }
+    if (threshold < 0 || threshold > 255) {
+      throw new IllegalArgumentException("Threshold must be between 0 and 255");
+    }
+    this.blur = new GaussianBlur(radius);
+    this.amount = amount;
+    this.threshold = threshold;
+    this.changes = new int[511];
+    for (int difference = -255; difference <= 255; difference++) {
+      if (Math.abs(difference) >= threshold) {
+        // A change of more than 255 either way clamps the same as one of 255
+        this.changes[difference + 255] =
+            (int) Math.max(-255, Math.min(255, Math.round(amount * difference)));
+      }
+    }
+  }
+
+  /**
+   * Gets the radius of the blur.
+   *
+   * @return The standard deviation of the Gaussian, in pixels.
+   */
+  public double getRadius() {
+    return this.blur.getSigma();
+  }
+
+  /**
+   * Gets the factor the difference from the blur is added back with.
+   *
+   * @return The amount.
+   */
+  public double getAmount() {
+    return this.amount;
+  }
+
+  /**
+   * Gets the smallest difference from the blur that is sharpened.
+   *
+   * @return The threshold, from 0 to 255.
+   */
+  public int getThreshold() {
+    return this.threshold;
+  }
+
+  /**
+   * Apply the unsharp mask to an input image and return the processed image.
+   *
+   * @param inputImage The input image to be processed.
+   * @return The processed image.
+   */
+  @Override
+  public Image applyFilter(Image inputImage) {
+    return this.blur.applyFilter(inputImage, this::sharpenStrip);
+  }
+
+  /**
+   * Replaces a strip of blurred pixels with the input pixels sharpened against them.
+   */
+  private void sharpenStrip(Image inputImage, int x, int height, int lanes, int[] blurred,
+                            int[] scratch) {
+    inputImage.getRGBSpan(0, x, height, lanes, scratch, 0, lanes);
+    int[] changes = this.changes;
+    int size = height * lanes;
+    for (int i = 0; i < size; i++) {
+      int pixel = scratch[i];
+      int smooth = blurred[i];
+      int red = (pixel >> 16) & 0xFF;
+      int green = (pixel >> 8) & 0xFF;
+      int blue = pixel & 0xFF;
+      red += changes[red - ((smooth >> 16) & 0xFF) + 255];
+      green += changes[green - ((smooth >> 8) & 0xFF) + 255];
+      blue += changes[blue - (smooth & 0xFF) + 255];
+      blurred[i] = (clamp(red) << 16) | (clamp(green) << 8) | clamp(blue);
+    }
+  }
+
+  private static int clamp(int value) {
+    return Math.max(0, Math.min(255, value));
+  }
+}
@@ -6,9 +6,10 @@ import java.awt.Graphics2D;
 import java.awt.BasicStroke;
 import java.awt.image.BufferedImage;
 import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
 
-import model.customimage.CustomImage;
 import model.customimage.Image;
+import model.pipeline.PointOperation;
 import model.processor.SupportedColorComponents;
 
 /**
@@ -61,7 +62,8 @@ public abstract class AbstractHistogram implements Histogram {
     scaleFreqMatrix();
     checkGreyScale(inputImage);
     createHistogramGraphics();
-    Image outputImage = new CustomImage(this.histogramHeight, this.histogramWidth);
+    Image outputImage = inputImage.createCompatibleImage(this.histogramHeight,
+        this.histogramWidth);
     outputImage.setPixelValuesFromBufferedImage(this.bufferedImage);
     return outputImage;
   }
@@ -71,13 +73,14 @@ public abstract class AbstractHistogram implements Histogram {
   protected void setColorFrequency(Image inputImage) {
     int imageHeight = inputImage.getHeight();
     int imageWidth = inputImage.getWidth();
-    int color;
+    int[] row = new int[imageWidth];
 
     for (int y = 0; y < imageHeight; y++) {
-      for (int x = 0; x < imageWidth; x++) {
-        for (int i = 0; i < 3; i++) {
-          color = inputImage.getPixelValue(y, x, this.pixelColors[i].ordinal());
-          this.histogramMatrix[i][color]++;
+      for (int i = 0; i < 3; i++) {
+        inputImage.getChannelRow(y, 0, imageWidth, this.pixelColors[i].ordinal(), row, 0);
+        int[] frequencies = this.histogramMatrix[i];
+        for (int x = 0; x < imageWidth; x++) {
+          frequencies[row[x]]++;
         }
       }
     }
@@ -105,22 +108,13 @@ public abstract class AbstractHistogram implements Histogram {
   }
 
   private Image adjustChannels(Image inputImage, int[] colorIndexes, int avgIndex) {
-    int imageHeight = inputImage.getHeight();
-    int imageWidth = inputImage.getWidth();
-    Image outputImage = new CustomImage(imageHeight, imageWidth);
-    int[] color = new int[3];
-
-    for (int y = 0; y < imageHeight; y++) {
-      for (int x = 0; x < imageWidth; x++) {
-        for (int i = 0; i < 3; i++) {
-          color[i] = inputImage.getPixelValue(y, x, this.pixelColors[i].ordinal());
-          color[i] = adjustColor(color[i], colorIndexes[i], avgIndex);
-          outputImage.setPixelValue(y, x, this.pixelColors[i].ordinal(), color[i]);
-        }
-      }
+    // The offsets depend only on the level, so each channel compiles to a lookup table
+    IntUnaryOperator[] curves = new IntUnaryOperator[3];
+    for (int i = 0; i < 3; i++) {
+      int colorIndex = colorIndexes[i];
+      curves[this.pixelColors[i].ordinal()] = color -> adjustColor(color, colorIndex, avgIndex);
     }
-
-    return outputImage;
+    return PointOperation.compile(curves[0], curves[1], curves[2]).apply(inputImage);
   }
 
   private int adjustColor(int color, int colorIndex, int avgIndex) {
@@ -135,15 +129,14 @@ public abstract class AbstractHistogram implements Histogram {
   protected void checkGreyScale(Image image) {
     int width = image.getWidth();
     int height = image.getHeight();
-    int red;
-    int green;
-    int blue;
-
-    for (int i = 0; i < width; i++) {
-      for (int j = 0; j < height; j++) {
-        red = image.getRed(j, i);
-        green = image.getGreen(j, i);
-        blue = image.getBlue(j, i);
+    int[] row = new int[width];
+
+    for (int j = 0; j < height; j++) {
+      image.getRGBRow(j, 0, width, row, 0);
+      for (int i = 0; i < width; i++) {
+        int red = (row[i] >> 16) & 0xFF;
+        int green = (row[i] >> 8) & 0xFF;
+        int blue = row[i] & 0xFF;
 
         if (red != green || green != blue) {
           this.isGreyScale = false;
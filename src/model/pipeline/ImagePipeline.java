@@ -0,0 +1,283 @@
+package model.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import model.colortransform.ChannelMix;
+import model.colortransform.LinearColorMap;
+import model.customimage.Image;
+import model.customimage.ImageBlocks;
+import model.filter.ImageFilterTemplate;
+import model.filter.ImageFilters;
+import model.filter.RowConvolver;
+
+/**
+ * A chain of filters and pixel operations applied to an image in one pass. Rather than make an
+ * image for every stage, rows are pulled through the chain: each convolution keeps a rolling line
+ * buffer of as many input rows as its kernel is high, each pixel operation works on a row in
+ * place, and only the rows of the final stage are written to an image. Chaining blur, sharpen and
+ * sepia this way reads the input and writes the output once, and holds a handful of rows in
+ * between.
+ *
+ * <p>A filter that cannot produce a row from the rows around it, such as a convolution done in
+ * the frequency domain or a Gaussian blur, is a barrier: the stages before it are run into an
+ * image, the filter is applied to the whole of that image, and streaming resumes after it.
+ *
+ * <p>The result is exactly what applying the stages one after another gives, unless linear color
+ * maps are let be collapsed with collapseLinearColorMaps. Bands of rows are spread over the
+ * ImageBlocks pool; each band reads the few rows above it that its kernels reach.
+ */
+public final class ImagePipeline {
+
+  private final List<Stage> stages;
+  private boolean collapseColorMaps;
+
+  /**
+   * Creates an empty pipeline, which copies its input.
+   */
+  public ImagePipeline() {
+    this.stages = new ArrayList<>();
+  }
+
+  /**
+   * Adds a filter to the end of the pipeline.
+   *
+   * @param filter The filter.
+   * @return This pipeline.
+   * @throws IllegalArgumentException If the filter is null.
+   */
+  public ImagePipeline addFilter(ImageFilters filter) {
+    if (filter == null) {
+      throw new IllegalArgumentException("Filter cannot be null");
+    }
+    if (filter instanceof ImageFilterTemplate
+        && ((ImageFilterTemplate) filter).createRowConvolver() != null) {
+      this.stages.add(new Stage((ImageFilterTemplate) filter, null, null));
+    } else {
+      this.stages.add(new Stage(null, null, filter));
+    }
+    return this;
+  }
+
+  /**
+   * Adds a pixel operation to the end of the pipeline. A point operation added right after
+   * another is compiled together with it into a single stage, and so is a linear color map added
+   * right after another if collapseLinearColorMaps allows it.
+   *
+   * @param operation The operation.
+   * @return This pipeline.
+   * @throws IllegalArgumentException If the operation is null.
+   */
+  public ImagePipeline addPixelOperation(PixelOperation operation) {
+    if (operation == null) {
+      throw new IllegalArgumentException("Pixel operation cannot be null");
+    }
+    int last = this.stages.size() - 1;
+    if (operation instanceof PointOperation && last >= 0
+        && this.stages.get(last).operation instanceof PointOperation) {
+      PointOperation previous = (PointOperation) this.stages.get(last).operation;
+      this.stages.set(last, new Stage(null, previous.andThen((PointOperation) operation), null));
+      return this;
+    }
+    if (this.collapseColorMaps && operation instanceof LinearColorMap && last >= 0
+        && this.stages.get(last).operation instanceof LinearColorMap) {
+      LinearColorMap previous = (LinearColorMap) this.stages.get(last).operation;
+      this.stages.set(last,
+          new Stage(null, ChannelMix.compose(previous, (LinearColorMap) operation), null));
+      return this;
+    }
+    this.stages.add(new Stage(null, operation, null));
+    return this;
+  }
+
+  /**
+   * Lets linear color maps added from now on one right after another, such as luma followed by
+   * sepia, be multiplied into a single ChannelMix stage, following the rule ChannelMix.compose
+   * gives: the composite is clamped to [0, 255] once rather than after each map, so it differs
+   * from applying the maps one at a time by a few levels of rounding, and by more where an
+   * earlier map would have clamped.
+   *
+   * @return This pipeline.
+   */
+  public ImagePipeline collapseLinearColorMaps() {
+    this.collapseColorMaps = true;
+    return this;
+  }
+
+  /**
+   * Gets the number of stages in the pipeline.
+   *
+   * @return The number of stages.
+   */
+  public int getStageCount() {
+    return this.stages.size();
+  }
+
+  /**
+   * Applies the pipeline to an image.
+   *
+   * @param inputImage The input image, which is left unchanged.
+   * @return The processed image.
+   */
+  public Image apply(Image inputImage) {
+    Image image = inputImage;
+    List<Stage> streamed = new ArrayList<>();
+    for (Stage stage : this.stages) {
+      if (stage.barrier == null) {
+        streamed.add(stage);
+        continue;
+      }
+      if (!streamed.isEmpty()) {
+        image = stream(image, streamed);
+        streamed.clear();
+      }
+      image = stage.barrier.applyFilter(image);
+    }
+    if (!streamed.isEmpty() || image == inputImage) {
+      image = stream(image, streamed);
+    }
+    return image;
+  }
+
+  /**
+   * Runs a chain of streamed stages over an image into a new one.
+   */
+  private static Image stream(Image inputImage, List<Stage> stages) {
+    int height = inputImage.getHeight();
+    int width = inputImage.getWidth();
+    Image outputImage = inputImage.createCompatibleImage(height, width);
+    ImageBlocks.forEachRangeInParallel(height, (long) height * width,
+        () -> new Chain(inputImage, stages, height, width), (chain, first, last) -> {
+        for (int y = first; y < last; y++) {
+          chain.last.read(y, chain.row);
+          outputImage.setRGBRow(y, 0, width, chain.row, 0);
+        }
+      });
+    return outputImage;
+  }
+
+  /**
+   * One stage of the pipeline: a convolution done a row at a time, a pixel operation, or a
+   * filter applied to a whole image.
+   */
+  private static final class Stage {
+    private final ImageFilterTemplate convolution;
+    private final PixelOperation operation;
+    private final ImageFilters barrier;
+
+    Stage(ImageFilterTemplate convolution, PixelOperation operation, ImageFilters barrier) {
+      this.convolution = convolution;
+      this.operation = operation;
+      this.barrier = barrier;
+    }
+  }
+
+  /**
+   * A source of the rows of an image at some point in the pipeline.
+   */
+  private interface RowSource {
+
+    /**
+     * Reads one row. Rows are mostly read in increasing order, which is what the line buffers
+     * are built for.
+     *
+     * @param y   The y-coordinate of the row.
+     * @param row The array to write the row to.
+     */
+    void read(int y, int[] row);
+  }
+
+  /**
+   * The row sources of one thread, linked from the input image to the last stage.
+   */
+  private static final class Chain {
+    private final RowSource last;
+    private final int[] row;
+
+    Chain(Image inputImage, List<Stage> stages, int height, int width) {
+      RowSource source = (y, row) -> inputImage.getRGBRow(y, 0, width, row, 0);
+      for (Stage stage : stages) {
+        if (stage.convolution != null) {
+          // Row convolvers hold buffers, so each thread makes its own
+          source = new ConvolvedRows(source, stage.convolution.createRowConvolver(), height,
+              width);
+        } else {
+          source = new OperatedRows(source, stage.operation, width);
+        }
+      }
+      this.last = source;
+      this.row = new int[width];
+    }
+  }
+
+  /**
+   * The rows of a pixel operation, done in place on the rows of the stage before it.
+   */
+  private static final class OperatedRows implements RowSource {
+    private final RowSource source;
+    private final PixelOperation operation;
+    private final int width;
+
+    OperatedRows(RowSource source, PixelOperation operation, int width) {
+      this.source = source;
+      this.operation = operation;
+      this.width = width;
+    }
+
+    @Override
+    public void read(int y, int[] row) {
+      this.source.read(y, row);
+      this.operation.applyToPixels(row, 0, this.width);
+    }
+  }
+
+  /**
+   * The rows of a convolution. The rows of the stage before it are kept in the line buffer of the
+   * row convolver, a ring of as many rows as the kernel is high, so each input row is read once
+   * while output rows go down the image.
+   */
+  private static final class ConvolvedRows implements RowSource {
+    private final RowSource source;
+    private final RowConvolver convolver;
+    private final int height;
+    private final int width;
+    private final int taps;
+    private final int[] input;
+    private final int[] window;
+    // The rows from start to next - 1 have been read since the ring was last restarted, and the
+    // last taps of them are still in it
+    private int start;
+    private int next;
+
+    ConvolvedRows(RowSource source, RowConvolver convolver, int height, int width) {
+      this.source = source;
+      this.convolver = convolver;
+      this.height = height;
+      this.width = width;
+      this.taps = 2 * convolver.getReach() + 1;
+      this.input = new int[width];
+      this.window = new int[this.taps];
+    }
+
+    @Override
+    public void read(int y, int[] row) {
+      int reach = this.convolver.getReach();
+      int first = Math.max(0, y - reach);
+      int last = Math.min(this.height - 1, y + reach);
+      if (first < Math.max(this.start, this.next - this.taps) || first > this.next) {
+        this.start = first;
+        this.next = first;
+      }
+      while (this.next <= last) {
+        this.source.read(this.next, this.input);
+        this.convolver.setRow(this.next % this.taps, this.input, this.width);
+        this.next++;
+      }
+      for (int k = 0; k < this.taps; k++) {
+        int r = y - reach + k;
+        this.window[k] = r < 0 || r >= this.height ? -1 : r % this.taps;
+      }
+      this.convolver.convolveRow(this.window, this.width, row);
+    }
+  }
+}
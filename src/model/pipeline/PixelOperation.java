@@ -0,0 +1,20 @@
+package model.pipeline;
+
+/**
+ * An operation that maps every pixel to a new value from that pixel alone, such as a color
+ * transform or a brightness change. Operations like this can be run on rows as they stream
+ * through an ImagePipeline, without an image of their own.
+ */
+public interface PixelOperation {
+
+  /**
+   * Applies the operation to a run of packed RGB pixels in place. Implementations must not keep
+   * state between calls, since runs of the same image may be processed on several threads at
+   * once.
+   *
+   * @param pixels The pixels.
+   * @param offset The index of the first pixel of the run.
+   * @param length The number of pixels in the run.
+   */
+  void applyToPixels(int[] pixels, int offset, int length);
+}
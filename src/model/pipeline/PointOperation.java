@@ -0,0 +1,144 @@
+package model.pipeline;
+
+import java.util.function.IntUnaryOperator;
+
+import model.customimage.Image;
+import model.customimage.ImageBlocks;
+
+/**
+ * A pixel operation that maps each channel level from 0 to 255 to a new level on its own, such as
+ * a brightness change, a levels curve or a color-correction offset. It is compiled once into a
+ * 256-entry lookup table per channel, so applying it costs three loads per pixel however much
+ * arithmetic the curve took. The tables hold their levels already shifted into place, so a pixel
+ * is the OR of its three entries.
+ *
+ * <p>Two point operations applied one after the other are one point operation, and andThen
+ * compiles them into a single set of tables.
+ */
+public final class PointOperation implements PixelOperation {
+
+  private static final int LEVELS = 256;
+
+  private final int[] red;
+  private final int[] green;
+  private final int[] blue;
+
+  private PointOperation(int[] red, int[] green, int[] blue) {
+    this.red = red;
+    this.green = green;
+    this.blue = blue;
+  }
+
+  /**
+   * Compiles a curve applied to every channel alike.
+   *
+   * @param curve The new level of each level from 0 to 255. Results outside [0, 255] are clamped.
+   * @return The compiled operation.
+   * @throws IllegalArgumentException If the curve is null.
+   */
+  public static PointOperation compile(IntUnaryOperator curve) {
+    return compile(curve, curve, curve);
+  }
+
+  /**
+   * Compiles a curve for each channel.
+   *
+   * @param redCurve   The new red level of each red level from 0 to 255.
+   * @param greenCurve The new green level of each green level from 0 to 255.
+   * @param blueCurve  The new blue level of each blue level from 0 to 255.
+   * @return The compiled operation. Results of the curves outside [0, 255] are clamped.
+   * @throws IllegalArgumentException If any curve is null.
+   */
+  public static PointOperation compile(IntUnaryOperator redCurve, IntUnaryOperator greenCurve,
+                                       IntUnaryOperator blueCurve) {
+    if (redCurve == null || greenCurve == null || blueCurve == null) {
+      throw new IllegalArgumentException("Curves cannot be null");
+    }
+    return new PointOperation(table(redCurve, 16), table(greenCurve, 8), table(blueCurve, 0));
+  }
+
+  private static int[] table(IntUnaryOperator curve, int shift) {
+    int[] table = new int[LEVELS];
+    for (int level = 0; level < LEVELS; level++) {
+      table[level] = Math.max(0, Math.min(255, curve.applyAsInt(level))) << shift;
+    }
+    return table;
+  }
+
+  /**
+   * Gets the level a channel level is mapped to.
+   *
+   * @param channel The channel: 0 for red, 1 for green and 2 for blue.
+   * @param level   The level, from 0 to 255.
+   * @return The new level.
+   * @throws IllegalArgumentException If the channel or level is out of range.
+   */
+  public int map(int channel, int level) {
+    if (level < 0 || level >= LEVELS) {
+      throw new IllegalArgumentException("Level must be between 0 and 255");
+    }
+    switch (channel) {
+      case 0:
+        return this.red[level] >> 16;
+      case 1:
+        return this.green[level] >> 8;
+      case 2:
+        return this.blue[level];
+      default:
+        throw new IllegalArgumentException("Channel must be 0, 1 or 2");
+    }
+  }
+
+  /**
+   * Compiles this operation followed by another into one.
+   *
+   * @param next The operation applied after this one.
+   * @return The combined operation.
+   * @throws IllegalArgumentException If the next operation is null.
+   */
+  public PointOperation andThen(PointOperation next) {
+    if (next == null) {
+      throw new IllegalArgumentException("Point operation cannot be null");
+    }
+    return compile(level -> next.map(0, map(0, level)), level -> next.map(1, map(1, level)),
+        level -> next.map(2, map(2, level)));
+  }
+
+  /**
+   * Applies the operation to a run of packed RGB pixels in place.
+   *
+   * @param pixels The pixels.
+   * @param offset The index of the first pixel of the run.
+   * @param length The number of pixels in the run.
+   */
+  @Override
+  public void applyToPixels(int[] pixels, int offset, int length) {
+    int[] red = this.red;
+    int[] green = this.green;
+    int[] blue = this.blue;
+    for (int i = offset; i < offset + length; i++) {
+      int rgb = pixels[i];
+      pixels[i] = red[(rgb >> 16) & 0xFF] | green[(rgb >> 8) & 0xFF] | blue[rgb & 0xFF];
+    }
+  }
+
+  /**
+   * Applies the operation to an image, a block at a time, with blocks spread over the
+   * ImageBlocks pool.
+   *
+   * @param inputImage The input image, which is left unchanged.
+   * @return The processed image.
+   */
+  public Image apply(Image inputImage) {
+    Image outputImage = inputImage.createCompatibleImage(inputImage.getHeight(),
+        inputImage.getWidth());
+    ImageBlocks.forEachBlockInParallel(inputImage,
+        () -> new int[ImageBlocks.maxBlockSize(inputImage)],
+        (block, y, x, blockHeight, blockWidth) -> {
+        inputImage.getRGBSpan(y, x, blockHeight, blockWidth, block, 0, blockWidth);
+        applyToPixels(block, 0, blockHeight * blockWidth);
+        outputImage.setRGBSpan(y, x, blockHeight, blockWidth, block, 0, blockWidth);
+      });
+    return outputImage;
+  }
+}
@@ -1,8 +1,6 @@
 package model.preview;
 
-import model.customimage.CustomImage;
 import model.customimage.Image;
-import model.processor.SupportedColorComponents;
 
 /**
  * Implementation of the OperationPreview interface providing operations for image preview.
@@ -14,7 +12,7 @@ public class OperationPreviewImpl implements OperationPreview {
    *
    * @param originalImage The original Image to split.
    * @param n             The percentage of the original width to keep in the first part.
-   * @return An array containing two CustomImage objects representing the split images.
+   * @return An array containing two views of the original image, sharing its pixels.
    * @throws IllegalArgumentException If the provided percentage is invalid (not between 0 and 100)
    */
   @Override
@@ -28,26 +26,10 @@ public class OperationPreviewImpl implements OperationPreview {
 
     int newWidth = (int) (originalWidth * n) / 100;
 
-    Image newImage = new CustomImage(originalHeight, newWidth);
-    Image otherHalf = new CustomImage(originalHeight, originalWidth - newWidth);
-
-    for (int j = 0; j < originalHeight; j++) {
-      for (int i = 0; i < originalWidth; i++) {
-        int originalPixelValueRed = originalImage.getPixelValue(j, i,
-                SupportedColorComponents.RED.ordinal());
-        int originalPixelValueGreen = originalImage.getPixelValue(j, i,
-                SupportedColorComponents.GREEN.ordinal());
-        int originalPixelValueBlue = originalImage.getPixelValue(j, i,
-                SupportedColorComponents.BLUE.ordinal());
-
-        int[][][] targetArray = (i < newWidth) ? newImage.getPixelData() : otherHalf.getPixelData();
-        int targetIndex = (i < newWidth) ? i : (i - newWidth);
-
-        targetArray[j][targetIndex][0] = originalPixelValueRed;
-        targetArray[j][targetIndex][1] = originalPixelValueGreen;
-        targetArray[j][targetIndex][2] = originalPixelValueBlue;
-      }
-    }
+    // Both parts are views into the original, so splitting copies no pixels
+    Image newImage = originalImage.getSubImage(0, 0, originalHeight, newWidth);
+    Image otherHalf = originalImage.getSubImage(0, newWidth, originalHeight,
+        originalWidth - newWidth);
 
     return new Image[]{newImage, otherHalf};
   }
@@ -72,36 +54,18 @@ public class OperationPreviewImpl implements OperationPreview {
 
     int height = image1.getHeight();
 
-    Image concatenatedImage = new CustomImage(height, totalWidth);
-
-    for (int j = 0; j < height; j++) {
-      for (int i = 0; i < width1; i++) {
-        int pixelValueRed = image1.getPixelValue(j, i, SupportedColorComponents.RED.ordinal());
-        int pixelValueGreen = image1.getPixelValue(j, i, SupportedColorComponents.GREEN.ordinal());
-        int pixelValueBlue = image1.getPixelValue(j, i, SupportedColorComponents.BLUE.ordinal());
-
-        concatenatedImage.setPixelValue(j, i, 0, pixelValueRed);
-        concatenatedImage.setPixelValue(j, i, 1, pixelValueGreen);
-        concatenatedImage.setPixelValue(j, i, 2, pixelValueBlue);
-      }
-    }
-
-    for (int j = 0; j < height; j++) {
-      concatenatedImage.setPixelValue(j, width1 + 2, 0, 255);
-      concatenatedImage.setPixelValue(j, width1 + 2, 1, 255);
-      concatenatedImage.setPixelValue(j, width1 + 2, 2, 255);
-    }
+    Image concatenatedImage = image1.createCompatibleImage(height, totalWidth);
 
+    int[] row = new int[totalWidth];
     for (int j = 0; j < height; j++) {
-      for (int i = 0; i < width2; i++) {
-        int pixelValueRed = image2.getPixelValue(j, i, SupportedColorComponents.RED.ordinal());
-        int pixelValueGreen = image2.getPixelValue(j, i, SupportedColorComponents.GREEN.ordinal());
-        int pixelValueBlue = image2.getPixelValue(j, i, SupportedColorComponents.BLUE.ordinal());
-
-        concatenatedImage.setPixelValue(j, width1 + 2 + i, 0, pixelValueRed);
-        concatenatedImage.setPixelValue(j, width1 + 2 + i, 1, pixelValueGreen);
-        concatenatedImage.setPixelValue(j, width1 + 2 + i, 2, pixelValueBlue);
-      }
+      image1.getRGBRow(j, 0, width1, row, 0);
+      row[width1] = 0;
+      row[width1 + 1] = 0;
+      row[totalWidth - 1] = 0;
+      // White separator, which the second image draws over when it has any columns
+      row[width1 + 2] = 0xFFFFFF;
+      image2.getRGBRow(j, 0, width2, row, width1 + 2);
+      concatenatedImage.setRGBRow(j, 0, totalWidth, row, 0);
     }
 
     return concatenatedImage;
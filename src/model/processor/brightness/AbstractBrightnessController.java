@@ -1,8 +1,7 @@
 package model.processor.brightness;
 
-import model.customimage.CustomImage;
 import model.customimage.Image;
-import model.processor.SupportedColorComponents;
+import model.pipeline.PointOperation;
 
 /**
  * An abstract class for adjusting the brightness of an image.
@@ -18,40 +17,23 @@ public abstract class AbstractBrightnessController implements ImageBrightness {
    */
   @Override
   public Image adjustImage(Image inputImage, int integerConstant) {
-    boolean brighten = brightenOrDarken();
-    int height = inputImage.getHeight();
-    int width = inputImage.getWidth();
-    Image outputImage = new CustomImage(inputImage.getHeight(), inputImage.getWidth());
-    for (int j = 0; j < height; j++) {
-      for (int i = 0; i < width; i++) {
-        int originalRed = inputImage.getPixelValue(j, i,
-                SupportedColorComponents.RED.ordinal());
-        int originalGreen = inputImage.getPixelValue(j, i,
-                SupportedColorComponents.GREEN.ordinal());
-        int originalBlue = inputImage.getPixelValue(j, i,
-                SupportedColorComponents.BLUE.ordinal());
-
-        int adjustedRed = brighten ? originalRed + integerConstant
-                : originalRed - integerConstant;
-        int adjustedGreen = brighten ? originalGreen + integerConstant
-                : originalGreen - integerConstant;
-        int adjustedBlue = brighten ? originalBlue + integerConstant
-                : originalBlue - integerConstant;
-
-        // Ensure that adjusted values are within the valid range [0, 255]
-        adjustedRed = Math.min(255, Math.max(0, adjustedRed));
-        adjustedGreen = Math.min(255, Math.max(0, adjustedGreen));
-        adjustedBlue = Math.min(255, Math.max(0, adjustedBlue));
-
-        // Update the pixel values in the inputImage
-        outputImage.setPixelValue(j, i, 0, adjustedRed);
-        outputImage.setPixelValue(j, i, 1, adjustedGreen);
-        outputImage.setPixelValue(j, i, 2, adjustedBlue);
-      }
-    }
-    return outputImage;
+    return toPixelOperation(integerConstant).apply(inputImage);
   }
 
+  /**
+   * Gets the brightness adjustment as a point operation, so it can run on rows streaming through
+   * an ImagePipeline or be combined with other point operations. The compiled tables clamp the
+   * adjusted values to the valid range [0, 255].
+   *
+   * @param integerConstant The constant value to adjust brightness.
+   * @return The operation that adjusts pixels in place.
+   */
+  public PointOperation toPixelOperation(int integerConstant) {
+    // Values beyond 255 either way adjust every level to the same end of the range
+    int adjustment = Math.max(-255, Math.min(255,
+        brightenOrDarken() ? integerConstant : -integerConstant));
+    return PointOperation.compile(level -> level + adjustment);
+  }
 
   /**
    * Determine whether to brighten or darken the image.
@@ -1,15 +1,22 @@
 package model.processor.channel;
 
-import model.customimage.CustomImage;
 import model.customimage.Image;
-import model.processor.SupportedColorComponents;
+import model.customimage.ImageBlocks;
+import model.customimage.SingleChannelImage;
+import model.pipeline.PixelOperation;
 
 /**
- * An abstract class for applying channel operations to an image.
+ * An abstract class for applying channel operations to an image. The operation is also a pixel
+ * operation, so it can run on rows streaming through an ImagePipeline.
+ *
+ * <p>Every pixel is worked out from its own channels alone, so bands of rows are spread over the
+ * ImageBlocks pool, whose size ImageBlocks.setParallelism sets, and the result is the same on any
+ * number of threads. Images too small to be worth splitting are done on the calling thread.
  */
-public abstract class AbstractChannel implements ImageChannel {
+public abstract class AbstractChannel implements ImageChannel, PixelOperation {
   /**
-   * Applies the channel operation to the input image.
+   * Applies the channel operation to the input image, with blocks of rows spread over the
+   * ImageBlocks pool.
    *
    * @param inputImage The input image to which the channel operation is applied.
    * @return The image with the channel operation applied.
@@ -18,22 +25,36 @@ public abstract class AbstractChannel implements ImageChannel {
   public Image applyChannel(Image inputImage) {
     int height = inputImage.getHeight();
     int width = inputImage.getWidth();
-    Image outputImage = new CustomImage(inputImage.getHeight(), inputImage.getWidth());
-    for (int j = 0; j < height; j++) {
-      for (int i = 0; i < width; i++) {
-        int result =
-                getOperation(inputImage.getPixelValue(j, i, SupportedColorComponents.RED.ordinal()),
-                        inputImage.getPixelValue(j, i, SupportedColorComponents.GREEN.ordinal()),
-                        inputImage.getPixelValue(j, i, SupportedColorComponents.BLUE.ordinal())
-                );
-        outputImage.setPixelValue(j, i, 0, result);
-        outputImage.setPixelValue(j, i, 1, result);
-        outputImage.setPixelValue(j, i, 2, result);
-      }
-    }
+    // The result is grey, so one plane shown through all three channels is enough to hold it
+    Image outputImage = inputImage.createSingleChannelImage(height, width,
+        SingleChannelImage.ALL_CHANNELS);
+    ImageBlocks.forEachBlockInParallel(inputImage,
+        () -> new int[ImageBlocks.maxBlockSize(inputImage)],
+        (block, y, x, blockHeight, blockWidth) -> {
+        inputImage.getRGBSpan(y, x, blockHeight, blockWidth, block, 0, blockWidth);
+        applyToPixels(block, 0, blockHeight * blockWidth);
+        outputImage.setRGBSpan(y, x, blockHeight, blockWidth, block, 0, blockWidth);
+      });
     return outputImage;
   }
 
+  /**
+   * Replaces each pixel of a run with the grey of its channel operation, clamped to [0, 255].
+   *
+   * @param pixels The pixels, as packed RGB.
+   * @param offset The index of the first pixel of the run.
+   * @param length The number of pixels in the run.
+   */
+  @Override
+  public void applyToPixels(int[] pixels, int offset, int length) {
+    for (int i = offset; i < offset + length; i++) {
+      int rgb = pixels[i];
+      int result = getOperation((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+      result = Math.max(0, Math.min(255, result));
+      pixels[i] = (result << 16) | (result << 8) | result;
+    }
+  }
+
   /**
    * Gets the result of the channel operation for a pixel with RGB values.
    *
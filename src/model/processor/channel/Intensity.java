@@ -1,9 +1,12 @@
 package model.processor.channel;
 
+import model.colortransform.LinearColorMap;
+
 /**
  * A class that calculates the intensity of an RGB color by averaging the three color channels.
+ * The average is linear, so it is also a linear color map, whose three rows are the same.
  */
-public class Intensity extends AbstractChannel {
+public class Intensity extends AbstractChannel implements LinearColorMap {
   /**
    * Calculates the intensity of an RGB color based on the average of red, green, and blue channels.
    *
@@ -16,4 +19,19 @@ public class Intensity extends AbstractChannel {
   public int getOperation(int r, int g, int b) {
     return (int) (r + g + b) / 3;
   }
+
+  /**
+   * Gets the matrix of intensity, which gives every channel the average of the pixel's channels.
+   *
+   * @return A 3x3 matrix whose entries are all a third.
+   */
+  @Override
+  public double[][] getKernel() {
+    double third = 1.0 / 3;
+    return new double[][]{
+        {third, third, third},
+        {third, third, third},
+        {third, third, third}
+    };
+  }
 }
@@ -1,9 +1,12 @@
 package model.processor.channel;
 
+import model.colortransform.LinearColorMap;
+
 /**
- * A class that calculates the luma of an RGB color based on the specified coefficients.
+ * A class that calculates the luma of an RGB color based on the specified coefficients. Luma is
+ * linear, so it is also a linear color map, whose three rows are the same.
  */
-public class Luma extends AbstractChannel {
+public class Luma extends AbstractChannel implements LinearColorMap {
   /**
    * Calculates the luma (perceived brightness) of an RGB color based on the specified coefficients.
    *
@@ -16,4 +19,18 @@ public class Luma extends AbstractChannel {
   public int getOperation(int r, int g, int b) {
     return (int) (0.2126 * r + 0.7152 * g + 0.0722 * b);
   }
+
+  /**
+   * Gets the matrix of luma, which gives every channel the luma of the pixel.
+   *
+   * @return A 3x3 matrix whose rows are the luma coefficients.
+   */
+  @Override
+  public double[][] getKernel() {
+    return new double[][]{
+        {0.2126, 0.7152, 0.0722},
+        {0.2126, 0.7152, 0.0722},
+        {0.2126, 0.7152, 0.0722}
+    };
+  }
 }
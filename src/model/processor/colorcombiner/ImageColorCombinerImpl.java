@@ -1,6 +1,5 @@
 package model.processor.colorcombiner;
 
-import model.customimage.CustomImage;
 import model.customimage.Image;
 
 /**
@@ -22,17 +21,16 @@ public class ImageColorCombinerImpl implements ImageColorCombiner {
 
     int height = redComponent.getHeight();
     int width = redComponent.getWidth();
-    Image outputImage = new CustomImage(redComponent.getHeight(), redComponent.getWidth());
+    Image outputImage = redComponent.createCompatibleImage(height, width);
 
+    int[] row = new int[width];
     for (int j = 0; j < height; j++) {
-      for (int i = 0; i < width; i++) {
-        int red = redComponent.getRed(j, i);
-        int green = greenComponent.getGreen(j, i);
-        int blue = blueComponent.getBlue(j, i);
-        outputImage.setPixelValue(j, i, 0, red);
-        outputImage.setPixelValue(j, i, 1, green);
-        outputImage.setPixelValue(j, i, 2, blue);
-      }
+      redComponent.getChannelRow(j, 0, width, 0, row, 0);
+      outputImage.setChannelRow(j, 0, width, 0, row, 0);
+      greenComponent.getChannelRow(j, 0, width, 1, row, 0);
+      outputImage.setChannelRow(j, 0, width, 1, row, 0);
+      blueComponent.getChannelRow(j, 0, width, 2, row, 0);
+      outputImage.setChannelRow(j, 0, width, 2, row, 0);
     }
     return outputImage;
   }
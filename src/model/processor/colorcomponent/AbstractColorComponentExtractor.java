@@ -1,7 +1,8 @@
 package model.processor.colorcomponent;
 
-import model.customimage.CustomImage;
 import model.customimage.Image;
+import model.customimage.SingleChannelImage;
+import model.pipeline.PointOperation;
 import model.processor.SupportedColorComponents;
 
 /**
@@ -20,35 +21,31 @@ public abstract class AbstractColorComponentExtractor implements ImageColorCompo
   public Image getColorComponent(Image inputImage) throws IllegalArgumentException {
     SupportedColorComponents component = getColor();
 
-    int red;
-    int green;
-    int blue;
     int height = inputImage.getHeight();
     int width = inputImage.getWidth();
-    Image outputImage = new CustomImage(inputImage.getHeight(), inputImage.getWidth());
+    // Only the extracted channel is non-zero, so it is the only one the result needs to store
+    Image outputImage = inputImage.createSingleChannelImage(height, width,
+        SingleChannelImage.channelBit(component.ordinal()));
+    int[] row = new int[width];
     for (int j = 0; j < height; j++) {
-      for (int i = 0; i < width; i++) {
-        switch (component) {
-          case RED:
-            red = inputImage.getPixelValue(j, i, SupportedColorComponents.RED.ordinal());
-            outputImage.setPixelValue(j, i, 0, red);
-            break;
-          case GREEN:
-            green = inputImage.getPixelValue(j, i, SupportedColorComponents.GREEN.ordinal());
-            outputImage.setPixelValue(j, i, 1, green);
-            break;
-          case BLUE:
-            blue = inputImage.getPixelValue(j, i, SupportedColorComponents.BLUE.ordinal());
-            outputImage.setPixelValue(j, i, 2, blue);
-            break;
-          default:
-            break;
-        }
-      }
+      inputImage.getChannelRow(j, 0, width, component.ordinal(), row, 0);
+      outputImage.setChannelRow(j, 0, width, component.ordinal(), row, 0);
     }
     return outputImage;
   }
 
+  /**
+   * Gets the extraction as a point operation, which keeps the component and zeroes the other two,
+   * so it can run on rows streaming through an ImagePipeline.
+   *
+   * @return The operation that extracts the component of pixels in place.
+   */
+  public PointOperation toPointOperation() {
+    int component = getColor().ordinal();
+    return PointOperation.compile(level -> component == 0 ? level : 0,
+        level -> component == 1 ? level : 0, level -> component == 2 ? level : 0);
+  }
+
   /**
    * Specifies the color component to be extracted.
    *
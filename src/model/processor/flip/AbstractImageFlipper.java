@@ -1,9 +1,8 @@
 package model.processor.flip;
 
 
-import model.customimage.CustomImage;
 import model.customimage.Image;
-import model.processor.SupportedColorComponents;
+import model.customimage.ImageBlocks;
 
 /**
  * An abstract class that provides a framework for flipping an input image.
@@ -21,21 +20,33 @@ public abstract class AbstractImageFlipper implements ImageFlip {
     String flip = getFlip();
     int height = inputImage.getHeight();
     int width = inputImage.getWidth();
-    Image outputImage = new CustomImage(height, width);
-    for (int j = 0; j < height; j++) {
-      for (int i = 0; i < width; i++) {
-        int flippedJ = (flip.equals("vertical")) ? (height - 1 - j) : j;
-        int flippedI = (flip.equals("horizontal")) ? (width - 1 - i) : i;
-
-
-        int red = inputImage.getPixelValue(j, i, SupportedColorComponents.RED.ordinal());
-        int green = inputImage.getPixelValue(j, i, SupportedColorComponents.GREEN.ordinal());
-        int blue = inputImage.getPixelValue(j, i, SupportedColorComponents.BLUE.ordinal());
-        outputImage.setPixelValue(flippedJ, flippedI, 0, red);
-        outputImage.setPixelValue(flippedJ, flippedI, 1, green);
-        outputImage.setPixelValue(flippedJ, flippedI, 2, blue);
+    Image outputImage = inputImage.createCompatibleImage(height, width);
+    boolean vertical = flip.equals("vertical");
+    boolean horizontal = flip.equals("horizontal");
+    int[] block = new int[ImageBlocks.maxBlockSize(inputImage)];
+    ImageBlocks.forEachBlock(inputImage, (y, x, blockHeight, blockWidth) -> {
+      inputImage.getRGBSpan(y, x, blockHeight, blockWidth, block, 0, blockWidth);
+      if (horizontal) {
+        for (int row = 0; row < blockHeight; row++) {
+          for (int i = row * blockWidth, k = i + blockWidth - 1; i < k; i++, k--) {
+            int swap = block[i];
+            block[i] = block[k];
+            block[k] = swap;
+          }
+        }
+      }
+      // The block lands mirrored across the flip axis
+      int flippedX = horizontal ? width - x - blockWidth : x;
+      if (vertical) {
+        int flippedY = height - y - blockHeight;
+        for (int row = 0; row < blockHeight; row++) {
+          outputImage.setRGBRow(flippedY + blockHeight - 1 - row, flippedX, blockWidth, block,
+              row * blockWidth);
+        }
+      } else {
+        outputImage.setRGBSpan(y, flippedX, blockHeight, blockWidth, block, 0, blockWidth);
       }
-    }
+    });
     return outputImage;
   }
 
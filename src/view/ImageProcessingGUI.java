@@ -36,6 +36,7 @@ public class ImageProcessingGUI extends JFrame implements View {
   private JButton greenButton;
   private JButton originalButton;
   private JButton blurButton;
+  private JButton gaussianBlurButton;
   private JButton sharpenButton;
   private JButton verticalFlip;
   private JButton horizontalFlip;
@@ -71,7 +72,7 @@ public class ImageProcessingGUI extends JFrame implements View {
 
   private void initComponents() {
     southPanel = new JPanel(new BorderLayout());
-    leftPanel = new JPanel(new GridLayout(14, 1));
+    leftPanel = new JPanel(new GridLayout(15, 1));
     rightPanel = new JPanel(new BorderLayout());
     southPanel.setLayout(new GridLayout(1, 2));
     imageLabel = new JLabel();
@@ -90,6 +91,7 @@ public class ImageProcessingGUI extends JFrame implements View {
     horizontalFlip = new JButton("Horizontal Flip");
 
     blurButton = new JButton("Blur");
+    gaussianBlurButton = new JButton("Gaussian Blur");
     sharpenButton = new JButton("Sharpen");
 
     lumaButton = new JButton("Greyscale");
@@ -129,6 +131,7 @@ public class ImageProcessingGUI extends JFrame implements View {
     leftPanel.add(verticalFlip);
     leftPanel.add(horizontalFlip);
     leftPanel.add(blurButton);
+    leftPanel.add(gaussianBlurButton);
     leftPanel.add(sharpenButton);
     leftPanel.add(lumaButton);
     leftPanel.add(sepiaButton);
@@ -153,6 +156,7 @@ public class ImageProcessingGUI extends JFrame implements View {
     horizontalFlip.addActionListener(e -> controller.handleButtonClick("horizontalFlip"));
 
     blurButton.addActionListener(e -> controller.handleButtonClick("blur"));
+    gaussianBlurButton.addActionListener(e -> controller.handleButtonClick("gaussianBlur"));
     sharpenButton.addActionListener(e -> controller.handleButtonClick("sharpen"));
 
     lumaButton.addActionListener(e -> controller.handleButtonClick("luma"));
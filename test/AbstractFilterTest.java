@@ -9,10 +9,13 @@ import controller.handler.PNGFileHandler;
 import controller.handler.PPMFileHandler;
 import model.customimage.Image;
 import model.filter.BlurImage;
+import model.filter.ImageFilterTemplate;
 import model.filter.ImageFilters;
 import model.filter.SharpenImage;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 /**
  * This abstract test class serves as the base for testing image filter classes.
@@ -159,6 +162,137 @@ public abstract class AbstractFilterTest {
 
   public abstract ImageFileHandler getFileHandler();
 
+  /**
+   * A filter whose kernel is always applied as a full 2D convolution.
+   */
+  private static class FullConvolution extends ImageFilterTemplate {
+    private final double[][] kernel;
+
+    FullConvolution(double[][] kernel) {
+      this.kernel = kernel;
+    }
+
+    @Override
+    public double[][] getKernel() {
+      return kernel;
+    }
+
+    @Override
+    public double[][] getSeparableKernel() {
+      return null;
+    }
+  }
+
+  /**
+   * A filter whose separable kernel is found from its 2D kernel.
+   */
+  private static class DetectedConvolution extends ImageFilterTemplate {
+    private final double[][] kernel;
+
+    DetectedConvolution(double[][] kernel) {
+      this.kernel = kernel;
+    }
+
+    @Override
+    public double[][] getKernel() {
+      return kernel;
+    }
+  }
+
+  private void assertImagesWithin(Image expected, Image actual, int delta) {
+    assertEquals(expected.getHeight(), actual.getHeight());
+    assertEquals(expected.getWidth(), actual.getWidth());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        for (int c = 0; c < 3; c++) {
+          assertEquals(expected.getPixelValue(y, x, c), actual.getPixelValue(y, x, c), delta);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testSeparableBlurMatchesFullConvolution() {
+    BlurImage blur = new BlurImage();
+    Image separable = blur.applyFilter(inputImage);
+    Image full = new FullConvolution(blur.getKernel()).applyFilter(inputImage);
+    assertImagesWithin(full, separable, 0);
+  }
+
+  @Test
+  public void testDetectedSeparableKernel() {
+    double[] taps = {0.06, 0.24, 0.4, 0.24, 0.06};
+    double[][] kernel = new double[5][5];
+    for (int i = 0; i < 5; i++) {
+      for (int j = 0; j < 5; j++) {
+        kernel[i][j] = taps[i] * taps[j];
+      }
+    }
+    DetectedConvolution detected = new DetectedConvolution(kernel);
+    assertNotNull(detected.getSeparableKernel());
+    assertImagesWithin(new FullConvolution(kernel).applyFilter(inputImage),
+        detected.applyFilter(inputImage), 1);
+  }
+
+  private Image referenceConvolution(Image image, double[][] kernel) {
+    int area = kernel.length / 2;
+    Image expected = image.createCompatibleImage(image.getHeight(), image.getWidth());
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        double[] sums = new double[3];
+        for (int yy = -area; yy <= area; yy++) {
+          for (int xx = -area; xx <= area; xx++) {
+            if (y + yy >= 0 && y + yy < image.getHeight() && x + xx >= 0
+                && x + xx < image.getWidth()) {
+              for (int c = 0; c < 3; c++) {
+                sums[c] += image.getPixelValue(y + yy, x + xx, c) * kernel[yy + area][xx + area];
+              }
+            }
+          }
+        }
+        for (int c = 0; c < 3; c++) {
+          expected.setPixelValue(y, x, c, (int) Math.max(0, Math.min(255, sums[c])));
+        }
+      }
+    }
+    return expected;
+  }
+
+  @Test
+  public void testSharpenEdgesMatchReference() {
+    SharpenImage sharpen = new SharpenImage();
+    int[][] sizes = {{40, 37}, {3, 2}, {1, 9}, {6, 4}};
+    for (int[] size : sizes) {
+      Image part = inputImage.getSubImage(0, 0, size[0], size[1]);
+      assertImagesWithin(referenceConvolution(part, sharpen.getKernel()),
+          sharpen.applyFilter(part), 0);
+    }
+  }
+
+  @Test
+  public void testBlurMatchesReferenceExactly() {
+    BlurImage blur = new BlurImage();
+    Image part = inputImage.getSubImage(0, 0, 50, 61);
+    assertImagesWithin(referenceConvolution(part, blur.getKernel()), blur.applyFilter(part), 0);
+  }
+
+  @Test
+  public void testNonDyadicKernelMatchesReference() {
+    double[][] kernel = {
+            {0.1, -0.2, 0.1},
+            {1.0 / 3, 0.5, 1.0 / 3},
+            {0.1, -0.2, 0.1}
+    };
+    Image part = inputImage.getSubImage(5, 7, 30, 41);
+    assertImagesWithin(referenceConvolution(part, kernel),
+        new DetectedConvolution(kernel).applyFilter(part), 0);
+  }
+
+  @Test
+  public void testSharpenKernelIsNotSeparable() {
+    assertNull(new SharpenImage().getSeparableKernel());
+  }
+
   /**
    * filter.JPGFilterTest class is specifically for testing filters on JPG images.
    */
@@ -0,0 +1,381 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+
+import model.customimage.AbstractImage;
+import model.customimage.CustomImage;
+import model.customimage.Image;
+import model.customimage.PlanarImage;
+import model.customimage.RasterImage;
+import model.customimage.SingleChannelImage;
+import model.customimage.TiledImage;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the contract of the bulk row and rectangle accessors of Image against the per-pixel
+ * accessors, for every image that can hold full color. The AbstractImage defaults are tested
+ * through an image that only implements the per-pixel accessors.
+ */
+public abstract class AbstractImageContractTest {
+
+  private static final int HEIGHT = 13;
+  private static final int WIDTH = 17;
+  // Marks buffer entries an accessor must not touch
+  private static final int UNTOUCHED = 0x7F123456;
+
+  protected Image image;
+  private int[][] expected;
+
+  /**
+   * Creates a blank image of the implementation under test.
+   *
+   * @param height The height of the image.
+   * @param width  The width of the image.
+   * @return The image, with every pixel 0.
+   */
+  protected abstract Image createImage(int height, int width);
+
+  @Before
+  public void setUp() {
+    image = createImage(HEIGHT, WIDTH);
+    expected = new int[HEIGHT][WIDTH];
+    Random random = new Random(3);
+    for (int y = 0; y < HEIGHT; y++) {
+      for (int x = 0; x < WIDTH; x++) {
+        int rgb = random.nextInt(1 << 24);
+        expected[y][x] = rgb;
+        image.setPixelValue(y, x, 0, (rgb >> 16) & 0xFF);
+        image.setPixelValue(y, x, 1, (rgb >> 8) & 0xFF);
+        image.setPixelValue(y, x, 2, rgb & 0xFF);
+      }
+    }
+  }
+
+  private void assertImage() {
+    for (int y = 0; y < HEIGHT; y++) {
+      for (int x = 0; x < WIDTH; x++) {
+        int rgb = expected[y][x];
+        assertEquals((rgb >> 16) & 0xFF, image.getRed(y, x));
+        assertEquals((rgb >> 8) & 0xFF, image.getGreen(y, x));
+        assertEquals(rgb & 0xFF, image.getBlue(y, x));
+      }
+    }
+  }
+
+  private static int[] untouched(int length) {
+    int[] buffer = new int[length];
+    Arrays.fill(buffer, UNTOUCHED);
+    return buffer;
+  }
+
+  @Test
+  public void testGetRGBRowAtOffset() {
+    int[] buffer = untouched(20);
+    image.getRGBRow(4, 3, 9, buffer, 5);
+    for (int i = 0; i < 20; i++) {
+      int want = i >= 5 && i < 14 ? expected[4][3 + i - 5] : UNTOUCHED;
+      assertEquals(want, buffer[i]);
+    }
+  }
+
+  @Test
+  public void testSetRGBRowAtOffsetIgnoresHighBits() {
+    int[] buffer = untouched(20);
+    for (int i = 0; i < 6; i++) {
+      buffer[2 + i] = 0xAB000000 | (i * 0x0A0B0C);
+      expected[7][10 + i] = i * 0x0A0B0C;
+    }
+    image.setRGBRow(7, 10, 6, buffer, 2);
+    assertImage();
+  }
+
+  @Test
+  public void testRGBRowRoundTrip() {
+    int[] row = new int[WIDTH];
+    for (int y = 0; y < HEIGHT; y++) {
+      image.getRGBRow(y, 0, WIDTH, row, 0);
+      for (int x = 0; x < WIDTH; x++) {
+        assertEquals(expected[y][x], row[x]);
+        assertEquals(expected[y][x], image.getRGB(x, y) & 0xFFFFFF);
+      }
+    }
+    Image copy = createImage(HEIGHT, WIDTH);
+    for (int y = 0; y < HEIGHT; y++) {
+      image.getRGBRow(y, 0, WIDTH, row, 0);
+      copy.setRGBRow(y, 0, WIDTH, row, 0);
+    }
+    image = copy;
+    assertImage();
+  }
+
+  @Test
+  public void testGetChannelRowAtOffset() {
+    for (int component = 0; component < 3; component++) {
+      int[] buffer = untouched(12);
+      image.getChannelRow(2, 5, 8, component, buffer, 3);
+      int shift = 16 - 8 * component;
+      for (int i = 0; i < 12; i++) {
+        int want = i >= 3 && i < 11 ? (expected[2][5 + i - 3] >> shift) & 0xFF : UNTOUCHED;
+        assertEquals(want, buffer[i]);
+      }
+    }
+  }
+
+  @Test
+  public void testSetChannelRowChangesOnlyItsComponentAndClamps() {
+    int[] buffer = untouched(8);
+    int[] values = {-40, 0, 17, 255, 256, 1000};
+    System.arraycopy(values, 0, buffer, 1, values.length);
+    image.setChannelRow(9, 4, values.length, 1, buffer, 1);
+    for (int i = 0; i < values.length; i++) {
+      int green = Math.max(0, Math.min(255, values[i]));
+      expected[9][4 + i] = (expected[9][4 + i] & 0xFF00FF) | (green << 8);
+    }
+    assertImage();
+  }
+
+  @Test
+  public void testGetRGBSpanWithScansize() {
+    int scansize = 11;
+    int[] buffer = untouched(3 + 4 * scansize);
+    image.getRGBSpan(5, 6, 4, 7, buffer, 3, scansize);
+    for (int i = 0; i < buffer.length; i++) {
+      int row = (i - 3) / scansize;
+      int column = (i - 3) % scansize;
+      boolean inside = i >= 3 && row < 4 && column < 7;
+      assertEquals(inside ? expected[5 + row][6 + column] : UNTOUCHED, buffer[i]);
+    }
+  }
+
+  @Test
+  public void testSetRGBSpanWithScansize() {
+    int scansize = 9;
+    int[] buffer = untouched(2 + 3 * scansize);
+    for (int row = 0; row < 3; row++) {
+      for (int column = 0; column < 5; column++) {
+        int rgb = (row * 40 + column) * 0x010203;
+        buffer[2 + row * scansize + column] = rgb;
+        expected[10 + row][12 + column] = rgb;
+      }
+    }
+    image.setRGBSpan(10, 12, 3, 5, buffer, 2, scansize);
+    assertImage();
+  }
+
+  @Test
+  public void testEmptySpansAreAllowed() {
+    int[] buffer = untouched(1);
+    image.getRGBRow(HEIGHT - 1, WIDTH, 0, buffer, 0);
+    image.setRGBRow(0, 0, 0, buffer, 0);
+    image.getRGBSpan(HEIGHT, 0, 0, WIDTH, buffer, 0, WIDTH);
+    image.setRGBSpan(0, WIDTH, HEIGHT, 0, buffer, 0, 0);
+    assertEquals(UNTOUCHED, buffer[0]);
+    assertImage();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetRGBRowPastRightEdge() {
+    image.getRGBRow(0, WIDTH - 3, 4, new int[4], 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetRGBRowBelowImage() {
+    image.setRGBRow(HEIGHT, 0, 1, new int[1], 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetRGBRowNegativeX() {
+    image.getRGBRow(0, -1, 2, new int[2], 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetRGBRowNegativeLength() {
+    image.getRGBRow(0, 2, -1, new int[2], 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetChannelRowUnsupportedComponent() {
+    image.getChannelRow(0, 0, 2, 3, new int[2], 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetChannelRowUnsupportedComponent() {
+    image.setChannelRow(0, 0, 2, -1, new int[2], 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetChannelRowPastRightEdge() {
+    image.setChannelRow(0, 1, WIDTH, 0, new int[WIDTH], 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetRGBSpanPastBottom() {
+    image.getRGBSpan(HEIGHT - 2, 0, 3, 1, new int[3], 0, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetRGBSpanNegativeY() {
+    image.setRGBSpan(-1, 0, 2, 2, new int[4], 0, 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetRGBSpanNegativeHeight() {
+    image.setRGBSpan(0, 0, -1, 2, new int[4], 0, 2);
+  }
+
+  /**
+   * The contract for the packed CustomImage.
+   */
+  public static class CustomImageContractTest extends AbstractImageContractTest {
+    @Override
+    protected Image createImage(int height, int width) {
+      return new CustomImage(height, width);
+    }
+  }
+
+  /**
+   * The contract for the BufferedImage-backed RasterImage.
+   */
+  public static class RasterImageContractTest extends AbstractImageContractTest {
+    @Override
+    protected Image createImage(int height, int width) {
+      return new RasterImage(height, width);
+    }
+  }
+
+  /**
+   * The contract for the planar PlanarImage.
+   */
+  public static class PlanarImageContractTest extends AbstractImageContractTest {
+    @Override
+    protected Image createImage(int height, int width) {
+      return new PlanarImage(height, width);
+    }
+  }
+
+  /**
+   * The contract for TiledImage, with tiles that do not divide the image and a budget of a single
+   * tile, so the accessors cross tiles and spill them.
+   */
+  public static class TiledImageContractTest extends AbstractImageContractTest {
+    @Override
+    protected Image createImage(int height, int width) {
+      return new TiledImage(height, width, 5, 6, 4L * 5 * 6, null);
+    }
+  }
+
+  /**
+   * The contract for a greyscale SingleChannelImage, which the colored pixels of the fixture move
+   * to full color storage.
+   */
+  public static class SingleChannelImageContractTest extends AbstractImageContractTest {
+    @Override
+    protected Image createImage(int height, int width) {
+      return new SingleChannelImage(height, width);
+    }
+  }
+
+  /**
+   * The contract for a view into a larger image, which must translate and bound its accessors.
+   */
+  public static class SubImageContractTest extends AbstractImageContractTest {
+    @Override
+    protected Image createImage(int height, int width) {
+      return new CustomImage(height + 5, width + 7).getSubImage(2, 3, height, width);
+    }
+  }
+
+  /**
+   * The contract for the AbstractImage defaults, built on the per-pixel accessors alone.
+   */
+  public static class DefaultImageContractTest extends AbstractImageContractTest {
+    @Override
+    protected Image createImage(int height, int width) {
+      return new PerPixelImage(height, width);
+    }
+  }
+
+  /**
+   * An image that only implements the per-pixel accessors, so every bulk accessor is the
+   * AbstractImage default.
+   */
+  private static final class PerPixelImage extends AbstractImage {
+    private final int[][][] pixels;
+
+    PerPixelImage(int height, int width) {
+      this.pixels = new int[height][width][3];
+    }
+
+    @Override
+    public int getRed(int y, int x) {
+      return pixels[y][x][0];
+    }
+
+    @Override
+    public int getGreen(int y, int x) {
+      return pixels[y][x][1];
+    }
+
+    @Override
+    public int getBlue(int y, int x) {
+      return pixels[y][x][2];
+    }
+
+    @Override
+    public int getPixelValue(int y, int x, int component) {
+      checkComponent(component);
+      return pixels[y][x][component];
+    }
+
+    @Override
+    public int getWidth() {
+      return pixels.length == 0 ? 0 : pixels[0].length;
+    }
+
+    @Override
+    public int getHeight() {
+      return pixels.length;
+    }
+
+    @Override
+    public int[][][] getPixelData() {
+      return pixels;
+    }
+
+    @Override
+    public int getRGB(int x, int y) {
+      checkSpan(y, x, 1, 1);
+      return (pixels[y][x][0] << 16) | (pixels[y][x][1] << 8) | pixels[y][x][2];
+    }
+
+    @Override
+    public void setPixelValue(int j, int i, int color, int adjusted) {
+      checkComponent(color);
+      pixels[j][i][color] = Math.max(0, Math.min(255, adjusted));
+    }
+
+    @Override
+    public void setPixelValuesFromBufferedImage(BufferedImage image) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public BufferedImage convertMatrixToImage() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setAllPixels(int[][][] pixelData) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Image createCompatibleImage(int height, int width) {
+      return new PerPixelImage(height, width);
+    }
+  }
+}
@@ -0,0 +1,65 @@
+import org.junit.After;
+
+import java.util.Random;
+
+import model.customimage.CustomImage;
+import model.customimage.Image;
+import model.customimage.ImageBlocks;
+import model.filter.ImageFilterTemplate;
+
+/**
+ * A base for tests that run operations on images of random pixels and change the parallelism or
+ * the convolution loops on the way. Each test gets its own generator with the seed of its class,
+ * so the images are the same on every run, and the settings the test started with are restored
+ * after it.
+ */
+public abstract class AbstractRandomImageTest {
+
+  protected final Random random;
+  private final int defaultParallelism = ImageBlocks.getParallelism();
+  private final boolean defaultPlanar = ImageFilterTemplate.isPlanarConvolution();
+
+  /**
+   * Constructs a test whose random images come from a generator with the given seed.
+   *
+   * @param seed The seed of the generator.
+   */
+  protected AbstractRandomImageTest(long seed) {
+    this.random = new Random(seed);
+  }
+
+  @After
+  public void restoreSettings() {
+    ImageBlocks.setParallelism(defaultParallelism);
+    ImageFilterTemplate.setPlanarConvolution(defaultPlanar);
+  }
+
+  /**
+   * Fills an image with random pixels.
+   *
+   * @param image The image to fill.
+   * @return The same image.
+   */
+  protected Image randomImage(Image image) {
+    int width = image.getWidth();
+    int[] row = new int[width];
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < width; x++) {
+        row[x] = random.nextInt(1 << 24);
+      }
+      image.setRGBRow(y, 0, width, row, 0);
+    }
+    return image;
+  }
+
+  /**
+   * Creates an image of random pixels.
+   *
+   * @param height The height of the image.
+   * @param width  The width of the image.
+   * @return The image.
+   */
+  protected Image randomImage(int height, int width) {
+    return randomImage(new CustomImage(height, width));
+  }
+}
@@ -0,0 +1,143 @@
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import model.customimage.CustomImage;
+import model.customimage.Image;
+import model.customimage.ImageBlocks;
+import model.filter.BilateralFilter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the bilateral grid filter smooths noise within regions, keeps edges between them, and
+ * gives the same result however many threads it runs on.
+ */
+public class BilateralFilterTest extends AbstractRandomImageTest {
+
+
+  public BilateralFilterTest() {
+    super(29);
+  }
+
+  /**
+   * Fills an image with a dark left half and a light right half, each with noise of the given
+   * amplitude added to every channel.
+   */
+  private Image stepImage(Image image, int noise) {
+    int width = image.getWidth();
+    int[] row = new int[width];
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < width; x++) {
+        int level = x < width / 2 ? 60 : 200;
+        int pixel = 0;
+        for (int shift = 16; shift >= 0; shift -= 8) {
+          int value = level + (noise == 0 ? 0 : random.nextInt(2 * noise + 1) - noise);
+          pixel |= Math.max(0, Math.min(255, value)) << shift;
+        }
+        row[x] = pixel;
+      }
+      image.setRGBRow(y, 0, width, row, 0);
+    }
+    return image;
+  }
+
+  /**
+   * Sums the squared differences of each channel from a level over a block of pixels.
+   */
+  private double squaredError(Image image, int left, int right, int level) {
+    double error = 0;
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = left; x < right; x++) {
+        int pixel = image.getRGB(x, y);
+        for (int shift = 16; shift >= 0; shift -= 8) {
+          int difference = ((pixel >> shift) & 0xFF) - level;
+          error += difference * difference;
+        }
+      }
+    }
+    return error;
+  }
+
+  @Test
+  public void testConstantImageUnchanged() {
+    Image image = new CustomImage(37, 53);
+    int[] row = new int[53];
+    Arrays.fill(row, 0x4080C0);
+    for (int y = 0; y < 37; y++) {
+      image.setRGBRow(y, 0, 53, row, 0);
+    }
+    Image result = new BilateralFilter(3, 20).applyFilter(image);
+    for (int y = 0; y < 37; y++) {
+      for (int x = 0; x < 53; x++) {
+        assertEquals(0x4080C0, result.getRGB(x, y) & 0xFFFFFF);
+      }
+    }
+  }
+
+  @Test
+  public void testEdgePreserved() {
+    Image result = new BilateralFilter(6, 15).applyFilter(stepImage(new CustomImage(40, 60), 0));
+    for (int y = 0; y < 40; y++) {
+      for (int x = 0; x < 60; x++) {
+        int level = x < 30 ? 60 : 200;
+        assertEquals(level * 0x010101, result.getRGB(x, y) & 0xFFFFFF);
+      }
+    }
+  }
+
+  @Test
+  public void testNoiseReduced() {
+    Image image = stepImage(new CustomImage(80, 120), 12);
+    Image result = new BilateralFilter(4, 30).applyFilter(image);
+    // Leave out the columns next to the edge, where nothing is averaged across it anyway
+    assertTrue(squaredError(result, 0, 55, 60) < squaredError(image, 0, 55, 60) / 4);
+    assertTrue(squaredError(result, 65, 120, 200) < squaredError(image, 65, 120, 200) / 4);
+  }
+
+  @Test
+  public void testLargeSigmaSpace() {
+    Image image = stepImage(new CustomImage(50, 70), 8);
+    Image result = new BilateralFilter(1000, 20).applyFilter(image);
+    assertTrue(squaredError(result, 0, 35, 60) < squaredError(image, 0, 35, 60) / 4);
+    assertTrue(squaredError(result, 35, 70, 200) < squaredError(image, 35, 70, 200) / 4);
+  }
+
+  @Test
+  public void testParallelMatchesSerial() {
+    Image image = stepImage(new CustomImage(613, 701), 30);
+    BilateralFilter filter = new BilateralFilter(5, 25);
+    ImageBlocks.setParallelism(1);
+    Image serial = filter.applyFilter(image);
+    ImageBlocks.setParallelism(4);
+    Image parallel = filter.applyFilter(image);
+    for (int y = 0; y < 613; y++) {
+      for (int x = 0; x < 701; x++) {
+        assertEquals(serial.getRGB(x, y), parallel.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testSinglePixel() {
+    Image image = new CustomImage(1, 1);
+    image.setRGBRow(0, 0, 1, new int[]{0x123456}, 0);
+    assertEquals(0x123456, new BilateralFilter(2, 10).applyFilter(image).getRGB(0, 0) & 0xFFFFFF);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testZeroSigmaSpace() {
+    new BilateralFilter(0, 10);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNaNSigmaRange() {
+    new BilateralFilter(4, Double.NaN);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGridTooLarge() {
+    new BilateralFilter(0.01, 0.01).applyFilter(new CustomImage(100, 100));
+  }
+}
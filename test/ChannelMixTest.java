@@ -0,0 +1,199 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import model.colortransform.AbstractColorTransform;
+import model.colortransform.ChannelMix;
+import model.colortransform.Greyscale;
+import model.colortransform.Sepia;
+import model.customimage.Image;
+import model.customimage.ImageBlocks;
+import model.processor.channel.Luma;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the table-driven color matrix engine behind Sepia, Greyscale and channel-mix.
+ */
+public class ChannelMixTest extends AbstractRandomImageTest {
+
+  private static final double[][] SEPIA = {
+      {0.393, 0.769, 0.189},
+      {0.349, 0.686, 0.168},
+      {0.272, 0.534, 0.131}
+  };
+
+
+  public ChannelMixTest() {
+    super(41);
+  }
+
+  /**
+   * Mixes one pixel the way the transform is specified: rounded products, summed and clamped.
+   */
+  private static int reference(double[][] kernel, int rgb) {
+    int[] in = {(rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF};
+    int out = 0;
+    for (int i = 0; i < 3; i++) {
+      int sum = 0;
+      for (int k = 0; k < 3; k++) {
+        sum += (int) Math.round(kernel[i][k] * in[k]);
+      }
+      out = (out << 8) | Math.min(255, Math.max(0, sum));
+    }
+    return out;
+  }
+
+  private void assertMatchesReference(double[][] kernel, Image input, Image output) {
+    for (int y = 0; y < input.getHeight(); y++) {
+      for (int x = 0; x < input.getWidth(); x++) {
+        assertEquals(reference(kernel, input.getRGB(x, y) & 0xFFFFFF),
+            output.getRGB(x, y) & 0xFFFFFF);
+      }
+    }
+  }
+
+  private void assertSameImage(Image expected, Image actual) {
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getRGB(x, y) & 0xFFFFFF, actual.getRGB(x, y) & 0xFFFFFF);
+      }
+    }
+  }
+
+  @Test
+  public void testSepiaMatchesReference() {
+    Image input = randomImage(40, 50);
+    assertMatchesReference(SEPIA, input, new Sepia().applyColorTransform(input));
+  }
+
+  @Test
+  public void testGreyscaleMatchesReference() {
+    Image input = randomImage(40, 50);
+    Greyscale greyscale = new Greyscale();
+    assertMatchesReference(greyscale.getKernel(), input, greyscale.applyColorTransform(input));
+  }
+
+  @Test
+  public void testChannelMixWithNegativeWeightsClamps() {
+    double[][] kernel = {{1.5, -0.5, 0}, {-1, 2, -1}, {0.1, 0.1, 3}};
+    Image input = randomImage(30, 30);
+    assertMatchesReference(kernel, input, new ChannelMix(kernel).applyColorTransform(input));
+  }
+
+  @Test
+  public void testIdentityCopiesImage() {
+    Image input = randomImage(20, 25);
+    double[][] identity = {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}};
+    assertSameImage(input, new ChannelMix(identity).applyColorTransform(input));
+  }
+
+  @Test
+  public void testChannelMixWithSepiaMatrixIsSepia() {
+    Image input = randomImage(20, 25);
+    assertSameImage(new Sepia().applyColorTransform(input),
+        new ChannelMix(SEPIA).applyColorTransform(input));
+  }
+
+  @Test
+  public void testMatrixIsCopied() {
+    double[][] kernel = {{0, 0, 1}, {0, 1, 0}, {1, 0, 0}};
+    ChannelMix swap = new ChannelMix(kernel);
+    kernel[0][2] = 0;
+    swap.getKernel()[1][1] = 0;
+    Image input = randomImage(10, 10);
+    Image output = swap.applyColorTransform(input);
+    for (int y = 0; y < 10; y++) {
+      for (int x = 0; x < 10; x++) {
+        int rgb = input.getRGB(x, y);
+        int swapped = ((rgb & 0xFF) << 16) | (rgb & 0xFF00) | ((rgb >> 16) & 0xFF);
+        assertEquals(swapped, output.getRGB(x, y) & 0xFFFFFF);
+      }
+    }
+  }
+
+  @Test
+  public void testParallelMatchesSerial() {
+    Image input = randomImage(700, 500);
+    ImageBlocks.setParallelism(1);
+    Image serial = new Sepia().applyColorTransform(input);
+    ImageBlocks.setParallelism(4);
+    assertSameImage(serial, new Sepia().applyColorTransform(input));
+  }
+
+  @Test
+  public void testOneTransformSharedByThreads() throws Exception {
+    AbstractColorTransform sepia = new Sepia();
+    Image expected = randomImage(60, 60);
+    Image serial = new Sepia().applyColorTransform(expected);
+    ExecutorService threads = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Image>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(threads.submit(() -> sepia.applyColorTransform(expected)));
+      }
+      for (Future<Image> result : results) {
+        assertSameImage(serial, result.get());
+      }
+    } finally {
+      threads.shutdown();
+    }
+  }
+
+  @Test
+  public void testComposeMultipliesMatrices() {
+    ChannelMix first = new ChannelMix(new double[][]{{1, 2, 0}, {0, 1, 0}, {3, 0, 1}});
+    ChannelMix second = new ChannelMix(new double[][]{{0, 1, 0}, {2, 0, 0}, {1, 1, 1}});
+    double[][] expected = {{0, 1, 0}, {2, 4, 0}, {4, 3, 1}};
+    double[][] product = ChannelMix.compose(first, second).getKernel();
+    for (int i = 0; i < 3; i++) {
+      for (int k = 0; k < 3; k++) {
+        assertEquals(expected[i][k], product[i][k], 1e-12);
+      }
+    }
+  }
+
+  @Test
+  public void testComposeIsCloseToChain() {
+    Image input = randomImage(50, 50);
+    Image chained = new Sepia().applyColorTransform(new Luma().applyChannel(input));
+    Image composed = ChannelMix.compose(new Luma(), new Sepia()).applyColorTransform(input);
+    for (int y = 0; y < 50; y++) {
+      for (int x = 0; x < 50; x++) {
+        for (int shift = 0; shift <= 16; shift += 8) {
+          assertEquals((chained.getRGB(x, y) >> shift) & 0xFF,
+              (composed.getRGB(x, y) >> shift) & 0xFF, 4);
+        }
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testComposeNull() {
+    ChannelMix.compose(new Sepia(), null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMatrixNotThreeByThree() {
+    new ChannelMix(new double[][]{{1, 0, 0}, {0, 1, 0}});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRowNotThreeLong() {
+    new ChannelMix(new double[][]{{1, 0, 0}, {0, 1}, {0, 0, 1}});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNonFiniteEntry() {
+    new ChannelMix(new double[][]{{1, 0, 0}, {0, Double.NaN, 0}, {0, 0, 1}});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullMatrix() {
+    new ChannelMix(null);
+  }
+}
@@ -1,11 +1,17 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.file.Files;
 
 import controller.Controller;
 import controller.ControllerImpl;
+import model.Model;
+import model.ModelImpl;
+import model.customimage.CustomImage;
 
 import static org.junit.Assert.assertEquals;
 
@@ -31,6 +37,17 @@ public class ControllerTest {
     assertEquals(this.getRunOutput(), log.toString()); //inputs reached the model correctly
   }
 
+  @Test
+  public void testCrop() throws Exception {
+    StringBuffer out = new StringBuffer();
+    Reader in = new StringReader("crop 10 20 30 40 trainImage train-cropped");
+    Controller controller = new ControllerImpl(in, out);
+    StringBuilder log = new StringBuilder(); //log for mock model
+    controller.execute(new MockModel(log, 123), new String[]{"-text"});
+    assertEquals("Input: 10 20 30 40 trainImage train-cropped\n",
+        log.toString()); //inputs reached the model correctly
+  }
+
   @Test
   public void testLoad() throws Exception {
     StringBuffer out = new StringBuffer();
@@ -185,6 +202,173 @@ public class ControllerTest {
         log.toString()); //inputs reached the model correctly
   }
 
+  @Test
+  public void testGaussianBlur() throws Exception {
+    StringBuffer out = new StringBuffer();
+    Reader in = new StringReader("gaussian-blur 2.5 trainImage train-gaussian split 40");
+    Controller controller = new ControllerImpl(in, out);
+    StringBuilder log = new StringBuilder(); //log for mock model
+    controller.execute(new MockModel(log, 123), new String[]{"-text"});
+    assertEquals("Input: 2.5 trainImage train-gaussian 40.0\n",
+        log.toString()); //inputs reached the model correctly
+  }
+
+  @Test
+  public void testMedian() throws Exception {
+    StringBuffer out = new StringBuffer();
+    Reader in = new StringReader("median 3 trainImage train-median");
+    Controller controller = new ControllerImpl(in, out);
+    StringBuilder log = new StringBuilder(); //log for mock model
+    controller.execute(new MockModel(log, 123), new String[]{"-text"});
+    assertEquals("Input: 3 trainImage train-median\n",
+        log.toString()); //inputs reached the model correctly
+  }
+
+  @Test
+  public void testBilateral() throws Exception {
+    StringBuffer out = new StringBuffer();
+    Reader in = new StringReader("bilateral 8 25 trainImage train-bilateral split 50");
+    Controller controller = new ControllerImpl(in, out);
+    StringBuilder log = new StringBuilder(); //log for mock model
+    controller.execute(new MockModel(log, 123), new String[]{"-text"});
+    assertEquals("Input: 8.0 25.0 trainImage train-bilateral 50.0\n",
+        log.toString()); //inputs reached the model correctly
+  }
+
+  @Test
+  public void testUnsharp() throws Exception {
+    StringBuffer out = new StringBuffer();
+    Reader in = new StringReader("unsharp 2 1.5 4 trainImage train-unsharp");
+    Controller controller = new ControllerImpl(in, out);
+    StringBuilder log = new StringBuilder(); //log for mock model
+    controller.execute(new MockModel(log, 123), new String[]{"-text"});
+    assertEquals("Input: 2.0 1.5 4 trainImage train-unsharp 100.0\n",
+        log.toString()); //inputs reached the model correctly
+  }
+
+  @Test
+  public void testChannelMix() throws Exception {
+    StringBuffer out = new StringBuffer();
+    Reader in = new StringReader("channel-mix 0.1 0.2 0.3 0.4 0.5 0.6 0.7 0.8 0.9 trainImage "
+        + "train-mix split 40");
+    Controller controller = new ControllerImpl(in, out);
+    StringBuilder log = new StringBuilder(); //log for mock model
+    controller.execute(new MockModel(log, 123), new String[]{"-text"});
+    // The nine numbers fill the matrix a row at a time
+    assertEquals("Input: [[0.1, 0.2, 0.3], [0.4, 0.5, 0.6], [0.7, 0.8, 0.9]] trainImage train-mix "
+        + "40.0\n", log.toString()); //inputs reached the model correctly
+  }
+
+  @Test
+  public void testScriptFusesChannelMix() throws Exception {
+    String log = runScriptFile("channel-mix 0 0 1 0 1 0 1 0 0 trainImage a\n"
+        + "sepia a b\n");
+    assertEquals("Input: 2 operations trainImage b\n", log);
+  }
+
+  /**
+   * Runs a script from a file against the mock model and returns the log.
+   */
+  private String runScriptFile(String script) throws Exception {
+    File file = File.createTempFile("script", ".txt");
+    file.deleteOnExit();
+    Files.write(file.toPath(), script.getBytes());
+    Controller controller = new ControllerImpl(new StringReader(""), new StringBuffer());
+    StringBuilder log = new StringBuilder(); //log for mock model
+    controller.execute(new MockModel(log, 123), new String[]{"-file", file.getPath()});
+    return log.toString();
+  }
+
+  @Test
+  public void testScriptFusesPixelCommands() throws Exception {
+    String log = runScriptFile("brighten 10 trainImage a\n"
+        + "levels-adjust 20 100 230 a b\n"
+        + "# b is not needed after this\n"
+        + "sepia b c\n"
+        + "luma-component c d\n"
+        + "histogram d d-histogram\n");
+    assertEquals("Input: 4 operations trainImage d\nInput: d d-histogram\n", log);
+  }
+
+  @Test
+  public void testScriptFusesFilterCommands() throws Exception {
+    String log = runScriptFile("blur trainImage a\n"
+        + "sharpen a b\n"
+        + "sepia b c\n"
+        + "blur c d split 50\n");
+    assertEquals("Input: 3 stages trainImage c\nInput: c d 50.0\n", log);
+  }
+
+  @Test
+  public void testScriptCollapsesColorMaps() throws Exception {
+    String log = runScriptFile("sepia trainImage a\n"
+        + "sepia a b\n"
+        + "luma-component b c\n"
+        + "blur c d\n");
+    // The three color maps are one stage, so the run is two passes rather than four
+    assertEquals("Input: 2 stages trainImage d\n", log);
+  }
+
+  @Test
+  public void testScriptKeepsReferencedIntermediates() throws Exception {
+    String log = runScriptFile("brighten 10 trainImage a\n"
+        + "sepia a b\n"
+        + "red-component b c\n"
+        + "blur a a-blur\n");
+    assertEquals("Input: 10 trainImage a\nInput: 2 operations a c\nInput: a a-blur 100.0\n",
+        log);
+  }
+
+  @Test
+  public void testScriptDoesNotFuseSplitPreviews() throws Exception {
+    String log = runScriptFile("sepia trainImage a split 50\n"
+        + "luma-component a b\n"
+        + "brighten 5 b c\n"
+        + "quit\n"
+        + "blur b b-blur\n");
+    // Nothing after quit runs, so it does not keep b from being fused away
+    assertEquals("Input: trainImage a 50.0\nInput: 2 operations a c\n", log);
+  }
+
+  @Test
+  public void testScriptRunsCommandsBeforeInvalidOne() throws Exception {
+    StringBuffer out = new StringBuffer();
+    File file = File.createTempFile("script", ".txt");
+    file.deleteOnExit();
+    Files.write(file.toPath(), "brighten 10 trainImage a\nsepia a b\nnope\n".getBytes());
+    Controller controller = new ControllerImpl(new StringReader(""), out);
+    StringBuilder log = new StringBuilder(); //log for mock model
+    controller.execute(new MockModel(log, 123), new String[]{"-file", file.getPath()});
+    assertEquals("Input: 2 operations trainImage b\n", log.toString());
+    assertEquals("Invalid Input \n", out.toString());
+  }
+
+  @Test
+  public void testConvolve() throws Exception {
+    StringBuffer out = new StringBuffer();
+    Reader in = new StringReader("convolve res/psf15.txt trainImage train-psf");
+    Controller controller = new ControllerImpl(in, out);
+    StringBuilder log = new StringBuilder(); //log for mock model
+    controller.execute(new MockModel(log, 123), new String[]{"-text"});
+    assertEquals("Input: res/psf15.txt trainImage train-psf 100.0\n",
+        log.toString()); //inputs reached the model correctly
+  }
+
+  @Test
+  public void testConvolveMissingKernelFile() throws Exception {
+    Model model = new ModelImpl();
+    model.load(new CustomImage(4, 4), "trainImage");
+    Reader in = new StringReader("convolve res/no-such-kernel.txt trainImage train-psf");
+    Controller controller = new ControllerImpl(in, new StringBuffer());
+    String message = null;
+    try {
+      controller.execute(model, new String[]{"-text"});
+    } catch (IOException e) {
+      message = e.getMessage();
+    }
+    assertEquals("Error: Kernel file not found.", message);
+  }
+
   @Test
   public void testSharpenComponent() throws Exception {
     StringBuffer out = new StringBuffer();
@@ -0,0 +1,139 @@
+import java.util.Random;
+
+import model.colortransform.Sepia;
+import model.customimage.Image;
+import model.customimage.ImageBlocks;
+import model.customimage.RasterImage;
+import model.filter.BilateralFilter;
+import model.filter.BlurImage;
+import model.filter.GaussianBlur;
+import model.filter.ImageFilterTemplate;
+import model.filter.ImageFilters;
+import model.filter.KernelFilter;
+import model.filter.MedianFilter;
+import model.filter.SharpenImage;
+import model.filter.UnsharpMask;
+import model.pipeline.ImagePipeline;
+
+/**
+ * A benchmark of the convolution engine on the 3x3 blur and 5x5 sharpen kernels. Blur is timed
+ * both through its separable fast path and as a full 2D convolution. The box-filter Gaussian blur
+ * is timed at a small and a large sigma, the median filter at a small and a large radius and the
+ * bilateral filter at a small and a large sigma-space, each pair of which should take about as
+ * long. The unsharp mask should take little longer than the Gaussian it is built on. 15x15 and
+ * 31x31 point-spread kernels are timed through the frequency domain. A non-dyadic 5x5 kernel is
+ * timed with the scalar and the planar interior loops. Last, blur, sharpen and sepia are timed one
+ * stage after another and fused into an ImagePipeline. Run it with
+ * {@code java FilterBenchmark [height] [width] [threads]}; it prints the mean time of each filter
+ * over several runs after a warm-up.
+ */
+public class FilterBenchmark {
+
+  private static final int WARM_UP_RUNS = 3;
+  private static final int TIMED_RUNS = 5;
+
+  /**
+   * Blur applied as a full 2D convolution, skipping the separable fast path.
+   */
+  private static class FullBlur extends ImageFilterTemplate {
+    private final double[][] kernel = new BlurImage().getKernel();
+
+    @Override
+    public double[][] getKernel() {
+      return kernel;
+    }
+
+    @Override
+    public double[][] getSeparableKernel() {
+      return null;
+    }
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args The height and width of the test image and the number of threads, all optional.
+   */
+  public static void main(String[] args) {
+    int height = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
+    int width = args.length > 1 ? Integer.parseInt(args[1]) : 4000;
+    if (args.length > 2) {
+      ImageBlocks.setParallelism(Integer.parseInt(args[2]));
+    }
+
+    Image image = new RasterImage(height, width);
+    Random random = new Random(1);
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        row[x] = random.nextInt(1 << 24);
+      }
+      image.setRGBRow(y, 0, width, row, 0);
+    }
+
+    System.out.println(height + "x" + width + " image, " + ImageBlocks.getParallelism()
+        + " threads");
+    time("blur 3x3 (separable)", new BlurImage(), image);
+    time("blur 3x3 (2D)", new FullBlur(), image);
+    time("sharpen 5x5", new SharpenImage(), image);
+    time("gaussian sigma 2", new GaussianBlur(2), image);
+    time("gaussian sigma 40", new GaussianBlur(40), image);
+    time("median radius 2", new MedianFilter(2), image);
+    time("median radius 30", new MedianFilter(30), image);
+    time("bilateral sigma-space 4", new BilateralFilter(4, 20), image);
+    time("bilateral sigma-space 32", new BilateralFilter(32, 20), image);
+    time("unsharp radius 2", new UnsharpMask(2, 1, 3), image);
+    double[][] weights = new double[5][5];
+    for (double[] weightRow : weights) {
+      for (int x = 0; x < 5; x++) {
+        weightRow[x] = random.nextDouble() / 25;
+      }
+    }
+    ImageFilterTemplate.setPlanarConvolution(false);
+    time("5x5 double (scalar)", new KernelFilter(weights), image);
+    ImageFilterTemplate.setPlanarConvolution(true);
+    time("5x5 double (planar)", new KernelFilter(weights), image);
+    time("psf 15x15 (FFT)", new KernelFilter(pointSpread(15)), image);
+    time("psf 31x31 (FFT)", new KernelFilter(pointSpread(31)), image);
+    time("sepia", new Sepia()::applyColorTransform, image);
+    time("blur+sharpen+sepia", input -> new Sepia().applyColorTransform(
+        new SharpenImage().applyFilter(new BlurImage().applyFilter(input))), image);
+    ImagePipeline pipeline = new ImagePipeline().addFilter(new BlurImage())
+        .addFilter(new SharpenImage()).addPixelOperation(new Sepia());
+    time("  fused (pipeline)", pipeline::apply, image);
+  }
+
+  /**
+   * Makes a normalized kernel shaped like a defocus blur, which is not separable.
+   */
+  private static double[][] pointSpread(int size) {
+    double[][] kernel = new double[size][size];
+    double radius = size / 2.0;
+    double sum = 0;
+    for (int y = 0; y < size; y++) {
+      for (int x = 0; x < size; x++) {
+        double distance = Math.hypot(y - size / 2, x - size / 2);
+        kernel[y][x] = Math.max(0, radius - distance);
+        sum += kernel[y][x];
+      }
+    }
+    for (double[] row : kernel) {
+      for (int x = 0; x < size; x++) {
+        row[x] /= sum;
+      }
+    }
+    return kernel;
+  }
+
+  private static void time(String name, ImageFilters filter, Image image) {
+    for (int i = 0; i < WARM_UP_RUNS; i++) {
+      filter.applyFilter(image);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < TIMED_RUNS; i++) {
+      filter.applyFilter(image);
+    }
+    double millis = (System.nanoTime() - start) / 1e6 / TIMED_RUNS;
+    System.out.printf("%-22s %8.1f ms%n", name, millis);
+  }
+}
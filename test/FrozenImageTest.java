@@ -0,0 +1,185 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import model.ModelImpl;
+import model.customimage.CustomImage;
+import model.customimage.FrozenImage;
+import model.customimage.Image;
+import model.customimage.PixelBufferPool;
+import model.customimage.RasterImage;
+import model.processor.flip.HorizontalFlip;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for FrozenImage, its builder and how the model freezes and recycles its results.
+ */
+public class FrozenImageTest {
+
+  private Image source;
+
+  @Before
+  public void setUp() {
+    source = new CustomImage(5, 6);
+    for (int y = 0; y < 5; y++) {
+      for (int x = 0; x < 6; x++) {
+        source.setPixelValue(y, x, 0, 10 * y + x);
+        source.setPixelValue(y, x, 1, 40 * x);
+        source.setPixelValue(y, x, 2, 255 - y);
+      }
+    }
+  }
+
+  private static void assertSamePixels(Image expected, Image actual) {
+    assertEquals(expected.getHeight(), actual.getHeight());
+    assertEquals(expected.getWidth(), actual.getWidth());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+  }
+
+  private static int[] packedPixels(Image image) {
+    int[] pixels = new int[image.getHeight() * image.getWidth()];
+    image.getRGBSpan(0, 0, image.getHeight(), image.getWidth(), pixels, 0, image.getWidth());
+    return pixels;
+  }
+
+  @Test
+  public void testCopyOfKeepsPixelsAndIgnoresLaterChanges() {
+    FrozenImage frozen = FrozenImage.copyOf(source);
+    assertSamePixels(source, frozen);
+    int before = frozen.getRed(1, 1);
+    source.setPixelValue(1, 1, 0, 200);
+    assertEquals(before, frozen.getRed(1, 1));
+    assertSame(frozen, FrozenImage.copyOf(frozen));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSetPixelValueThrows() {
+    FrozenImage.copyOf(source).setPixelValue(0, 0, 0, 1);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSetRGBRowThrows() {
+    FrozenImage.copyOf(source).setRGBRow(0, 0, 1, new int[1], 0);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSetAllPixelsThrows() {
+    FrozenImage.copyOf(source).setAllPixels(source.getPixelData());
+  }
+
+  @Test
+  public void testPixelDataIsACopy() {
+    FrozenImage frozen = FrozenImage.copyOf(source);
+    int[][][] pixelData = frozen.getPixelData();
+    pixelData[0][0][0] = 99;
+    assertEquals(0, frozen.getRed(0, 0));
+  }
+
+  @Test
+  public void testEqualImagesHaveEqualHashes() {
+    FrozenImage first = FrozenImage.copyOf(source);
+    FrozenImage second = FrozenImage.copyOf(source);
+    assertEquals(first.getContentHash(), second.getContentHash());
+    assertEquals(first, second);
+    assertEquals(first.hashCode(), second.hashCode());
+
+    FrozenImage changed = first.toBuilder().setPixelValue(4, 5, 1, 3).build();
+    assertNotEquals(first.getContentHash(), changed.getContentHash());
+    assertNotEquals(first, changed);
+  }
+
+  @Test
+  public void testHashDependsOnShape() {
+    FrozenImage wide = new FrozenImage.Builder(2, 3).build();
+    FrozenImage tall = new FrozenImage.Builder(3, 2).build();
+    assertNotEquals(wide.getContentHash(), tall.getContentHash());
+  }
+
+  @Test
+  public void testLargeImageHashIsDeterministic() {
+    FrozenImage.Builder first = new FrozenImage.Builder(300, 400);
+    FrozenImage.Builder second = new FrozenImage.Builder(300, 400);
+    for (int y = 0; y < 300; y++) {
+      for (int x = 0; x < 400; x++) {
+        first.setRGB(y, x, y * 400 + x);
+        second.setRGB(y, x, y * 400 + x);
+      }
+    }
+    assertEquals(first.build().getContentHash(), second.build().getContentHash());
+  }
+
+  @Test
+  public void testBuilderSetsPixels() {
+    FrozenImage frozen = new FrozenImage.Builder(2, 2).setRGB(1, 1, 0x123456).build();
+    assertEquals(0x12, frozen.getRed(1, 1));
+    assertEquals(0x56, frozen.getBlue(1, 1));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testBuilderCannotBeReused() {
+    FrozenImage.Builder builder = new FrozenImage.Builder(2, 2);
+    builder.build();
+    builder.setRGB(0, 0, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBuilderOutsideImage() {
+    new FrozenImage.Builder(2, 2).setRGB(2, 0, 1);
+  }
+
+  @Test
+  public void testTakeOverKeepsPixels() {
+    RasterImage raster = new RasterImage(5, 6);
+    raster.setRGBSpan(0, 0, 5, 6, packedPixels(source), 0, 6);
+    FrozenImage frozen = FrozenImage.takeOver(raster);
+    assertSamePixels(source, frozen);
+    assertFalse(raster.release());
+  }
+
+  @Test
+  public void testOperationOnFrozenImageGivesModifiableImage() {
+    FrozenImage frozen = FrozenImage.copyOf(source);
+    Image flipped = new HorizontalFlip().flipImage(frozen);
+    assertEquals(frozen.getRGB(0, 0), flipped.getRGB(5, 0));
+    flipped.setPixelValue(0, 0, 0, 7);
+    assertEquals(7, flipped.getRed(0, 0));
+  }
+
+  @Test
+  public void testModelFreezesResultsWithoutSharing() throws IOException {
+    RasterImage raster = new RasterImage(5, 6);
+    raster.setRGBSpan(0, 0, 5, 6, packedPixels(source), 0, 6);
+    ModelImpl model = new ModelImpl();
+    model.load(raster, "source");
+    model.horizontalFlip("source", "first");
+    model.horizontalFlip("source", "second");
+    model.verticalFlip("source", "other");
+
+    assertTrue(model.getFile("first") instanceof FrozenImage);
+    assertEquals(model.getFile("first"), model.getFile("second"));
+    assertNotSame(model.getFile("first"), model.getFile("second"));
+    assertNotEquals(model.getFile("first"), model.getFile("other"));
+  }
+
+  @Test
+  public void testReleaseGivesTakenOverBufferBack() {
+    RasterImage raster = new RasterImage(7, 11);
+    FrozenImage frozen = FrozenImage.takeOver(raster);
+    long retained = PixelBufferPool.getShared().getBytesRetained();
+    assertTrue(frozen.release());
+    assertFalse(frozen.release());
+    assertEquals(retained + 4 * 7 * 11, PixelBufferPool.getShared().getBytesRetained());
+    assertFalse(FrozenImage.copyOf(source).release());
+  }
+}
@@ -0,0 +1,212 @@
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import model.customimage.CustomImage;
+import model.customimage.Image;
+import model.customimage.ImageBlocks;
+import model.filter.GaussianBlur;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the box-filter Gaussian blur.
+ */
+public class GaussianBlurTest extends AbstractRandomImageTest {
+
+
+  public GaussianBlurTest() {
+    super(7);
+  }
+
+  /**
+   * Blurs one channel with the same box passes in doubles, without rounding between them.
+   */
+  private double[][] boxReference(Image image, int[] radii, int shift) {
+    int height = image.getHeight();
+    int width = image.getWidth();
+    double[][] values = new double[height][width];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        values[y][x] = (image.getRGB(x, y) >> shift) & 0xFF;
+      }
+    }
+    for (int radius : radii) {
+      double[][] next = new double[height][width];
+      for (int y = 0; y < height; y++) {
+        for (int x = 0; x < width; x++) {
+          double sum = 0;
+          int count = 0;
+          for (int xx = Math.max(0, x - radius); xx <= Math.min(width - 1, x + radius); xx++) {
+            sum += values[y][xx];
+            count++;
+          }
+          next[y][x] = sum / count;
+        }
+      }
+      values = next;
+    }
+    for (int radius : radii) {
+      double[][] next = new double[height][width];
+      for (int y = 0; y < height; y++) {
+        for (int x = 0; x < width; x++) {
+          double sum = 0;
+          int count = 0;
+          for (int yy = Math.max(0, y - radius); yy <= Math.min(height - 1, y + radius); yy++) {
+            sum += values[yy][x];
+            count++;
+          }
+          next[y][x] = sum / count;
+        }
+      }
+      values = next;
+    }
+    return values;
+  }
+
+  @Test
+  public void testConstantImageIsUnchanged() {
+    Image image = new CustomImage(50, 60);
+    int[] row = new int[60];
+    Arrays.fill(row, (10 << 16) | (200 << 8) | 90);
+    for (int y = 0; y < 50; y++) {
+      image.setRGBRow(y, 0, 60, row, 0);
+    }
+    Image blurred = new GaussianBlur(7).applyFilter(image);
+    for (int y = 0; y < 50; y++) {
+      for (int x = 0; x < 60; x++) {
+        assertEquals(10, blurred.getRed(y, x));
+        assertEquals(200, blurred.getGreen(y, x));
+        assertEquals(90, blurred.getBlue(y, x));
+      }
+    }
+  }
+
+  @Test
+  public void testBoxesMatchGaussianVariance() {
+    double[] sigmas = {0.8, 1, 2.5, 5, 12.3, 40};
+    for (double sigma : sigmas) {
+      int[] radii = new GaussianBlur(sigma).getBoxRadii();
+      assertEquals(3, radii.length);
+      double variance = 0;
+      int largest = 0;
+      for (int radius : radii) {
+        int width = 2 * radius + 1;
+        variance += (width * width - 1) / 12.0;
+        largest = Math.max(largest, radius);
+      }
+      // Swapping one box for the next odd width moves the variance by (4w + 4) / 12
+      assertTrue("sigma " + sigma,
+          Math.abs(variance - sigma * sigma) <= (2 * largest + 2) / 6.0 + 1e-9);
+    }
+  }
+
+  @Test
+  public void testMatchesExactBoxPasses() {
+    Image image = randomImage(41, 53);
+    GaussianBlur blur = new GaussianBlur(3);
+    Image blurred = blur.applyFilter(image);
+    for (int shift = 16; shift >= 0; shift -= 8) {
+      double[][] expected = boxReference(image, blur.getBoxRadii(), shift);
+      for (int y = 0; y < 41; y++) {
+        for (int x = 0; x < 53; x++) {
+          int actual = (blurred.getRGB(x, y) >> shift) & 0xFF;
+          assertEquals(expected[y][x], actual, 2);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testCloseToTrueGaussian() {
+    int height = 60;
+    int width = 80;
+    double sigma = 4;
+    Image image = new CustomImage(height, width);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int value = x < width / 2 ? 20 : 230;
+        image.setPixelValue(y, x, 0, value);
+      }
+    }
+    Image blurred = new GaussianBlur(sigma).applyFilter(image);
+    int radius = (int) Math.ceil(4 * sigma);
+    for (int x = radius; x < width - radius; x++) {
+      double sum = 0;
+      double weights = 0;
+      for (int xx = -radius; xx <= radius; xx++) {
+        double weight = Math.exp(-xx * xx / (2 * sigma * sigma));
+        sum += weight * (x + xx < width / 2 ? 20 : 230);
+        weights += weight;
+      }
+      assertEquals(sum / weights, blurred.getRed(height / 2, x), 6);
+    }
+  }
+
+  @Test
+  public void testLargeSigmaAveragesWholeImage() {
+    Image image = randomImage(20, 30);
+    double mean = 0;
+    for (int y = 0; y < 20; y++) {
+      for (int x = 0; x < 30; x++) {
+        mean += image.getGreen(y, x);
+      }
+    }
+    mean /= 20 * 30;
+    Image blurred = new GaussianBlur(1000).applyFilter(image);
+    for (int y = 0; y < 20; y++) {
+      for (int x = 0; x < 30; x++) {
+        assertEquals(mean, blurred.getGreen(y, x), 1);
+      }
+    }
+  }
+
+  @Test
+  public void testParallelMatchesSerial() {
+    Image image = randomImage(613, 701);
+    ImageBlocks.setParallelism(1);
+    Image serial = new GaussianBlur(6).applyFilter(image);
+    ImageBlocks.setParallelism(4);
+    Image parallel = new GaussianBlur(6).applyFilter(image);
+    for (int y = 0; y < 613; y++) {
+      for (int x = 0; x < 701; x++) {
+        assertEquals(serial.getRGB(x, y), parallel.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testSubImageMatchesCopy() {
+    Image image = randomImage(90, 110);
+    Image sub = image.getSubImage(10, 20, 50, 60);
+    Image copy = new CustomImage(50, 60);
+    int[] row = new int[60];
+    for (int y = 0; y < 50; y++) {
+      sub.getRGBRow(y, 0, 60, row, 0);
+      copy.setRGBRow(y, 0, 60, row, 0);
+    }
+    Image fromSub = new GaussianBlur(2).applyFilter(sub);
+    Image fromCopy = new GaussianBlur(2).applyFilter(copy);
+    for (int y = 0; y < 50; y++) {
+      for (int x = 0; x < 60; x++) {
+        assertEquals(fromCopy.getRGB(x, y), fromSub.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testZeroSigma() {
+    new GaussianBlur(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeSigma() {
+    new GaussianBlur(-1.5);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNaNSigma() {
+    new GaussianBlur(Double.NaN);
+  }
+}
@@ -66,6 +66,15 @@ public class GuiControllerTest {
     assertTrue(mockView.isDisplayImageMethodCalled());
   }
 
+  @Test
+  public void testHandleGaussianBlurButtonClick() {
+    mockView.setInput("3");
+    controller.handleButtonClick("gaussianBlur");
+
+    assertTrue(mockModel.isMethodCalled("gaussianBlur"));
+    assertTrue(mockView.isDisplayImageMethodCalled());
+  }
+
   @Test
   public void testHandleSharpenButtonClick() {
     controller.handleButtonClick("sharpen");
@@ -0,0 +1,222 @@
+import org.junit.Test;
+
+import model.colortransform.ChannelMix;
+import model.colortransform.Greyscale;
+import model.colortransform.Sepia;
+import model.customimage.CustomImage;
+import model.customimage.Image;
+import model.customimage.ImageBlocks;
+import model.customimage.TiledImage;
+import model.filter.BlurImage;
+import model.filter.GaussianBlur;
+import model.filter.ImageFilterTemplate;
+import model.filter.KernelFilter;
+import model.filter.SharpenImage;
+import model.pipeline.ImagePipeline;
+import model.processor.brightness.Brighten;
+import model.processor.brightness.Darken;
+import model.processor.channel.Luma;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+/**
+ * Tests that a pipeline streaming rows through its stages gives exactly what applying the stages
+ * one after another gives.
+ */
+public class ImagePipelineTest extends AbstractRandomImageTest {
+
+
+  /**
+   * A separable kernel whose factors are not dyadic, so it runs as two passes in doubles.
+   */
+  private static class SeparableFilter extends ImageFilterTemplate {
+    private final double[] column = {0.3, 0.45, 0.3};
+    private final double[] row = {-0.1, 0.35, 0.6, 0.35, -0.1};
+
+    @Override
+    public double[][] getKernel() {
+      double[][] kernel = new double[3][5];
+      for (int i = 0; i < 3; i++) {
+        for (int j = 0; j < 5; j++) {
+          kernel[i][j] = column[i] * row[j];
+        }
+      }
+      return kernel;
+    }
+
+    @Override
+    public double[][] getSeparableKernel() {
+      return new double[][]{column, row};
+    }
+  }
+
+  public ImagePipelineTest() {
+    super(17);
+  }
+
+  private double[][] randomKernel(int size) {
+    double[][] kernel = new double[size][size];
+    for (double[] row : kernel) {
+      for (int i = 0; i < size; i++) {
+        row[i] = (random.nextDouble() - 0.3) * 3 / (size * size);
+      }
+    }
+    return kernel;
+  }
+
+  private void assertSameImage(Image expected, Image actual) {
+    assertEquals(expected.getHeight(), actual.getHeight());
+    assertEquals(expected.getWidth(), actual.getWidth());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getRGB(x, y) & 0xFFFFFF, actual.getRGB(x, y) & 0xFFFFFF);
+      }
+    }
+  }
+
+  @Test
+  public void testBlurSharpenSepia() {
+    Image image = randomImage(new CustomImage(157, 211));
+    Image expected = new Sepia().applyColorTransform(
+        new SharpenImage().applyFilter(new BlurImage().applyFilter(image)));
+    Image actual = new ImagePipeline().addFilter(new BlurImage()).addFilter(new SharpenImage())
+        .addPixelOperation(new Sepia()).apply(image);
+    assertSameImage(expected, actual);
+  }
+
+  @Test
+  public void testMixedStages() {
+    Image image = randomImage(new CustomImage(131, 97));
+    KernelFilter random5 = new KernelFilter(randomKernel(5));
+    Image expected = new Brighten().adjustImage(image, 30);
+    expected = new SeparableFilter().applyFilter(expected);
+    expected = new Luma().applyChannel(expected);
+    expected = random5.applyFilter(expected);
+    expected = new Darken().adjustImage(expected, 12);
+    expected = new BlurImage().applyFilter(expected);
+    expected = new Greyscale().applyColorTransform(expected);
+    Image actual = new ImagePipeline()
+        .addPixelOperation(new Brighten().toPixelOperation(30))
+        .addFilter(new SeparableFilter())
+        .addPixelOperation(new Luma())
+        .addFilter(random5)
+        .addPixelOperation(new Darken().toPixelOperation(12))
+        .addFilter(new BlurImage())
+        .addPixelOperation(new Greyscale())
+        .apply(image);
+    assertSameImage(expected, actual);
+  }
+
+  @Test
+  public void testBarriers() {
+    Image image = randomImage(new CustomImage(120, 140));
+    KernelFilter large = new KernelFilter(randomKernel(15));
+    GaussianBlur gaussian = new GaussianBlur(1.5);
+    Image expected = new SharpenImage().applyFilter(image);
+    expected = large.applyFilter(expected);
+    expected = new BlurImage().applyFilter(expected);
+    expected = gaussian.applyFilter(expected);
+    Image actual = new ImagePipeline().addFilter(new SharpenImage()).addFilter(large)
+        .addFilter(new BlurImage()).addFilter(gaussian).apply(image);
+    assertSameImage(expected, actual);
+  }
+
+  @Test
+  public void testImagesShorterThanKernels() {
+    KernelFilter random7 = new KernelFilter(randomKernel(7));
+    for (int height = 1; height <= 4; height++) {
+      Image image = randomImage(new CustomImage(height, 23));
+      Image expected = new SharpenImage().applyFilter(random7.applyFilter(image));
+      Image actual = new ImagePipeline().addFilter(random7).addFilter(new SharpenImage())
+          .apply(image);
+      assertSameImage(expected, actual);
+    }
+  }
+
+  @Test
+  public void testParallelMatchesSerial() {
+    Image image = randomImage(new CustomImage(613, 701));
+    ImagePipeline pipeline = new ImagePipeline().addFilter(new BlurImage())
+        .addFilter(new SharpenImage()).addPixelOperation(new Sepia());
+    ImageBlocks.setParallelism(1);
+    Image serial = pipeline.apply(image);
+    ImageBlocks.setParallelism(4);
+    assertSameImage(serial, pipeline.apply(image));
+    assertSameImage(new Sepia().applyColorTransform(
+        new SharpenImage().applyFilter(new BlurImage().applyFilter(image))), serial);
+  }
+
+  @Test
+  public void testTiledImage() {
+    TiledImage tiled = new TiledImage(300, 280, 64, 96, 16L << 20, null);
+    randomImage(tiled);
+    Image expected = new Sepia().applyColorTransform(
+        new SharpenImage().applyFilter(new BlurImage().applyFilter(tiled)));
+    Image actual = new ImagePipeline().addFilter(new BlurImage()).addFilter(new SharpenImage())
+        .addPixelOperation(new Sepia()).apply(tiled);
+    assertSameImage(expected, actual);
+    tiled.dispose();
+  }
+
+  @Test
+  public void testEmptyPipelineCopies() {
+    Image image = randomImage(new CustomImage(20, 30));
+    Image copy = new ImagePipeline().apply(image);
+    assertNotSame(image, copy);
+    assertSameImage(image, copy);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullFilter() {
+    new ImagePipeline().addFilter(null);
+  }
+
+  @Test
+  public void testLinearColorMapsKeptApartByDefault() {
+    Image image = randomImage(new CustomImage(40, 60));
+    ImagePipeline pipeline = new ImagePipeline().addPixelOperation(new Luma())
+        .addPixelOperation(new Sepia());
+    assertEquals(2, pipeline.getStageCount());
+    assertSameImage(new Sepia().applyColorTransform(new Luma().applyChannel(image)),
+        pipeline.apply(image));
+  }
+
+  @Test
+  public void testCollapsedLinearColorMaps() {
+    Image image = randomImage(new CustomImage(40, 60));
+    ImagePipeline pipeline = new ImagePipeline().collapseLinearColorMaps()
+        .addPixelOperation(new Luma())
+        .addPixelOperation(new Greyscale())
+        .addPixelOperation(new Sepia());
+    assertEquals(1, pipeline.getStageCount());
+    Image expected = new Sepia().applyColorTransform(
+        new Greyscale().applyColorTransform(new Luma().applyChannel(image)));
+    Image actual = pipeline.apply(image);
+    for (int y = 0; y < 40; y++) {
+      for (int x = 0; x < 60; x++) {
+        for (int shift = 0; shift <= 16; shift += 8) {
+          assertEquals((expected.getRGB(x, y) >> shift) & 0xFF,
+              (actual.getRGB(x, y) >> shift) & 0xFF, 4);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testClampingColorMapIsCollapsed() {
+    Image image = randomImage(new CustomImage(40, 60));
+    ImagePipeline pipeline = new ImagePipeline().collapseLinearColorMaps()
+        .addPixelOperation(new Sepia())
+        .addPixelOperation(new Sepia());
+    assertEquals(1, pipeline.getStageCount());
+    // Sepia clamps bright pixels, which the composite only does once, at the end
+    assertSameImage(ChannelMix.compose(new Sepia(), new Sepia()).applyColorTransform(image),
+        pipeline.apply(image));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullPixelOperation() {
+    new ImagePipeline().addPixelOperation(null);
+  }
+}
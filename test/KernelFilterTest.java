@@ -0,0 +1,199 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import model.customimage.Image;
+import model.customimage.ImageBlocks;
+import model.filter.KernelFilter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for user-supplied kernels, convolved directly and in the frequency domain.
+ */
+public class KernelFilterTest extends AbstractRandomImageTest {
+
+  private Image image;
+
+  /**
+   * A kernel filter with a fixed threshold for the frequency domain.
+   */
+  private static class ThresholdFilter extends KernelFilter {
+    private final int threshold;
+
+    ThresholdFilter(double[][] kernel, int threshold) {
+      super(kernel);
+      this.threshold = threshold;
+    }
+
+    @Override
+    public int getFourierThreshold() {
+      return threshold;
+    }
+  }
+
+  public KernelFilterTest() {
+    super(11);
+  }
+
+  @Before
+  public void setUp() {
+    image = randomImage(97, 131);
+  }
+
+  private double[][] randomKernel(int size, double negativeShare) {
+    double[][] kernel = new double[size][size];
+    for (double[] row : kernel) {
+      for (int i = 0; i < size; i++) {
+        double weight = random.nextDouble() * 2 / (size * size);
+        row[i] = random.nextDouble() < negativeShare ? -weight : weight;
+      }
+    }
+    return kernel;
+  }
+
+  private Image direct(double[][] kernel, Image input) {
+    return new ThresholdFilter(kernel, Integer.MAX_VALUE).applyFilter(input);
+  }
+
+  private Image fourier(double[][] kernel, Image input) {
+    return new ThresholdFilter(kernel, 1).applyFilter(input);
+  }
+
+  /**
+   * Asserts that every channel is within one of the expected value, and that almost all are equal.
+   */
+  private void assertNearlySame(Image expected, Image actual) {
+    int differing = 0;
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        for (int shift = 16; shift >= 0; shift -= 8) {
+          int e = (expected.getRGB(x, y) >> shift) & 0xFF;
+          int a = (actual.getRGB(x, y) >> shift) & 0xFF;
+          assertEquals(e, a, 1);
+          if (e != a) {
+            differing++;
+          }
+        }
+      }
+    }
+    assertTrue(differing * 1000 < 3 * expected.getHeight() * expected.getWidth());
+  }
+
+  private void assertSameImage(Image expected, Image actual) {
+    assertEquals(expected.getHeight(), actual.getHeight());
+    assertEquals(expected.getWidth(), actual.getWidth());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testFourierIdentityIsExact() {
+    double[][] kernel = new double[15][15];
+    kernel[7][7] = 1;
+    assertSameImage(image, fourier(kernel, image));
+  }
+
+  @Test
+  public void testFourierShiftFillsWithZero() {
+    double[][] kernel = new double[5][5];
+    // Each output pixel takes the input two rows down and one column right
+    kernel[4][3] = 1;
+    Image shifted = fourier(kernel, image);
+    for (int y = 0; y < 97; y++) {
+      for (int x = 0; x < 131; x++) {
+        int expected = y + 2 < 97 && x + 1 < 131 ? image.getRGB(x + 1, y + 2) & 0xFFFFFF : 0;
+        assertEquals(expected, shifted.getRGB(x, y) & 0xFFFFFF);
+      }
+    }
+  }
+
+  @Test
+  public void testFourierMatchesDirect15() {
+    double[][] kernel = randomKernel(15, 0);
+    assertNearlySame(direct(kernel, image), fourier(kernel, image));
+  }
+
+  @Test
+  public void testFourierMatchesDirect31() {
+    double[][] kernel = randomKernel(31, 0);
+    assertNearlySame(direct(kernel, image), fourier(kernel, image));
+  }
+
+  @Test
+  public void testFourierClampsLikeDirect() {
+    double[][] kernel = randomKernel(9, 0.4);
+    kernel[4][4] += 2;
+    assertNearlySame(direct(kernel, image), fourier(kernel, image));
+  }
+
+  @Test
+  public void testLargeKernelUsesFourierByDefault() {
+    double[][] kernel = randomKernel(31, 0);
+    assertSameImage(fourier(kernel, image), new KernelFilter(kernel).applyFilter(image));
+  }
+
+  @Test
+  public void testSmallKernelMatchesDirect() {
+    double[][] kernel = randomKernel(3, 0.3);
+    assertSameImage(direct(kernel, image), new KernelFilter(kernel).applyFilter(image));
+  }
+
+  @Test
+  public void testFourierInParallel() {
+    Image large = randomImage(613, 701);
+    double[][] kernel = randomKernel(15, 0.2);
+    ImageBlocks.setParallelism(1);
+    Image serial = fourier(kernel, large);
+    ImageBlocks.setParallelism(4);
+    assertSameImage(serial, fourier(kernel, large));
+  }
+
+  @Test
+  public void testReadKernel() throws IOException {
+    KernelFilter filter = KernelFilter.read(new StringReader(
+        "# a 3x3 box\n0.1 0.1 0.1\n\n0.1 0.2 0.1\n  0.1 0.1 0.1  \n"));
+    double[][] kernel = filter.getKernel();
+    assertEquals(3, kernel.length);
+    assertArrayEquals(new double[]{0.1, 0.2, 0.1}, kernel[1], 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEvenKernel() {
+    new KernelFilter(new double[4][4]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNonSquareKernel() {
+    new KernelFilter(new double[3][5]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNonFiniteWeight() {
+    double[][] kernel = new double[3][3];
+    kernel[1][1] = Double.NaN;
+    new KernelFilter(kernel);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testReadRaggedKernel() throws IOException {
+    KernelFilter.read(new StringReader("1 0 0\n0 1\n0 0 1\n"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testReadInvalidWeight() throws IOException {
+    KernelFilter.read(new StringReader("1 0 0\n0 x 0\n0 0 1\n"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testReadEmptyKernel() throws IOException {
+    KernelFilter.read(new StringReader("# nothing\n"));
+  }
+}
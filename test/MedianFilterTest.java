@@ -0,0 +1,151 @@
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import model.customimage.CustomImage;
+import model.customimage.Image;
+import model.customimage.ImageBlocks;
+import model.customimage.TiledImage;
+import model.filter.MedianFilter;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that the histogram median filter gives the median of each channel over the window,
+ * clipped to the image, as sorting the window gives it.
+ */
+public class MedianFilterTest extends AbstractRandomImageTest {
+
+
+  public MedianFilterTest() {
+    super(23);
+  }
+
+  private Image randomImage(Image image, int levels) {
+    int width = image.getWidth();
+    int[] row = new int[width];
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < width; x++) {
+        row[x] = (random.nextInt(levels) << 16) | (random.nextInt(levels) << 8)
+            | random.nextInt(levels);
+      }
+      image.setRGBRow(y, 0, width, row, 0);
+    }
+    return image;
+  }
+
+  /**
+   * Takes the lower median of each channel over the clipped window by sorting it.
+   */
+  private int sortedMedian(Image image, int y, int x, int radius) {
+    int top = Math.max(0, y - radius);
+    int bottom = Math.min(image.getHeight() - 1, y + radius);
+    int left = Math.max(0, x - radius);
+    int right = Math.min(image.getWidth() - 1, x + radius);
+    int count = (bottom - top + 1) * (right - left + 1);
+    int result = 0;
+    for (int shift = 16; shift >= 0; shift -= 8) {
+      int[] values = new int[count];
+      int i = 0;
+      for (int yy = top; yy <= bottom; yy++) {
+        for (int xx = left; xx <= right; xx++) {
+          values[i++] = (image.getRGB(xx, yy) >> shift) & 0xFF;
+        }
+      }
+      Arrays.sort(values);
+      result |= values[(count - 1) / 2] << shift;
+    }
+    return result;
+  }
+
+  private void assertMatchesSorting(Image image, int radius) {
+    Image filtered = new MedianFilter(radius).applyFilter(image);
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        assertEquals(sortedMedian(image, y, x, radius), filtered.getRGB(x, y) & 0xFFFFFF);
+      }
+    }
+  }
+
+  private void assertSameImage(Image expected, Image actual) {
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testMatchesSorting() {
+    Image image = randomImage(new CustomImage(37, 53), 256);
+    assertMatchesSorting(image, 1);
+    assertMatchesSorting(image, 2);
+    assertMatchesSorting(image, 7);
+  }
+
+  @Test
+  public void testFewLevels() {
+    // Many equal values put the median on bin and level boundaries
+    assertMatchesSorting(randomImage(new CustomImage(41, 29), 3), 3);
+    assertMatchesSorting(randomImage(new CustomImage(41, 29), 40), 4);
+  }
+
+  @Test
+  public void testRadiusLargerThanImage() {
+    assertMatchesSorting(randomImage(new CustomImage(9, 6), 256), 20);
+    assertMatchesSorting(randomImage(new CustomImage(1, 30), 256), 5);
+    assertMatchesSorting(randomImage(new CustomImage(30, 1), 256), 5);
+  }
+
+  @Test
+  public void testRadiusZeroCopies() {
+    Image image = randomImage(new CustomImage(20, 30), 256);
+    assertSameImage(image, new MedianFilter(0).applyFilter(image));
+  }
+
+  @Test
+  public void testRemovesSaltAndPepper() {
+    Image image = new CustomImage(60, 80);
+    int[] row = new int[80];
+    for (int y = 0; y < 60; y++) {
+      for (int x = 0; x < 80; x++) {
+        double noise = random.nextDouble();
+        row[x] = noise < 0.05 ? 0 : noise < 0.1 ? 0xFFFFFF : 0x808080;
+      }
+      image.setRGBRow(y, 0, 80, row, 0);
+    }
+    Image filtered = new MedianFilter(2).applyFilter(image);
+    for (int y = 0; y < 60; y++) {
+      for (int x = 0; x < 80; x++) {
+        assertEquals(0x808080, filtered.getRGB(x, y) & 0xFFFFFF);
+      }
+    }
+  }
+
+  @Test
+  public void testParallelMatchesSerial() {
+    Image image = randomImage(new CustomImage(613, 701), 256);
+    ImageBlocks.setParallelism(1);
+    Image serial = new MedianFilter(6).applyFilter(image);
+    ImageBlocks.setParallelism(4);
+    assertSameImage(serial, new MedianFilter(6).applyFilter(image));
+    for (int y = 0; y < 613; y += 61) {
+      for (int x = 0; x < 701; x += 7) {
+        assertEquals(sortedMedian(image, y, x, 6), serial.getRGB(x, y) & 0xFFFFFF);
+      }
+    }
+  }
+
+  @Test
+  public void testTiledImage() {
+    TiledImage tiled = new TiledImage(90, 70, 32, 16, 16L << 20, null);
+    randomImage(tiled, 256);
+    assertMatchesSorting(tiled, 3);
+    tiled.dispose();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeRadius() {
+    new MedianFilter(-1);
+  }
+}
@@ -1,9 +1,13 @@
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import model.ModelGUI;
 import model.customimage.CustomImage;
 import model.customimage.Image;
+import model.pipeline.ImagePipeline;
+import model.pipeline.PixelOperation;
 
 /**
  * Creates a mock GUI model for testing the controller.
@@ -117,6 +121,44 @@ public class MockGuiModel implements ModelGUI {
     calledMethods.add("blur");
   }
 
+  @Override
+  public void gaussianBlur(double sigma, String imageName, String destImageName,
+                           double percentage) {
+    log.append("Input: " + sigma + " " + imageName + " " + destImageName + " " + percentage
+            + "\n");
+    calledMethods.add("gaussianBlur");
+  }
+
+  @Override
+  public void convolve(String kernelFile, String imageName, String destImageName,
+                       double percentage) {
+    log.append("Input: " + kernelFile + " " + imageName + " " + destImageName + " "
+            + percentage + "\n");
+    calledMethods.add("convolve");
+  }
+
+  @Override
+  public void median(int radius, String imageName, String destImageName) {
+    log.append("Input: " + radius + " " + imageName + " " + destImageName + "\n");
+    calledMethods.add("median");
+  }
+
+  @Override
+  public void bilateral(double sigmaSpace, double sigmaRange, String imageName,
+                        String destImageName, double percentage) {
+    log.append("Input: " + sigmaSpace + " " + sigmaRange + " " + imageName + " "
+            + destImageName + " " + percentage + "\n");
+    calledMethods.add("bilateral");
+  }
+
+  @Override
+  public void unsharp(double radius, double amount, int threshold, String imageName,
+                      String destImageName, double percentage) {
+    log.append("Input: " + radius + " " + amount + " " + threshold + " " + imageName + " "
+            + destImageName + " " + percentage + "\n");
+    calledMethods.add("unsharp");
+  }
+
   @Override
   public void sharpen(String imageName, String destImageName, double percentage) {
     log.append("Input: " + imageName + " " + destImageName + " " + percentage + "\n");
@@ -124,6 +166,14 @@ public class MockGuiModel implements ModelGUI {
 
   }
 
+  @Override
+  public void channelMix(double[][] matrix, String imageName, String destImageName,
+                         double percentage) {
+    log.append("Input: " + Arrays.deepToString(matrix) + " " + imageName + " "
+            + destImageName + " " + percentage + "\n");
+    calledMethods.add("channelMix");
+  }
+
   @Override
   public void sepia(String imageName, String destImageName, double percentage) {
     log.append("Input: " + imageName + " " + destImageName + " " + percentage + "\n");
@@ -186,4 +236,26 @@ public class MockGuiModel implements ModelGUI {
   public boolean isMethodCalled(String methodName) {
     return calledMethods.contains(methodName);
   }
+
+  @Override
+  public void crop(int x, int y, int width, int height, String imageName, String destImageName) {
+    log.append("Input: " + x + " " + y + " " + width + " " + height + " " + imageName + " "
+        + destImageName + "\n");
+    calledMethods.add("crop");
+  }
+
+  @Override
+  public void applyPixelOperations(List<PixelOperation> operations, String imageName,
+                                   String destImageName) {
+    log.append("Input: " + operations.size() + " operations " + imageName + " " + destImageName
+        + "\n");
+    calledMethods.add("applyPixelOperations");
+  }
+
+  @Override
+  public void applyPipeline(ImagePipeline pipeline, String imageName, String destImageName) {
+    log.append("Input: " + pipeline.getStageCount() + " stages " + imageName + " " + destImageName
+        + "\n");
+    calledMethods.add("applyPipeline");
+  }
 }
@@ -1,6 +1,11 @@
+import java.util.Arrays;
+import java.util.List;
+
 import model.Model;
 import model.customimage.CustomImage;
 import model.customimage.Image;
+import model.pipeline.ImagePipeline;
+import model.pipeline.PixelOperation;
 
 /**
  * Creates a mock model for testing the controller.
@@ -98,12 +103,52 @@ public class MockModel implements Model {
     log.append("Input: " + imageName + " " + destImageName + " " + percentage + "\n");
   }
 
+  @Override
+  public void gaussianBlur(double sigma, String imageName, String destImageName,
+                           double percentage) {
+    log.append("Input: " + sigma + " " + imageName + " " + destImageName + " " + percentage
+        + "\n");
+  }
+
+  @Override
+  public void convolve(String kernelFile, String imageName, String destImageName,
+                       double percentage) {
+    log.append("Input: " + kernelFile + " " + imageName + " " + destImageName + " "
+        + percentage + "\n");
+  }
+
+  @Override
+  public void median(int radius, String imageName, String destImageName) {
+    log.append("Input: " + radius + " " + imageName + " " + destImageName + "\n");
+  }
+
+  @Override
+  public void bilateral(double sigmaSpace, double sigmaRange, String imageName,
+                        String destImageName, double percentage) {
+    log.append("Input: " + sigmaSpace + " " + sigmaRange + " " + imageName + " "
+            + destImageName + " " + percentage + "\n");
+  }
+
+  @Override
+  public void unsharp(double radius, double amount, int threshold, String imageName,
+                      String destImageName, double percentage) {
+    log.append("Input: " + radius + " " + amount + " " + threshold + " " + imageName + " "
+            + destImageName + " " + percentage + "\n");
+  }
+
   @Override
   public void sharpen(String imageName, String destImageName, double percentage) {
     log.append("Input: " + imageName + " " + destImageName + " " + percentage + "\n");
 
   }
 
+  @Override
+  public void channelMix(double[][] matrix, String imageName, String destImageName,
+                         double percentage) {
+    log.append("Input: " + Arrays.deepToString(matrix) + " " + imageName + " "
+            + destImageName + " " + percentage + "\n");
+  }
+
   @Override
   public void sepia(String imageName, String destImageName, double percentage) {
     log.append("Input: " + imageName + " " + destImageName + " " + percentage + "\n");
@@ -131,4 +176,23 @@ public class MockModel implements Model {
         "Input: " + shadow + " " + mid + " " + highlight + " " + imageName + " " + destImageName
             + " " + percentage + "\n");
   }
+
+  @Override
+  public void crop(int x, int y, int width, int height, String imageName, String destImageName) {
+    log.append("Input: " + x + " " + y + " " + width + " " + height + " " + imageName + " "
+        + destImageName + "\n");
+  }
+
+  @Override
+  public void applyPixelOperations(List<PixelOperation> operations, String imageName,
+                                   String destImageName) {
+    log.append("Input: " + operations.size() + " operations " + imageName + " " + destImageName
+        + "\n");
+  }
+
+  @Override
+  public void applyPipeline(ImagePipeline pipeline, String imageName, String destImageName) {
+    log.append("Input: " + pipeline.getStageCount() + " stages " + imageName + " " + destImageName
+        + "\n");
+  }
 }
@@ -141,4 +141,39 @@ public class OperationalPreviewTest {
     Image image1 = new CustomImage(pixelData1.length, pixelData1[0].length);
     operationPreview.getNPercentImage(image1, -10);
   }
+
+  @Test
+  public void testSplitHalvesShareOriginalPixels() {
+    OperationPreview operationPreview = new OperationPreviewImpl();
+    Image[] images = operationPreview.getNPercentImage(this.inputImage, 40);
+    int newWidth = images[0].getWidth();
+    assertEquals(this.inputImage.getWidth(), newWidth + images[1].getWidth());
+    for (int y = 0; y < this.inputImage.getHeight(); y += 17) {
+      for (int x = 0; x < images[1].getWidth(); x += 13) {
+        assertEquals(this.inputImage.getRGB(newWidth + x, y), images[1].getRGB(x, y));
+      }
+    }
+
+    images[1].setPixelValue(0, 0, 0, 7);
+    assertEquals(7, this.inputImage.getRed(0, newWidth));
+  }
+
+  @Test
+  public void testSubImageOfSubImage() {
+    Image view = this.inputImage.getSubImage(10, 20, 30, 40).getSubImage(5, 6, 7, 8);
+    assertEquals(7, view.getHeight());
+    assertEquals(8, view.getWidth());
+    int[] row = new int[8];
+    view.getRGBRow(3, 0, 8, row, 0);
+    for (int x = 0; x < 8; x++) {
+      assertEquals(this.inputImage.getRGB(26 + x, 18), row[x]);
+    }
+    assertEquals(this.inputImage.getRGB(26, 15), view.convertMatrixToImage().getRGB(0, 0)
+        & 0xFFFFFF);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSubImageOutsideImage() {
+    this.inputImage.getSubImage(0, 1, this.inputImage.getHeight(), this.inputImage.getWidth());
+  }
 }
@@ -0,0 +1,69 @@
+import org.junit.Test;
+
+import model.customimage.CustomImage;
+import model.customimage.Image;
+import model.customimage.ImageBlocks;
+import model.customimage.TiledImage;
+import model.processor.channel.AbstractChannel;
+import model.processor.channel.Intensity;
+import model.processor.channel.Luma;
+import model.processor.channel.Value;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that luma, value and intensity give the same result whether their rows are worked on one
+ * thread or many.
+ */
+public class ParallelChannelTest extends AbstractRandomImageTest {
+
+  private static final int HEIGHT = 613;
+  private static final int WIDTH = 701;
+
+
+  public ParallelChannelTest() {
+    super(43);
+  }
+
+  private void assertParallelMatchesOperation(AbstractChannel channel, Image input) {
+    ImageBlocks.setParallelism(1);
+    Image serial = channel.applyChannel(input);
+    ImageBlocks.setParallelism(4);
+    Image parallel = channel.applyChannel(input);
+    for (int y = 0; y < input.getHeight(); y++) {
+      for (int x = 0; x < input.getWidth(); x++) {
+        int rgb = input.getRGB(x, y);
+        int grey = channel.getOperation((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+        int expected = (grey << 16) | (grey << 8) | grey;
+        assertEquals(expected, serial.getRGB(x, y) & 0xFFFFFF);
+        assertEquals(expected, parallel.getRGB(x, y) & 0xFFFFFF);
+      }
+    }
+  }
+
+  @Test
+  public void testLumaInParallel() {
+    assertParallelMatchesOperation(new Luma(), randomImage(new CustomImage(HEIGHT, WIDTH)));
+  }
+
+  @Test
+  public void testValueInParallel() {
+    assertParallelMatchesOperation(new Value(), randomImage(new CustomImage(HEIGHT, WIDTH)));
+  }
+
+  @Test
+  public void testIntensityInParallel() {
+    assertParallelMatchesOperation(new Intensity(), randomImage(new CustomImage(HEIGHT, WIDTH)));
+  }
+
+  @Test
+  public void testTiledImageInParallel() {
+    TiledImage tiled = new TiledImage(HEIGHT, WIDTH, 100, 128, 64L << 20, null);
+    assertParallelMatchesOperation(new Luma(), randomImage(tiled));
+  }
+
+  @Test
+  public void testSmallImage() {
+    assertParallelMatchesOperation(new Luma(), randomImage(new CustomImage(7, 5)));
+  }
+}
@@ -0,0 +1,85 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import model.customimage.Image;
+import model.customimage.ImageBlocks;
+import model.customimage.TiledImage;
+import model.filter.BlurImage;
+import model.filter.ImageFilters;
+import model.filter.SharpenImage;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that filters give the same result whether their blocks are convolved on one thread or
+ * many.
+ */
+public class ParallelFilterTest extends AbstractRandomImageTest {
+
+  private static final int HEIGHT = 613;
+  private static final int WIDTH = 701;
+
+  private Image image;
+
+  public ParallelFilterTest() {
+    super(42);
+  }
+
+  @Before
+  public void setUp() {
+    image = randomImage(HEIGHT, WIDTH);
+  }
+
+  private void assertSameImage(Image expected, Image actual) {
+    assertEquals(expected.getHeight(), actual.getHeight());
+    assertEquals(expected.getWidth(), actual.getWidth());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+  }
+
+  private void assertParallelMatchesSerial(ImageFilters filter, Image input) {
+    ImageBlocks.setParallelism(1);
+    Image serial = filter.applyFilter(input);
+    ImageBlocks.setParallelism(4);
+    Image parallel = filter.applyFilter(input);
+    assertSameImage(serial, parallel);
+  }
+
+  @Test
+  public void testBlurInParallel() {
+    assertParallelMatchesSerial(new BlurImage(), image);
+  }
+
+  @Test
+  public void testSharpenInParallel() {
+    assertParallelMatchesSerial(new SharpenImage(), image);
+  }
+
+  @Test
+  public void testTiledImageInParallel() {
+    TiledImage tiled = new TiledImage(HEIGHT, WIDTH, 100, 128, 64L << 20, null);
+    int[] row = new int[WIDTH];
+    for (int y = 0; y < HEIGHT; y++) {
+      image.getRGBRow(y, 0, WIDTH, row, 0);
+      tiled.setRGBRow(y, 0, WIDTH, row, 0);
+    }
+    assertParallelMatchesSerial(new SharpenImage(), tiled);
+    ImageBlocks.setParallelism(4);
+    assertSameImage(new SharpenImage().applyFilter(image), new SharpenImage().applyFilter(tiled));
+    tiled.dispose();
+  }
+
+  @Test
+  public void testSmallImageStaysSerial() {
+    Image small = image.getSubImage(0, 0, 10, 10);
+    assertParallelMatchesSerial(new BlurImage(), small);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidParallelism() {
+    ImageBlocks.setParallelism(0);
+  }
+}
@@ -0,0 +1,145 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import model.ModelImpl;
+import model.customimage.Image;
+import model.customimage.PixelBufferPool;
+import model.customimage.RasterImage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the PixelBufferPool and the images and model that recycle buffers through it.
+ */
+public class PixelBufferPoolTest {
+
+  private PixelBufferPool pool;
+
+  @Before
+  public void setUp() {
+    pool = new PixelBufferPool(1024);
+  }
+
+  @Test
+  public void testAcquireAllocatesWhenEmpty() {
+    int[] buffer = pool.acquire(16);
+    assertEquals(16, buffer.length);
+    assertEquals(0, pool.getHits());
+    assertEquals(1, pool.getMisses());
+  }
+
+  @Test
+  public void testReleasedBufferIsReusedAndZeroed() {
+    int[] buffer = pool.acquire(16);
+    buffer[3] = 0xABCDEF;
+    pool.release(buffer);
+    assertEquals(64, pool.getBytesRetained());
+
+    int[] reused = pool.acquire(16);
+    assertSame(buffer, reused);
+    assertEquals(0, reused[3]);
+    assertEquals(1, pool.getHits());
+    assertEquals(0, pool.getBytesRetained());
+  }
+
+  @Test
+  public void testBuffersAreKeyedByLength() {
+    int[] buffer = pool.acquire(16);
+    pool.release(buffer);
+    assertNotSame(buffer, pool.acquire(32));
+    assertEquals(2, pool.getMisses());
+  }
+
+  @Test
+  public void testReleaseBeyondCapIsDropped() {
+    pool.release(new int[200]);
+    pool.release(new int[200]);
+    assertEquals(800, pool.getBytesRetained());
+  }
+
+  @Test
+  public void testClear() {
+    pool.release(new int[16]);
+    pool.clear();
+    assertEquals(0, pool.getBytesRetained());
+    pool.acquire(16);
+    assertEquals(0, pool.getHits());
+  }
+
+  @Test
+  public void testExposedRasterImageIsNotReleased() {
+    RasterImage image = new RasterImage(4, 5);
+    image.convertMatrixToImage();
+    assertFalse(image.release());
+  }
+
+  @Test
+  public void testRasterImageReleasesOnce() {
+    RasterImage image = new RasterImage(4, 5);
+    assertTrue(image.release());
+    assertFalse(image.release());
+  }
+
+  @Test
+  public void testConvertedBufferedImageReleasesItsBuffer() {
+    BufferedImage source = new BufferedImage(6, 4, BufferedImage.TYPE_3BYTE_BGR);
+    RasterImage image = RasterImage.fromBufferedImage(source);
+    long retained = PixelBufferPool.getShared().getBytesRetained();
+    assertTrue(image.release());
+    assertEquals(retained + 4 * 6 * 4, PixelBufferPool.getShared().getBytesRetained());
+  }
+
+  @Test
+  public void testWrappedBufferedImageIsNotReleased() {
+    BufferedImage source = new BufferedImage(6, 4, BufferedImage.TYPE_INT_RGB);
+    assertFalse(RasterImage.fromBufferedImage(source).release());
+  }
+
+  @Test
+  public void testModelRecyclesOverwrittenImage() throws IOException {
+    ModelImpl model = new ModelImpl();
+    RasterImage source = new RasterImage(7, 9);
+    source.setPixelValue(2, 3, 0, 200);
+    model.load(source, "source");
+    model.verticalFlip("source", "flipped");
+
+    long retained = PixelBufferPool.getShared().getBytesRetained();
+    model.horizontalFlip("source", "flipped");
+    assertEquals(retained + 4 * 7 * 9, PixelBufferPool.getShared().getBytesRetained());
+
+    // The loaded image was handed in from outside, so overwriting it keeps its pixels
+    retained = PixelBufferPool.getShared().getBytesRetained();
+    model.verticalFlip("flipped", "source");
+    assertEquals(retained, PixelBufferPool.getShared().getBytesRetained() + 4 * 7 * 9);
+    assertEquals(200, source.getRed(2, 3));
+  }
+
+  @Test
+  public void testModelKeepsParentOfEscapedView() throws IOException {
+    ModelImpl model = new ModelImpl();
+    RasterImage source = new RasterImage(7, 9);
+    for (int y = 0; y < 7; y++) {
+      for (int x = 0; x < 9; x++) {
+        source.setPixelValue(y, x, 0, 200);
+      }
+    }
+    model.load(source, "source");
+    model.verticalFlip("source", "flipped");
+    model.crop(1, 1, 3, 3, "flipped", "view");
+    Image view = model.getFile("view");
+
+    // Neither the view nor its parent is stored any more, but the view is still held outside
+    PixelBufferPool.getShared().clear();
+    model.horizontalFlip("source", "view");
+    model.horizontalFlip("source", "flipped");
+    assertEquals(0, PixelBufferPool.getShared().getBytesRetained());
+    assertEquals(200, view.getRed(0, 0));
+  }
+}
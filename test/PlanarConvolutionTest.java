@@ -0,0 +1,107 @@
+import org.junit.Test;
+
+import model.customimage.CustomImage;
+import model.customimage.Image;
+import model.customimage.TiledImage;
+import model.filter.BlurImage;
+import model.filter.ImageFilterTemplate;
+import model.filter.ImageFilters;
+import model.filter.SharpenImage;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that the planar interior loops of the 2D convolution give exactly what the scalar loops
+ * give, for kernels run in doubles and in fixed point.
+ */
+public class PlanarConvolutionTest extends AbstractRandomImageTest {
+
+  /**
+   * A kernel applied as a full 2D convolution, skipping the separable and Fourier paths.
+   */
+  private static class FullConvolution extends ImageFilterTemplate {
+    private final double[][] kernel;
+
+    FullConvolution(double[][] kernel) {
+      this.kernel = kernel;
+    }
+
+    @Override
+    public double[][] getKernel() {
+      return kernel;
+    }
+
+    @Override
+    public double[][] getSeparableKernel() {
+      return null;
+    }
+
+    @Override
+    public int getFourierThreshold() {
+      return Integer.MAX_VALUE;
+    }
+  }
+
+  public PlanarConvolutionTest() {
+    super(5);
+  }
+
+  private double[][] randomKernel(int size) {
+    double[][] kernel = new double[size][size];
+    for (double[] row : kernel) {
+      for (int i = 0; i < size; i++) {
+        row[i] = (random.nextDouble() - 0.3) * 3 / (size * size);
+      }
+    }
+    return kernel;
+  }
+
+  private void assertPlanarMatchesScalar(ImageFilters filter, Image input) {
+    ImageFilterTemplate.setPlanarConvolution(false);
+    Image scalar = filter.applyFilter(input);
+    ImageFilterTemplate.setPlanarConvolution(true);
+    Image planar = filter.applyFilter(input);
+    for (int y = 0; y < input.getHeight(); y++) {
+      for (int x = 0; x < input.getWidth(); x++) {
+        assertEquals(scalar.getRGB(x, y), planar.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testDoubleKernels() {
+    Image image = randomImage(new CustomImage(157, 211));
+    assertPlanarMatchesScalar(new FullConvolution(randomKernel(3)), image);
+    assertPlanarMatchesScalar(new FullConvolution(randomKernel(5)), image);
+    assertPlanarMatchesScalar(new FullConvolution(randomKernel(9)), image);
+  }
+
+  @Test
+  public void testFixedPointKernels() {
+    Image image = randomImage(new CustomImage(157, 211));
+    assertPlanarMatchesScalar(new FullConvolution(new BlurImage().getKernel()), image);
+    assertPlanarMatchesScalar(new SharpenImage(), image);
+    double[][] sevenths = new double[7][7];
+    for (double[] row : sevenths) {
+      for (int i = 0; i < 7; i++) {
+        row[i] = (random.nextInt(9) - 3) / 64.0;
+      }
+    }
+    assertPlanarMatchesScalar(new FullConvolution(sevenths), image);
+  }
+
+  @Test
+  public void testImagesNarrowerThanKernel() {
+    assertPlanarMatchesScalar(new SharpenImage(), randomImage(new CustomImage(3, 40)));
+    assertPlanarMatchesScalar(new FullConvolution(randomKernel(5)),
+        randomImage(new CustomImage(40, 4)));
+  }
+
+  @Test
+  public void testTiledImage() {
+    TiledImage tiled = new TiledImage(300, 280, 64, 96, 16L << 20, null);
+    randomImage(tiled);
+    assertPlanarMatchesScalar(new FullConvolution(randomKernel(5)), tiled);
+    tiled.dispose();
+  }
+}
@@ -0,0 +1,187 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import controller.handler.ImageFileHandler;
+import controller.handler.JPEGFileHandler;
+import model.adjustment.LevelAdjustmentImpl;
+import model.colortransform.Greyscale;
+import model.colortransform.Sepia;
+import model.compression.HaarWaveletCompressionImpl;
+import model.customimage.Image;
+import model.customimage.ImageStorage;
+import model.customimage.PlanarImage;
+import model.filter.BlurImage;
+import model.filter.SharpenImage;
+import model.histogram.ColorCorrection;
+import model.histogram.VisualizeHistogram;
+import model.preview.OperationPreview;
+import model.preview.OperationPreviewImpl;
+import model.processor.brightness.Brighten;
+import model.processor.brightness.Darken;
+import model.processor.channel.Intensity;
+import model.processor.channel.Luma;
+import model.processor.channel.Value;
+import model.processor.colorcombiner.ImageColorCombinerImpl;
+import model.processor.colorcomponent.Blue;
+import model.processor.colorcomponent.Green;
+import model.processor.colorcomponent.Red;
+import model.processor.flip.HorizontalFlip;
+import model.processor.flip.VerticalFlip;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that a PlanarImage gives the same results as a CustomImage for every operation.
+ */
+public class PlanarImageTest {
+
+  private Image packedImage;
+  private Image planarImage;
+
+  @Before
+  public void setUp() {
+    ImageFileHandler fileHandler = new JPEGFileHandler();
+    try {
+      this.packedImage = fileHandler.loadImage("res/train.jpg", ImageStorage.PACKED);
+      this.planarImage = fileHandler.loadImage("res/train.jpg", ImageStorage.PLANAR);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void assertSameImage(Image expected, Image actual) {
+    assertEquals(expected.getHeight(), actual.getHeight());
+    assertEquals(expected.getWidth(), actual.getWidth());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testLoad() {
+    assertTrue(planarImage instanceof PlanarImage);
+    assertSameImage(packedImage, planarImage);
+  }
+
+  @Test
+  public void testSetAndGetPixelValue() {
+    Image image = new PlanarImage(2, 3);
+    image.setPixelValue(1, 2, 0, 300);
+    image.setPixelValue(1, 2, 1, 128);
+    image.setPixelValue(1, 2, 2, -4);
+    assertEquals(255, image.getRed(1, 2));
+    assertEquals(128, image.getGreen(1, 2));
+    assertEquals(0, image.getBlue(1, 2));
+    assertEquals(0xFF8000, image.getRGB(2, 1));
+    assertEquals(128, image.getPixelData()[1][2][1]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidComponent() {
+    new PlanarImage(2, 2).getPixelValue(0, 0, 3);
+  }
+
+  @Test
+  public void testColorComponents() {
+    assertSameImage(new Red().getColorComponent(packedImage),
+        new Red().getColorComponent(planarImage));
+    assertSameImage(new Green().getColorComponent(packedImage),
+        new Green().getColorComponent(planarImage));
+    assertSameImage(new Blue().getColorComponent(packedImage),
+        new Blue().getColorComponent(planarImage));
+  }
+
+  @Test
+  public void testChannels() {
+    assertSameImage(new Value().applyChannel(packedImage), new Value().applyChannel(planarImage));
+    assertSameImage(new Luma().applyChannel(packedImage), new Luma().applyChannel(planarImage));
+    assertSameImage(new Intensity().applyChannel(packedImage),
+        new Intensity().applyChannel(planarImage));
+  }
+
+  @Test
+  public void testCombine() {
+    Image expected = new ImageColorCombinerImpl().combineColorComponent(
+        new Red().getColorComponent(packedImage), new Green().getColorComponent(packedImage),
+        new Blue().getColorComponent(packedImage));
+    Image actual = new ImageColorCombinerImpl().combineColorComponent(
+        new Red().getColorComponent(planarImage), new Green().getColorComponent(planarImage),
+        new Blue().getColorComponent(planarImage));
+    assertSameImage(expected, actual);
+  }
+
+  @Test
+  public void testFlips() {
+    assertSameImage(new HorizontalFlip().flipImage(packedImage),
+        new HorizontalFlip().flipImage(planarImage));
+    assertSameImage(new VerticalFlip().flipImage(packedImage),
+        new VerticalFlip().flipImage(planarImage));
+  }
+
+  @Test
+  public void testBrightness() {
+    assertSameImage(new Brighten().adjustImage(packedImage, 40),
+        new Brighten().adjustImage(planarImage, 40));
+    assertSameImage(new Darken().adjustImage(packedImage, 40),
+        new Darken().adjustImage(planarImage, 40));
+  }
+
+  @Test
+  public void testFilters() {
+    assertSameImage(new BlurImage().applyFilter(packedImage),
+        new BlurImage().applyFilter(planarImage));
+    assertSameImage(new SharpenImage().applyFilter(packedImage),
+        new SharpenImage().applyFilter(planarImage));
+  }
+
+  @Test
+  public void testColorTransforms() {
+    assertSameImage(new Sepia().applyColorTransform(packedImage),
+        new Sepia().applyColorTransform(planarImage));
+    assertSameImage(new Greyscale().applyColorTransform(packedImage),
+        new Greyscale().applyColorTransform(planarImage));
+  }
+
+  @Test
+  public void testCompression() {
+    assertSameImage(new HaarWaveletCompressionImpl().applyHaarCompression(packedImage, 60),
+        new HaarWaveletCompressionImpl().applyHaarCompression(planarImage, 60));
+  }
+
+  @Test
+  public void testHistogramAndColorCorrection() {
+    assertSameImage(new VisualizeHistogram().histogramOperation(packedImage),
+        new VisualizeHistogram().histogramOperation(planarImage));
+    assertSameImage(new ColorCorrection().histogramOperation(packedImage),
+        new ColorCorrection().histogramOperation(planarImage));
+  }
+
+  @Test
+  public void testLevelAdjustment() {
+    Image expected = new LevelAdjustmentImpl().adjustImageLevels(packedImage, 20, 100, 220);
+    Image actual = new LevelAdjustmentImpl().adjustImageLevels(planarImage, 20, 100, 220);
+    assertTrue(actual instanceof PlanarImage);
+    assertSameImage(expected, actual);
+  }
+
+  @Test
+  public void testPreview() {
+    OperationPreview operationPreview = new OperationPreviewImpl();
+    Image[] packedHalves = operationPreview.getNPercentImage(packedImage, 40);
+    Image[] planarHalves = operationPreview.getNPercentImage(planarImage, 40);
+    assertSameImage(operationPreview.concatenateImages(packedHalves[0], packedHalves[1]),
+        operationPreview.concatenateImages(planarHalves[0], planarHalves[1]));
+  }
+
+  @Test
+  public void testConvertMatrixToImage() {
+    Image roundTrip = new PlanarImage(packedImage.getHeight(), packedImage.getWidth());
+    roundTrip.setPixelValuesFromBufferedImage(planarImage.convertMatrixToImage());
+    assertSameImage(packedImage, roundTrip);
+  }
+}
@@ -0,0 +1,161 @@
+import org.junit.Test;
+
+import model.adjustment.LevelAdjustmentImpl;
+import model.customimage.CustomImage;
+import model.customimage.Image;
+import model.customimage.ImageBlocks;
+import model.customimage.TiledImage;
+import model.pipeline.ImagePipeline;
+import model.pipeline.PointOperation;
+import model.processor.brightness.Brighten;
+import model.processor.brightness.Darken;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that point operations compiled into lookup tables map pixels as their curves do.
+ */
+public class PointOperationTest extends AbstractRandomImageTest {
+
+
+  public PointOperationTest() {
+    super(37);
+  }
+
+  private void assertSameImage(Image expected, Image actual) {
+    assertEquals(expected.getHeight(), actual.getHeight());
+    assertEquals(expected.getWidth(), actual.getWidth());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getRGB(x, y) & 0xFFFFFF, actual.getRGB(x, y) & 0xFFFFFF);
+      }
+    }
+  }
+
+  @Test
+  public void testCurvesClamped() {
+    PointOperation operation = PointOperation.compile(level -> 3 * level - 200,
+        level -> 255 - level, level -> level * level);
+    for (int level = 0; level < 256; level++) {
+      assertEquals(Math.max(0, Math.min(255, 3 * level - 200)), operation.map(0, level));
+      assertEquals(255 - level, operation.map(1, level));
+      assertEquals(Math.min(255, level * level), operation.map(2, level));
+    }
+  }
+
+  @Test
+  public void testApplyToPixels() {
+    PointOperation operation = PointOperation.compile(level -> level / 2,
+        level -> level + 7, level -> 255 - level);
+    int[] pixels = {0x000000, 0xFFFFFF, 0x12F3A0, 0x80FA05};
+    operation.applyToPixels(pixels, 1, 2);
+    assertEquals(0x000000, pixels[0]);
+    assertEquals(0x7FFF00, pixels[1]);
+    assertEquals(0x09FA5F, pixels[2]);
+    assertEquals(0x80FA05, pixels[3]);
+  }
+
+  @Test
+  public void testBrightnessMatchesArithmetic() {
+    for (int constant : new int[]{0, 1, 50, 255, 300, Integer.MAX_VALUE}) {
+      PointOperation brighten = new Brighten().toPixelOperation(constant);
+      PointOperation darken = new Darken().toPixelOperation(constant);
+      for (int level = 0; level < 256; level++) {
+        long brighter = (long) level + constant;
+        long darker = (long) level - constant;
+        assertEquals(Math.min(255, brighter), brighten.map(1, level));
+        assertEquals(Math.max(0, darker), darken.map(1, level));
+      }
+    }
+  }
+
+  @Test
+  public void testLevelsMatchQuadratic() {
+    PointOperation levels = new LevelAdjustmentImpl().toPointOperation(20, 100, 230);
+    // The curve through (20, 0), (100, 128) and (230, 255)
+    assertEquals(0, levels.map(0, 20));
+    assertEquals(128, levels.map(1, 100));
+    assertEquals(255, levels.map(2, 230));
+    assertEquals(0, levels.map(0, 5));
+    assertEquals(255, levels.map(2, 250));
+  }
+
+  @Test
+  public void testAndThen() {
+    PointOperation first = PointOperation.compile(level -> level + 40,
+        level -> level * 2, level -> 255 - level);
+    PointOperation second = new LevelAdjustmentImpl().toPointOperation(10, 128, 240);
+    PointOperation combined = first.andThen(second);
+    for (int channel = 0; channel < 3; channel++) {
+      for (int level = 0; level < 256; level++) {
+        assertEquals(second.map(channel, first.map(channel, level)),
+            combined.map(channel, level));
+      }
+    }
+  }
+
+  @Test
+  public void testApplyParallelMatchesSerial() {
+    Image image = randomImage(new CustomImage(613, 701));
+    PointOperation operation = new LevelAdjustmentImpl().toPointOperation(30, 90, 200);
+    ImageBlocks.setParallelism(1);
+    Image serial = operation.apply(image);
+    ImageBlocks.setParallelism(4);
+    assertSameImage(serial, operation.apply(image));
+    int[] row = new int[701];
+    for (int y = 0; y < 613; y++) {
+      image.getRGBRow(y, 0, 701, row, 0);
+      operation.applyToPixels(row, 0, 701);
+      for (int x = 0; x < 701; x++) {
+        assertEquals(row[x], serial.getRGB(x, y) & 0xFFFFFF);
+      }
+    }
+  }
+
+  @Test
+  public void testTiledImage() {
+    TiledImage tiled = new TiledImage(150, 200, 64, 48, 16L << 20, null);
+    randomImage(tiled);
+    PointOperation operation = new Brighten().toPixelOperation(25);
+    Image result = operation.apply(tiled);
+    for (int y = 0; y < 150; y++) {
+      for (int x = 0; x < 200; x++) {
+        int pixel = tiled.getRGB(x, y);
+        int adjusted = 0;
+        for (int shift = 16; shift >= 0; shift -= 8) {
+          adjusted |= Math.min(255, ((pixel >> shift) & 0xFF) + 25) << shift;
+        }
+        assertEquals(adjusted, result.getRGB(x, y) & 0xFFFFFF);
+      }
+    }
+    tiled.dispose();
+  }
+
+  @Test
+  public void testPipelineCombinesPointOperations() {
+    Image image = randomImage(new CustomImage(80, 90));
+    ImagePipeline pipeline = new ImagePipeline()
+        .addPixelOperation(new Brighten().toPixelOperation(40))
+        .addPixelOperation(new LevelAdjustmentImpl().toPointOperation(20, 100, 230))
+        .addPixelOperation(new Darken().toPixelOperation(15));
+    assertEquals(1, pipeline.getStageCount());
+    Image expected = new Darken().adjustImage(new LevelAdjustmentImpl().adjustImageLevels(
+        new Brighten().adjustImage(image, 40), 20, 100, 230), 15);
+    assertSameImage(expected, pipeline.apply(image));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullCurve() {
+    PointOperation.compile(level -> level, null, level -> level);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testChannelOutOfRange() {
+    PointOperation.compile(level -> level).map(3, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidLevels() {
+    new LevelAdjustmentImpl().toPointOperation(100, 50, 200);
+  }
+}
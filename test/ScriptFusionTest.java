@@ -0,0 +1,191 @@
+import org.junit.Test;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.Random;
+
+import controller.ControllerImpl;
+import model.Model;
+import model.ModelImpl;
+import model.colortransform.ChannelMix;
+import model.colortransform.LinearColorMap;
+import model.colortransform.Sepia;
+import model.customimage.CustomImage;
+import model.customimage.Image;
+import model.processor.channel.Intensity;
+import model.processor.channel.Luma;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that a script whose per-pixel commands are fused gives the same images as the same
+ * commands typed in one at a time, which are never fused. Color commands in a row are collapsed
+ * into one channel mix when fused, so for those the typed script gives that channel mix instead.
+ */
+public class ScriptFusionTest {
+
+  private Model loadedModel(Image image) throws Exception {
+    Model model = new ModelImpl();
+    model.load(image, "source");
+    return model;
+  }
+
+  private void assertSameResults(String script, String... names) throws Exception {
+    assertMatchesTyped(script, script, names);
+  }
+
+  /**
+   * Runs a script fused and another typed in one at a time, and checks the named images match.
+   */
+  private void assertMatchesTyped(String script, String typedScript, String... names)
+      throws Exception {
+    Image image = new CustomImage(97, 131);
+    Random random = new Random(41);
+    int[] row = new int[131];
+    for (int y = 0; y < 97; y++) {
+      for (int x = 0; x < 131; x++) {
+        row[x] = random.nextInt(1 << 24);
+      }
+      image.setRGBRow(y, 0, 131, row, 0);
+    }
+
+    Model typed = loadedModel(image);
+    new ControllerImpl(new StringReader(typedScript), new StringBuffer()).execute(typed,
+        new String[]{"-text"});
+    File file = File.createTempFile("script", ".txt");
+    file.deleteOnExit();
+    Files.write(file.toPath(), script.getBytes());
+    Model fused = loadedModel(image);
+    new ControllerImpl(new StringReader(""), new StringBuffer()).execute(fused,
+        new String[]{"-file", file.getPath()});
+
+    for (String name : names) {
+      Image expected = typed.getFile(name);
+      Image actual = fused.getFile(name);
+      for (int y = 0; y < 97; y++) {
+        for (int x = 0; x < 131; x++) {
+          assertEquals(expected.getRGB(x, y) & 0xFFFFFF, actual.getRGB(x, y) & 0xFFFFFF);
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the arguments of a channel-mix command for the composite of color maps applied in turn.
+   */
+  private static String mix(LinearColorMap... maps) {
+    LinearColorMap composite = maps[0];
+    for (int i = 1; i < maps.length; i++) {
+      composite = ChannelMix.compose(composite, maps[i]);
+    }
+    StringBuilder arguments = new StringBuilder();
+    for (double[] kernelRow : composite.getKernel()) {
+      for (double entry : kernelRow) {
+        arguments.append(entry).append(' ');
+      }
+    }
+    return arguments.toString();
+  }
+
+  @Test
+  public void testColorGradingScript() throws Exception {
+    assertMatchesTyped("brighten 10 source a\n"
+        + "levels-adjust 20 100 230 a b\n"
+        + "sepia b c\n"
+        + "luma-component c graded\n",
+        "brighten 10 source a\n"
+        + "levels-adjust 20 100 230 a b\n"
+        + "channel-mix " + mix(new Sepia(), new Luma()) + "b graded\n", "graded");
+  }
+
+  @Test
+  public void testEveryPixelCommand() throws Exception {
+    assertMatchesTyped("brighten -20 source a\n"
+        + "green-component a b\n"
+        + "levels-adjust 5 60 200 b c\n"
+        + "value-component c d\n"
+        + "brighten 30 d e\n"
+        + "intensity-component e f\n"
+        + "sepia f g\n"
+        + "blue-component g h\n"
+        + "red-component source i\n"
+        + "brighten 7 i result\n",
+        "brighten -20 source a\n"
+        + "green-component a b\n"
+        + "levels-adjust 5 60 200 b c\n"
+        + "value-component c d\n"
+        + "brighten 30 d e\n"
+        + "channel-mix " + mix(new Intensity(), new Sepia()) + "e g\n"
+        + "blue-component g h\n"
+        + "red-component source i\n"
+        + "brighten 7 i result\n", "h", "result");
+  }
+
+  @Test
+  public void testReferencedIntermediateAndOverwrittenNames() throws Exception {
+    assertSameResults("brighten 40 source a\n"
+        + "sepia a a\n"
+        + "luma-component a b\n"
+        + "levels-adjust 10 128 240 b source\n"
+        + "blur a a-blur\n", "a", "source", "a-blur");
+  }
+
+  @Test
+  public void testChainedColorMapsAreCollapsed() throws Exception {
+    ChannelMix channelMix = new ChannelMix(
+        new double[][]{{0.5, 0.5, 0}, {0, 0.5, 0.5}, {0.2, 0.3, 0.5}});
+    assertMatchesTyped("luma-component source a\n"
+        + "sepia a b\n"
+        + "channel-mix 0.5 0.5 0 0 0.5 0.5 0.2 0.3 0.5 b c\n"
+        + "intensity-component c d\n",
+        "channel-mix " + mix(new Luma(), new Sepia(), channelMix, new Intensity()) + "source d\n",
+        "d");
+  }
+
+  @Test
+  public void testClampingColorMapsAreCollapsed() throws Exception {
+    ChannelMix channelMix = new ChannelMix(new double[][]{{1.5, -0.5, 0}, {0, 1, 0}, {0, 0, 1}});
+    assertMatchesTyped("sepia source a\n"
+        + "sepia a b\n"
+        + "channel-mix 1.5 -0.5 0 0 1 0 0 0 1 b c\n"
+        + "sepia c d\n",
+        "channel-mix " + mix(new Sepia(), new Sepia(), channelMix, new Sepia()) + "source d\n",
+        "d");
+  }
+
+  @Test
+  public void testSepiaAfterSepiaTakesOnePass() throws Exception {
+    String script = "sepia source a\nsepia a b\n";
+    assertMatchesTyped(script, "channel-mix " + mix(new Sepia(), new Sepia()) + "source b\n",
+        "b");
+    // Two passes would clamp the bright pixels of the first sepia, which the single one does not
+    boolean differs = false;
+    try {
+      assertSameResults(script, "b");
+    } catch (AssertionError e) {
+      differs = true;
+    }
+    assertTrue(differs);
+  }
+
+  @Test
+  public void testFilterCommandsAreFused() throws Exception {
+    assertSameResults("blur source a\n"
+        + "sharpen a b\n"
+        + "sepia b c\n"
+        + "brighten 15 c d\n"
+        + "blur d graded\n", "graded");
+  }
+
+  @Test
+  public void testConvolveCommandIsFused() throws Exception {
+    File kernel = File.createTempFile("kernel", ".txt");
+    kernel.deleteOnExit();
+    Files.write(kernel.toPath(), "0.1 0.2 0.1\n0.05 0.3 0.05\n0 0.1 0.1\n".getBytes());
+    assertSameResults("luma-component source a\n"
+        + "convolve " + kernel.getPath() + " a b\n"
+        + "sharpen b c\n", "c");
+  }
+}
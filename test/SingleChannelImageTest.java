@@ -0,0 +1,183 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import controller.handler.ImageFileHandler;
+import controller.handler.JPEGFileHandler;
+import model.customimage.CustomImage;
+import model.customimage.Image;
+import model.customimage.ImageStorage;
+import model.customimage.SingleChannelImage;
+import model.customimage.TiledImage;
+import model.filter.BlurImage;
+import model.processor.channel.Luma;
+import model.processor.channel.Value;
+import model.processor.colorcombiner.ImageColorCombinerImpl;
+import model.processor.colorcomponent.Blue;
+import model.processor.colorcomponent.Green;
+import model.processor.colorcomponent.Red;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for SingleChannelImage and the channel operations and component extractors that produce
+ * it.
+ */
+public class SingleChannelImageTest {
+
+  private Image image;
+
+  @Before
+  public void setUp() {
+    ImageFileHandler fileHandler = new JPEGFileHandler();
+    try {
+      this.image = fileHandler.loadImage("res/train.jpg", ImageStorage.PACKED);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void assertSameImage(Image expected, Image actual) {
+    assertEquals(expected.getHeight(), actual.getHeight());
+    assertEquals(expected.getWidth(), actual.getWidth());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+  }
+
+  private static Image copyToPacked(Image source) {
+    Image copy = new CustomImage(source.getHeight(), source.getWidth());
+    int[] row = new int[source.getWidth()];
+    for (int y = 0; y < source.getHeight(); y++) {
+      source.getRGBRow(y, 0, source.getWidth(), row, 0);
+      copy.setRGBRow(y, 0, source.getWidth(), row, 0);
+    }
+    return copy;
+  }
+
+  @Test
+  public void testLumaIsSingleChannel() {
+    Image luma = new Luma().applyChannel(image);
+    assertTrue(luma instanceof SingleChannelImage);
+    assertEquals(SingleChannelImage.ALL_CHANNELS, ((SingleChannelImage) luma).getChannelMask());
+    for (int y = 0; y < image.getHeight(); y += 7) {
+      for (int x = 0; x < image.getWidth(); x += 5) {
+        int expected = (int) (0.2126 * image.getRed(y, x) + 0.7152 * image.getGreen(y, x)
+            + 0.0722 * image.getBlue(y, x));
+        assertEquals(expected, luma.getRed(y, x));
+        assertEquals(expected, luma.getGreen(y, x));
+        assertEquals(expected, luma.getBlue(y, x));
+      }
+    }
+  }
+
+  @Test
+  public void testRedComponentShowsOnlyRed() {
+    Image red = new Red().getColorComponent(image);
+    assertTrue(red instanceof SingleChannelImage);
+    for (int y = 0; y < image.getHeight(); y += 7) {
+      for (int x = 0; x < image.getWidth(); x += 5) {
+        assertEquals(image.getRed(y, x), red.getRed(y, x));
+        assertEquals(0, red.getGreen(y, x));
+        assertEquals(0, red.getBlue(y, x));
+        assertEquals(image.getRGB(x, y) & 0xFF0000, red.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testSplitAndCombineRoundTrips() {
+    Image red = new Red().getColorComponent(image);
+    Image green = new Green().getColorComponent(image);
+    Image blue = new Blue().getColorComponent(image);
+    Image combined = new ImageColorCombinerImpl().combineColorComponent(red, green, blue);
+    assertFalse(combined instanceof SingleChannelImage);
+    assertSameImage(image, combined);
+  }
+
+  @Test
+  public void testOperationsMatchPackedCopy() {
+    Image value = new Value().applyChannel(image);
+    Image packedValue = copyToPacked(value);
+    assertSameImage(new BlurImage().applyFilter(packedValue), new BlurImage().applyFilter(value));
+    assertSameImage(packedValue, value.getSubImage(0, 0, value.getHeight(), value.getWidth()));
+  }
+
+  @Test
+  public void testCompatibleImageIsFullColor() {
+    Image grey = new SingleChannelImage(3, 4);
+    Image compatible = grey.createCompatibleImage(3, 4);
+    compatible.setPixelValue(0, 0, 0, 10);
+    compatible.setPixelValue(0, 0, 1, 20);
+    assertEquals(10, compatible.getRed(0, 0));
+    assertEquals(20, compatible.getGreen(0, 0));
+  }
+
+  @Test
+  public void testSettingGreyValueStaysInPlane() {
+    SingleChannelImage grey = new SingleChannelImage(3, 4);
+    grey.setRGBRow(1, 0, 2, new int[]{0x404040, 0xFFFFFF}, 0);
+    grey.setPixelValue(2, 3, 0, 0);
+    assertEquals(0x40, grey.getPlane()[4] & 0xFF);
+    assertEquals(0xFFFFFF, grey.getRGB(1, 1));
+  }
+
+  @Test
+  public void testSettingOneChannelOfGreyscaleResult() {
+    Image luma = new Luma().applyChannel(image);
+    int level = luma.getRed(5, 7);
+    int other = luma.getRed(6, 7);
+    luma.setPixelValue(5, 7, 1, level == 255 ? 0 : 255);
+    assertEquals(level, luma.getRed(5, 7));
+    assertEquals(level == 255 ? 0 : 255, luma.getGreen(5, 7));
+    assertEquals(level, luma.getBlue(5, 7));
+    assertEquals(other, luma.getRed(6, 7));
+    assertEquals(other, luma.getGreen(6, 7));
+    assertEquals(other, luma.getBlue(6, 7));
+  }
+
+  @Test
+  public void testSettingChannelOutsideMask() {
+    Image green = new SingleChannelImage(3, 4, SingleChannelImage.channelBit(1));
+    green.setPixelValue(0, 0, 1, 9);
+    green.setPixelValue(0, 0, 0, 5);
+    assertEquals(5, green.getRed(0, 0));
+    assertEquals(9, green.getGreen(0, 0));
+    assertEquals(0, green.getBlue(0, 0));
+    assertEquals(0, green.getRed(0, 1));
+  }
+
+  @Test
+  public void testSettingColorPixel() {
+    SingleChannelImage grey = new SingleChannelImage(3, 4);
+    grey.setRGBRow(0, 0, 3, new int[]{0x101010, 0x102030, 0x505050}, 0);
+    grey.setChannelRow(1, 1, 2, 2, new int[]{7, 300}, 0);
+    assertEquals(0x101010, grey.getRGB(0, 0));
+    assertEquals(0x102030, grey.getRGB(1, 0));
+    assertEquals(0x505050, grey.getRGB(2, 0));
+    assertEquals(0x000007, grey.getRGB(1, 1));
+    assertEquals(0x0000FF, grey.getRGB(2, 1));
+    assertNull(grey.getPlane());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEmptyMask() {
+    new SingleChannelImage(3, 4, 0);
+  }
+
+  @Test
+  public void testTiledInputStaysTiled() {
+    TiledImage tiled = new TiledImage(20, 30);
+    tiled.setPixelValue(3, 4, 0, 90);
+    Image red = new Red().getColorComponent(tiled);
+    assertTrue(red instanceof TiledImage);
+    assertEquals(90, red.getRed(3, 4));
+    tiled.dispose();
+  }
+}
@@ -0,0 +1,170 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import controller.handler.ImageFileHandler;
+import controller.handler.JPEGFileHandler;
+import model.adjustment.LevelAdjustmentImpl;
+import model.colortransform.Sepia;
+import model.customimage.Image;
+import model.customimage.ImageStorage;
+import model.customimage.TileSource;
+import model.customimage.TiledImage;
+import model.filter.BlurImage;
+import model.filter.SharpenImage;
+import model.processor.brightness.Brighten;
+import model.processor.channel.Luma;
+import model.processor.flip.HorizontalFlip;
+import model.processor.flip.VerticalFlip;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that a TiledImage gives the same results as a packed image, including when its memory
+ * budget forces tiles out to the spill file.
+ */
+public class TiledImageTest {
+
+  private static final int TILE_HEIGHT = 37;
+  private static final int TILE_WIDTH = 53;
+  // Room for four tiles, so any operation spills
+  private static final long BUDGET = 4L * 4 * TILE_HEIGHT * TILE_WIDTH;
+
+  private Image packedImage;
+  private TiledImage tiledImage;
+
+  @Before
+  public void setUp() {
+    ImageFileHandler fileHandler = new JPEGFileHandler();
+    try {
+      this.packedImage = fileHandler.loadImage("res/train.jpg", ImageStorage.PACKED);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    this.tiledImage = new TiledImage(packedImage.getHeight(), packedImage.getWidth(),
+        TILE_HEIGHT, TILE_WIDTH, BUDGET, null);
+    this.tiledImage.setPixelValuesFromBufferedImage(packedImage.convertMatrixToImage());
+  }
+
+  private void assertSameImage(Image expected, Image actual) {
+    assertEquals(expected.getHeight(), actual.getHeight());
+    assertEquals(expected.getWidth(), actual.getWidth());
+    int[] expectedRow = new int[expected.getWidth()];
+    int[] actualRow = new int[actual.getWidth()];
+    for (int y = 0; y < expected.getHeight(); y++) {
+      expected.getRGBRow(y, 0, expected.getWidth(), expectedRow, 0);
+      actual.getRGBRow(y, 0, actual.getWidth(), actualRow, 0);
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expectedRow[x], actualRow[x]);
+      }
+    }
+  }
+
+  @Test
+  public void testRoundTripThroughSpill() {
+    assertTrue(tiledImage.getResidentTileCount() <= tiledImage.getMaxResidentTiles());
+    assertEquals(4, tiledImage.getMaxResidentTiles());
+    assertSameImage(packedImage, tiledImage);
+  }
+
+  @Test
+  public void testSetPixelValueSurvivesEviction() {
+    tiledImage.setPixelValue(3, 4, 1, 300);
+    // Touch every tile so the changed one is spilled and read back
+    assertSameImage(tiledImage, tiledImage.getSubImage(0, 0, tiledImage.getHeight(),
+        tiledImage.getWidth()));
+    assertEquals(255, tiledImage.getGreen(3, 4));
+  }
+
+  @Test
+  public void testPointOperations() {
+    assertSameImage(new Luma().applyChannel(packedImage), new Luma().applyChannel(tiledImage));
+    assertSameImage(new Brighten().adjustImage(packedImage, 30),
+        new Brighten().adjustImage(tiledImage, 30));
+    assertSameImage(new Sepia().applyColorTransform(packedImage),
+        new Sepia().applyColorTransform(tiledImage));
+    assertSameImage(new LevelAdjustmentImpl().adjustImageLevels(packedImage, 20, 100, 220),
+        new LevelAdjustmentImpl().adjustImageLevels(tiledImage, 20, 100, 220));
+  }
+
+  @Test
+  public void testFiltersAcrossTileEdges() {
+    Image blurred = new BlurImage().applyFilter(tiledImage);
+    assertTrue(blurred instanceof TiledImage);
+    assertSameImage(new BlurImage().applyFilter(packedImage), blurred);
+    assertSameImage(new SharpenImage().applyFilter(packedImage),
+        new SharpenImage().applyFilter(tiledImage));
+  }
+
+  @Test
+  public void testFlips() {
+    assertSameImage(new HorizontalFlip().flipImage(packedImage),
+        new HorizontalFlip().flipImage(tiledImage));
+    assertSameImage(new VerticalFlip().flipImage(packedImage),
+        new VerticalFlip().flipImage(tiledImage));
+  }
+
+  @Test
+  public void testLoadTiledDecodesFromFile() throws IOException {
+    Image loaded = new JPEGFileHandler().loadImage("res/train.jpg", ImageStorage.TILED);
+    assertTrue(loaded instanceof TiledImage);
+    assertEquals(0, ((TiledImage) loaded).getResidentTileCount());
+    assertSameImage(packedImage, loaded);
+  }
+
+  @Test
+  public void testSourceDecodedOnceInBands() {
+    CountingSource source = new CountingSource(packedImage);
+    int height = packedImage.getHeight();
+    int width = packedImage.getWidth();
+    int tilesAcross = (width + TILE_WIDTH - 1) / TILE_WIDTH;
+    int tilesDown = (height + TILE_HEIGHT - 1) / TILE_HEIGHT;
+    // Room for two whole tile rows, so the image takes several bands and spills
+    long budget = 4L * 2 * tilesAcross * TILE_HEIGHT * TILE_WIDTH;
+    TiledImage loaded = new TiledImage(height, width, TILE_HEIGHT, TILE_WIDTH, budget, source);
+    assertSameImage(packedImage, loaded);
+    assertEquals((tilesDown + 1) / 2, source.reads);
+    // A second pass reads evicted tiles back from the spill file, not from the source
+    assertSameImage(packedImage, loaded);
+    assertEquals((tilesDown + 1) / 2, source.reads);
+    loaded.dispose();
+  }
+
+  @Test
+  public void testBandNarrowerThanRow() {
+    CountingSource source = new CountingSource(packedImage);
+    TiledImage loaded = new TiledImage(packedImage.getHeight(), packedImage.getWidth(),
+        TILE_HEIGHT, TILE_WIDTH, BUDGET, source);
+    int tilesAcross = (packedImage.getWidth() + TILE_WIDTH - 1) / TILE_WIDTH;
+    int tilesDown = (packedImage.getHeight() + TILE_HEIGHT - 1) / TILE_HEIGHT;
+    assertSameImage(new BlurImage().applyFilter(packedImage), new BlurImage().applyFilter(loaded));
+    assertEquals(tilesDown * ((tilesAcross + 3) / 4), source.reads);
+    loaded.dispose();
+  }
+
+  /**
+   * A tile source over an image in memory that counts its reads.
+   */
+  private static final class CountingSource implements TileSource {
+    private final Image image;
+    private int reads;
+
+    CountingSource(Image image) {
+      this.image = image;
+    }
+
+    @Override
+    public void readRegion(int y, int x, int height, int width, int[] buffer, int offset,
+        int scansize) {
+      reads++;
+      image.getRGBSpan(y, x, height, width, buffer, offset, scansize);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRowOutsideImage() {
+    tiledImage.getRGBRow(0, 1, tiledImage.getWidth(), new int[tiledImage.getWidth()], 0);
+  }
+}
@@ -0,0 +1,110 @@
+import org.junit.Test;
+
+import model.customimage.CustomImage;
+import model.customimage.Image;
+import model.customimage.ImageBlocks;
+import model.customimage.TiledImage;
+import model.filter.GaussianBlur;
+import model.filter.UnsharpMask;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that the fused unsharp mask gives what blurring the image and then combining it with the
+ * blur pixel by pixel gives.
+ */
+public class UnsharpMaskTest extends AbstractRandomImageTest {
+
+
+  public UnsharpMaskTest() {
+    super(31);
+  }
+
+  /**
+   * Sharpens an image against a separately blurred copy, one channel at a time.
+   */
+  private void assertUnsharp(Image image, double radius, double amount, int threshold) {
+    Image blurred = new GaussianBlur(radius).applyFilter(image);
+    Image result = new UnsharpMask(radius, amount, threshold).applyFilter(image);
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        int expected = 0;
+        for (int shift = 16; shift >= 0; shift -= 8) {
+          int level = (image.getRGB(x, y) >> shift) & 0xFF;
+          int difference = level - ((blurred.getRGB(x, y) >> shift) & 0xFF);
+          if (Math.abs(difference) >= threshold) {
+            level = (int) Math.max(0, Math.min(255, level + Math.round(amount * difference)));
+          }
+          expected |= level << shift;
+        }
+        assertEquals(expected, result.getRGB(x, y) & 0xFFFFFF);
+      }
+    }
+  }
+
+  @Test
+  public void testMatchesBlurThenCombine() {
+    assertUnsharp(randomImage(new CustomImage(97, 150)), 2, 1.5, 0);
+    assertUnsharp(randomImage(new CustomImage(97, 150)), 0.8, 0.6, 10);
+  }
+
+  @Test
+  public void testThreshold() {
+    assertUnsharp(randomImage(new CustomImage(60, 70)), 3, 2, 100);
+    assertUnsharp(randomImage(new CustomImage(60, 70)), 3, 2, 255);
+  }
+
+  @Test
+  public void testLargeAmountAndRadius() {
+    assertUnsharp(randomImage(new CustomImage(40, 130)), 50, 1e6, 3);
+  }
+
+  @Test
+  public void testZeroAmountCopies() {
+    Image image = randomImage(new CustomImage(33, 44));
+    Image result = new UnsharpMask(4, 0, 0).applyFilter(image);
+    for (int y = 0; y < 33; y++) {
+      for (int x = 0; x < 44; x++) {
+        assertEquals(image.getRGB(x, y) & 0xFFFFFF, result.getRGB(x, y) & 0xFFFFFF);
+      }
+    }
+  }
+
+  @Test
+  public void testTiledImage() {
+    TiledImage tiled = new TiledImage(150, 200, 64, 48, 16L << 20, null);
+    randomImage(tiled);
+    assertUnsharp(tiled, 1.5, 1, 2);
+    tiled.dispose();
+  }
+
+  @Test
+  public void testParallelMatchesSerial() {
+    Image image = randomImage(new CustomImage(613, 701));
+    UnsharpMask unsharpMask = new UnsharpMask(2.5, 1.2, 5);
+    ImageBlocks.setParallelism(1);
+    Image serial = unsharpMask.applyFilter(image);
+    ImageBlocks.setParallelism(4);
+    Image parallel = unsharpMask.applyFilter(image);
+    for (int y = 0; y < 613; y++) {
+      for (int x = 0; x < 701; x++) {
+        assertEquals(serial.getRGB(x, y), parallel.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testZeroRadius() {
+    new UnsharpMask(0, 1, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeAmount() {
+    new UnsharpMask(2, -0.5, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testThresholdOutOfRange() {
+    new UnsharpMask(2, 1, 256);
+  }
+}